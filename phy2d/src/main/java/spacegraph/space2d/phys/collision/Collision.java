@@ -184,7 +184,6 @@ public class Collision {
     
 
     
-    private static final v2 d = new v2();
 
     /**
      * Compute the collision manifold between two circles.
@@ -692,6 +691,7 @@ public class Collision {
     private final ContactID cf = new ContactID();
     private final v2 e1 = new v2();
     private final v2 P = new v2();
+    private final v2 d = new v2();
 
     
     
@@ -33,12 +33,40 @@ import spacegraph.space2d.phys.common.BufferUtils;
 import spacegraph.space2d.phys.common.Settings;
 import spacegraph.util.math.Color3f;
 
+import java.util.Arrays;
+
+/**
+ * Dynamic AABB tree with its nodes stored in parallel primitive arrays; the bounds of node n are
+ * m_box[4n .. 4n+3] (lower x, lower y, upper x, upper y).  Traversals touch no objects, and
+ * steady-state use does not allocate.
+ * <p>
+ * By default a proxy that leaves its fat AABB is re-inserted immediately, as in {@link DynamicTree}.
+ * With {@link #deferMoves} the leaf bounds are only updated, and the tree is brought up to date
+ * before the next query, ray-cast or structural change: either by refitting the ancestors of
+ * the moved leaves, or, when more than {@link #rebuildFraction} of the leaves moved (or the
+ * refits since the last rebuild add up to every leaf), by rebuilding the whole tree top-down
+ * with a binned surface area heuristic.  That suits worlds where most proxies move every step.
+ */
 public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
     public static final int MAX_STACK_SIZE = 64;
     private static final int NULL_NODE = -1;
     public static final int INITIAL_BUFFER_LENGTH = 16;
 
+    private static final int SAH_BINS = 16;
+
+    /**
+     * batch the tree updates of moved proxies; see the class description
+     */
+    public boolean deferMoves;
+
+    /**
+     * fraction of the leaves that, moved in one batch, triggers a rebuild instead of a refit
+     */
+    public float rebuildFraction = 0.25f;
+
     private int m_root;
+    private float[] m_box;
+    /** AABB views of m_box for getFatAABB, filled on demand */
     private AABB[] m_aabb;
     private Object[] m_userData;
     private int[] m_parent;
@@ -51,6 +79,18 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
 
     private int m_freeList;
 
+    /** leaves moved since the last refit, when deferring moves */
+    private int[] m_moved = new int[INITIAL_BUFFER_LENGTH];
+    private int m_movedCount;
+    private int m_refitSinceRebuild;
+
+    /** rebuild scratch: leaf list, leaf centroids (by node), bins */
+    private int[] m_leaves = new int[0];
+    private float[] m_centroid = new float[0];
+    private final int[] binCount = new int[SAH_BINS];
+    private final float[] binBox = new float[SAH_BINS * 4];
+    private final float[] binCost = new float[SAH_BINS];
+
     private final v2[] drawVecs = new v2[4];
 
     public DynamicTreeFlatNodes() {
@@ -65,6 +105,7 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
     }
 
     private void expandBuffers(int oldSize, int newSize) {
+        m_box = Arrays.copyOf(m_box == null ? new float[0] : m_box, newSize * 4);
         m_aabb = BufferUtils.reallocateBuffer(AABB.class, m_aabb, oldSize, newSize);
         m_userData = BufferUtils.reallocateBuffer(Object.class, m_userData, oldSize, newSize);
         m_parent = BufferUtils.reallocateBuffer(m_parent, oldSize, newSize);
@@ -74,7 +115,6 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
 
         
         for (int i = oldSize; i < newSize; i++) {
-            m_aabb[i] = new AABB();
             m_parent[i] = (i == newSize - 1) ? NULL_NODE : i + 1;
             m_height[i] = -1;
             m_child1[i] = -1;
@@ -85,13 +125,14 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
 
     @Override
     public final int createProxy(AABB aabb, Object userData) {
+        refit();
         int node = allocateNode();
         
-        AABB nodeAABB = m_aabb[node];
-        nodeAABB.lowerBound.x = aabb.lowerBound.x - Settings.aabbExtension;
-        nodeAABB.lowerBound.y = aabb.lowerBound.y - Settings.aabbExtension;
-        nodeAABB.upperBound.x = aabb.upperBound.x + Settings.aabbExtension;
-        nodeAABB.upperBound.y = aabb.upperBound.y + Settings.aabbExtension;
+        int b = node * 4;
+        m_box[b] = aabb.lowerBound.x - Settings.aabbExtension;
+        m_box[b + 1] = aabb.lowerBound.y - Settings.aabbExtension;
+        m_box[b + 2] = aabb.upperBound.x + Settings.aabbExtension;
+        m_box[b + 3] = aabb.upperBound.y + Settings.aabbExtension;
         m_userData[node] = userData;
 
         insertLeaf(node);
@@ -104,6 +145,7 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         assert (0 <= proxyId && proxyId < m_nodeCapacity);
         assert (m_child1[proxyId] == NULL_NODE);
 
+        refit();
         removeLeaf(proxyId);
         freeNode(proxyId);
     }
@@ -114,52 +156,75 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         int node = proxyId;
         assert (m_child1[node] == NULL_NODE);
 
-        AABB nodeAABB = m_aabb[node];
+        float[] box = m_box;
+        int b = node * 4;
         
-        if (nodeAABB.lowerBound.x <= aabb.lowerBound.x && nodeAABB.lowerBound.y <= aabb.lowerBound.y
-                && aabb.upperBound.x <= nodeAABB.upperBound.x && aabb.upperBound.y <= nodeAABB.upperBound.y) {
+        if (box[b] <= aabb.lowerBound.x && box[b + 1] <= aabb.lowerBound.y
+                && aabb.upperBound.x <= box[b + 2] && aabb.upperBound.y <= box[b + 3]) {
             return false;
         }
 
-        removeLeaf(node);
+        if (!deferMoves)
+            removeLeaf(node);
 
         
-        v2 lowerBound = nodeAABB.lowerBound;
-        v2 upperBound = nodeAABB.upperBound;
-        lowerBound.x = aabb.lowerBound.x - Settings.aabbExtension;
-        lowerBound.y = aabb.lowerBound.y - Settings.aabbExtension;
-        upperBound.x = aabb.upperBound.x + Settings.aabbExtension;
-        upperBound.y = aabb.upperBound.y + Settings.aabbExtension;
+        float lx = aabb.lowerBound.x - Settings.aabbExtension;
+        float ly = aabb.lowerBound.y - Settings.aabbExtension;
+        float ux = aabb.upperBound.x + Settings.aabbExtension;
+        float uy = aabb.upperBound.y + Settings.aabbExtension;
 
         
         float dx = displacement.x * Settings.aabbMultiplier;
         float dy = displacement.y * Settings.aabbMultiplier;
         if (dx < 0.0f) {
-            lowerBound.x += dx;
+            lx += dx;
         } else {
-            upperBound.x += dx;
+            ux += dx;
         }
 
         if (dy < 0.0f) {
-            lowerBound.y += dy;
+            ly += dy;
         } else {
-            upperBound.y += dy;
+            uy += dy;
         }
 
-        insertLeaf(proxyId);
+        box[b] = lx;
+        box[b + 1] = ly;
+        box[b + 2] = ux;
+        box[b + 3] = uy;
+
+        if (deferMoves) {
+            if (m_movedCount == m_moved.length)
+                m_moved = Arrays.copyOf(m_moved, m_movedCount * 2);
+            m_moved[m_movedCount++] = node;
+        } else
+            insertLeaf(proxyId);
         return true;
     }
 
     @Override
     public final Object getUserData(int proxyId) {
-        assert (0 <= proxyId && proxyId < m_nodeCount);
+        assert (0 <= proxyId && proxyId < m_nodeCapacity);
         return m_userData[proxyId];
     }
 
     @Override
     public final AABB getFatAABB(int proxyId) {
-        assert (0 <= proxyId && proxyId < m_nodeCount);
-        return m_aabb[proxyId];
+        assert (0 <= proxyId && proxyId < m_nodeCapacity);
+        return aabb(proxyId);
+    }
+
+    /** the AABB view of a node, updated from its bounds */
+    private AABB aabb(int node) {
+        AABB a = m_aabb[node];
+        if (a == null)
+            m_aabb[node] = a = new AABB();
+        int b = node * 4;
+        a.lowerBound.x = m_box[b];
+        a.lowerBound.y = m_box[b + 1];
+        a.upperBound.x = m_box[b + 2];
+        a.upperBound.y = m_box[b + 3];
+        return a;
     }
 
     private int[] nodeStack = new int[20];
@@ -167,6 +232,9 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
 
     @Override
     public final void query(TreeCallback callback, AABB aabb) {
+        refit();
+
+        float lx = aabb.lowerBound.x, ly = aabb.lowerBound.y, ux = aabb.upperBound.x, uy = aabb.upperBound.y;
         nodeStackIndex = 0;
         nodeStack[nodeStackIndex++] = m_root;
 
@@ -176,7 +244,9 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
                 continue;
             }
 
-            if (AABB.testOverlap(m_aabb[node], aabb)) {
+            float[] box = m_box;
+            int b = node * 4;
+            if (!(lx - box[b + 2] > 0.0f || ly - box[b + 3] > 0.0f || box[b] - ux > 0.0f || box[b + 1] - uy > 0.0f)) {
                 int child1 = m_child1[node];
                 if (child1 == NULL_NODE) {
                     boolean proceed = callback.treeCallback(node);
@@ -196,11 +266,12 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
     }
 
     private final v2 r = new v2();
-    private final AABB aabb = new AABB();
     private final RayCastInput subInput = new RayCastInput();
 
     @Override
     public void raycast(TreeRayCastCallback callback, RayCastInput input) {
+        refit();
+
         v2 p1 = input.p1;
         v2 p2 = input.p2;
         float p1x = p1.x, p2x = p2.x, p1y = p1.y, p2y = p2.y;
@@ -215,15 +286,12 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         float maxFraction = input.maxFraction;
 
         
-        AABB segAABB = aabb;
-
-
         float tempx = (p2x - p1x) * maxFraction + p1x;
         float tempy = (p2y - p1y) * maxFraction + p1y;
-        segAABB.lowerBound.x = Math.min(p1x, tempx);
-        segAABB.lowerBound.y = Math.min(p1y, tempy);
-        segAABB.upperBound.x = Math.max(p1x, tempx);
-        segAABB.upperBound.y = Math.max(p1y, tempy);
+        float segLX = Math.min(p1x, tempx);
+        float segLY = Math.min(p1y, tempy);
+        float segUX = Math.max(p1x, tempx);
+        float segUY = Math.max(p1y, tempy);
         
 
         nodeStackIndex = 0;
@@ -233,21 +301,23 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         float vx = -1.0f * ry;
         float absVx = Math.abs(vx);
         while (nodeStackIndex > 0) {
-            int node = nodeStack[--nodeStackIndex] = m_root;
+            int node = nodeStack[--nodeStackIndex];
             if (node == NULL_NODE) {
                 continue;
             }
 
-            AABB nodeAABB = m_aabb[node];
-            if (!AABB.testOverlap(nodeAABB, segAABB)) {
+            float[] box = m_box;
+            int b = node * 4;
+            float lx = box[b], ly = box[b + 1], ux = box[b + 2], uy = box[b + 3];
+            if (segLX - ux > 0.0f || segLY - uy > 0.0f || lx - segUX > 0.0f || ly - segUY > 0.0f) {
                 continue;
             }
 
 
-            float cx = (nodeAABB.lowerBound.x + nodeAABB.upperBound.x) * 0.5f;
-            float cy = (nodeAABB.lowerBound.y + nodeAABB.upperBound.y) * 0.5f;
-            float hx = (nodeAABB.upperBound.x - nodeAABB.lowerBound.x) * 0.5f;
-            float hy = (nodeAABB.upperBound.y - nodeAABB.lowerBound.y) * 0.5f;
+            float cx = (lx + ux) * 0.5f;
+            float cy = (ly + uy) * 0.5f;
+            float hx = (ux - lx) * 0.5f;
+            float hy = (uy - ly) * 0.5f;
             tempx = p1x - cx;
             tempy = p1y - cy;
             float separation = Math.abs(vx * tempx + vy * tempy) - (absVx * hx + absVy * hy);
@@ -278,18 +348,196 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
                     
                     tempx = (p2x - p1x) * maxFraction + p1x;
                     tempy = (p2y - p1y) * maxFraction + p1y;
-                    segAABB.lowerBound.x = Math.min(p1x, tempx);
-                    segAABB.lowerBound.y = Math.min(p1y, tempy);
-                    segAABB.upperBound.x = Math.max(p1x, tempx);
-                    segAABB.upperBound.y = Math.max(p1y, tempy);
+                    segLX = Math.min(p1x, tempx);
+                    segLY = Math.min(p1y, tempy);
+                    segUX = Math.max(p1x, tempx);
+                    segUY = Math.max(p1y, tempy);
                 }
             } else {
+                if (nodeStack.length - nodeStackIndex - 2 <= 0) {
+                    nodeStack =
+                            BufferUtils.reallocateBuffer(nodeStack, nodeStack.length, nodeStack.length * 2);
+                }
                 nodeStack[nodeStackIndex++] = child1;
                 nodeStack[nodeStackIndex++] = m_child2[node];
             }
         }
     }
 
+    /**
+     * brings the internal nodes up to date with the leaves moved since the last call, when
+     * deferring moves.  called by the queries; does nothing when there is nothing pending.
+     */
+    public final void refit() {
+        int n = m_movedCount;
+        if (n == 0)
+            return;
+
+        int leaves = (m_nodeCount + 1) / 2;
+        m_refitSinceRebuild += n;
+        if (n > rebuildFraction * leaves || m_refitSinceRebuild > leaves) {
+            rebuild();
+            return;
+        }
+
+        int[] moved = m_moved;
+        for (int i = 0; i < n; i++) {
+            int index = m_parent[moved[i]];
+            while (index != NULL_NODE) {
+                int b = index * 4;
+                float lx = m_box[b], ly = m_box[b + 1], ux = m_box[b + 2], uy = m_box[b + 3];
+                combine(index, m_child1[index], m_child2[index]);
+                if (lx == m_box[b] && ly == m_box[b + 1] && ux == m_box[b + 2] && uy == m_box[b + 3])
+                    break; //ancestors unaffected
+                index = m_parent[index];
+            }
+        }
+        m_movedCount = 0;
+    }
+
+    /**
+     * rebuilds the tree from its leaves, top-down, splitting each range of leaves where the
+     * binned surface area heuristic (perimeter, in 2D) is lowest
+     */
+    public void rebuild() {
+        m_movedCount = 0;
+        m_refitSinceRebuild = 0;
+
+        if (m_leaves.length < m_nodeCapacity) {
+            m_leaves = new int[m_nodeCapacity];
+            m_centroid = new float[m_nodeCapacity * 2];
+        }
+
+        int leaves = 0;
+        for (int i = 0; i < m_nodeCapacity; i++) {
+            int h = m_height[i];
+            if (h == 0) {
+                m_leaves[leaves++] = i;
+                int b = i * 4;
+                m_centroid[i * 2] = (m_box[b] + m_box[b + 2]) * 0.5f;
+                m_centroid[i * 2 + 1] = (m_box[b + 1] + m_box[b + 3]) * 0.5f;
+            } else if (h > 0) {
+                freeNode(i);
+            }
+        }
+
+        if (leaves == 0) {
+            m_root = NULL_NODE;
+            return;
+        }
+        m_root = build(0, leaves);
+        m_parent[m_root] = NULL_NODE;
+    }
+
+    private int build(int from, int to) {
+        int[] leaves = m_leaves;
+        if (to - from == 1)
+            return leaves[from];
+
+        float[] centroid = m_centroid;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            int c = leaves[i] * 2;
+            float x = centroid[c], y = centroid[c + 1];
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+        int axis = (maxX - minX) >= (maxY - minY) ? 0 : 1;
+        float min = axis == 0 ? minX : minY;
+        float extent = axis == 0 ? maxX - minX : maxY - minY;
+
+        int mid = -1;
+        if (extent > 0) {
+            float scale = SAH_BINS / extent;
+            int split = sahSplit(from, to, axis, min, scale);
+            //partition: leaves in bins <= split first
+            int i = from, j = to - 1;
+            while (i <= j) {
+                if (bin(leaves[i], axis, min, scale) <= split)
+                    i++;
+                else {
+                    int t = leaves[i]; leaves[i] = leaves[j]; leaves[j] = t;
+                    j--;
+                }
+            }
+            mid = i;
+        }
+        if (mid <= from || mid >= to)
+            mid = (from + to) >>> 1; //coincident centroids: any balanced split
+
+        int c1 = build(from, mid);
+        int c2 = build(mid, to);
+
+        int node = allocateNode();
+        m_userData[node] = null;
+        m_child1[node] = c1;
+        m_child2[node] = c2;
+        m_parent[c1] = node;
+        m_parent[c2] = node;
+        m_height[node] = 1 + Math.max(m_height[c1], m_height[c2]);
+        combine(node, c1, c2);
+        return node;
+    }
+
+    private int bin(int leaf, int axis, float min, float scale) {
+        return Math.min(SAH_BINS - 1, (int) ((m_centroid[leaf * 2 + axis] - min) * scale));
+    }
+
+    /** @return the last bin of the left side of the cheapest split */
+    private int sahSplit(int from, int to, int axis, float min, float scale) {
+        int[] count = binCount;
+        float[] bb = binBox, cost = binCost;
+        Arrays.fill(count, 0);
+        for (int k = 0; k < SAH_BINS; k++) {
+            bb[k * 4] = bb[k * 4 + 1] = Float.POSITIVE_INFINITY;
+            bb[k * 4 + 2] = bb[k * 4 + 3] = Float.NEGATIVE_INFINITY;
+        }
+        float[] box = m_box;
+        for (int i = from; i < to; i++) {
+            int leaf = m_leaves[i];
+            int k = bin(leaf, axis, min, scale) * 4, b = leaf * 4;
+            count[k / 4]++;
+            bb[k] = Math.min(bb[k], box[b]);
+            bb[k + 1] = Math.min(bb[k + 1], box[b + 1]);
+            bb[k + 2] = Math.max(bb[k + 2], box[b + 2]);
+            bb[k + 3] = Math.max(bb[k + 3], box[b + 3]);
+        }
+
+        //right-to-left sweep: cost of the right side starting at each bin
+        float lx = Float.POSITIVE_INFINITY, ly = Float.POSITIVE_INFINITY;
+        float ux = Float.NEGATIVE_INFINITY, uy = Float.NEGATIVE_INFINITY;
+        int n = 0;
+        for (int k = SAH_BINS - 1; k > 0; k--) {
+            int kb = k * 4;
+            lx = Math.min(lx, bb[kb]); ly = Math.min(ly, bb[kb + 1]);
+            ux = Math.max(ux, bb[kb + 2]); uy = Math.max(uy, bb[kb + 3]);
+            n += count[k];
+            cost[k] = n == 0 ? 0 : n * (ux - lx + uy - ly);
+        }
+
+        //left-to-right sweep, choosing the cheapest boundary
+        lx = ly = Float.POSITIVE_INFINITY;
+        ux = uy = Float.NEGATIVE_INFINITY;
+        n = 0;
+        int best = 0;
+        float bestCost = Float.POSITIVE_INFINITY;
+        for (int k = 0; k < SAH_BINS - 1; k++) {
+            int kb = k * 4;
+            lx = Math.min(lx, bb[kb]); ly = Math.min(ly, bb[kb + 1]);
+            ux = Math.max(ux, bb[kb + 2]); uy = Math.max(uy, bb[kb + 3]);
+            n += count[k];
+            float c = (n == 0 ? 0 : n * (ux - lx + uy - ly)) + cost[k + 1];
+            if (c < bestCost) {
+                bestCost = c;
+                best = k;
+            }
+        }
+        return best;
+    }
+
     @Override
     public final int computeHeight() {
         return computeHeight(m_root);
@@ -310,6 +558,7 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
      * Validate this tree. For testing.
      */
     public void validate() {
+        refit();
         validateStructure(m_root);
         validateMetrics(m_root);
 
@@ -358,8 +607,8 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
             return 0.0f;
         }
 
-        int root = m_root;
-        float rootArea = m_aabb[root].getPerimeter();
+        refit();
+        float rootArea = perimeter(m_root);
 
         float totalArea = 0.0f;
         for (int i = 0; i < m_nodeCapacity; ++i) {
@@ -368,79 +617,35 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
                 continue;
             }
 
-            totalArea += m_aabb[i].getPerimeter();
+            totalArea += perimeter(i);
         }
 
         return totalArea / rootArea;
     }
 
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
-    
+    private float perimeter(int node) {
+        float[] box = m_box;
+        int b = node * 4;
+        return 2.0f * (box[b + 2] - box[b] + box[b + 3] - box[b + 1]);
+    }
+
+    /** perimeter of the union of two nodes' bounds */
+    private float perimeter(int a, int b) {
+        float[] box = m_box;
+        int i = a * 4, j = b * 4;
+        return 2.0f * (Math.max(box[i + 2], box[j + 2]) - Math.min(box[i], box[j])
+                + Math.max(box[i + 3], box[j + 3]) - Math.min(box[i + 1], box[j + 1]));
+    }
+
+    /** sets the bounds of a node to the union of two others */
+    private void combine(int node, int a, int b) {
+        float[] box = m_box;
+        int n = node * 4, i = a * 4, j = b * 4;
+        box[n] = Math.min(box[i], box[j]);
+        box[n + 1] = Math.min(box[i + 1], box[j + 1]);
+        box[n + 2] = Math.max(box[i + 2], box[j + 2]);
+        box[n + 3] = Math.max(box[i + 3], box[j + 3]);
+    }
 
     private int allocateNode() {
         if (m_freeList == NULL_NODE) {
@@ -470,8 +675,6 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         m_nodeCount--;
     }
 
-    private final AABB combinedAABB = new AABB();
-
     private void insertLeaf(int leaf) {
         if (m_root == NULL_NODE) {
             m_root = leaf;
@@ -480,45 +683,32 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         }
 
         
-        AABB leafAABB = m_aabb[leaf];
         int index = m_root;
         while (m_child1[index] != NULL_NODE) {
             int node = index;
             int child1 = m_child1[node];
             int child2 = m_child2[node];
-            AABB nodeAABB = m_aabb[node];
-            float area = nodeAABB.getPerimeter();
+            float area = perimeter(node);
 
-            combinedAABB.combine(nodeAABB, leafAABB);
-            float combinedArea = combinedAABB.getPerimeter();
+            float combinedArea = perimeter(node, leaf);
 
 
             float inheritanceCost = 2.0f * (combinedArea - area);
 
             
             float cost1;
-            AABB child1AABB = m_aabb[child1];
             if (m_child1[child1] == NULL_NODE) {
-                combinedAABB.combine(leafAABB, child1AABB);
-                cost1 = combinedAABB.getPerimeter() + inheritanceCost;
+                cost1 = perimeter(leaf, child1) + inheritanceCost;
             } else {
-                combinedAABB.combine(leafAABB, child1AABB);
-                float oldArea = child1AABB.getPerimeter();
-                float newArea = combinedAABB.getPerimeter();
-                cost1 = (newArea - oldArea) + inheritanceCost;
+                cost1 = (perimeter(leaf, child1) - perimeter(child1)) + inheritanceCost;
             }
 
             
             float cost2;
-            AABB child2AABB = m_aabb[child2];
             if (m_child1[child2] == NULL_NODE) {
-                combinedAABB.combine(leafAABB, child2AABB);
-                cost2 = combinedAABB.getPerimeter() + inheritanceCost;
+                cost2 = perimeter(leaf, child2) + inheritanceCost;
             } else {
-                combinedAABB.combine(leafAABB, child2AABB);
-                float oldArea = child2AABB.getPerimeter();
-                float newArea = combinedAABB.getPerimeter();
-                cost2 = newArea - oldArea + inheritanceCost;
+                cost2 = perimeter(leaf, child2) - perimeter(child2) + inheritanceCost;
             }
 
 
@@ -536,7 +726,7 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         int newParent = allocateNode();
         m_parent[newParent] = oldParent;
         m_userData[newParent] = null;
-        m_aabb[newParent].combine(leafAABB, m_aabb[sibling]);
+        combine(newParent, leaf, sibling);
         m_height[newParent] = m_height[sibling] + 1;
 
         if (oldParent != NULL_NODE) {
@@ -572,7 +762,7 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
             assert (child2 != NULL_NODE);
 
             m_height[index] = 1 + Math.max(m_height[child1], m_height[child2]);
-            m_aabb[index].combine(m_aabb[child1], m_aabb[child2]);
+            combine(index, child1, child2);
 
             index = m_parent[index];
         }
@@ -610,7 +800,7 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
                 int child1 = m_child1[index];
                 int child2 = m_child2[index];
 
-                m_aabb[index].combine(m_aabb[child1], m_aabb[child2]);
+                combine(index, child1, child2);
                 m_height[index] = 1 + Math.max(m_height[child1], m_height[child2]);
 
                 index = m_parent[index];
@@ -677,8 +867,8 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
                 m_child2[C] = iF;
                 m_child2[A] = iG;
                 m_parent[G] = iA;
-                m_aabb[A].combine(m_aabb[B], m_aabb[G]);
-                m_aabb[C].combine(m_aabb[A], m_aabb[F]);
+                combine(A, B, G);
+                combine(C, A, F);
 
                 m_height[A] = 1 + Math.max(m_height[B], m_height[G]);
                 m_height[C] = 1 + Math.max(m_height[A], m_height[F]);
@@ -686,8 +876,8 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
                 m_child2[C] = iG;
                 m_child2[A] = iF;
                 m_parent[F] = iA;
-                m_aabb[A].combine(m_aabb[B], m_aabb[F]);
-                m_aabb[C].combine(m_aabb[A], m_aabb[G]);
+                combine(A, B, F);
+                combine(C, A, G);
 
                 m_height[A] = 1 + Math.max(m_height[B], m_height[F]);
                 m_height[C] = 1 + Math.max(m_height[A], m_height[G]);
@@ -727,8 +917,8 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
                 m_child2[B] = iD;
                 m_child1[A] = iE;
                 m_parent[E] = iA;
-                m_aabb[A].combine(m_aabb[C], m_aabb[E]);
-                m_aabb[B].combine(m_aabb[A], m_aabb[D]);
+                combine(A, C, E);
+                combine(B, A, D);
 
                 m_height[A] = 1 + Math.max(m_height[C], m_height[E]);
                 m_height[B] = 1 + Math.max(m_height[A], m_height[D]);
@@ -736,8 +926,8 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
                 m_child2[B] = iE;
                 m_child1[A] = iD;
                 m_parent[D] = iA;
-                m_aabb[A].combine(m_aabb[C], m_aabb[D]);
-                m_aabb[B].combine(m_aabb[A], m_aabb[E]);
+                combine(A, C, D);
+                combine(B, A, E);
 
                 m_height[A] = 1 + Math.max(m_height[C], m_height[D]);
                 m_height[B] = 1 + Math.max(m_height[A], m_height[E]);
@@ -799,11 +989,11 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         int height = 1 + Math.max(height1, height2);
         assert (m_height[node] == height);
 
-        AABB aabb = new AABB();
-        aabb.combine(m_aabb[child1], m_aabb[child2]);
-
-        assert (aabb.lowerBound.equals(m_aabb[node].lowerBound));
-        assert (aabb.upperBound.equals(m_aabb[node].upperBound));
+        int n = node * 4, i = child1 * 4, j = child2 * 4;
+        assert (m_box[n] == Math.min(m_box[i], m_box[j]));
+        assert (m_box[n + 1] == Math.min(m_box[i + 1], m_box[j + 1]));
+        assert (m_box[n + 2] == Math.max(m_box[i + 2], m_box[j + 2]));
+        assert (m_box[n + 3] == Math.max(m_box[i + 3], m_box[j + 3]));
 
         validateMetrics(child1);
         validateMetrics(child2);
@@ -814,6 +1004,7 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
         if (m_root == NULL_NODE) {
             return;
         }
+        refit();
         int height = computeHeight();
         drawTree(argDraw, m_root, 0, height);
     }
@@ -822,7 +1013,7 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
     private final v2 textVec = new v2();
 
     private void drawTree(DebugDraw argDraw, int node, int spot, int height) {
-        AABB a = m_aabb[node];
+        AABB a = aabb(node);
         a.vertices(drawVecs);
 
         color.set(1, (height - spot) * 1.0f / height, (height - spot) * 1.0f / height);
@@ -840,4 +1031,4 @@ public class DynamicTreeFlatNodes implements BroadPhaseStrategy {
             drawTree(argDraw, c2, spot + 1, height);
         }
     }
-}
\ No newline at end of file
+}
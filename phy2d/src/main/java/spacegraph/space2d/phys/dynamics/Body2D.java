@@ -75,6 +75,28 @@ public class Body2D extends Transform {
      */
     public final Transform transformPrev = new Transform();
 
+    /**
+     * in the world's step list
+     */
+    boolean listed;
+
+    /**
+     * whether this class overrides {@link #preUpdate}; such bodies are visited every step even
+     * while asleep or static
+     */
+    final boolean preUpdates = PRE_UPDATES.get(getClass());
+
+    private static final ClassValue<Boolean> PRE_UPDATES = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> c) {
+            try {
+                return c.getMethod("preUpdate").getDeclaringClass() != Body2D.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     /**
      * The swept motion for CCD
      */
@@ -270,6 +292,7 @@ public class Body2D extends Transform {
         }
         synchronizeFixtures();
         synchronizeTransform();
+        W.touch(this);
     }
 
     private final FixtureDef fixDef = new FixtureDef();
@@ -430,6 +453,8 @@ public class Body2D extends Transform {
             BroadPhase broadPhase = W.contactManager.broadPhase;
             for (Fixture f = fixtures; f != null; f = f.next)
                 f.synchronize(broadPhase, this, this);
+
+            W.touch(this);
         });
 
         return true;
@@ -995,6 +1020,7 @@ public class Body2D extends Transform {
             }
 
             setAwake(true);
+            W.touch(this);
 
 
 
@@ -1071,6 +1097,7 @@ public class Body2D extends Transform {
             if ((flags & e_awakeFlag) == 0) {
                 flags |= e_awakeFlag;
                 m_sleepTime = 0.0f;
+                W.touch(this);
             }
         } else {
             flags &= ~e_awakeFlag;
@@ -1114,6 +1141,7 @@ public class Body2D extends Transform {
 
             if (flag) {
                 flags |= e_activeFlag;
+                W.touch(this);
 
 
                 BroadPhase broadPhase = W.contactManager.broadPhase;
@@ -23,6 +23,7 @@
  ******************************************************************************/
 package spacegraph.space2d.phys.dynamics;
 
+import org.jetbrains.annotations.Nullable;
 import spacegraph.space2d.phys.callbacks.ContactFilter;
 import spacegraph.space2d.phys.callbacks.ContactListener;
 import spacegraph.space2d.phys.callbacks.PairCallback;
@@ -34,6 +35,11 @@ import spacegraph.space2d.phys.dynamics.contacts.ContactRegister;
 import spacegraph.space2d.phys.fracture.FractureListener;
 import spacegraph.space2d.phys.pooling.IDynamicStack;
 import spacegraph.space2d.phys.pooling.IWorldPool;
+import spacegraph.space2d.phys.pooling.normal.DefaultWorldPool;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Delegate of World.
@@ -262,12 +268,59 @@ public class ContactManager implements PairCallback {
         --m_contactCount;
     }
 
+    /** minimum contacts per narrowphase task */
+    private static final int NARROWPHASE_GRAIN = 64;
+
+    private @Nullable ForkJoinPool exe;
+    private int threads;
+    private NarrowphaseWorker[] workers = new NarrowphaseWorker[0];
+
+    /** contacts to update this step, in list order, when threaded */
+    private Contact[] active = new Contact[0];
+    private int activeCount;
+
+    /**
+     * Computes the contact manifolds on several threads.  Filtering and the overlap test still
+     * walk the contact list on the stepping thread, collecting the contacts to update; their
+     * manifolds are then computed in parallel, each worker with its own world pool, and the
+     * wake-ups and listener callbacks are applied afterwards on the stepping thread in list
+     * order.  The result does not depend on the number of threads.  Unlike the sequential
+     * update, a body woken by a contact this step does not bring its other contacts into this
+     * step's update; they are updated from the next step.
+     *
+     * @param exe     executor for the workers, or null to use the common pool
+     * @param threads maximum number of workers; 0 restores the sequential update.  1 uses the
+     *                collecting scheme on the calling thread, for comparison
+     */
+    public synchronized void setThreads(@Nullable ForkJoinPool exe, int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("threads < 0");
+
+        this.exe = exe;
+        this.threads = threads;
+
+        if (workers.length != threads) {
+            NarrowphaseWorker[] w = new NarrowphaseWorker[threads];
+            int reuse = Math.min(threads, workers.length);
+            System.arraycopy(workers, 0, w, 0, reuse);
+            for (int i = reuse; i < threads; i++)
+                w[i] = new NarrowphaseWorker(new DefaultWorldPool(Dynamics2D.WORLD_POOL_SIZE, Dynamics2D.WORLD_POOL_CONTAINER_SIZE));
+            workers = w;
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
     /**
      * This is the top level collision call for the time step. Here all the narrow phase collision is
      * processed for the world contact list.
      */
     public void collide() {
-        
+        boolean parallel = threads > 0;
+        activeCount = 0;
+
         Contact c = m_contactList;
         while (c != null) {
             Fixture fixtureA = c.aFixture;
@@ -321,9 +374,55 @@ public class ContactManager implements PairCallback {
             }
 
             
-            c.update(contactListener);
+            if (parallel) {
+                if (activeCount == active.length)
+                    active = Arrays.copyOf(active, Math.max(activeCount * 2, 256));
+                active[activeCount++] = c;
+            } else
+                c.update(contactListener);
             c = c.next();
         }
+
+        if (activeCount > 0)
+            collideParallel();
+    }
+
+    private void collideParallel() {
+        int n = activeCount;
+        NarrowphaseWorker[] workers = this.workers;
+        int parts = Math.min(workers.length, (n + NARROWPHASE_GRAIN - 1) / NARROWPHASE_GRAIN);
+
+        for (int k = 0; k < parts; k++) {
+            NarrowphaseWorker w = workers[k];
+            w.from = (int) (((long) n * k) / parts);
+            w.to = (int) (((long) n * (k + 1)) / parts);
+        }
+
+        Tasks.invokeParts(exe, workers, parts);
+
+        Contact[] active = this.active;
+        ContactListener listener = contactListener;
+        for (int i = 0; i < n; i++)
+            active[i].report(listener);
+    }
+
+    /**
+     * computes the manifolds of a contiguous range of the collected contacts
+     */
+    private final class NarrowphaseWorker extends RecursiveAction {
+        final IWorldPool pool;
+        int from, to;
+
+        NarrowphaseWorker(IWorldPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        protected void compute() {
+            Contact[] active = ContactManager.this.active;
+            for (int i = from; i < to; i++)
+                active[i].narrowphase(pool.getCollision());
+        }
     }
 
     private Contact popContact(Fixture fixtureA, int indexA, Fixture fixtureB, int indexB) {
@@ -29,6 +29,7 @@ import jcog.data.list.MetalRing;
 import jcog.data.map.ConcurrentFastIteratingHashSet;
 import jcog.math.FloatSupplier;
 import jcog.math.v2;
+import org.jetbrains.annotations.Nullable;
 import spacegraph.space2d.phys.callbacks.*;
 import spacegraph.space2d.phys.collision.AABB;
 import spacegraph.space2d.phys.collision.RayCastInput;
@@ -38,6 +39,7 @@ import spacegraph.space2d.phys.collision.broadphase.BroadPhase;
 import spacegraph.space2d.phys.collision.broadphase.BroadPhaseStrategy;
 import spacegraph.space2d.phys.collision.broadphase.DefaultBroadPhaseBuffer;
 import spacegraph.space2d.phys.collision.broadphase.DynamicTree;
+import spacegraph.space2d.phys.collision.broadphase.DynamicTreeFlatNodes;
 import spacegraph.space2d.phys.collision.shapes.PolygonShape;
 import spacegraph.space2d.phys.collision.shapes.Shape;
 import spacegraph.space2d.phys.common.Settings;
@@ -58,7 +60,10 @@ import spacegraph.space2d.phys.pooling.IWorldPool;
 import spacegraph.space2d.phys.pooling.normal.DefaultWorldPool;
 import spacegraph.util.ParticleColor;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -69,8 +74,8 @@ import java.util.function.Predicate;
  * @author Daniel Murphy
  */
 public class Dynamics2D {
-    private static final int WORLD_POOL_SIZE = 256;
-    private static final int WORLD_POOL_CONTAINER_SIZE = 16;
+    static final int WORLD_POOL_SIZE = 256;
+    static final int WORLD_POOL_CONTAINER_SIZE = 16;
 
     public static final int NEW_FIXTURE = 0x0001;
 
@@ -138,16 +143,18 @@ public class Dynamics2D {
      * @param gravity the world gravity vector.
      */
     public Dynamics2D(v2 gravity) {
-        this(gravity, new DefaultWorldPool(WORLD_POOL_SIZE, WORLD_POOL_CONTAINER_SIZE));
+        this(gravity, new DynamicTreeFlatNodes());
     }
 
     /**
-     * Construct a world object.
+     * Construct a world object with a specific broad-phase tree, e.g. {@link DynamicTree} or a
+     * {@link DynamicTreeFlatNodes} with deferred moves for scenes where most bodies move.
      *
-     * @param gravity the world gravity vector.
+     * @param gravity  the world gravity vector.
+     * @param strategy the broad-phase tree.
      */
-    private Dynamics2D(v2 gravity, IWorldPool pool) {
-        this(gravity, pool, new DynamicTree());
+    public Dynamics2D(v2 gravity, BroadPhaseStrategy strategy) {
+        this(gravity, new DefaultWorldPool(WORLD_POOL_SIZE, WORLD_POOL_CONTAINER_SIZE), strategy);
     }
 
     private Dynamics2D(v2 gravity, IWorldPool pool, BroadPhaseStrategy strategy) {
@@ -273,6 +280,7 @@ public class Dynamics2D {
     public Body2D addBody(Body2D b, FixtureDef... fd) {
 
         if (bodies.add(b)) {
+            touch(b);
             if (fd.length > 0) {
                 invoke(() -> {
                     for (FixtureDef f : fd)
@@ -588,10 +596,103 @@ public class Dynamics2D {
      * @see setAutoClearForces
      */
     private void clearForces() {
-        bodies(b -> {
+        Body2D[] bb = stepBodies;
+        for (int i = 0, n = stepBodyCount; i < n; i++) {
+            Body2D b = bb[i];
             b.force.setZero();
             b.torque = 0;
-        });
+        }
+    }
+
+    /**
+     * bodies visited by the step: every awake, active, non-static body, bodies woken, moved,
+     * re-typed or re-activated since the last step, and bodies overriding
+     * {@link Body2D#preUpdate}.  kept in listing order; entries that no longer qualify are dropped
+     * at the start of {@link #solve}, so the per-step body work scales with the awake bodies
+     * rather than with all bodies.
+     */
+    private Body2D[] stepBodies = new Body2D[64];
+    private int stepBodyCount;
+
+    /**
+     * adds a body to the step list: immediately when called from the stepping thread during a
+     * step, otherwise before the next step
+     */
+    void touch(Body2D b) {
+        if (b.listed)
+            return;
+        if (Thread.holdsLock(this))
+            list(b);
+        else
+            invoke(() -> list(b));
+    }
+
+    private void list(Body2D b) {
+        if (b.listed)
+            return;
+        b.listed = true;
+        if (stepBodyCount == stepBodies.length)
+            stepBodies = Arrays.copyOf(stepBodies, stepBodyCount * 2);
+        stepBodies[stepBodyCount++] = b;
+    }
+
+    /**
+     * clears the island flags of the listed bodies and calls their pre-update, then drops the
+     * bodies that are no longer awake, active and non-static (or removed)
+     */
+    private void compactStepBodies() {
+        int n = stepBodyCount, kept = 0;
+        Collection<Body2D> bodies = this.bodies;
+        for (int i = 0; i < n; i++) {
+            Body2D b = stepBodies[i];
+
+            b.flags &= ~Body2D.e_islandFlag;
+
+            boolean keep;
+            if (!bodies.contains(b))
+                keep = false;
+            else if (!b.preUpdate()) {
+                preRemove.add(b);
+                keep = false;
+            } else {
+                b.transformPrev.set(b);
+                keep = b.preUpdates || (b.isAwake() && b.isActive() && b.type != BodyType.STATIC);
+            }
+
+            if (keep)
+                stepBodies[kept++] = b;
+            else {
+                b.listed = false;
+                b.sweep.alpha0 = 0.0f; //as solveTOI would reset it
+            }
+        }
+
+        //bodies listed meanwhile, e.g. woken by a pre-update
+        int added = stepBodyCount - n;
+        System.arraycopy(stepBodies, n, stepBodies, kept, added);
+        Arrays.fill(stepBodies, kept + added, stepBodyCount, null);
+        stepBodyCount = kept + added;
+
+        if (!preRemove.isEmpty()) {
+            for (Body2D b : preRemove)
+                removeBody(b, true);
+            preRemove.clear();
+        }
+
+        if (profiler.active) {
+            profiler.bodies.record(bodies.size());
+            profiler.stepBodies.record(stepBodyCount);
+        }
+    }
+
+    private final Lst<Body2D> preRemove = new Lst<>(0);
+
+    /**
+     * Get the number of bodies the last step visited: the awake bodies, plus any woken, moved or
+     * re-typed since the step before.
+     */
+    public int getStepBodyCount() {
+        return stepBodyCount;
     }
 
 
@@ -871,30 +972,111 @@ public class Dynamics2D {
 
     private final Timer broadphaseTimer = new Timer();
 
-    private void solve(TimeStep step) {
-        profiler.solveInit.startAccum();
-        profiler.solveVelocity.startAccum();
-        profiler.solvePosition.startAccum();
+    /**
+     * islands collected in discovery order for the parallel solver; reused across steps
+     */
+    private final Lst<Island> islands = new Lst<>(0);
+    private int islandCount;
 
-        Collection<Body2D> preRemove = new Lst(0);
-        bodies(b -> {
+    private @Nullable ForkJoinPool islandExe;
+    private int islandThreads;
+    private IslandWorker[] islandWorkers = new IslandWorker[0];
 
-            b.flags &= ~Body2D.e_islandFlag;
+    /**
+     * Solve islands concurrently: islands are first collected (and their constraints
+     * initialized) on the stepping thread in the same order as the sequential solver, then
+     * iterated in parallel, then reported and put to sleep in that same order.  Each worker
+     * has its own world pool, and each island its own solver scratch, so the result does not
+     * depend on the number of threads.
+     *
+     * @param exe     executor for the workers, or null to use the common pool
+     * @param threads number of workers; 0 restores the sequential solver.  1 uses the
+     *                collecting solver on the calling thread, for comparison
+     */
+    public synchronized void setIslandThreads(@Nullable ForkJoinPool exe, int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("threads < 0");
+
+        this.islandExe = exe;
+        this.islandThreads = threads;
+
+        if (islandWorkers.length != threads) {
+            IslandWorker[] w = new IslandWorker[threads];
+            int reuse = Math.min(threads, islandWorkers.length);
+            System.arraycopy(islandWorkers, 0, w, 0, reuse);
+            for (int i = reuse; i < threads; i++)
+                w[i] = new IslandWorker(new DefaultWorldPool(WORLD_POOL_SIZE, WORLD_POOL_CONTAINER_SIZE));
+            islandWorkers = w;
+        }
+    }
 
-            if (!b.preUpdate()) {
-                preRemove.add(b);
-            } else {
+    public int getIslandThreads() {
+        return islandThreads;
+    }
 
-                b.transformPrev.set(b);
-            }
-        });
+    /**
+     * Compute the contact manifolds on several threads.
+     *
+     * @see ContactManager#setThreads
+     */
+    public void setContactThreads(@Nullable ForkJoinPool exe, int threads) {
+        contactManager.setThreads(exe, threads);
+    }
 
-        if (!preRemove.isEmpty()) {
-            for (Body2D body2D : preRemove)
-                removeBody(body2D, true);
-            preRemove.clear();
+    private Island islandCollect(int i) {
+        Island p;
+        if (i < islands.size())
+            p = islands.get(i);
+        else
+            islands.add(p = new Island(smasher));
+        p.clear();
+        return p;
+    }
+
+    private void solveIslands(TimeStep step) {
+        int n = islandCount;
+        IslandWorker[] workers = this.islandWorkers;
+        int threads = Math.min(workers.length, n);
+
+        for (int k = 0; k < threads; k++) {
+            IslandWorker w = workers[k];
+            w.step = step;
+            w.from = (int) (((long) n * k) / threads);
+            w.to = (int) (((long) n * (k + 1)) / threads);
+        }
+
+        Tasks.invokeParts(islandExe, workers, threads);
+
+        for (int i = 0; i < n; i++)
+            islands.get(i).finish();
+    }
+
+    /**
+     * iterates a contiguous range of collected islands
+     */
+    private final class IslandWorker extends RecursiveAction {
+        final IWorldPool pool;
+        TimeStep step;
+        int from, to;
+
+        IslandWorker(IWorldPool pool) {
+            this.pool = pool;
         }
 
+        @Override
+        protected void compute() {
+            for (int i = from; i < to; i++)
+                islands.get(i).iterate(null, step, allowSleep, pool);
+        }
+    }
+
+    private void solve(TimeStep step) {
+        profiler.solveInit.startAccum();
+        profiler.solveVelocity.startAccum();
+        profiler.solvePosition.startAccum();
+
+        compactStepBodies();
+
 
         int bodyCount = bodies.size();
         island.init(2 * bodyCount, contactManager.m_contactCount, jointCount,
@@ -907,20 +1089,24 @@ public class Dynamics2D {
         joints(j -> j.islandFlag = false);
 
 
+        boolean parallel = islandThreads > 0;
+        islandCount = 0;
+
         if (bodyCount > 0) {
             int stackSize = bodyCount;
             Body2D[] stack = new Body2D[stackSize];
 
-            bodies(seed -> {
+            for (int s = 0; s < stepBodyCount; s++) {
+                Body2D seed = stepBodies[s];
                 if ((seed.flags & Body2D.e_islandFlag) == Body2D.e_islandFlag)
-                    return;
+                    continue;
 
                 if (!seed.isAwake() || !seed.isActive())
-                    return;
+                    continue;
 
 
                 if (seed.getType() == BodyType.STATIC)
-                    return;
+                    continue;
 
 
                 island.clear();
@@ -1005,7 +1191,14 @@ public class Dynamics2D {
                         other.flags |= Body2D.e_islandFlag;
                     }
                 }
-                island.solve(profiler, step, gravity, allowSleep);
+                if (parallel) {
+                    Island p = islandCollect(islandCount++);
+                    p.init(island.m_bodyCount, island.m_contactCount, island.m_jointCount,
+                            contactManager.contactListener);
+                    p.set(island);
+                    p.prepare(profiler, step, gravity, pool);
+                } else
+                    island.solve(profiler, step, gravity, allowSleep, pool);
 
 
                 for (int i = 0; i < island.m_bodyCount; ++i) {
@@ -1015,21 +1208,25 @@ public class Dynamics2D {
                         b.flags &= ~Body2D.e_islandFlag;
                     }
                 }
-            });
+            }
         }
 
+        if (parallel && islandCount > 0)
+            solveIslands(step);
+
         profiler.solveInit.endAccum();
         profiler.solveVelocity.endAccum();
         profiler.solvePosition.endAccum();
 
         broadphaseTimer.reset();
 
-        if (bodyCount > 0) {
-            bodies(b -> {
-                if ((b.flags & Body2D.e_islandFlag) == 0 || b.getType() == BodyType.STATIC) return;
-                b.synchronizeFixtures();
-                b.postUpdate();
-            });
+        //every body an island reached was woken, so is listed
+        Body2D[] bb = stepBodies;
+        for (int i = 0, n = stepBodyCount; i < n; i++) {
+            Body2D b = bb[i];
+            if ((b.flags & Body2D.e_islandFlag) == 0 || b.getType() == BodyType.STATIC) continue;
+            b.synchronizeFixtures();
+            b.postUpdate();
         }
 
 
@@ -1044,10 +1241,13 @@ public class Dynamics2D {
         island.init(2 * Settings.maxTOIContacts, Settings.maxTOIContacts, 0,
                 contactManager.contactListener);
         if (stepComplete) {
-            bodies(b -> {
+            //bodies whose sweeps the last TOI pass advanced were listed then
+            Body2D[] bb = stepBodies;
+            for (int i = 0, n = stepBodyCount; i < n; i++) {
+                Body2D b = bb[i];
                 b.flags &= ~Body2D.e_islandFlag;
                 b.sweep.alpha0 = 0.0f;
-            });
+            }
 
             for (Contact c = contactManager.m_contactList; c != null; c = c.m_next) {
 
@@ -1102,9 +1302,11 @@ public class Dynamics2D {
                     if (bA.sweep.alpha0 < bB.sweep.alpha0) {
                         alpha0 = bB.sweep.alpha0;
                         bA.sweep.advance(alpha0);
+                        list(bA);
                     } else if (bB.sweep.alpha0 < bA.sweep.alpha0) {
                         alpha0 = bA.sweep.alpha0;
                         bB.sweep.advance(alpha0);
+                        list(bB);
                     } else {
                         alpha0 = bA.sweep.alpha0;
                     }
@@ -1152,6 +1354,8 @@ public class Dynamics2D {
 
             bA.advance(minAlpha);
             bB.advance(minAlpha);
+            list(bA);
+            list(bB);
 
 
             minContact.update(contactManager.contactListener);
@@ -1222,6 +1426,7 @@ public class Dynamics2D {
                         backup1.set(other.sweep);
                         if ((other.flags & Body2D.e_islandFlag) == 0) {
                             other.advance(minAlpha);
+                            list(other);
                         }
 
 
@@ -1520,6 +1725,15 @@ public class Dynamics2D {
         return particles.getParticleDamping();
     }
 
+    /**
+     * Solve the particle passes on several threads.
+     *
+     * @see ParticleSystem#setThreads
+     */
+    public void setParticleThreads(@Nullable ForkJoinPool exe, int threads) {
+        particles.setThreads(exe, threads);
+    }
+
     /**
      * Change the particle radius. You should set this only once, on world start. If you change the
      * radius during execution, existing particles may explode, shrink, or behave unexpectedly.
@@ -1704,6 +1918,9 @@ public class Dynamics2D {
         public final ProfileEntry solvePosition = new ProfileEntry();
         final ProfileEntry broadphase = new ProfileEntry();
         final ProfileEntry solveTOI = new ProfileEntry();
+        /** bodies in the world, and bodies visited by the step */
+        final ProfileEntry bodies = new ProfileEntry();
+        final ProfileEntry stepBodies = new ProfileEntry();
 
         public void toDebugStrings(Collection<String> strings) {
             strings.add("Profile:");
@@ -1717,6 +1934,8 @@ public class Dynamics2D {
             strings.add("   solvePosition: " + solvePosition);
             strings.add("   broadphase: " + broadphase);
             strings.add("  solveTOI: " + solveTOI);
+            strings.add(" bodies: " + bodies);
+            strings.add("  stepBodies: " + stepBodies);
         }
     }
 
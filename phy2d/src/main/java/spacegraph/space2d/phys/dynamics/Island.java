@@ -34,6 +34,7 @@ import spacegraph.space2d.phys.dynamics.contacts.*;
 import spacegraph.space2d.phys.dynamics.contacts.ContactSolver.ContactSolverDef;
 import spacegraph.space2d.phys.dynamics.joints.Joint;
 import spacegraph.space2d.phys.fracture.fragmentation.Smasher;
+import spacegraph.space2d.phys.pooling.IWorldPool;
 
 /*
  Position Correction Notes
@@ -172,7 +173,7 @@ class Island {
     private Velocity[] velocities;
 
     public int m_bodyCount;
-    private int m_jointCount;
+    int m_jointCount;
     public int m_contactCount;
 
     public int m_bodyCapacity;
@@ -240,7 +241,24 @@ class Island {
     private final SolverData solverData = new SolverData();
     private final ContactSolverDef solverDef = new ContactSolverDef();
 
-    public void solve(Dynamics2D.Profile profile, TimeStep step, v2 gravity, boolean allowSleep) {
+    /** set by iterate(): whether the position solver converged */
+    private boolean positionSolved;
+
+    /** set by iterate(): whether every body of the island has been still long enough to sleep */
+    private boolean sleepy;
+
+    public void solve(Dynamics2D.Profile profile, TimeStep step, v2 gravity, boolean allowSleep, IWorldPool pool) {
+        prepare(profile, step, gravity, pool);
+        iterate(profile, step, allowSleep, pool);
+        finish();
+    }
+
+    /**
+     * integrates velocities and initializes the contact and joint constraints.
+     * reads the Body2D.island indices, which static bodies share between islands,
+     * so this must run on the stepping thread before the next island is collected.
+     */
+    void prepare(Dynamics2D.Profile profile, TimeStep step, v2 gravity, IWorldPool pool) {
 
 
         float h = step.dt;
@@ -293,6 +311,7 @@ class Island {
         solverData.step = step;
         solverData.positions = positions;
         solverData.velocities = velocities;
+        solverData.pool = pool;
 
 
         solverDef.step = step;
@@ -312,7 +331,23 @@ class Island {
         for (int i = 0; i < joints; ++i)
             this.joints[i].initVelocityConstraints(solverData);
 
-        profile.solveInit.accum(timer::getMilliseconds);
+        if (profile != null)
+            profile.solveInit.accum(timer::getMilliseconds);
+    }
+
+    /**
+     * velocity and position iterations, integration, and sleep timing.
+     * touches only this island's solver state and its non-static bodies, so distinct
+     * islands may iterate concurrently given distinct pools.  the profile is not
+     * thread-safe and should be null when called from a worker.
+     */
+    void iterate(Dynamics2D.Profile profile, TimeStep step, boolean allowSleep, IWorldPool pool) {
+
+        float h = step.dt;
+        int bodies = this.m_bodyCount;
+        int joints = this.m_jointCount;
+
+        solverData.pool = pool;
 
         timer.reset();
 
@@ -325,7 +360,8 @@ class Island {
 
 
         contactSolver.storeImpulses();
-        profile.solveVelocity.accum(timer::getMilliseconds);
+        if (profile != null)
+            profile.solveVelocity.accum(timer::getMilliseconds);
 
 
         for (int i = 0; i < bodies; ++i) {
@@ -377,10 +413,13 @@ class Island {
                 break;
             }
         }
+        this.positionSolved = positionSolved;
 
 
         for (int i = 0; i < bodies; ++i) {
             Body2D body = this.bodies[i];
+            if (body.getType() == BodyType.STATIC)
+                continue; //shared with other islands, and never moved by the solver
 
             Position pi = positions[i];
             Sweep bs = body.sweep;
@@ -403,10 +442,10 @@ class Island {
             body.synchronizeTransform();
         }
 
-        profile.solvePosition.accum(timer::getMilliseconds);
-
-        report(contactSolver.m_velocityConstraints);
+        if (profile != null)
+            profile.solvePosition.accum(timer::getMilliseconds);
 
+        boolean sleepy = false;
         if (allowSleep) {
             float minSleepTime = Float.POSITIVE_INFINITY;
 
@@ -430,13 +469,32 @@ class Island {
                 }
             }
 
-            if (minSleepTime >= Settings.timeToSleep && positionSolved) {
-                for (int i = 0; i < bodies; ++i) {
-                    Body2D b = this.bodies[i];
-                    b.setAwake(false);
-                }
-            }
+            sleepy = minSleepTime >= Settings.timeToSleep && positionSolved;
         }
+        this.sleepy = sleepy;
+    }
+
+    /**
+     * reports impulses to the listener and smasher, and puts the island to sleep.
+     * these touch shared (static) bodies and user callbacks, so this runs on the stepping thread.
+     */
+    void finish() {
+        report(contactSolver.m_velocityConstraints);
+
+        if (sleepy) {
+            for (int i = 0; i < m_bodyCount; ++i)
+                bodies[i].setAwake(false);
+        }
+    }
+
+    /** copies the collected bodies, contacts and joints of another island */
+    void set(Island from) {
+        for (int i = 0; i < from.m_bodyCount; i++)
+            add(from.bodies[i]);
+        for (int i = 0; i < from.m_contactCount; i++)
+            add(from.contacts[i]);
+        for (int i = 0; i < from.m_jointCount; i++)
+            add(from.joints[i]);
     }
 
     private final ContactSolver toiContactSolver = new ContactSolver();
@@ -25,9 +25,13 @@ package spacegraph.space2d.phys.dynamics;
 
 import spacegraph.space2d.phys.dynamics.contacts.Position;
 import spacegraph.space2d.phys.dynamics.contacts.Velocity;
+import spacegraph.space2d.phys.pooling.IWorldPool;
 
 public class SolverData {
     public TimeStep step;
     public Position[] positions;
     public Velocity[] velocities;
+
+    /** scratch pool of the thread solving this island; joints must use this rather than the world pool */
+    public IWorldPool pool;
 }
@@ -0,0 +1,48 @@
+package spacegraph.space2d.phys.dynamics;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * runs a pass split among a fixed set of reusable tasks
+ */
+final class Tasks {
+
+    private Tasks() {
+    }
+
+    /**
+     * reinitializes and runs workers [0, parts) to completion: a single one on the calling thread,
+     * more in the pool (or the common pool), the first of them on the thread joining the rest
+     */
+    static void invokeParts(@Nullable ForkJoinPool exe, RecursiveAction[] workers, int parts) {
+        for (int k = 0; k < parts; k++)
+            workers[k].reinitialize();
+
+        if (parts == 1)
+            workers[0].invoke();
+        else if (parts > 1)
+            (exe != null ? exe : ForkJoinPool.commonPool()).invoke(new Fork(workers, parts));
+    }
+
+    private static final class Fork extends RecursiveAction {
+        private final RecursiveAction[] workers;
+        private final int parts;
+
+        Fork(RecursiveAction[] workers, int parts) {
+            this.workers = workers;
+            this.parts = parts;
+        }
+
+        @Override
+        protected void compute() {
+            for (int k = 1; k < parts; k++)
+                workers[k].fork();
+            workers[0].invoke();
+            for (int k = 1; k < parts; k++)
+                workers[k].join();
+        }
+    }
+}
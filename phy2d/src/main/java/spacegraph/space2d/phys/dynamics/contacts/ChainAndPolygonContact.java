@@ -23,6 +23,7 @@
  ******************************************************************************/
 package spacegraph.space2d.phys.dynamics.contacts;
 
+import spacegraph.space2d.phys.collision.Collision;
 import spacegraph.space2d.phys.collision.Manifold;
 import spacegraph.space2d.phys.collision.shapes.ChainShape;
 import spacegraph.space2d.phys.collision.shapes.EdgeShape;
@@ -48,10 +49,10 @@ public class ChainAndPolygonContact extends Contact {
     private final EdgeShape edge = new EdgeShape();
 
     @Override
-    public void evaluate(Manifold manifold, Transform xfA, Transform xfB) {
+    public void evaluate(Manifold manifold, Transform xfA, Transform xfB, Collision collision) {
         ChainShape chain = (ChainShape) aFixture.shape();
         chain.getChildEdge(edge, aIndex);
-        pool.getCollision().collideEdgeAndPolygon(manifold, edge, xfA,
+        collision.collideEdgeAndPolygon(manifold, edge, xfA,
                 (PolygonShape) bFixture.shape(), xfB);
     }
 }
@@ -44,7 +44,7 @@ public class CircleContact extends Contact {
     }
 
     @Override
-    public void evaluate(Manifold manifold, Transform xfA, Transform xfB) {
+    public void evaluate(Manifold manifold, Transform xfA, Transform xfB, Collision collision) {
         Collision.collideCircles(manifold, (CircleShape) aFixture.shape(), xfA,
                 (CircleShape) bFixture.shape(), xfB);
     }
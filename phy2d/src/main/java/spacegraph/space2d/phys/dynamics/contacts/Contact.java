@@ -26,6 +26,7 @@ package spacegraph.space2d.phys.dynamics.contacts;
 
 import jcog.math.v2;
 import spacegraph.space2d.phys.callbacks.ContactListener;
+import spacegraph.space2d.phys.collision.Collision;
 import spacegraph.space2d.phys.collision.ContactID;
 import spacegraph.space2d.phys.collision.Manifold;
 import spacegraph.space2d.phys.collision.ManifoldPoint;
@@ -229,7 +230,7 @@ public abstract class Contact {
         return m_tangentSpeed;
     }
 
-    protected abstract void evaluate(Manifold manifold, Transform xfA, Transform xfB);
+    protected abstract void evaluate(Manifold manifold, Transform xfA, Transform xfB, Collision collision);
 
     /**
      * Flag this contact for filtering. Filtering will occur the next time step.
@@ -241,36 +242,45 @@ public abstract class Contact {
     
     private final Manifold oldManifold = new Manifold();
 
+    /** touching state before the last {@link #narrowphase} */
+    private boolean wasTouching;
+
     public void update(ContactListener listener) {
+        narrowphase(pool.getCollision());
+        report(listener);
+    }
+
+    /**
+     * Computes the manifold and the touching state.  Writes only to this contact, so distinct
+     * contacts can be updated concurrently, each thread with its own {@link Collision}; the
+     * resulting wake-ups and listener callbacks are applied by {@link #report}.
+     */
+    public void narrowphase(Collision collision) {
 
         oldManifold.set(m_manifold);
 
         
         m_flags |= ENABLED_FLAG;
 
-        boolean touching = false;
-        boolean wasTouching = (m_flags & TOUCHING_FLAG) == TOUCHING_FLAG;
+        boolean touching;
+        wasTouching = (m_flags & TOUCHING_FLAG) == TOUCHING_FLAG;
 
-        boolean sensorA = aFixture.isSensor();
-        boolean sensorB = bFixture.isSensor();
-        boolean sensor = sensorA || sensorB;
+        boolean sensor = aFixture.isSensor() || bFixture.isSensor();
 
-        Body2D bodyA = aFixture.getBody();
-        Body2D bodyB = bFixture.getBody();
-        Transform xfA = bodyA;
-        Transform xfB = bodyB;
+        Transform xfA = aFixture.getBody();
+        Transform xfB = bFixture.getBody();
         
         
 
         if (sensor) {
             Shape shapeA = aFixture.shape();
             Shape shapeB = bFixture.shape();
-            touching = pool.getCollision().testOverlap(shapeA, aIndex, shapeB, bIndex, xfA, xfB);
+            touching = collision.testOverlap(shapeA, aIndex, shapeB, bIndex, xfA, xfB);
 
             
             m_manifold.pointCount = 0;
         } else {
-            evaluate(m_manifold, xfA, xfB);
+            evaluate(m_manifold, xfA, xfB, collision);
             touching = m_manifold.pointCount > 0;
 
             
@@ -291,11 +301,6 @@ public abstract class Contact {
                     }
                 }
             }
-
-            if (touching != wasTouching) {
-                bodyA.setAwake(true);
-                bodyB.setAwake(true);
-            }
         }
 
         if (touching) {
@@ -311,6 +316,20 @@ public abstract class Contact {
             m_angularVelocity_bodyB = bFixture.body.velAngular;
             m_linearVelocity_bodyB.set(bFixture.body.vel);
         }
+    }
+
+    /**
+     * Applies the outcome of the last {@link #narrowphase}: wakes the bodies if the touching
+     * state changed, and notifies the listener.
+     */
+    public void report(ContactListener listener) {
+        boolean touching = (m_flags & TOUCHING_FLAG) == TOUCHING_FLAG;
+        boolean sensor = aFixture.isSensor() || bFixture.isSensor();
+
+        if (!sensor && touching != wasTouching) {
+            aFixture.getBody().setAwake(true);
+            bFixture.getBody().setAwake(true);
+        }
 
         if (listener == null) {
             return;
@@ -23,6 +23,7 @@
  ******************************************************************************/
 package spacegraph.space2d.phys.dynamics.contacts;
 
+import spacegraph.space2d.phys.collision.Collision;
 import spacegraph.space2d.phys.collision.Manifold;
 import spacegraph.space2d.phys.collision.shapes.EdgeShape;
 import spacegraph.space2d.phys.collision.shapes.PolygonShape;
@@ -45,8 +46,8 @@ public class EdgeAndPolygonContact extends Contact {
     }
 
     @Override
-    public void evaluate(Manifold manifold, Transform xfA, Transform xfB) {
-        pool.getCollision().collideEdgeAndPolygon(manifold, (EdgeShape) aFixture.shape(), xfA,
+    public void evaluate(Manifold manifold, Transform xfA, Transform xfB, Collision collision) {
+        collision.collideEdgeAndPolygon(manifold, (EdgeShape) aFixture.shape(), xfA,
                 (PolygonShape) bFixture.shape(), xfB);
     }
 }
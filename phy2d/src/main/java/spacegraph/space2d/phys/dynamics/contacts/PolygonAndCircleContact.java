@@ -45,7 +45,7 @@ public class PolygonAndCircleContact extends Contact {
     }
 
     @Override
-    public void evaluate(Manifold manifold, Transform xfA, Transform xfB) {
+    public void evaluate(Manifold manifold, Transform xfA, Transform xfB, Collision collision) {
         Collision.collidePolygonAndCircle(manifold, (PolygonShape) aFixture.shape(),
                 xfA, (CircleShape) bFixture.shape(), xfB);
     }
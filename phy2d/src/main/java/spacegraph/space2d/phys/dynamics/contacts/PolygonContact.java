@@ -23,6 +23,7 @@
  ******************************************************************************/
 package spacegraph.space2d.phys.dynamics.contacts;
 
+import spacegraph.space2d.phys.collision.Collision;
 import spacegraph.space2d.phys.collision.Manifold;
 import spacegraph.space2d.phys.collision.shapes.PolygonShape;
 import spacegraph.space2d.phys.collision.shapes.ShapeType;
@@ -43,8 +44,8 @@ public class PolygonContact extends Contact {
     }
 
     @Override
-    public void evaluate(Manifold manifold, Transform xfA, Transform xfB) {
-        pool.getCollision().collidePolygons(manifold, (PolygonShape) aFixture.shape(), xfA,
+    public void evaluate(Manifold manifold, Transform xfA, Transform xfB, Collision collision) {
+        collision.collidePolygons(manifold, (PolygonShape) aFixture.shape(), xfA,
                 (PolygonShape) bFixture.shape(), xfB);
     }
 }
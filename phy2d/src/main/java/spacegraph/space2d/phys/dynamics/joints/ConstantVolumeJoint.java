@@ -28,6 +28,7 @@ import spacegraph.space2d.phys.common.Settings;
 import spacegraph.space2d.phys.dynamics.Body2D;
 import spacegraph.space2d.phys.dynamics.Dynamics2D;
 import spacegraph.space2d.phys.dynamics.SolverData;
+import spacegraph.space2d.phys.pooling.IWorldPool;
 
 public class ConstantVolumeJoint extends Joint {
 
@@ -124,7 +125,7 @@ public class ConstantVolumeJoint extends Joint {
         return area;
     }
 
-    private boolean constrainEdges(v2[] positions) {
+    private boolean constrainEdges(v2[] positions, IWorldPool pool) {
         float perimeter = 0.0f;
         int bodyCount = bodies.length;
         for (int i = 0; i < bodyCount; ++i) {
@@ -180,7 +181,7 @@ public class ConstantVolumeJoint extends Joint {
     public void initVelocityConstraints(SolverData step) {
         v2[] velocities = step.velocities;
         v2[] positions = step.positions;
-        v2[] d = pool.getVec2Array(bodies.length);
+        v2[] d = step.pool.getVec2Array(bodies.length);
 
         for (int i = 0; i < bodies.length; ++i) {
             int prev = (i == 0 ? bodies.length : i) - 1;
@@ -199,7 +200,7 @@ public class ConstantVolumeJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData step) {
-        return constrainEdges(step.positions);
+        return constrainEdges(step.positions, step.pool);
     }
 
     @Override
@@ -209,7 +210,7 @@ public class ConstantVolumeJoint extends Joint {
 
         v2[] velocities = step.velocities;
         v2[] positions = step.positions;
-        v2[] d = pool.getVec2Array(bodies.length);
+        v2[] d = step.pool.getVec2Array(bodies.length);
 
         for (int i = 0; i < bodies.length; ++i) {
             int prev = (i == 0 ? bodies.length : i) - 1;
@@ -160,6 +160,7 @@ public class DistanceJoint extends Joint {
 
     @Override
     public void initVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
 
         m_indexA = A.island;
         m_indexB = B.island;
@@ -262,6 +263,7 @@ public class DistanceJoint extends Joint {
 
     @Override
     public void solveVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         v2 vA = data.velocities[m_indexA];
         float wA = data.velocities[m_indexA].w;
         v2 vB = data.velocities[m_indexB];
@@ -301,6 +303,7 @@ public class DistanceJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         if (m_frequencyHz > 0.0f) {
             return true;
         }
@@ -126,6 +126,7 @@ public class FrictionJoint extends Joint {
      */
     @Override
     public void initVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         m_indexA = A.island;
         m_indexB = B.island;
         m_localCenterA.set(A.sweep.localCenter);
@@ -214,6 +215,7 @@ public class FrictionJoint extends Joint {
 
     @Override
     public void solveVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         v2 vA = data.velocities[m_indexA];
         float wA = data.velocities[m_indexA].w;
         v2 vB = data.velocities[m_indexB];
@@ -225,6 +225,7 @@ public class GearJoint extends Joint {
 
     @Override
     public void initVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         m_indexA = A.island;
         m_indexB = B.island;
         m_indexC = m_bodyC.island;
@@ -345,6 +346,7 @@ public class GearJoint extends Joint {
 
     @Override
     public void solveVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         v2 vA = data.velocities[m_indexA];
         float wA = data.velocities[m_indexA].w;
         v2 vB = data.velocities[m_indexB];
@@ -401,6 +403,7 @@ public class GearJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         v2 cA = data.positions[m_indexA];
         float aA = data.positions[m_indexA].a;
         v2 cB = data.positions[m_indexB];
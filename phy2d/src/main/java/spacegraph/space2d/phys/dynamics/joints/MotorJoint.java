@@ -155,6 +155,7 @@ public class MotorJoint extends Joint {
 
     @Override
     public void initVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         m_indexA = A.island;
         m_indexB = B.island;
         m_localCenterA.set(A.sweep.localCenter);
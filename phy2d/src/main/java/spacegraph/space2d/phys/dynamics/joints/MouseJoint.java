@@ -139,6 +139,7 @@ public class MouseJoint extends Joint {
 
     @Override
     public void initVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         m_indexB = B.island;
         m_localCenterB.set(B.sweep.localCenter);
         m_invMassB = B.m_invMass;
@@ -221,6 +222,7 @@ public class MouseJoint extends Joint {
 
     @Override
     public void solveVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
 
         v2 vB = data.velocities[m_indexB];
         float wB = data.velocities[m_indexB].w;
@@ -327,6 +327,7 @@ public class PrismaticJoint extends Joint {
 
     @Override
     public void initVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         m_indexA = A.island;
         m_indexB = B.island;
         m_localCenterA.set(A.sweep.localCenter);
@@ -467,6 +468,7 @@ public class PrismaticJoint extends Joint {
 
     @Override
     public void solveVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         v2 vA = data.velocities[m_indexA];
         float wA = data.velocities[m_indexA].w;
         v2 vB = data.velocities[m_indexB];
@@ -603,6 +605,7 @@ public class PrismaticJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
 
         Rot qA = pool.popRot();
         Rot qB = pool.popRot();
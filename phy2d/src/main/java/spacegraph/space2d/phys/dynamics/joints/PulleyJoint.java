@@ -181,6 +181,7 @@ public class PulleyJoint extends Joint {
 
     @Override
     public void initVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         m_indexA = A.island;
         m_indexB = B.island;
         m_localCenterA.set(A.sweep.localCenter);
@@ -276,6 +277,7 @@ public class PulleyJoint extends Joint {
 
     @Override
     public void solveVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         v2 vA = data.velocities[m_indexA];
         float wA = data.velocities[m_indexA].w;
         v2 vB = data.velocities[m_indexB];
@@ -314,6 +316,7 @@ public class PulleyJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         Rot qA = pool.popRot();
         Rot qB = pool.popRot();
         v2 rA = pool.popVec2();
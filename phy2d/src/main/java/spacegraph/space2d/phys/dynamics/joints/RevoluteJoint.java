@@ -344,6 +344,7 @@ public class RevoluteJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         Rot qA = new Rot();
         Rot qB = new Rot();
         final Position[] P = data.positions;
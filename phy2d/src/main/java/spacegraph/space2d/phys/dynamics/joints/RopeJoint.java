@@ -157,6 +157,7 @@ public class RopeJoint extends Joint {
 
     @Override
     public void solveVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
 
         float targetLength = targetLength();
 
@@ -211,6 +212,7 @@ public class RopeJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
 
         float targetLength = targetLength();
 
@@ -219,6 +219,7 @@ public class WheelJoint extends Joint {
 
     @Override
     public void initVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         m_indexA = A.island;
         m_indexB = B.island;
         m_localCenterA.set(A.sweep.localCenter);
@@ -356,6 +357,7 @@ public class WheelJoint extends Joint {
 
     @Override
     public void solveVelocityConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         float mA = m_invMassA, mB = m_invMassB;
         float iA = m_invIA, iB = m_invIB;
 
@@ -431,6 +433,7 @@ public class WheelJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData data) {
+        IWorldPool pool = data.pool;
         v2 cA = data.positions[m_indexA];
         float aA = data.positions[m_indexA].a;
         v2 cB = data.positions[m_indexB];
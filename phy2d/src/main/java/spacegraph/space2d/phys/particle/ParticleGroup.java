@@ -112,19 +112,19 @@ public class ParticleGroup {
 
 
     public void updateStatistics() {
+        m_system.readBack();
         if (m_timestamp != m_system.m_timestamp) {
             float m = m_system.getParticleMass();
+            float[] px = m_system.m_px, py = m_system.m_py, vx = m_system.m_vx, vy = m_system.m_vy;
             m_mass = 0;
             m_center.setZero();
             m_linearVelocity.setZero();
             for (int i = m_firstIndex; i < m_lastIndex; i++) {
                 m_mass += m;
-                v2 pos = m_system.m_positionBuffer.data[i];
-                m_center.x += m * pos.x;
-                m_center.y += m * pos.y;
-                v2 vel = m_system.m_velocityBuffer.data[i];
-                m_linearVelocity.x += m * vel.x;
-                m_linearVelocity.y += m * vel.y;
+                m_center.x += m * px[i];
+                m_center.y += m * py[i];
+                m_linearVelocity.x += m * vx[i];
+                m_linearVelocity.y += m * vy[i];
             }
             if (m_mass > 0) {
                 m_center.x *= 1 / m_mass;
@@ -135,14 +135,12 @@ public class ParticleGroup {
             m_inertia = 0;
             m_angularVelocity = 0;
             for (int i = m_firstIndex; i < m_lastIndex; i++) {
-                v2 pos = m_system.m_positionBuffer.data[i];
-                v2 vel = m_system.m_velocityBuffer.data[i];
-                float px = pos.x - m_center.x;
-                float py = pos.y - m_center.y;
-                float vx = vel.x - m_linearVelocity.x;
-                float vy = vel.y - m_linearVelocity.y;
-                m_inertia += m * (px * px + py * py);
-                m_angularVelocity += m * (px * vy - py * vx);
+                float dx = px[i] - m_center.x;
+                float dy = py[i] - m_center.y;
+                float dvx = vx[i] - m_linearVelocity.x;
+                float dvy = vy[i] - m_linearVelocity.y;
+                m_inertia += m * (dx * dx + dy * dy);
+                m_angularVelocity += m * (dx * dvy - dy * dvx);
             }
             if (m_inertia > 0) {
                 m_angularVelocity *= 1 / m_inertia;
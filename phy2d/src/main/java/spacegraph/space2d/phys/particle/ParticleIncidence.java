@@ -0,0 +1,91 @@
+package spacegraph.space2d.phys.particle;
+
+import java.util.Arrays;
+
+/**
+ * Per-particle incidence lists of contacts, pairs or triads, for scatter-free parallel passes.
+ * An item of arity k has k endpoints, numbered item * k + slot.  A pass first computes the delta
+ * of every endpoint (in parallel over items), then every particle sums the deltas of its
+ * endpoints (in parallel over particles).  The lists are ordered by endpoint number, so each
+ * particle receives its contributions in the same order as the sequential item loop, and the
+ * result is the same for any number of threads.
+ */
+final class ParticleIncidence {
+
+    /** endpoint -> particle; filled by the caller before {@link #build} */
+    int[] ends = new int[0];
+    /** particle -> first entry of ref */
+    int[] start = new int[1];
+    /** endpoints, grouped by particle */
+    int[] ref = new int[0];
+
+    /** per-endpoint deltas */
+    float[] dx = new float[0], dy = new float[0];
+
+    /** ensures capacity for the given number of endpoints; returns {@link #ends} */
+    int[] ends(int endpoints) {
+        if (ends.length < endpoints) {
+            int c = Math.max(endpoints + endpoints / 2, 64);
+            ends = new int[c];
+            ref = new int[c];
+            dx = new float[c];
+            dy = new float[c];
+        }
+        return ends;
+    }
+
+    /** counting sort of the endpoints by particle */
+    void build(int particles, int endpoints) {
+        int[] start = this.start;
+        if (start.length < particles + 1)
+            this.start = start = new int[particles + 1 + particles / 2];
+        else
+            Arrays.fill(start, 0, particles + 1, 0);
+
+        int[] ends = this.ends;
+        for (int e = 0; e < endpoints; e++)
+            start[ends[e] + 1]++;
+        for (int i = 0; i < particles; i++)
+            start[i + 1] += start[i];
+
+        //place in ascending endpoint order, using start[] as the write cursor then shifting it back
+        int[] ref = this.ref;
+        for (int e = 0; e < endpoints; e++)
+            ref[start[ends[e]]++] = e;
+        for (int i = particles; i > 0; i--)
+            start[i] = start[i - 1];
+        start[0] = 0;
+    }
+
+    /** x[i] += each delta of particle i, for particles [from, to) */
+    void apply(int from, int to, float[] x) {
+        int[] start = this.start, ref = this.ref;
+        float[] dx = this.dx;
+        for (int i = from; i < to; i++) {
+            int r = start[i], end = start[i + 1];
+            if (r == end) continue;
+            float xi = x[i];
+            for (; r < end; r++)
+                xi += dx[ref[r]];
+            x[i] = xi;
+        }
+    }
+
+    /** (x[i], y[i]) += each delta of particle i, for particles [from, to) */
+    void apply(int from, int to, float[] x, float[] y) {
+        int[] start = this.start, ref = this.ref;
+        float[] dx = this.dx, dy = this.dy;
+        for (int i = from; i < to; i++) {
+            int r = start[i], end = start[i + 1];
+            if (r == end) continue;
+            float xi = x[i], yi = y[i];
+            for (; r < end; r++) {
+                int e = ref[r];
+                xi += dx[e];
+                yi += dy[e];
+            }
+            x[i] = xi;
+            y[i] = yi;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package spacegraph.space2d.phys.particle;
+
+import java.util.Arrays;
+
+/**
+ * Spatial index of particles for contact detection: parallel primitive arrays of
+ * (grid tag, particle index), kept sorted by tag with an allocation-free LSD radix sort.
+ * Replaces the former Proxy objects and their Arrays.sort comparison sort.
+ * <p>
+ * The sort is stable, as was the merge sort it replaces, so particles with equal tags
+ * keep their previous relative order and contact generation order is unchanged.
+ */
+final class ParticleProxyIndex {
+
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+
+    long[] tag = new long[0];
+    int[] index = new int[0];
+    int count;
+
+    private long[] tagSwap = new long[0];
+    private int[] indexSwap = new int[0];
+    private final int[] histogram = new int[RADIX];
+
+    void add(int particle) {
+        if (count >= index.length) {
+            int c = Math.max(count * 2, 256);
+            tag = Arrays.copyOf(tag, c);
+            index = Arrays.copyOf(index, c);
+            tagSwap = new long[c];
+            indexSwap = new int[c];
+        }
+        index[count++] = particle;
+    }
+
+    /**
+     * stable sort by tag.  only as many 11-bit digits as the tag range requires are processed,
+     * typically 2 or 3 for the 31-bit grid tags
+     */
+    void sort() {
+        int n = count;
+        if (n < 2)
+            return;
+
+        long[] t = tag;
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        boolean sorted = true;
+        long prev = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            long x = t[i];
+            if (x < min) min = x;
+            if (x > max) max = x;
+            if (x < prev) sorted = false;
+            prev = x;
+        }
+        if (sorted)
+            return;
+
+        long range = max - min;
+        int bits = range < 0 ? 64 : 64 - Long.numberOfLeadingZeros(range);
+
+        long[] srcT = t, dstT = tagSwap;
+        int[] srcI = index, dstI = indexSwap;
+        int[] h = histogram;
+        for (int shift = 0; shift < bits; shift += RADIX_BITS) {
+            Arrays.fill(h, 0);
+            for (int i = 0; i < n; i++)
+                h[(int) (((srcT[i] - min) >>> shift) & RADIX_MASK)]++;
+
+            int sum = 0;
+            for (int d = 0; d < RADIX; d++) {
+                int c = h[d];
+                h[d] = sum;
+                sum += c;
+            }
+
+            for (int i = 0; i < n; i++) {
+                int d = (int) (((srcT[i] - min) >>> shift) & RADIX_MASK);
+                int j = h[d]++;
+                dstT[j] = srcT[i];
+                dstI[j] = srcI[i];
+            }
+
+            long[] st = srcT; srcT = dstT; dstT = st;
+            int[] si = srcI; srcI = dstI; dstI = si;
+        }
+
+        //keep the result in the primary arrays, swapping roles rather than copying
+        tag = srcT;
+        index = srcI;
+        tagSwap = dstT;
+        indexSwap = dstI;
+    }
+
+    /** first position whose tag is >= the given tag */
+    int lowerBound(long t) {
+        long[] tags = this.tag;
+        int left = 0, length = count;
+        while (length > 0) {
+            int step = length / 2;
+            int curr = left + step;
+            if (tags[curr] < t) {
+                left = curr + 1;
+                length -= step + 1;
+            } else {
+                length = step;
+            }
+        }
+        return left;
+    }
+
+    /** first position whose tag is > the given tag */
+    int upperBound(long t) {
+        long[] tags = this.tag;
+        int left = 0, length = count;
+        while (length > 0) {
+            int step = length / 2;
+            int curr = left + step;
+            if (tags[curr] <= t) {
+                left = curr + 1;
+                length -= step + 1;
+            } else {
+                length = step;
+            }
+        }
+        return left;
+    }
+
+    /** applies a particle renumbering, dropping proxies of removed (negative) particles */
+    void remap(int[] newIndices) {
+        int[] idx = this.index;
+        long[] tags = this.tag;
+        int j = count;
+        for (int k = 0; k < j; k++)
+            idx[k] = newIndices[idx[k]];
+        for (int i = 0; i < j; i++) {
+            if (idx[i] < 0) {
+                --j;
+                int ti = idx[j]; idx[j] = idx[i]; idx[i] = ti;
+                long tt = tags[j]; tags[j] = tags[i]; tags[i] = tt;
+                --i;
+            }
+        }
+        count = j;
+    }
+}
@@ -19,10 +19,13 @@ import spacegraph.space2d.phys.dynamics.TimeStep;
 import spacegraph.space2d.phys.dynamics.contacts.Position;
 import spacegraph.space2d.phys.dynamics.contacts.Velocity;
 import spacegraph.space2d.phys.particle.VoronoiDiagram.VoronoiDiagramCallback;
+import org.jetbrains.annotations.Nullable;
 import spacegraph.util.ParticleColor;
 
 import java.lang.reflect.Array;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Predicate;
 
 public class ParticleSystem {
@@ -79,16 +82,66 @@ public class ParticleSystem {
     final ParticleBuffer<Position> m_positionBuffer;
     final ParticleBuffer<Velocity> m_velocityBuffer;
     private float[] m_accumulationBuffer;
-    private Position[] m_accumulation2Buffer;
+    private float[] m_accumulation2X, m_accumulation2Y;
     private float[] m_depthBuffer;
 
+    /**
+     * structure-of-arrays positions and velocities, the particles' own storage.  the position and
+     * velocity buffers are only views of them, filled when handed out (see
+     * {@link #getParticlePositionBuffer}) and read back, with any edits, before the particles are
+     * next touched (see {@link #readBack}).
+     */
+    float[] m_px, m_py, m_vx, m_vy;
+    /** whether the position or velocity buffer was handed out since the last {@link #readBack} */
+    private boolean m_positionsOut, m_velocitiesOut;
+
     public final ParticleBuffer<ParticleColor> m_colorBuffer;
     private ParticleGroup[] m_groupBuffer;
     private final ParticleBuffer<Object> m_userDataBuffer;
 
-    private int m_proxyCount;
-    private int m_proxyCapacity;
-    private Proxy[] m_proxyBuffer;
+    private final ParticleProxyIndex m_proxies = new ParticleProxyIndex();
+
+    /** particle renumbering scratch of solveZombie */
+    private int[] m_zombieIndices = new int[0];
+
+    /** particles or items per task, below which a pass is not split */
+    private static final int PARALLEL_GRAIN = 1024;
+
+    private @Nullable ForkJoinPool m_exe;
+    private int m_threads;
+    private TimeStep m_step;
+    private final ParticleIncidence m_contactIncidence = new ParticleIncidence();
+    private final ParticleIncidence m_pairIncidence = new ParticleIncidence();
+    private final ParticleIncidence m_triadIncidence = new ParticleIncidence();
+    /** incidence whose deltas the apply ranges sum */
+    private ParticleIncidence m_applying;
+
+    /** colors of contacts; those that would need more are applied serially, after */
+    private static final int CONTACT_COLORS = 64;
+    /** contacts ordered by color, no two of a color sharing a particle, and the end of each color among them */
+    private int[] m_contactOrder = new int[0];
+    private final int[] m_contactColorEnd = new int[CONTACT_COLORS + 1];
+    /** coloring scratch: the color of each contact, and the colors taken at each particle */
+    private int[] m_contactColor = new int[0];
+    private long[] m_particleColors = new long[0];
+
+    private final Range m_gravityRange = this::solveGravity;
+    private final Range m_integrateRange = this::integrate;
+    private final Range m_applyVelocityRange = (from, to) -> m_applying.apply(from, to, m_vx, m_vy);
+    private final Range m_applyAccumulationRange = (from, to) -> m_applying.apply(from, to, m_accumulationBuffer);
+    private final Range m_applyAccumulation2Range =
+            (from, to) -> m_applying.apply(from, to, m_accumulation2X, m_accumulation2Y);
+    private final Range m_pressureWeightRange = this::pressureWeights;
+    private final Range m_pressureRange = this::pressureDeltas;
+    private final Range m_dampingRange = this::dampingColored;
+    private final Range m_viscousRange = this::viscousColored;
+    private final Range m_powderRange = this::powderDeltas;
+    private final Range m_tensileWeightRange = this::tensileWeights;
+    private final Range m_tensileNormalRange = this::tensileNormals;
+    private final Range m_tensileRange = this::tensileDeltas;
+    private final Range m_solidRange = this::solidDeltas;
+    private final Range m_springRange = this::springDeltas;
+    private final Range m_elasticRange = this::elasticDeltas;
 
     public int m_contactCount;
     private int m_contactCapacity;
@@ -138,9 +191,6 @@ public class ParticleSystem {
         m_internalAllocatedCapacity = 0;
         m_maxCount = 0;
 
-        m_proxyCount = 0;
-        m_proxyCapacity = 0;
-
         m_contactCount = 0;
         m_contactCapacity = 0;
 
@@ -184,6 +234,7 @@ public class ParticleSystem {
 
 
     public int createParticle(ParticleDef def) {
+        readBack();
         if (m_count >= m_internalAllocatedCapacity) {
             int capacity = m_count != 0 ? 2 * m_count : Settings.minParticleBufferCapacity;
             capacity = limitCapacity(capacity, m_maxCount);
@@ -196,15 +247,22 @@ public class ParticleSystem {
                 m_flagsBuffer.data =
                         reallocateBuffer(m_flagsBuffer, m_internalAllocatedCapacity, capacity, false);
                 m_positionBuffer.data =
-                        reallocateBuffer(m_positionBuffer, m_internalAllocatedCapacity, capacity, false);
+                        reallocateBuffer(m_positionBuffer, m_internalAllocatedCapacity, capacity, true);
                 m_velocityBuffer.data =
-                        reallocateBuffer(m_velocityBuffer, m_internalAllocatedCapacity, capacity, false);
+                        reallocateBuffer(m_velocityBuffer, m_internalAllocatedCapacity, capacity, true);
                 m_accumulationBuffer =
                         BufferUtils.reallocateBuffer(m_accumulationBuffer, 0, m_internalAllocatedCapacity,
                                 capacity, false);
-                m_accumulation2Buffer =
-                        BufferUtils.reallocateBuffer(Position.class, m_accumulation2Buffer, 0,
-                                m_internalAllocatedCapacity, capacity, true);
+                m_accumulation2X =
+                        BufferUtils.reallocateBuffer(m_accumulation2X, 0, m_internalAllocatedCapacity,
+                                capacity, true);
+                m_accumulation2Y =
+                        BufferUtils.reallocateBuffer(m_accumulation2Y, 0, m_internalAllocatedCapacity,
+                                capacity, true);
+                m_px = BufferUtils.reallocateBuffer(m_px, 0, m_internalAllocatedCapacity, capacity, false);
+                m_py = BufferUtils.reallocateBuffer(m_py, 0, m_internalAllocatedCapacity, capacity, false);
+                m_vx = BufferUtils.reallocateBuffer(m_vx, 0, m_internalAllocatedCapacity, capacity, false);
+                m_vy = BufferUtils.reallocateBuffer(m_vy, 0, m_internalAllocatedCapacity, capacity, false);
                 m_depthBuffer =
                         BufferUtils.reallocateBuffer(m_depthBuffer, 0, m_internalAllocatedCapacity, capacity,
                                 true);
@@ -223,9 +281,10 @@ public class ParticleSystem {
         }
         int index = m_count++;
         m_flagsBuffer.data[index] = def.flags;
-        m_positionBuffer.data[index].set(def.position);
-
-        m_velocityBuffer.data[index].set(def.velocity);
+        m_px[index] = def.position.x;
+        m_py[index] = def.position.y;
+        m_vx[index] = def.velocity.x;
+        m_vy[index] = def.velocity.y;
         m_groupBuffer[index] = null;
         if (m_depthBuffer != null) {
             m_depthBuffer[index] = 0;
@@ -239,14 +298,7 @@ public class ParticleSystem {
                     requestParticleBuffer(m_userDataBuffer.dataClass, m_userDataBuffer.data);
             m_userDataBuffer.data[index] = def.userData;
         }
-        if (m_proxyCount >= m_proxyCapacity) {
-            int oldCapacity = m_proxyCapacity;
-            int newCapacity = m_proxyCount != 0 ? 2 * m_proxyCount : Settings.minParticleBufferCapacity;
-            m_proxyBuffer =
-                    BufferUtils.reallocateBuffer(Proxy.class, m_proxyBuffer, oldCapacity, newCapacity);
-            m_proxyCapacity = newCapacity;
-        }
-        m_proxyBuffer[m_proxyCount++].index = index;
+        m_proxies.add(index);
         return index;
     }
 
@@ -293,6 +345,7 @@ public class ParticleSystem {
 
 
         world.invoke(() -> {
+            readBack();
             float stride = getParticleStride();
             Transform identity = tempTransform;
             identity.setIdentity();
@@ -381,7 +434,7 @@ public class ParticleSystem {
                         pair.indexB = b;
                         pair.flags = contact.flags;
                         pair.strength = groupDef.strength;
-                        pair.distance = m_positionBuffer.data[a].distance(m_positionBuffer.data[b]);
+                        pair.distance = distance(a, b);
                         m_pairCount++;
                     }
                 }
@@ -389,7 +442,7 @@ public class ParticleSystem {
             if ((groupDef.flags & k_triadFlags) != 0) {
                 VoronoiDiagram diagram = new VoronoiDiagram(lastIndex - firstIndex);
                 for (int i = firstIndex; i < lastIndex; i++) {
-                    diagram.addGenerator(m_positionBuffer.data[i], i);
+                    diagram.addGenerator(tempVec.set(m_px[i], m_py[i]), i);
                 }
                 diagram.generate(stride / 2);
                 createParticleGroupCallback.system = this;
@@ -406,6 +459,7 @@ public class ParticleSystem {
 
     public void joinParticleGroups(ParticleGroup groupA, ParticleGroup groupB) {
         assert (groupA != groupB);
+        readBack();
         RotateBuffer(groupB.m_firstIndex, groupB.m_lastIndex, m_count);
         assert (groupB.m_lastIndex == m_count);
         RotateBuffer(groupA.m_firstIndex, groupA.m_lastIndex, groupB.m_firstIndex);
@@ -441,7 +495,7 @@ public class ParticleSystem {
                     pair.indexB = b;
                     pair.flags = contact.flags;
                     pair.strength = Math.min(groupA.m_strength, groupB.m_strength);
-                    pair.distance = m_positionBuffer.data[a].distance(m_positionBuffer.data[b]);
+                    pair.distance = distance(a, b);
                     m_pairCount++;
                 }
             }
@@ -450,7 +504,7 @@ public class ParticleSystem {
             VoronoiDiagram diagram = new VoronoiDiagram(groupB.m_lastIndex - groupA.m_firstIndex);
             for (int i = groupA.m_firstIndex; i < groupB.m_lastIndex; i++) {
                 if ((m_flagsBuffer.data[i] & ParticleType.b2_zombieParticle) == 0) {
-                    diagram.addGenerator(m_positionBuffer.data[i], i);
+                    diagram.addGenerator(tempVec.set(m_px[i], m_py[i]), i);
                 }
             }
             diagram.generate(getParticleStride() / 2);
@@ -559,12 +613,16 @@ public class ParticleSystem {
         }
     }
 
+    private float distance(int a, int b) {
+        float dx = m_px[b] - m_px[a];
+        float dy = m_py[b] - m_py[a];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
     private void addContact(int a, int b) {
         assert (a != b);
-        v2 pa = m_positionBuffer.data[a];
-        v2 pb = m_positionBuffer.data[b];
-        float dx = pb.x - pa.x;
-        float dy = pb.y - pa.y;
+        float dx = m_px[b] - m_px[a];
+        float dy = m_py[b] - m_py[a];
         float d2 = dx * dx + dy * dy;
 
         if (d2 < m_squaredDiameter) {
@@ -590,43 +648,45 @@ public class ParticleSystem {
     }
 
     private void updateContacts(boolean exceptZombie) {
-        for (int p = 0; p < m_proxyCount; p++) {
-            Proxy proxy = m_proxyBuffer[p];
-            int i = proxy.index;
-            v2 pos = m_positionBuffer.data[i];
-            proxy.tag = computeTag(m_inverseDiameter * pos.x, m_inverseDiameter * pos.y);
+        ParticleProxyIndex proxies = m_proxies;
+        int proxyCount = proxies.count;
+        long[] tags = proxies.tag;
+        int[] index = proxies.index;
+        float[] px = m_px, py = m_py;
+        for (int p = 0; p < proxyCount; p++) {
+            int i = index[p];
+            tags[p] = computeTag(m_inverseDiameter * px[i], m_inverseDiameter * py[i]);
         }
 
-
-        Arrays.sort(m_proxyBuffer, 0, m_proxyCount);
+        proxies.sort();
+        tags = proxies.tag;
+        index = proxies.index;
 
         m_contactCount = 0;
         int c_index = 0;
-        for (int i = 0; i < m_proxyCount; i++) {
-            Proxy a = m_proxyBuffer[i];
-            long rightTag = computeRelativeTag(a.tag, 1, 0);
-            for (int j = i + 1; j < m_proxyCount; j++) {
-                Proxy b = m_proxyBuffer[j];
-                if (rightTag < b.tag) {
+        for (int i = 0; i < proxyCount; i++) {
+            long aTag = tags[i];
+            int a = index[i];
+            long rightTag = computeRelativeTag(aTag, 1, 0);
+            for (int j = i + 1; j < proxyCount; j++) {
+                if (rightTag < tags[j]) {
                     break;
                 }
-                addContact(a.index, b.index);
+                addContact(a, index[j]);
             }
-            long bottomLeftTag = computeRelativeTag(a.tag, -1, 1);
-            for (; c_index < m_proxyCount; c_index++) {
-                Proxy c = m_proxyBuffer[c_index];
-                if (bottomLeftTag <= c.tag) {
+            long bottomLeftTag = computeRelativeTag(aTag, -1, 1);
+            for (; c_index < proxyCount; c_index++) {
+                if (bottomLeftTag <= tags[c_index]) {
                     break;
                 }
             }
-            long bottomRightTag = computeRelativeTag(a.tag, 1, 1);
+            long bottomRightTag = computeRelativeTag(aTag, 1, 1);
 
-            for (int b_index = c_index; b_index < m_proxyCount; b_index++) {
-                Proxy b = m_proxyBuffer[b_index];
-                if (bottomRightTag < b.tag) {
+            for (int b_index = c_index; b_index < proxyCount; b_index++) {
+                if (bottomRightTag < tags[b_index]) {
                     break;
                 }
-                addContact(a.index, b.index);
+                addContact(a, index[b_index]);
             }
         }
         if (exceptZombie) {
@@ -652,10 +712,13 @@ public class ParticleSystem {
         aabb.lowerBound.y = Float.MAX_VALUE;
         aabb.upperBound.x = -Float.MAX_VALUE;
         aabb.upperBound.y = -Float.MAX_VALUE;
+        float[] px = m_px, py = m_py;
         for (int i = 0; i < m_count; i++) {
-            v2 p = m_positionBuffer.data[i];
-            v2.minToOut(aabb.lowerBound, p, aabb.lowerBound);
-            v2.maxToOut(aabb.upperBound, p, aabb.upperBound);
+            float x = px[i], y = py[i];
+            aabb.lowerBound.x = Math.min(aabb.lowerBound.x, x);
+            aabb.lowerBound.y = Math.min(aabb.lowerBound.y, y);
+            aabb.upperBound.x = Math.max(aabb.upperBound.x, x);
+            aabb.upperBound.y = Math.max(aabb.upperBound.y, y);
         }
         aabb.lowerBound.x -= m_particleDiameter;
         aabb.lowerBound.y -= m_particleDiameter;
@@ -677,17 +740,14 @@ public class ParticleSystem {
         lowerBound.y = Float.MAX_VALUE;
         upperBound.x = -Float.MAX_VALUE;
         upperBound.y = -Float.MAX_VALUE;
-        v2[] V = m_velocityBuffer.data;
-        v2[] P = m_positionBuffer.data;
+        float[] px = m_px, py = m_py, vx = m_vx, vy = m_vy;
         float dt = step.dt;
         for (int i = 0; i < m_count; i++) {
-            v2 v = V[i];
-            v2 p1 = P[i];
-            float p1x = p1.x;
-            float p1y = p1.y;
+            float p1x = px[i];
+            float p1y = py[i];
 
-            float p2x = p1x + dt * v.x;
-            float p2y = p1y + dt * v.y;
+            float p2x = p1x + dt * vx[i];
+            float p2y = p1y + dt * vy[i];
             float bx = Math.min(p1x, p2x);
             lowerBound.x = Math.min(lowerBound.x, bx);
             float by = Math.min(p1y, p2y);
@@ -707,6 +767,7 @@ public class ParticleSystem {
         if (m_count == 0) {
             return;
         }
+        readBack();
         m_allParticleFlags = 0;
         for (int i = 0; i < m_count; i++) {
             m_allParticleFlags |= m_flagsBuffer.data[i];
@@ -721,20 +782,8 @@ public class ParticleSystem {
         for (ParticleGroup group = m_groupList; group != null; group = group.getNext()) {
             m_allGroupFlags |= group.m_groupFlags;
         }
-        float gravityx = step.dt * m_gravityScale * m_world.getGravity().x;
-        float gravityy = step.dt * m_gravityScale * m_world.getGravity().y;
-        float criticalVelocytySquared = getCriticalVelocitySquared(step);
-        for (int i = 0; i < m_count; i++) {
-            v2 v = m_velocityBuffer.data[i];
-            v.x += gravityx;
-            v.y += gravityy;
-            float v2 = v.x * v.x + v.y * v.y;
-            if (v2 > criticalVelocytySquared) {
-                float a = v2 == 0 ? Float.MAX_VALUE : (float) Math.sqrt(criticalVelocytySquared / v2);
-                v.x *= a;
-                v.y *= a;
-            }
-        }
+        m_step = step;
+        forRange(m_count, m_gravityRange);
         solveCollision(step);
         if ((m_allGroupFlags & ParticleGroupType.b2_rigidParticleGroup) != 0) {
             solveRigid(step);
@@ -742,14 +791,19 @@ public class ParticleSystem {
         if ((m_allParticleFlags & ParticleType.b2_wallParticle) != 0) {
             solveWall(step);
         }
-        for (int i = 0; i < m_count; i++) {
-            v2 pos = m_positionBuffer.data[i];
-            v2 vel = m_velocityBuffer.data[i];
-            pos.x += step.dt * vel.x;
-            pos.y += step.dt * vel.y;
-        }
+        forRange(m_count, m_integrateRange);
         updateBodyContacts();
         updateContacts(false);
+        if (m_threads > 0) {
+            int[] ends = m_contactIncidence.ends(2 * m_contactCount);
+            for (int k = 0; k < m_contactCount; k++) {
+                ParticleContact contact = m_contactBuffer[k];
+                ends[2 * k] = contact.indexA;
+                ends[2 * k + 1] = contact.indexB;
+            }
+            m_contactIncidence.build(m_count, 2 * m_contactCount);
+            colorContacts();
+        }
         if ((m_allParticleFlags & ParticleType.b2_viscousParticle) != 0) {
             solveViscous(step);
         }
@@ -773,6 +827,206 @@ public class ParticleSystem {
         }
         solvePressure(step);
         solveDamping(step);
+        m_step = null;
+        // buffers the caller supplied stay in step with the particles
+        if (m_positionBuffer.userSuppliedCapacity != 0)
+            getParticlePositionBuffer();
+        if (m_velocityBuffer.userSuppliedCapacity != 0)
+            getParticleVelocityBuffer();
+    }
+
+    /**
+     * Runs the particle and contact passes of {@link #solve} on several threads.  Each pass
+     * first computes the velocity (or accumulator) deltas of every contact, pair or triad
+     * endpoint, then each particle sums its own deltas in the order the sequential loop would
+     * have applied them; there are no conflicting writes and the results do not depend on the
+     * number of threads.  The pressure, tensile, powder, solid, spring and elastic passes give the
+     * same result as the sequential solver.  Damping and viscosity, which the sequential solver
+     * applies contact by contact (each seeing the velocities left by the previous ones), are
+     * instead applied a color at a time: the contacts are colored so that no two of a color share
+     * a particle, and each color is applied at once.  Every contact still sees the velocities
+     * left by those before it, only in another order, so the results are close to the sequential
+     * solver's and again do not depend on the number of threads.
+     *
+     * @param exe     executor for the tasks, or null to use the common pool
+     * @param threads maximum number of tasks per pass; 0 restores the sequential solver.  1 uses
+     *                the parallel scheme on the calling thread, for comparison
+     */
+    public void setThreads(@Nullable ForkJoinPool exe, int threads) {
+        if (threads < 0)
+            throw new IllegalArgumentException("threads < 0");
+        m_exe = exe;
+        m_threads = threads;
+    }
+
+    public int getThreads() {
+        return m_threads;
+    }
+
+    @FunctionalInterface
+    private interface Range {
+        void run(int from, int to);
+    }
+
+    /** runs the range over [0, n), split into up to m_threads contiguous parts */
+    private void forRange(int n, Range r) {
+        forRange(0, n, r);
+    }
+
+    /** runs the range over [from, to), split into up to m_threads contiguous parts */
+    private void forRange(int from, int to, Range r) {
+        int n = to - from;
+        int parts = Math.min(m_threads, (n + PARALLEL_GRAIN - 1) / PARALLEL_GRAIN);
+        if (parts <= 1)
+            r.run(from, to);
+        else
+            (m_exe != null ? m_exe : ForkJoinPool.commonPool()).invoke(new RangeFork(r, from, n, parts, 0, parts));
+    }
+
+    private static final class RangeFork extends RecursiveAction {
+        private final Range r;
+        private final int base, n, parts, from, to;
+
+        RangeFork(Range r, int base, int n, int parts, int from, int to) {
+            this.r = r;
+            this.base = base;
+            this.n = n;
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1)
+                r.run(base + (int) ((long) n * from / parts), base + (int) ((long) n * to / parts));
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeFork(r, base, n, parts, from, mid), new RangeFork(r, base, n, parts, mid, to));
+            }
+        }
+    }
+
+    /** computes the deltas of items [0, items) then adds them to the particle velocities */
+    private void solveDeltas(ParticleIncidence incidence, int items, Range deltas) {
+        forRange(items, deltas);
+        m_applying = incidence;
+        forRange(m_count, m_applyVelocityRange);
+    }
+
+    /**
+     * colors the contacts greedily, in order: each takes the least color not yet taken by another
+     * contact at either of its particles
+     */
+    private void colorContacts() {
+        int m = m_contactCount;
+        if (m_contactOrder.length < m) {
+            int c = Math.max(m + m / 2, 64);
+            m_contactOrder = new int[c];
+            m_contactColor = new int[c];
+        }
+        if (m_particleColors.length < m_count)
+            m_particleColors = new long[Math.max(m_count + m_count / 2, 64)];
+        long[] taken = m_particleColors;
+        Arrays.fill(taken, 0, m_count, 0);
+        int[] color = m_contactColor, end = m_contactColorEnd;
+        Arrays.fill(end, 0);
+        for (int k = 0; k < m; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            int a = contact.indexA, b = contact.indexB;
+            int c = Long.numberOfTrailingZeros(~(taken[a] | taken[b])); //CONTACT_COLORS if none left
+            if (c < CONTACT_COLORS) {
+                long bit = 1L << c;
+                taken[a] |= bit;
+                taken[b] |= bit;
+            }
+            color[k] = c;
+            end[c]++;
+        }
+        for (int c = 0, at = 0; c <= CONTACT_COLORS; c++) {
+            int size = end[c];
+            end[c] = at;
+            at += size;
+        }
+        int[] order = m_contactOrder;
+        for (int k = 0; k < m; k++)
+            order[end[color[k]]++] = k;
+    }
+
+    /** runs the range over the contacts of each color in turn, each color in parallel, the uncolored serially */
+    private void forColors(Range r) {
+        int[] end = m_contactColorEnd;
+        for (int c = 0, from = 0; c < CONTACT_COLORS; from = end[c++]) {
+            if (from < end[c])
+                forRange(from, end[c], r);
+        }
+        r.run(end[CONTACT_COLORS - 1], end[CONTACT_COLORS]);
+    }
+
+    /** endpoint deltas of a two-particle item k: -f for particle a, +f for particle b */
+    private static void pairDelta(ParticleIncidence incidence, int k, float fx, float fy) {
+        float[] dx = incidence.dx, dy = incidence.dy;
+        dx[2 * k] = -fx;
+        dy[2 * k] = -fy;
+        dx[2 * k + 1] = fx;
+        dy[2 * k + 1] = fy;
+    }
+
+    private void solveGravity(int from, int to) {
+        TimeStep step = m_step;
+        float[] vx = m_vx, vy = m_vy;
+        float gravityx = step.dt * m_gravityScale * m_world.getGravity().x;
+        float gravityy = step.dt * m_gravityScale * m_world.getGravity().y;
+        float criticalVelocytySquared = getCriticalVelocitySquared(step);
+        for (int i = from; i < to; i++) {
+            float x = vx[i] + gravityx;
+            float y = vy[i] + gravityy;
+            float v2 = x * x + y * y;
+            if (v2 > criticalVelocytySquared) {
+                float a = v2 == 0 ? Float.MAX_VALUE : (float) Math.sqrt(criticalVelocytySquared / v2);
+                x *= a;
+                y *= a;
+            }
+            vx[i] = x;
+            vy[i] = y;
+        }
+    }
+
+    private void integrate(int from, int to) {
+        float dt = m_step.dt;
+        float[] px = m_px, py = m_py, vx = m_vx, vy = m_vy;
+        for (int i = from; i < to; i++) {
+            px[i] += dt * vx[i];
+            py[i] += dt * vy[i];
+        }
+    }
+
+    /**
+     * loads the SoA positions and velocities from the position and velocity buffers, if either
+     * was handed out since: the caller may have edited it
+     */
+    void readBack() {
+        if (m_positionsOut) {
+            m_positionsOut = false;
+            load(m_positionBuffer.data, m_px, m_py);
+        }
+        if (m_velocitiesOut) {
+            m_velocitiesOut = false;
+            load(m_velocityBuffer.data, m_vx, m_vy);
+        }
+    }
+
+    private void load(v2[] from, float[] x, float[] y) {
+        for (int i = 0; i < m_count; i++) {
+            v2 v = from[i];
+            x[i] = v.x;
+            y[i] = v.y;
+        }
+    }
+
+    private void store(float[] x, float[] y, v2[] to) {
+        for (int i = 0; i < m_count; i++)
+            to[i].set(x[i], y[i]);
     }
 
     private void solvePressure(TimeStep step) {
@@ -787,13 +1041,19 @@ public class ParticleSystem {
             float w = contact.weight;
             m_accumulationBuffer[a] += w;
         }
-        for (int k = 0; k < m_contactCount; k++) {
-            ParticleContact contact = m_contactBuffer[k];
-            int a = contact.indexA;
-            int b = contact.indexB;
-            float w = contact.weight;
-            m_accumulationBuffer[a] += w;
-            m_accumulationBuffer[b] += w;
+        if (m_threads > 0) {
+            forRange(m_contactCount, m_pressureWeightRange);
+            m_applying = m_contactIncidence;
+            forRange(m_count, m_applyAccumulationRange);
+        } else {
+            for (int k = 0; k < m_contactCount; k++) {
+                ParticleContact contact = m_contactBuffer[k];
+                int a = contact.indexA;
+                int b = contact.indexB;
+                float w = contact.weight;
+                m_accumulationBuffer[a] += w;
+                m_accumulationBuffer[b] += w;
+            }
         }
         
         if ((m_allParticleFlags & k_noPressureFlags) != 0) {
@@ -815,6 +1075,7 @@ public class ParticleSystem {
         }
         
         float velocityPerPressure = step.dt / (m_density * m_particleDiameter);
+        float[] vx = m_vx, vy = m_vy;
         for (int k = 0; k < m_bodyContactCount; k++) {
             ParticleBodyContact contact = m_bodyContactBuffer[k];
             int a = contact.index;
@@ -822,18 +1083,21 @@ public class ParticleSystem {
             float w = contact.weight;
             float m = contact.mass;
             v2 n = contact.normal;
-            v2 p = m_positionBuffer.data[a];
+            v2 p = tempv2.set(m_px[a], m_py[a]);
             float h = m_accumulationBuffer[a] + pressurePerWeight * w;
             v2 f = tempVec;
             float coef = velocityPerPressure * w * m * h;
             f.x = coef * n.x;
             f.y = coef * n.y;
-            v2 velData = m_velocityBuffer.data[a];
             float particleInvMass = getParticleInvMass();
-            velData.x -= particleInvMass * f.x;
-            velData.y -= particleInvMass * f.y;
+            m_vx[a] -= particleInvMass * f.x;
+            m_vy[a] -= particleInvMass * f.y;
             b.applyLinearImpulse(f, p, true);
         }
+        if (m_threads > 0) {
+            solveDeltas(m_contactIncidence, m_contactCount, m_pressureRange);
+            return;
+        }
         for (int k = 0; k < m_contactCount; k++) {
             ParticleContact contact = m_contactBuffer[k];
             int a = contact.indexA;
@@ -843,18 +1107,38 @@ public class ParticleSystem {
             float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
             float fx = velocityPerPressure * w * h * n.x;
             float fy = velocityPerPressure * w * h * n.y;
-            v2 velDataA = m_velocityBuffer.data[a];
-            v2 velDataB = m_velocityBuffer.data[b];
-            velDataA.x -= fx;
-            velDataA.y -= fy;
-            velDataB.x += fx;
-            velDataB.y += fy;
+            vx[a] -= fx;
+            vy[a] -= fy;
+            vx[b] += fx;
+            vy[b] += fy;
+        }
+    }
+
+    private void pressureWeights(int from, int to) {
+        float[] dx = m_contactIncidence.dx;
+        for (int k = from; k < to; k++) {
+            float w = m_contactBuffer[k].weight;
+            dx[2 * k] = w;
+            dx[2 * k + 1] = w;
+        }
+    }
+
+    private void pressureDeltas(int from, int to) {
+        float velocityPerPressure = m_step.dt / (m_density * m_particleDiameter);
+        float[] h = m_accumulationBuffer;
+        for (int k = from; k < to; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            float w = contact.weight;
+            v2 n = contact.normal;
+            float hab = h[contact.indexA] + h[contact.indexB];
+            pairDelta(m_contactIncidence, k, velocityPerPressure * w * hab * n.x, velocityPerPressure * w * hab * n.y);
         }
     }
 
     private void solveDamping(TimeStep step) {
         
         float damping = m_dampingStrength;
+        float[] px = m_px, py = m_py, velX = m_vx, velY = m_vy;
         for (int k = 0; k < m_bodyContactCount; k++) {
             ParticleBodyContact contact = m_bodyContactBuffer[k];
             int a = contact.index;
@@ -862,13 +1146,11 @@ public class ParticleSystem {
             float w = contact.weight;
             float m = contact.mass;
             v2 n = contact.normal;
-            v2 p = m_positionBuffer.data[a];
-            float tempX = p.x - b.sweep.c.x;
-            float tempY = p.y - b.sweep.c.y;
-            v2 velA = m_velocityBuffer.data[a];
+            float tempX = px[a] - b.sweep.c.x;
+            float tempY = py[a] - b.sweep.c.y;
             
-            float vx = -b.velAngular * tempY + b.vel.x - velA.x;
-            float vy = b.velAngular * tempX + b.vel.y - velA.y;
+            float vx = -b.velAngular * tempY + b.vel.x - velX[a];
+            float vy = b.velAngular * tempX + b.vel.y - velY[a];
             
             float vn = vx * n.x + vy * n.y;
             if (vn < 0) {
@@ -876,41 +1158,54 @@ public class ParticleSystem {
                 f.x = damping * w * m * vn * n.x;
                 f.y = damping * w * m * vn * n.y;
                 float invMass = getParticleInvMass();
-                velA.x += invMass * f.x;
-                velA.y += invMass * f.y;
+                velX[a] += invMass * f.x;
+                velY[a] += invMass * f.y;
                 f.x = -f.x;
                 f.y = -f.y;
-                b.applyLinearImpulse(f, p, true);
+                b.applyLinearImpulse(f, tempv2.set(px[a], py[a]), true);
             }
         }
-        for (int k = 0; k < m_contactCount; k++) {
-            ParticleContact contact = m_contactBuffer[k];
-            int a = contact.indexA;
-            int b = contact.indexB;
-            float w = contact.weight;
-            v2 n = contact.normal;
-            v2 velA = m_velocityBuffer.data[a];
-            v2 velB = m_velocityBuffer.data[b];
-            float vx = velB.x - velA.x;
-            float vy = velB.y - velA.y;
-            float vn = vx * n.x + vy * n.y;
-            if (vn < 0) {
-                float fx = damping * w * vn * n.x;
-                float fy = damping * w * vn * n.y;
-                velA.x += fx;
-                velA.y += fy;
-                velB.x -= fx;
-                velB.y -= fy;
-            }
+        if (m_threads > 0) {
+            forColors(m_dampingRange);
+            return;
+        }
+        for (int k = 0; k < m_contactCount; k++)
+            damp(k, damping);
+    }
+
+    /** contacts [from, to) of the color order */
+    private void dampingColored(int from, int to) {
+        float damping = m_dampingStrength;
+        int[] order = m_contactOrder;
+        for (int i = from; i < to; i++)
+            damp(order[i], damping);
+    }
+
+    private void damp(int k, float damping) {
+        float[] velX = m_vx, velY = m_vy;
+        ParticleContact contact = m_contactBuffer[k];
+        int a = contact.indexA;
+        int b = contact.indexB;
+        float w = contact.weight;
+        v2 n = contact.normal;
+        float vx = velX[b] - velX[a];
+        float vy = velY[b] - velY[a];
+        float vn = vx * n.x + vy * n.y;
+        if (vn < 0) {
+            float fx = damping * w * vn * n.x;
+            float fy = damping * w * vn * n.y;
+            velX[a] += fx;
+            velY[a] += fy;
+            velX[b] -= fx;
+            velY[b] -= fy;
         }
     }
 
     private void solveWall(TimeStep step) {
         for (int i = 0; i < m_count; i++) {
             if ((m_flagsBuffer.data[i] & ParticleType.b2_wallParticle) != 0) {
-                v2 r = m_velocityBuffer.data[i];
-                r.x = 0.0f;
-                r.y = 0.0f;
+                m_vx[i] = 0.0f;
+                m_vy[i] = 0.0f;
             }
         }
     }
@@ -938,15 +1233,30 @@ public class ParticleSystem {
                 velocityTransform.pos.y = step.inv_dt * tempXf.pos.y;
                 velocityTransform.s = step.inv_dt * tempXf.s;
                 velocityTransform.c = step.inv_dt * (tempXf.c - 1);
+                v2 p = tempVec, v = tempv2;
                 for (int i = group.m_firstIndex; i < group.m_lastIndex; i++) {
-                    Transform.mulToOutUnsafe(velocityTransform, m_positionBuffer.data[i],
-                            m_velocityBuffer.data[i]);
+                    p.set(m_px[i], m_py[i]);
+                    Transform.mulToOutUnsafe(velocityTransform, p, v);
+                    m_vx[i] = v.x;
+                    m_vy[i] = v.y;
                 }
             }
         }
     }
 
     private void solveElastic(TimeStep step) {
+        if (m_threads > 0) {
+            int[] ends = m_triadIncidence.ends(3 * m_triadCount);
+            for (int k = 0; k < m_triadCount; k++) {
+                Triad triad = m_triadBuffer[k];
+                ends[3 * k] = triad.indexA;
+                ends[3 * k + 1] = triad.indexB;
+                ends[3 * k + 2] = triad.indexC;
+            }
+            m_triadIncidence.build(m_count, 3 * m_triadCount);
+            solveDeltas(m_triadIncidence, m_triadCount, m_elasticRange);
+            return;
+        }
         float elasticStrength = step.inv_dt * m_elasticStrength;
         for (int k = 0; k < m_triadCount; k++) {
             Triad triad = m_triadBuffer[k];
@@ -957,13 +1267,13 @@ public class ParticleSystem {
                 v2 oa = triad.pa;
                 v2 ob = triad.pb;
                 v2 oc = triad.pc;
-                v2 pa = m_positionBuffer.data[a];
-                v2 pb = m_positionBuffer.data[b];
-                v2 pc = m_positionBuffer.data[c];
-                float px = 1.0f / 3 * (pa.x + pb.x + pc.x);
-                float py = 1.0f / 3 * (pa.y + pb.y + pc.y);
-                float rs = v2.cross(oa, pa) + v2.cross(ob, pb) + v2.cross(oc, pc);
-                float rc = v2.dot(oa, pa) + v2.dot(ob, pb) + v2.dot(oc, pc);
+                float pax = m_px[a], pay = m_py[a];
+                float pbx = m_px[b], pby = m_py[b];
+                float pcx = m_px[c], pcy = m_py[c];
+                float px = 1.0f / 3 * (pax + pbx + pcx);
+                float py = 1.0f / 3 * (pay + pby + pcy);
+                float rs = (oa.x * pay - oa.y * pax) + (ob.x * pby - ob.y * pbx) + (oc.x * pcy - oc.y * pcx);
+                float rc = (oa.x * pax + oa.y * pay) + (ob.x * pbx + ob.y * pby) + (oc.x * pcx + oc.y * pcy);
                 float r2 = rs * rs + rc * rc;
                 float invR = r2 == 0 ? Float.MAX_VALUE : (float) Math.sqrt(1.0f / r2);
                 rs *= invR;
@@ -975,51 +1285,122 @@ public class ParticleSystem {
                 float roby = rs * ob.x + rc * ob.y;
                 float rocx = rc * oc.x - rs * oc.y;
                 float rocy = rs * oc.x + rc * oc.y;
-                v2 va = m_velocityBuffer.data[a];
-                v2 vb = m_velocityBuffer.data[b];
-                v2 vc = m_velocityBuffer.data[c];
-                va.x += strength * (roax - (pa.x - px));
-                va.y += strength * (roay - (pa.y - py));
-                vb.x += strength * (robx - (pb.x - px));
-                vb.y += strength * (roby - (pb.y - py));
-                vc.x += strength * (rocx - (pc.x - px));
-                vc.y += strength * (rocy - (pc.y - py));
+                m_vx[a] += strength * (roax - (pax - px));
+                m_vy[a] += strength * (roay - (pay - py));
+                m_vx[b] += strength * (robx - (pbx - px));
+                m_vy[b] += strength * (roby - (pby - py));
+                m_vx[c] += strength * (rocx - (pcx - px));
+                m_vy[c] += strength * (rocy - (pcy - py));
+            }
+        }
+    }
+
+    private void elasticDeltas(int from, int to) {
+        float elasticStrength = m_step.inv_dt * m_elasticStrength;
+        float[] dx = m_triadIncidence.dx, dy = m_triadIncidence.dy;
+        for (int k = from; k < to; k++) {
+            Triad triad = m_triadBuffer[k];
+            int e = 3 * k;
+            if ((triad.flags & ParticleType.b2_elasticParticle) == 0) {
+                Arrays.fill(dx, e, e + 3, 0);
+                Arrays.fill(dy, e, e + 3, 0);
+                continue;
             }
+            int a = triad.indexA;
+            int b = triad.indexB;
+            int c = triad.indexC;
+            v2 oa = triad.pa;
+            v2 ob = triad.pb;
+            v2 oc = triad.pc;
+            float pax = m_px[a], pay = m_py[a];
+            float pbx = m_px[b], pby = m_py[b];
+            float pcx = m_px[c], pcy = m_py[c];
+            float px = 1.0f / 3 * (pax + pbx + pcx);
+            float py = 1.0f / 3 * (pay + pby + pcy);
+            float rs = (oa.x * pay - oa.y * pax) + (ob.x * pby - ob.y * pbx) + (oc.x * pcy - oc.y * pcx);
+            float rc = (oa.x * pax + oa.y * pay) + (ob.x * pbx + ob.y * pby) + (oc.x * pcx + oc.y * pcy);
+            float r2 = rs * rs + rc * rc;
+            float invR = r2 == 0 ? Float.MAX_VALUE : (float) Math.sqrt(1.0f / r2);
+            rs *= invR;
+            rc *= invR;
+            float strength = elasticStrength * triad.strength;
+            dx[e] = strength * ((rc * oa.x - rs * oa.y) - (pax - px));
+            dy[e] = strength * ((rs * oa.x + rc * oa.y) - (pay - py));
+            dx[e + 1] = strength * ((rc * ob.x - rs * ob.y) - (pbx - px));
+            dy[e + 1] = strength * ((rs * ob.x + rc * ob.y) - (pby - py));
+            dx[e + 2] = strength * ((rc * oc.x - rs * oc.y) - (pcx - px));
+            dy[e + 2] = strength * ((rs * oc.x + rc * oc.y) - (pcy - py));
         }
     }
 
     private void solveSpring(TimeStep step) {
+        if (m_threads > 0) {
+            int[] ends = m_pairIncidence.ends(2 * m_pairCount);
+            for (int k = 0; k < m_pairCount; k++) {
+                Pair pair = m_pairBuffer[k];
+                ends[2 * k] = pair.indexA;
+                ends[2 * k + 1] = pair.indexB;
+            }
+            m_pairIncidence.build(m_count, 2 * m_pairCount);
+            solveDeltas(m_pairIncidence, m_pairCount, m_springRange);
+            return;
+        }
         float springStrength = step.inv_dt * m_springStrength;
         for (int k = 0; k < m_pairCount; k++) {
             Pair pair = m_pairBuffer[k];
             if ((pair.flags & ParticleType.b2_springParticle) != 0) {
                 int a = pair.indexA;
                 int b = pair.indexB;
-                v2 pa = m_positionBuffer.data[a];
-                v2 pb = m_positionBuffer.data[b];
-                float dx = pb.x - pa.x;
-                float dy = pb.y - pa.y;
+                float dx = m_px[b] - m_px[a];
+                float dy = m_py[b] - m_py[a];
                 float r0 = pair.distance;
                 float r1 = (float) Math.sqrt(dx * dx + dy * dy);
                 if (r1 == 0) r1 = Float.MAX_VALUE;
                 float strength = springStrength * pair.strength;
                 float fx = strength * (r0 - r1) / r1 * dx;
                 float fy = strength * (r0 - r1) / r1 * dy;
-                v2 va = m_velocityBuffer.data[a];
-                v2 vb = m_velocityBuffer.data[b];
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_vx[a] -= fx;
+                m_vy[a] -= fy;
+                m_vx[b] += fx;
+                m_vy[b] += fy;
             }
         }
     }
 
+    private void springDeltas(int from, int to) {
+        float springStrength = m_step.inv_dt * m_springStrength;
+        for (int k = from; k < to; k++) {
+            Pair pair = m_pairBuffer[k];
+            if ((pair.flags & ParticleType.b2_springParticle) != 0) {
+                int a = pair.indexA;
+                int b = pair.indexB;
+                float dx = m_px[b] - m_px[a];
+                float dy = m_py[b] - m_py[a];
+                float r0 = pair.distance;
+                float r1 = (float) Math.sqrt(dx * dx + dy * dy);
+                if (r1 == 0) r1 = Float.MAX_VALUE;
+                float strength = springStrength * pair.strength;
+                pairDelta(m_pairIncidence, k, strength * (r0 - r1) / r1 * dx, strength * (r0 - r1) / r1 * dy);
+            } else
+                pairDelta(m_pairIncidence, k, 0, 0);
+        }
+    }
+
     private void solveTensile(TimeStep step) {
-        m_accumulation2Buffer = requestParticleBuffer(Position.class, m_accumulation2Buffer);
-        for (int i = 0; i < m_count; i++) {
-            m_accumulationBuffer[i] = 0;
-            m_accumulation2Buffer[i].setZero();
+        m_accumulation2X = requestParticleBuffer(m_accumulation2X);
+        m_accumulation2Y = requestParticleBuffer(m_accumulation2Y);
+        float[] a2x = m_accumulation2X, a2y = m_accumulation2Y;
+        Arrays.fill(m_accumulationBuffer, 0, m_count, 0);
+        Arrays.fill(a2x, 0, m_count, 0);
+        Arrays.fill(a2y, 0, m_count, 0);
+        if (m_threads > 0) {
+            m_applying = m_contactIncidence;
+            forRange(m_contactCount, m_tensileWeightRange);
+            forRange(m_count, m_applyAccumulationRange);
+            forRange(m_contactCount, m_tensileNormalRange);
+            forRange(m_count, m_applyAccumulation2Range);
+            solveDeltas(m_contactIncidence, m_contactCount, m_tensileRange);
+            return;
         }
         for (int k = 0; k < m_contactCount; k++) {
             ParticleContact contact = m_contactBuffer[k];
@@ -1030,13 +1411,11 @@ public class ParticleSystem {
                 v2 n = contact.normal;
                 m_accumulationBuffer[a] += w;
                 m_accumulationBuffer[b] += w;
-                v2 a2A = m_accumulation2Buffer[a];
-                v2 a2B = m_accumulation2Buffer[b];
                 float inter = (1 - w) * w;
-                a2A.x -= inter * n.x;
-                a2A.y -= inter * n.y;
-                a2B.x += inter * n.x;
-                a2B.y += inter * n.y;
+                a2x[a] -= inter * n.x;
+                a2y[a] -= inter * n.y;
+                a2x[b] += inter * n.x;
+                a2y[b] += inter * n.y;
             }
         }
         float strengthA = m_surfaceTensionStrengthA * getCriticalVelocity(step);
@@ -1048,24 +1427,64 @@ public class ParticleSystem {
                 int b = contact.indexB;
                 float w = contact.weight;
                 v2 n = contact.normal;
-                v2 a2A = m_accumulation2Buffer[a];
-                v2 a2B = m_accumulation2Buffer[b];
                 float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
-                float sx = a2B.x - a2A.x;
-                float sy = a2B.y - a2A.y;
+                float sx = a2x[b] - a2x[a];
+                float sy = a2y[b] - a2y[a];
                 float fn = (strengthA * (h - 2) + strengthB * (sx * n.x + sy * n.y)) * w;
                 float fx = fn * n.x;
                 float fy = fn * n.y;
-                v2 va = m_velocityBuffer.data[a];
-                v2 vb = m_velocityBuffer.data[b];
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_vx[a] -= fx;
+                m_vy[a] -= fy;
+                m_vx[b] += fx;
+                m_vy[b] += fy;
             }
         }
     }
 
+    private void tensileWeights(int from, int to) {
+        float[] dx = m_contactIncidence.dx;
+        for (int k = from; k < to; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            float w = (contact.flags & ParticleType.b2_tensileParticle) != 0 ? contact.weight : 0;
+            dx[2 * k] = w;
+            dx[2 * k + 1] = w;
+        }
+    }
+
+    private void tensileNormals(int from, int to) {
+        for (int k = from; k < to; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            if ((contact.flags & ParticleType.b2_tensileParticle) != 0) {
+                float w = contact.weight;
+                v2 n = contact.normal;
+                float inter = (1 - w) * w;
+                pairDelta(m_contactIncidence, k, inter * n.x, inter * n.y);
+            } else
+                pairDelta(m_contactIncidence, k, 0, 0);
+        }
+    }
+
+    private void tensileDeltas(int from, int to) {
+        float strengthA = m_surfaceTensionStrengthA * getCriticalVelocity(m_step);
+        float strengthB = m_surfaceTensionStrengthB * getCriticalVelocity(m_step);
+        float[] a2x = m_accumulation2X, a2y = m_accumulation2Y;
+        for (int k = from; k < to; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            if ((contact.flags & ParticleType.b2_tensileParticle) != 0) {
+                int a = contact.indexA;
+                int b = contact.indexB;
+                float w = contact.weight;
+                v2 n = contact.normal;
+                float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
+                float sx = a2x[b] - a2x[a];
+                float sy = a2y[b] - a2y[a];
+                float fn = (strengthA * (h - 2) + strengthB * (sx * n.x + sy * n.y)) * w;
+                pairDelta(m_contactIncidence, k, fn * n.x, fn * n.y);
+            } else
+                pairDelta(m_contactIncidence, k, 0, 0);
+        }
+    }
+
     private void solveViscous(TimeStep step) {
         float viscousStrength = m_viscousStrength;
         for (int k = 0; k < m_bodyContactCount; k++) {
@@ -1075,40 +1494,52 @@ public class ParticleSystem {
                 Body2D b = contact.body;
                 float w = contact.weight;
                 float m = contact.mass;
-                v2 p = m_positionBuffer.data[a];
-                v2 va = m_velocityBuffer.data[a];
+                v2 p = tempv2.set(m_px[a], m_py[a]);
                 float tempX = p.x - b.sweep.c.x;
                 float tempY = p.y - b.sweep.c.y;
-                float vx = -b.velAngular * tempY + b.vel.x - va.x;
-                float vy = b.velAngular * tempX + b.vel.y - va.y;
+                float vx = -b.velAngular * tempY + b.vel.x - m_vx[a];
+                float vy = b.velAngular * tempX + b.vel.y - m_vy[a];
                 v2 f = tempVec;
                 float pInvMass = getParticleInvMass();
                 f.x = viscousStrength * m * w * vx;
                 f.y = viscousStrength * m * w * vy;
-                va.x += pInvMass * f.x;
-                va.y += pInvMass * f.y;
+                m_vx[a] += pInvMass * f.x;
+                m_vy[a] += pInvMass * f.y;
                 f.x = -f.x;
                 f.y = -f.y;
                 b.applyLinearImpulse(f, p, true);
             }
         }
-        for (int k = 0; k < m_contactCount; k++) {
-            ParticleContact contact = m_contactBuffer[k];
-            if ((contact.flags & ParticleType.b2_viscousParticle) != 0) {
-                int a = contact.indexA;
-                int b = contact.indexB;
-                float w = contact.weight;
-                v2 va = m_velocityBuffer.data[a];
-                v2 vb = m_velocityBuffer.data[b];
-                float vx = vb.x - va.x;
-                float vy = vb.y - va.y;
-                float fx = viscousStrength * w * vx;
-                va.x += fx;
-                float fy = viscousStrength * w * vy;
-                va.y += fy;
-                vb.x -= fx;
-                vb.y -= fy;
-            }
+        if (m_threads > 0) {
+            forColors(m_viscousRange);
+            return;
+        }
+        for (int k = 0; k < m_contactCount; k++)
+            viscous(k, viscousStrength);
+    }
+
+    /** contacts [from, to) of the color order */
+    private void viscousColored(int from, int to) {
+        float viscousStrength = m_viscousStrength;
+        int[] order = m_contactOrder;
+        for (int i = from; i < to; i++)
+            viscous(order[i], viscousStrength);
+    }
+
+    private void viscous(int k, float viscousStrength) {
+        ParticleContact contact = m_contactBuffer[k];
+        if ((contact.flags & ParticleType.b2_viscousParticle) != 0) {
+            int a = contact.indexA;
+            int b = contact.indexB;
+            float w = contact.weight;
+            float vx = m_vx[b] - m_vx[a];
+            float vy = m_vy[b] - m_vy[a];
+            float fx = viscousStrength * w * vx;
+            m_vx[a] += fx;
+            float fy = viscousStrength * w * vy;
+            m_vy[a] += fy;
+            m_vx[b] -= fx;
+            m_vy[b] -= fy;
         }
     }
 
@@ -1123,20 +1554,23 @@ public class ParticleSystem {
                 if (w > minWeight) {
                     Body2D b = contact.body;
                     float m = contact.mass;
-                    v2 p = m_positionBuffer.data[a];
+                    v2 p = tempv2.set(m_px[a], m_py[a]);
                     v2 n = contact.normal;
                     v2 f = tempVec;
-                    v2 va = m_velocityBuffer.data[a];
                     float inter = powderStrength * m * (w - minWeight);
                     float pInvMass = getParticleInvMass();
                     f.x = inter * n.x;
                     f.y = inter * n.y;
-                    va.x -= pInvMass * f.x;
-                    va.y -= pInvMass * f.y;
+                    m_vx[a] -= pInvMass * f.x;
+                    m_vy[a] -= pInvMass * f.y;
                     b.applyLinearImpulse(f, p, true);
                 }
             }
         }
+        if (m_threads > 0) {
+            solveDeltas(m_contactIncidence, m_contactCount, m_powderRange);
+            return;
+        }
         for (int k = 0; k < m_contactCount; k++) {
             ParticleContact contact = m_contactBuffer[k];
             if ((contact.flags & ParticleType.b2_powderParticle) != 0) {
@@ -1145,23 +1579,40 @@ public class ParticleSystem {
                     int a = contact.indexA;
                     int b = contact.indexB;
                     v2 n = contact.normal;
-                    v2 va = m_velocityBuffer.data[a];
-                    v2 vb = m_velocityBuffer.data[b];
                     float inter = powderStrength * (w - minWeight);
                     float fx = inter * n.x;
                     float fy = inter * n.y;
-                    va.x -= fx;
-                    va.y -= fy;
-                    vb.x += fx;
-                    vb.y += fy;
+                    m_vx[a] -= fx;
+                    m_vy[a] -= fy;
+                    m_vx[b] += fx;
+                    m_vy[b] += fy;
                 }
             }
         }
     }
 
+    private void powderDeltas(int from, int to) {
+        float powderStrength = m_powderStrength * getCriticalVelocity(m_step);
+        float minWeight = 1.0f - Settings.particleStride;
+        for (int k = from; k < to; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            float w = contact.weight;
+            if ((contact.flags & ParticleType.b2_powderParticle) != 0 && w > minWeight) {
+                v2 n = contact.normal;
+                float inter = powderStrength * (w - minWeight);
+                pairDelta(m_contactIncidence, k, inter * n.x, inter * n.y);
+            } else
+                pairDelta(m_contactIncidence, k, 0, 0);
+        }
+    }
+
     private void solveSolid(TimeStep step) {
         
         m_depthBuffer = requestParticleBuffer(m_depthBuffer);
+        if (m_threads > 0) {
+            solveDeltas(m_contactIncidence, m_contactCount, m_solidRange);
+            return;
+        }
         float ejectionStrength = step.inv_dt * m_ejectionStrength;
         for (int k = 0; k < m_contactCount; k++) {
             ParticleContact contact = m_contactBuffer[k];
@@ -1171,19 +1622,32 @@ public class ParticleSystem {
                 float w = contact.weight;
                 v2 n = contact.normal;
                 float h = m_depthBuffer[a] + m_depthBuffer[b];
-                v2 va = m_velocityBuffer.data[a];
-                v2 vb = m_velocityBuffer.data[b];
                 float inter = ejectionStrength * h * w;
                 float fx = inter * n.x;
                 float fy = inter * n.y;
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_vx[a] -= fx;
+                m_vy[a] -= fy;
+                m_vx[b] += fx;
+                m_vy[b] += fy;
             }
         }
     }
 
+    private void solidDeltas(int from, int to) {
+        float ejectionStrength = m_step.inv_dt * m_ejectionStrength;
+        for (int k = from; k < to; k++) {
+            ParticleContact contact = m_contactBuffer[k];
+            int a = contact.indexA;
+            int b = contact.indexB;
+            if (m_groupBuffer[a] != m_groupBuffer[b]) {
+                v2 n = contact.normal;
+                float inter = ejectionStrength * (m_depthBuffer[a] + m_depthBuffer[b]) * contact.weight;
+                pairDelta(m_contactIncidence, k, inter * n.x, inter * n.y);
+            } else
+                pairDelta(m_contactIncidence, k, 0, 0);
+        }
+    }
+
     private void solveColorMixing(TimeStep step) {
         
         m_colorBuffer.data = requestParticleBuffer(ParticleColor.class, m_colorBuffer.data);
@@ -1214,7 +1678,9 @@ public class ParticleSystem {
     private void solveZombie() {
         
         int newCount = 0;
-        int[] newIndices = new int[m_count];
+        if (m_zombieIndices.length < m_count)
+            m_zombieIndices = new int[m_internalAllocatedCapacity];
+        int[] newIndices = m_zombieIndices;
         for (int i = 0; i < m_count; i++) {
             int flags = m_flagsBuffer.data[i];
             if ((flags & ParticleType.b2_zombieParticle) != 0) {
@@ -1227,8 +1693,10 @@ public class ParticleSystem {
                 newIndices[i] = newCount;
                 if (i != newCount) {
                     m_flagsBuffer.data[newCount] = m_flagsBuffer.data[i];
-                    m_positionBuffer.data[newCount].set(m_positionBuffer.data[i]);
-                    m_velocityBuffer.data[newCount].set(m_velocityBuffer.data[i]);
+                    m_px[newCount] = m_px[i];
+                    m_py[newCount] = m_py[i];
+                    m_vx[newCount] = m_vx[i];
+                    m_vy[newCount] = m_vy[i];
                     m_groupBuffer[newCount] = m_groupBuffer[i];
                     if (m_depthBuffer != null) {
                         m_depthBuffer[newCount] = m_depthBuffer[i];
@@ -1245,26 +1713,7 @@ public class ParticleSystem {
         }
 
         
-        for (int k = 0; k < m_proxyCount; k++) {
-            Proxy proxy = m_proxyBuffer[k];
-            proxy.index = newIndices[proxy.index];
-        }
-
-        
-        
-        
-        
-        int j = m_proxyCount;
-        for (int i = 0; i < j; i++) {
-            if (Test.IsProxyInvalid(m_proxyBuffer[i])) {
-                --j;
-                Proxy temp = m_proxyBuffer[j];
-                m_proxyBuffer[j] = m_proxyBuffer[i];
-                m_proxyBuffer[i] = temp;
-                --i;
-            }
-        }
-        m_proxyCount = j;
+        m_proxies.remap(newIndices);
 
         
         for (int k = 0; k < m_contactCount; k++) {
@@ -1276,7 +1725,7 @@ public class ParticleSystem {
         
         
         
-        j = m_contactCount;
+        int j = m_contactCount;
         for (int i = 0; i < j; i++) {
             if (Test.IsContactInvalid(m_contactBuffer[i])) {
                 --j;
@@ -1429,8 +1878,10 @@ public class ParticleSystem {
         newIndices.end = end;
 
         BufferUtils.rotate(m_flagsBuffer.data, start, mid, end);
-        BufferUtils.rotate(m_positionBuffer.data, start, mid, end);
-        BufferUtils.rotate(m_velocityBuffer.data, start, mid, end);
+        BufferUtils.rotate(m_px, start, mid, end);
+        BufferUtils.rotate(m_py, start, mid, end);
+        BufferUtils.rotate(m_vx, start, mid, end);
+        BufferUtils.rotate(m_vy, start, mid, end);
         BufferUtils.rotate(m_groupBuffer, start, mid, end);
         if (m_depthBuffer != null) {
             BufferUtils.rotate(m_depthBuffer, start, mid, end);
@@ -1443,9 +1894,9 @@ public class ParticleSystem {
         }
 
         
-        for (int k = 0; k < m_proxyCount; k++) {
-            Proxy proxy = m_proxyBuffer[k];
-            proxy.index = newIndices.getIndex(proxy.index);
+        int[] proxyIndex = m_proxies.index;
+        for (int k = 0; k < m_proxies.count; k++) {
+            proxyIndex[k] = newIndices.getIndex(proxyIndex[k]);
         }
 
         
@@ -1548,11 +1999,27 @@ public class ParticleSystem {
         return m_flagsBuffer.data;
     }
 
+    /**
+     * the particle positions, filled from the solver's arrays unless already handed out.  edits to
+     * it take effect the next time the particles are touched, after which it is not kept current:
+     * get it again.
+     */
     public v2[] getParticlePositionBuffer() {
+        if (!m_positionsOut) {
+            m_positionBuffer.data = requestParticleBuffer(Position.class, m_positionBuffer.data);
+            store(m_px, m_py, m_positionBuffer.data);
+            m_positionsOut = true;
+        }
         return m_positionBuffer.data;
     }
 
+    /** the particle velocities, as {@link #getParticlePositionBuffer} */
     public v2[] getParticleVelocityBuffer() {
+        if (!m_velocitiesOut) {
+            m_velocityBuffer.data = requestParticleBuffer(Velocity.class, m_velocityBuffer.data);
+            store(m_vx, m_vy, m_velocityBuffer.data);
+            m_velocitiesOut = true;
+        }
         return m_velocityBuffer.data;
     }
 
@@ -1598,11 +2065,15 @@ public class ParticleSystem {
     }
 
     public void setParticlePositionBuffer(Position[] buffer, int capacity) {
+        readBack();
         setParticleBuffer(m_positionBuffer, buffer, capacity);
+        m_positionsOut = buffer != null;
     }
 
     public void setParticleVelocityBuffer(Velocity[] buffer, int capacity) {
+        readBack();
         setParticleBuffer(m_velocityBuffer, buffer, capacity);
+        m_velocitiesOut = buffer != null;
     }
 
     public void setParticleColorBuffer(ParticleColor[] buffer, int capacity) {
@@ -1629,38 +2100,9 @@ public class ParticleSystem {
         setParticleBuffer(m_userDataBuffer, buffer, capacity);
     }
 
-    private static int lowerBound(Proxy[] ray, int length, long tag) {
-        int left = 0;
-        while (length > 0) {
-            int step = length / 2;
-            int curr = left + step;
-            if (ray[curr].tag < tag) {
-                left = curr + 1;
-                length -= step + 1;
-            } else {
-                length = step;
-            }
-        }
-        return left;
-    }
-
-    private static int upperBound(Proxy[] ray, int length, long tag) {
-        int left = 0;
-        while (length > 0) {
-            int step = length / 2;
-            int curr = left + step;
-            if (ray[curr].tag <= tag) {
-                left = curr + 1;
-                length -= step + 1;
-            } else {
-                length = step;
-            }
-        }
-        return left;
-    }
-
     public void queryAABB(ParticleQueryCallback callback, AABB aabb) {
-        if (m_proxyCount == 0) {
+        readBack();
+        if (m_proxies.count == 0) {
             return;
         }
 
@@ -1669,15 +2111,15 @@ public class ParticleSystem {
         float upperBoundX = aabb.upperBound.x;
         float upperBoundY = aabb.upperBound.y;
         int firstProxy =
-                lowerBound(m_proxyBuffer, m_proxyCount,
+                m_proxies.lowerBound(
                         computeTag(m_inverseDiameter * lowerBoundX, m_inverseDiameter * lowerBoundY));
         int lastProxy =
-                upperBound(m_proxyBuffer, m_proxyCount,
+                m_proxies.upperBound(
                         computeTag(m_inverseDiameter * upperBoundX, m_inverseDiameter * upperBoundY));
         for (int proxy = firstProxy; proxy < lastProxy; ++proxy) {
-            int i = m_proxyBuffer[proxy].index;
-            v2 p = m_positionBuffer.data[i];
-            if (lowerBoundX < p.x && p.x < upperBoundX && lowerBoundY < p.y && p.y < upperBoundY) {
+            int i = m_proxies.index[proxy];
+            float px = m_px[i], py = m_py[i];
+            if (lowerBoundX < px && px < upperBoundX && lowerBoundY < py && py < upperBoundY) {
                 if (!callback.reportParticle(i)) {
                     break;
                 }
@@ -1691,19 +2133,16 @@ public class ParticleSystem {
      * @param point2
      */
     public void raycast(ParticleRaycastCallback callback, v2 point1, v2 point2) {
-        if (m_proxyCount == 0) {
+        readBack();
+        if (m_proxies.count == 0) {
             return;
         }
         int firstProxy =
-                lowerBound(
-                        m_proxyBuffer,
-                        m_proxyCount,
+                m_proxies.lowerBound(
                         computeTag(m_inverseDiameter * Math.min(point1.x, point2.x) - 1, m_inverseDiameter
                                 * Math.min(point1.y, point2.y) - 1));
         int lastProxy =
-                upperBound(
-                        m_proxyBuffer,
-                        m_proxyCount,
+                m_proxies.upperBound(
                         computeTag(m_inverseDiameter * Math.max(point1.x, point2.x) + 1, m_inverseDiameter
                                 * Math.max(point1.y, point2.y) + 1));
 
@@ -1714,10 +2153,9 @@ public class ParticleSystem {
         if (v2 == 0) v2 = Float.MAX_VALUE;
         float fraction = 1;
         for (int proxy = firstProxy; proxy < lastProxy; ++proxy) {
-            int i = m_proxyBuffer[proxy].index;
-            jcog.math.v2 posI = m_positionBuffer.data[i];
-            float px = point1.x - posI.x;
-            float py = point1.y - posI.y;
+            int i = m_proxies.index[proxy];
+            float px = point1.x - m_px[i];
+            float py = point1.y - m_py[i];
             float pv = px * vx + py * vy;
             float p2 = px * px + py * py;
             float determinant = pv * pv - v2 * (p2 - m_squaredDiameter);
@@ -1751,16 +2189,15 @@ public class ParticleSystem {
     }
 
     public float computeParticleCollisionEnergy() {
+        readBack();
         float sum_v2 = 0;
         for (int k = 0; k < m_contactCount; k++) {
             ParticleContact contact = m_contactBuffer[k];
             int a = contact.indexA;
             int b = contact.indexB;
             v2 n = contact.normal;
-            v2 va = m_velocityBuffer.data[a];
-            v2 vb = m_velocityBuffer.data[b];
-            float vx = vb.x - va.x;
-            float vy = vb.y - va.y;
+            float vx = m_vx[b] - m_vx[a];
+            float vy = m_vy[b] - m_vy[a];
             float vn = vx * n.x + vy * n.y;
             if (vn < 0) {
                 sum_v2 += vn * vn;
@@ -1821,33 +2258,6 @@ public class ParticleSystem {
         int userSuppliedCapacity;
     }
 
-    /**
-     * Used for detecting particle contacts
-     */
-    public static class Proxy implements Comparable<Proxy> {
-        int index;
-        long tag;
-
-        @Override
-        public int compareTo(Proxy o) {
-            return (tag - o.tag) < 0 ? -1 : (o.tag == tag ? 0 : 1);
-        }
-
-        @Override
-        public int hashCode() {
-            throw new UnsupportedOperationException("TODO");
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) return true;
-            if (obj == null) return false;
-            if (getClass() != obj.getClass()) return false;
-            Proxy other = (Proxy) obj;
-            return tag == other.tag;
-        }
-    }
-
     /**
      * Connection between two particles
      */
@@ -1880,9 +2290,9 @@ public class ParticleSystem {
     
     static class CreateParticleGroupCallback implements VoronoiDiagramCallback {
         public void callback(int a, int b, int c) {
-            v2 pa = system.m_positionBuffer.data[a];
-            v2 pb = system.m_positionBuffer.data[b];
-            v2 pc = system.m_positionBuffer.data[c];
+            v2 pa = this.pa.set(system.m_px[a], system.m_py[a]);
+            v2 pb = this.pb.set(system.m_px[b], system.m_py[b]);
+            v2 pc = this.pc.set(system.m_px[c], system.m_py[c]);
             float dabx = pa.x - pb.x;
             float daby = pa.y - pb.y;
             float dbcx = pb.x - pc.x;
@@ -1931,6 +2341,8 @@ public class ParticleSystem {
         ParticleSystem system;
         ParticleGroupDef def; 
         int firstIndex;
+
+        private final v2 pa = new v2(), pb = new v2(), pc = new v2();
     }
 
     
@@ -1945,9 +2357,9 @@ public class ParticleSystem {
                 int bf = system.m_flagsBuffer.data[b];
                 int cf = system.m_flagsBuffer.data[c];
                 if ((af & bf & cf & k_triadFlags) != 0) {
-                    v2 pa = system.m_positionBuffer.data[a];
-                    v2 pb = system.m_positionBuffer.data[b];
-                    v2 pc = system.m_positionBuffer.data[c];
+                    v2 pa = this.pa.set(system.m_px[a], system.m_py[a]);
+                    v2 pb = this.pb.set(system.m_px[b], system.m_py[b]);
+                    v2 pc = this.pc.set(system.m_px[c], system.m_py[c]);
                     float dabx = pa.x - pb.x;
                     float daby = pa.y - pb.y;
                     float dbcx = pb.x - pc.x;
@@ -1996,6 +2408,8 @@ public class ParticleSystem {
         ParticleSystem system;
         ParticleGroup groupA;
         ParticleGroup groupB;
+
+        private final v2 pa = new v2(), pb = new v2(), pc = new v2();
     }
 
     static class DestroyParticlesInShapeCallback implements ParticleQueryCallback {
@@ -2005,6 +2419,8 @@ public class ParticleSystem {
         boolean callDestructionListener;
         int destroyed;
 
+        private final v2 p = new v2();
+
         DestroyParticlesInShapeCallback() {
             
         }
@@ -2021,7 +2437,7 @@ public class ParticleSystem {
         @Override
         public boolean reportParticle(int index) {
             assert (index >= 0 && index < system.m_count);
-            if (shape.testPoint(xf, system.m_positionBuffer.data[index])) {
+            if (shape.testPoint(xf, p.set(system.m_px[index], system.m_py[index]))) {
                 system.destroyParticle(index, callDestructionListener);
                 destroyed++;
             }
@@ -2033,6 +2449,7 @@ public class ParticleSystem {
         ParticleSystem system;
 
         private final v2 tempVec = new v2();
+        private final v2 ap = new v2();
 
         @Override
         public boolean test(Fixture fixture) {
@@ -2054,21 +2471,18 @@ public class ParticleSystem {
                 float aabbupperBoundx = aabb.upperBound.x + system.m_particleDiameter;
                 float aabbupperBoundy = aabb.upperBound.y + system.m_particleDiameter;
                 int firstProxy =
-                        lowerBound(
-                                system.m_proxyBuffer,
-                                system.m_proxyCount,
+                        system.m_proxies.lowerBound(
                                 computeTag(system.m_inverseDiameter * aabblowerBoundx, system.m_inverseDiameter
                                         * aabblowerBoundy));
                 int lastProxy =
-                        upperBound(
-                                system.m_proxyBuffer,
-                                system.m_proxyCount,
+                        system.m_proxies.upperBound(
                                 computeTag(system.m_inverseDiameter * aabbupperBoundx, system.m_inverseDiameter
                                         * aabbupperBoundy));
 
+                int[] proxyIndex = system.m_proxies.index;
                 for (int proxy = firstProxy; proxy != lastProxy; ++proxy) {
-                    int a = system.m_proxyBuffer[proxy].index;
-                    v2 ap = system.m_positionBuffer.data[a];
+                    int a = proxyIndex[proxy];
+                    v2 ap = this.ap.set(system.m_px[a], system.m_py[a]);
                     if (aabblowerBoundx <= ap.x && ap.x <= aabbupperBoundx && aabblowerBoundy <= ap.y
                             && ap.y <= aabbupperBoundy) {
                         v2 n = tempVec;
@@ -2115,6 +2529,7 @@ public class ParticleSystem {
         private final RayCastOutput output = new RayCastOutput();
         private final v2 tempVec = new v2();
         private final v2 tempv2 = new v2();
+        private final v2 ap = new v2();
 
         @Override
         public boolean test(Fixture fixture) {
@@ -2131,29 +2546,25 @@ public class ParticleSystem {
                 float aabbupperBoundx = aabb.upperBound.x + system.m_particleDiameter;
                 float aabbupperBoundy = aabb.upperBound.y + system.m_particleDiameter;
                 int firstProxy =
-                        lowerBound(
-                                system.m_proxyBuffer,
-                                system.m_proxyCount,
+                        system.m_proxies.lowerBound(
                                 computeTag(system.m_inverseDiameter * aabblowerBoundx, system.m_inverseDiameter
                                         * aabblowerBoundy));
                 int lastProxy =
-                        upperBound(
-                                system.m_proxyBuffer,
-                                system.m_proxyCount,
+                        system.m_proxies.upperBound(
                                 computeTag(system.m_inverseDiameter * aabbupperBoundx, system.m_inverseDiameter
                                         * aabbupperBoundy));
 
+                int[] proxyIndex = system.m_proxies.index;
                 for (int proxy = firstProxy; proxy != lastProxy; ++proxy) {
-                    int a = system.m_proxyBuffer[proxy].index;
-                    v2 ap = system.m_positionBuffer.data[a];
+                    int a = proxyIndex[proxy];
+                    v2 ap = this.ap.set(system.m_px[a], system.m_py[a]);
                     if (aabblowerBoundx <= ap.x && ap.x <= aabbupperBoundx && aabblowerBoundy <= ap.y
                             && ap.y <= aabbupperBoundy) {
-                        v2 av = system.m_velocityBuffer.data[a];
                         v2 temp = tempVec;
                         Transform.mulTransToOutUnsafe(body.transformPrev, ap, temp);
                         Transform.mulToOutUnsafe(body, temp, input.p1);
-                        input.p2.x = ap.x + step.dt * av.x;
-                        input.p2.y = ap.y + step.dt * av.y;
+                        input.p2.x = ap.x + step.dt * system.m_vx[a];
+                        input.p2.y = ap.y + step.dt * system.m_vy[a];
                         input.maxFraction = 1;
                         if (fixture.raycast(output, input, childIndex)) {
                             v2 p = tempVec;
@@ -2166,11 +2577,11 @@ public class ParticleSystem {
 
                             float vx = step.inv_dt * (p.x - ap.x);
                             float vy = step.inv_dt * (p.y - ap.y);
-                            av.x = vx;
-                            av.y = vy;
+                            system.m_vx[a] = vx;
+                            system.m_vy[a] = vy;
                             float particleMass = system.getParticleMass();
-                            float ax = particleMass * (av.x - vx);
-                            float ay = particleMass * (av.y - vy);
+                            float ax = particleMass * (system.m_vx[a] - vx);
+                            float ay = particleMass * (system.m_vy[a] - vy);
                             v2 b = output.normal;
                             float fdn = ax * b.x + ay * b.y;
                             v2 f = tempv2;
@@ -2188,10 +2599,6 @@ public class ParticleSystem {
     enum Test {
         ;
 
-        static boolean IsProxyInvalid(Proxy proxy) {
-            return proxy.index < 0;
-        }
-
         static boolean IsContactInvalid(ParticleContact contact) {
             return contact.indexA < 0 || contact.indexB < 0;
         }
@@ -0,0 +1,126 @@
+package spacegraph.space2d.dyn2d;
+
+import jcog.math.v2;
+import org.junit.jupiter.api.Test;
+import spacegraph.space2d.phys.collision.AABB;
+import spacegraph.space2d.phys.collision.RayCastInput;
+import spacegraph.space2d.phys.collision.broadphase.DefaultBroadPhaseBuffer;
+import spacegraph.space2d.phys.collision.broadphase.DynamicTree;
+import spacegraph.space2d.phys.collision.broadphase.DynamicTreeFlatNodes;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** the flat tree, incremental or with deferred moves, finds the same proxies and pairs as the object tree */
+public class BroadPhaseTest {
+
+    @Test
+    public void flatIncremental() {
+        compare(new DynamicTreeFlatNodes(), 1);
+    }
+
+    @Test
+    public void flatDeferred() {
+        DynamicTreeFlatNodes t = new DynamicTreeFlatNodes();
+        t.deferMoves = true;
+        compare(t, 2);
+    }
+
+    @Test
+    public void flatDeferredRebuilding() {
+        DynamicTreeFlatNodes t = new DynamicTreeFlatNodes();
+        t.deferMoves = true;
+        t.rebuildFraction = 0.01f;
+        compare(t, 3);
+    }
+
+    /** random creations, moves and destructions, each frame followed by pair updates, queries and ray-casts */
+    private static void compare(DynamicTreeFlatNodes tree, long seed) {
+        Random rng = new Random(seed);
+        DynamicTree refTree = new DynamicTree();
+        DefaultBroadPhaseBuffer ref = new DefaultBroadPhaseBuffer(refTree), flat = new DefaultBroadPhaseBuffer(tree);
+
+        int n = 1000;
+        float[] x = new float[n], y = new float[n];
+        int[] refId = new int[n], flatId = new int[n];
+        boolean[] alive = new boolean[n];
+        AABB b = new AABB();
+        v2 d = new v2();
+        for (int frame = 0; frame < 100; frame++) {
+            for (int i = 0; i < n; i++) {
+                if (!alive[i]) {
+                    if (frame == 0 || rng.nextFloat() < 0.01f) {
+                        x[i] = rng.nextFloat() * 100;
+                        y[i] = rng.nextFloat() * 100;
+                        box(b, x[i], y[i]);
+                        refId[i] = ref.createProxy(b, i);
+                        flatId[i] = flat.createProxy(b, i);
+                        alive[i] = true;
+                    }
+                } else if (rng.nextFloat() < 0.01f) {
+                    ref.destroyProxy(refId[i]);
+                    flat.destroyProxy(flatId[i]);
+                    alive[i] = false;
+                } else if (rng.nextBoolean()) {
+                    float dx = rng.nextFloat() - 0.5f, dy = rng.nextFloat() - 0.5f;
+                    x[i] += dx;
+                    y[i] += dy;
+                    d.set(dx, dy);
+                    box(b, x[i], y[i]);
+                    //through the trees, to compare whether the fat bounds changed; then buffered as moveProxy would
+                    boolean moved = refTree.moveProxy(refId[i], b, d);
+                    assertEquals(moved, tree.moveProxy(flatId[i], b, d));
+                    if (moved) {
+                        ref.touchProxy(refId[i]);
+                        flat.touchProxy(flatId[i]);
+                    }
+                }
+            }
+
+            assertEquals(pairs(ref), pairs(flat), "frame " + frame);
+
+            for (int q = 0; q < 20; q++) {
+                float cx = rng.nextFloat() * 100, cy = rng.nextFloat() * 100;
+                b.lowerBound.set(cx, cy);
+                b.upperBound.set(cx + 5, cy + 5);
+                TreeSet<Object> r = new TreeSet<>(), f = new TreeSet<>();
+                ref.query(id -> r.add(ref.get(id)), b);
+                flat.query(id -> f.add(flat.get(id)), b);
+                assertEquals(r, f);
+
+                RayCastInput in = new RayCastInput();
+                in.p1.set(rng.nextFloat() * 100, rng.nextFloat() * 100);
+                in.p2.set(rng.nextFloat() * 100, rng.nextFloat() * 100);
+                in.maxFraction = 1;
+                r.clear();
+                f.clear();
+                ref.raycast((input, id) -> {
+                    r.add(ref.get(id));
+                    return input.maxFraction;
+                }, in);
+                flat.raycast((input, id) -> {
+                    f.add(flat.get(id));
+                    return input.maxFraction;
+                }, in);
+                assertEquals(r, f);
+            }
+        }
+    }
+
+    private static void box(AABB b, float x, float y) {
+        b.lowerBound.set(x, y);
+        b.upperBound.set(x + 1, y + 1);
+    }
+
+    /** the pairs reported by updatePairs, by user data, lesser first */
+    private static TreeSet<Long> pairs(DefaultBroadPhaseBuffer p) {
+        TreeSet<Long> s = new TreeSet<>();
+        p.updatePairs((a, b) -> {
+            int i = (Integer) a, j = (Integer) b;
+            s.add(((long) Math.min(i, j) << 32) | Math.max(i, j));
+        });
+        return s;
+    }
+}
@@ -0,0 +1,77 @@
+package spacegraph.space2d.dyn2d;
+
+import jcog.math.v2;
+import spacegraph.space2d.phys.collision.shapes.PolygonShape;
+import spacegraph.space2d.phys.dynamics.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * compares the sequential island solver against the parallel one with 1, 2, 4 and 8 threads
+ * on a scene of many independent box stacks.  also checks that every thread count produces
+ * the same bits.
+ */
+public class IslandSolverBench {
+
+    static final int STACKS = 400, HEIGHT = 10;
+    static final int WARMUP = 60, STEPS = 300;
+
+    public static void main(String[] args) {
+        int[] threads = {0, 1, 2, 4, 8};
+        long expect = 0;
+        for (int t : threads) {
+            ForkJoinPool exe = t > 1 ? new ForkJoinPool(t) : null;
+
+            Dynamics2D w = stacks();
+            if (t > 0)
+                w.setIslandThreads(exe, t);
+
+            for (int i = 0; i < WARMUP; i++)
+                w.step(1 / 60f, 8, 3);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < STEPS; i++)
+                w.step(1 / 60f, 8, 3);
+            double msPerStep = (System.nanoTime() - start) / 1.0e6 / STEPS;
+
+            long hash = checksum(w);
+            if (t == 1)
+                expect = hash;
+
+            System.out.printf("%s\t%.3f ms/step\tchecksum=%x%s%n",
+                    t == 0 ? "sequential" : t + " threads", msPerStep, hash,
+                    t > 1 && hash != expect ? " MISMATCH" : "");
+
+            if (exe != null)
+                exe.shutdown();
+        }
+    }
+
+    static Dynamics2D stacks() {
+        Body2D.serial.set(0); //same ids -> same body iteration order in each world
+
+        Dynamics2D w = new Dynamics2D(new v2(0, -10));
+
+        float spacing = 3;
+        w.addBody(new BodyDef(BodyType.STATIC, new v2(STACKS * spacing / 2, -0.5f)),
+                new FixtureDef(PolygonShape.box(STACKS * spacing / 2 + 5, 0.5f), 0, 0.6f));
+
+        for (int s = 0; s < STACKS; s++) {
+            for (int h = 0; h < HEIGHT; h++) {
+                w.addBody(new BodyDef(BodyType.DYNAMIC, new v2(s * spacing, 0.5f + h * 1.02f)),
+                        new FixtureDef(PolygonShape.box(0.5f, 0.5f), 1, 0.6f));
+            }
+        }
+        return w;
+    }
+
+    static long checksum(Dynamics2D w) {
+        long h = 1;
+        for (Body2D b : w.bodies()) {
+            h = h * 31 + Float.floatToRawIntBits(b.sweep.c.x);
+            h = h * 31 + Float.floatToRawIntBits(b.sweep.c.y);
+            h = h * 31 + Float.floatToRawIntBits(b.sweep.a);
+        }
+        return h;
+    }
+}
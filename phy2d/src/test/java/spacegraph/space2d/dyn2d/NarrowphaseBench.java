@@ -0,0 +1,78 @@
+package spacegraph.space2d.dyn2d;
+
+import jcog.math.v2;
+import spacegraph.space2d.phys.collision.shapes.CircleShape;
+import spacegraph.space2d.phys.collision.shapes.PolygonShape;
+import spacegraph.space2d.phys.dynamics.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * step time of a crowded pile of boxes and circles, with the sequential contact update and
+ * the parallel narrowphase on 1, 2, 4 and 8 threads.  also checks that every thread count
+ * produces the same bits.
+ */
+public class NarrowphaseBench {
+
+    static final int COLUMNS = 80, ROWS = 60;
+    static final int WARMUP = 60, STEPS = 300;
+
+    public static void main(String[] args) {
+        int[] threads = {0, 1, 2, 4, 8};
+        long expect = 0;
+        for (int t : threads) {
+            ForkJoinPool exe = t > 1 ? new ForkJoinPool(t) : null;
+
+            Dynamics2D w = pile();
+            w.setContactThreads(exe, t);
+
+            for (int i = 0; i < WARMUP; i++)
+                w.step(1 / 60f, 8, 3);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < STEPS; i++)
+                w.step(1 / 60f, 8, 3);
+            double msPerStep = (System.nanoTime() - start) / 1.0e6 / STEPS;
+
+            long hash = IslandSolverBench.checksum(w);
+            if (t == 1)
+                expect = hash;
+
+            System.out.printf("%s\t%.3f ms/step\tcontacts=%d\tchecksum=%x%s%n",
+                    t == 0 ? "sequential" : t + " threads", msPerStep, w.getContactCount(), hash,
+                    t > 1 && hash != expect ? " MISMATCH" : "");
+
+            if (exe != null)
+                exe.shutdown();
+        }
+    }
+
+    static Dynamics2D pile() {
+        Body2D.serial.set(0); //same ids -> same body iteration order in each world
+
+        Dynamics2D w = new Dynamics2D(new v2(0, -10));
+
+        float width = COLUMNS * 1.1f;
+        w.addBody(new BodyDef(BodyType.STATIC, new v2(0, -1)),
+                new FixtureDef(PolygonShape.box(width / 2 + 2, 1), 0, 0.6f));
+        w.addBody(new BodyDef(BodyType.STATIC, new v2(-width / 2 - 1, ROWS)),
+                new FixtureDef(PolygonShape.box(1, ROWS), 0, 0.6f));
+        w.addBody(new BodyDef(BodyType.STATIC, new v2(width / 2 + 1, ROWS)),
+                new FixtureDef(PolygonShape.box(1, ROWS), 0, 0.6f));
+
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLUMNS; c++) {
+                float x = -width / 2 + 0.55f + c * 1.1f + (r % 2) * 0.2f, y = 0.5f + r * 1.1f;
+                FixtureDef f;
+                if ((r + c) % 3 == 0) {
+                    CircleShape s = new CircleShape();
+                    s.skinRadius = 0.45f;
+                    f = new FixtureDef(s, 1, 0.4f);
+                } else
+                    f = new FixtureDef(PolygonShape.box(0.45f, 0.45f), 1, 0.6f);
+                w.addBody(new BodyDef(BodyType.DYNAMIC, new v2(x, y)), f);
+            }
+        }
+        return w;
+    }
+}
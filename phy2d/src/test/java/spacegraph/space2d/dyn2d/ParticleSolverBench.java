@@ -0,0 +1,94 @@
+package spacegraph.space2d.dyn2d;
+
+import jcog.math.v2;
+import spacegraph.space2d.phys.collision.shapes.CircleShape;
+import spacegraph.space2d.phys.collision.shapes.PolygonShape;
+import spacegraph.space2d.phys.dynamics.*;
+import spacegraph.space2d.phys.particle.ParticleGroupDef;
+import spacegraph.space2d.phys.particle.ParticleType;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * particle solver throughput (particles * steps / second) for a settling pool of water next
+ * to a blob of viscous, surface-tension fluid, at increasing particle counts, sequentially and
+ * with the parallel passes on 1..8 threads.  the parallel results are checked to be identical
+ * for every thread count.
+ */
+public class ParticleSolverBench {
+
+    static final float[] RADIUS = {0.4f, 0.25f, 0.15f, 0.1f};
+    static final int[] THREADS = {0, 1, 2, 4, 8};
+    static final int WARMUP = 50, STEPS = 200;
+
+    public static void main(String[] args) {
+        System.out.println("particles\tcontacts\tthreads\tms/step\tparticles/s\tchecksum");
+        for (float r : RADIUS) {
+            long expect = 0;
+            for (int t : THREADS) {
+                ForkJoinPool exe = t > 1 ? new ForkJoinPool(t) : null;
+                Dynamics2D w = pool(r);
+                w.setParticleThreads(exe, t);
+
+                for (int i = 0; i < WARMUP; i++)
+                    w.step(1 / 60f, 8, 3);
+
+                long start = System.nanoTime();
+                for (int i = 0; i < STEPS; i++)
+                    w.step(1 / 60f, 8, 3);
+                double s = (System.nanoTime() - start) / 1.0e9;
+
+                long hash = checksum(w);
+                if (t == 1)
+                    expect = hash;
+
+                int n = w.getParticleCount();
+                System.out.printf("%d\t%d\t%s\t%.3f\t%.3e\t%x%s%n",
+                        n, w.getParticleContactCount(), t == 0 ? "sequential" : t,
+                        s * 1000 / STEPS, n * (double) STEPS / s, hash,
+                        t > 1 && hash != expect ? " MISMATCH" : "");
+
+                if (exe != null)
+                    exe.shutdown();
+            }
+        }
+    }
+
+    static long checksum(Dynamics2D w) {
+        long h = 1;
+        v2[] pos = w.getParticlePositionBuffer();
+        for (int i = 0; i < w.getParticleCount(); i++) {
+            v2 p = pos[i];
+            h = h * 31 + Float.floatToRawIntBits(p.x);
+            h = h * 31 + Float.floatToRawIntBits(p.y);
+        }
+        return h;
+    }
+
+    static Dynamics2D pool(float radius) {
+        Dynamics2D w = new Dynamics2D(new v2(0, -10));
+        w.addBody(new BodyDef(BodyType.STATIC, new v2(0, -1)),
+                new FixtureDef(PolygonShape.box(30, 1), 0, 0.6f));
+        w.addBody(new BodyDef(BodyType.STATIC, new v2(-30, 20)),
+                new FixtureDef(PolygonShape.box(1, 20), 0, 0.6f));
+        w.addBody(new BodyDef(BodyType.STATIC, new v2(30, 20)),
+                new FixtureDef(PolygonShape.box(1, 20), 0, 0.6f));
+
+        w.setParticleRadius(radius);
+        w.setParticleDamping(0.2f);
+
+        w.addParticles(group(-12, 12, 10, ParticleType.b2_waterParticle));
+        w.addParticles(group(12, 12, 8, ParticleType.b2_viscousParticle | ParticleType.b2_tensileParticle));
+        return w;
+    }
+
+    static ParticleGroupDef group(float x, float y, float r, int flags) {
+        CircleShape shape = new CircleShape();
+        shape.center.set(x, y);
+        shape.skinRadius = r;
+        ParticleGroupDef pd = new ParticleGroupDef();
+        pd.flags = flags;
+        pd.shape = shape;
+        return pd;
+    }
+}
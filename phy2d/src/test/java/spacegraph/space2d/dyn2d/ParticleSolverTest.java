@@ -0,0 +1,131 @@
+package spacegraph.space2d.dyn2d;
+
+import jcog.math.v2;
+import org.junit.jupiter.api.Test;
+import spacegraph.space2d.phys.dynamics.Dynamics2D;
+import spacegraph.space2d.phys.particle.ParticleType;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParticleSolverTest {
+
+    /** the parallel passes give the same result on any number of threads */
+    @Test
+    public void sameForAnyThreads() {
+        ForkJoinPool exe = new ForkJoinPool(4);
+        try {
+            long expect = 0;
+            for (int t : new int[] { 1, 2, 4 }) {
+                Dynamics2D w = ParticleSolverBench.pool(0.25f);
+                w.setParticleThreads(exe, t);
+                for (int i = 0; i < 60; i++)
+                    w.step(1 / 60f, 8, 3);
+                long h = ParticleSolverBench.checksum(w);
+                if (t == 1)
+                    expect = h;
+                else
+                    assertEquals(expect, h);
+            }
+        } finally {
+            exe.shutdown();
+        }
+    }
+
+    /** colored damping and viscosity stay close to the sequential contact-by-contact passes */
+    @Test
+    public void closeToSequential() {
+        ForkJoinPool exe = new ForkJoinPool(4);
+        try {
+            Dynamics2D s = ParticleSolverBench.pool(0.25f), p = ParticleSolverBench.pool(0.25f);
+            p.setParticleThreads(exe, 4);
+            for (int i = 0; i < 5; i++) {
+                s.step(1 / 60f, 8, 3);
+                p.step(1 / 60f, 8, 3);
+            }
+            int n = s.getParticleCount();
+            assertEquals(n, p.getParticleCount());
+            assertTrue(s.getParticleContactCount() > n, "contacts");
+
+            v2[] vs = s.getParticleVelocityBuffer(), vp = p.getParticleVelocityBuffer();
+            double diff = 0, speed = 0;
+            for (int i = 0; i < n; i++) {
+                diff += Math.abs(vs[i].x - vp[i].x) + Math.abs(vs[i].y - vp[i].y);
+                speed += Math.abs(vs[i].x) + Math.abs(vs[i].y);
+            }
+            assertTrue(diff <= 0.05 * speed, "mean velocity difference " + diff / n + " of mean speed " + speed / n);
+        } finally {
+            exe.shutdown();
+        }
+    }
+
+    /**
+     * a weightless blob of viscous particles, squeezed together and moving at random, so that each
+     * has many contacts: the parallel passes gain no more energy from it than the sequential ones
+     */
+    @Test
+    public void denseBlobStable() {
+        ForkJoinPool exe = new ForkJoinPool(4);
+        try {
+            Dynamics2D s = blob(null, 0), p = blob(exe, 4);
+            for (int i = 0; i < 60; i++) {
+                s.step(1 / 60f, 8, 3);
+                p.step(1 / 60f, 8, 3);
+                double es = energy(s), ep = energy(p);
+                assertTrue(Double.isFinite(ep) && Math.abs(ep - es) <= 0.03 * es, "step " + i + ": energy " + ep + ", sequentially " + es);
+            }
+        } finally {
+            exe.shutdown();
+        }
+    }
+
+    /** the position buffer is a view of the solver's arrays: edits to it are solved, and getting it again shows the step */
+    @Test
+    public void positionBufferView() {
+        Dynamics2D w = new Dynamics2D(new v2(0, -10));
+        w.setParticleRadius(0.1f);
+        w.addParticles(ParticleSolverBench.group(0, 0, 0.5f, ParticleType.b2_waterParticle));
+        w.step(1 / 60f, 8, 3); //creates the particles
+        int n = w.getParticleCount();
+        assertTrue(n > 0);
+
+        v2[] p = w.getParticlePositionBuffer();
+        float[] lifted = new float[n];
+        for (int i = 0; i < n; i++)
+            lifted[i] = p[i].y += 100;
+        w.step(1 / 60f, 8, 3);
+
+        p = w.getParticlePositionBuffer();
+        for (int i = 0; i < n; i++) {
+            assertTrue(p[i].y > 90, "lifted " + i);
+            assertTrue(p[i].y < lifted[i], "fell " + i);
+        }
+    }
+
+    private static Dynamics2D blob(ForkJoinPool exe, int threads) {
+        Dynamics2D w = new Dynamics2D(new v2(0, 0));
+        w.setParticleRadius(0.1f);
+        w.setParticleDamping(2);
+        w.addParticles(ParticleSolverBench.group(0, 0, 2, ParticleType.b2_viscousParticle));
+        w.setParticleThreads(exe, threads);
+        w.step(1 / 60f, 8, 3); //creates the particles
+
+        Random rng = new Random(1);
+        v2[] p = w.getParticlePositionBuffer(), v = w.getParticleVelocityBuffer();
+        for (int i = 0; i < w.getParticleCount(); i++) {
+            p[i].scaled(0.8f);
+            v[i].set(rng.nextFloat() * 2 - 1, rng.nextFloat() * 2 - 1);
+        }
+        return w;
+    }
+
+    private static double energy(Dynamics2D w) {
+        double e = 0;
+        v2[] v = w.getParticleVelocityBuffer();
+        for (int i = 0; i < w.getParticleCount(); i++)
+            e += v[i].lengthSquared();
+        return e / 2;
+    }
+}
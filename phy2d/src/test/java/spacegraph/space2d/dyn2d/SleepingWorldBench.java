@@ -0,0 +1,49 @@
+package spacegraph.space2d.dyn2d;
+
+import jcog.math.v2;
+import spacegraph.space2d.phys.dynamics.Body2D;
+import spacegraph.space2d.phys.dynamics.Dynamics2D;
+
+/**
+ * step time of a world of box stacks as they fall asleep, then with one stack kept awake by a
+ * force.  with the step list, the per-step body work follows the number of awake bodies.
+ */
+public class SleepingWorldBench {
+
+    static final int SETTLE = 600, STEPS = 300;
+
+    public static void main(String[] args) {
+        Dynamics2D w = IslandSolverBench.stacks();
+
+        for (int i = 0; i < SETTLE; i++) {
+            if (i % 100 == 0)
+                report(w, "settling " + i, measure(w, 1, null));
+            else
+                w.step(1 / 60f, 8, 3);
+        }
+        report(w, "settled", measure(w, STEPS, null));
+
+        Body2D poked = null;
+        for (Body2D b : w.bodies())
+            if (b.getMass() > 0) {
+                poked = b;
+                break;
+            }
+        report(w, "one stack poked", measure(w, STEPS, poked));
+    }
+
+    static double measure(Dynamics2D w, int steps, Body2D poke) {
+        long start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            if (poke != null)
+                poke.applyForceToCenter(new v2(i % 60 < 30 ? 20 : -20, 0));
+            w.step(1 / 60f, 8, 3);
+        }
+        return (System.nanoTime() - start) / 1.0e6 / steps;
+    }
+
+    static void report(Dynamics2D w, String phase, double ms) {
+        System.out.printf("%s\t%.3f ms/step\tbodies=%d\tvisited=%d%n",
+                phase, ms, w.getBodyCount(), w.getStepBodyCount());
+    }
+}
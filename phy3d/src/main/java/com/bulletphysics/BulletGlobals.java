@@ -47,16 +47,21 @@ public class BulletGlobals {
 
 	////////////////////////////////////////////////////////////////////////////
 
-	private static final ThreadLocal<BulletGlobals> threadLocal = ThreadLocal.withInitial(BulletGlobals::new);
-
-	private ContactDestroyedCallback gContactDestroyedCallback;
-	private ContactAddedCallback gContactAddedCallback;
-	private ContactProcessedCallback gContactProcessedCallback;
-
-	private float contactBreakingThreshold = 0.02f;
+	/**
+	 * shared by all threads (formerly one instance per thread), so that settings made by the
+	 * application also apply on the worker threads of a parallel dispatch and island solve.
+	 * the callbacks may accordingly be invoked from several threads at once.
+	 */
+	private static final BulletGlobals the = new BulletGlobals();
+
+	private volatile ContactDestroyedCallback gContactDestroyedCallback;
+	private volatile ContactAddedCallback gContactAddedCallback;
+	private volatile ContactProcessedCallback gContactProcessedCallback;
+
+	private volatile float contactBreakingThreshold = 0.02f;
 	// RigidBody
-	private float deactivationTime = 2.0f;
-	private boolean disableDeactivation = false;
+	private volatile float deactivationTime = 2.0f;
+	private volatile boolean disableDeactivation = false;
 	
 	public static ContactAddedCallback getContactAddedCallback() {
 		return the().gContactAddedCallback;
@@ -93,7 +98,7 @@ public class BulletGlobals {
 	}
 
 	private static BulletGlobals the() {
-		return threadLocal.get();
+		return the;
 	}
 
 	public static float getDeactivationTime() {
@@ -59,6 +59,8 @@ public class BulletStats {
 	public static long updateTime;
 	
 	private static boolean enableProfile = false;
+	/** the profile tree is not thread-safe: only the thread that enabled profiling records into it */
+	private static Thread profileThread;
 	
 	////////////////////////////////////////////////////////////////////////////
 	
@@ -68,6 +70,7 @@ public class BulletStats {
 
 	public static void setProfileEnabled(boolean b) {
 		enableProfile = b;
+		profileThread = b ? Thread.currentThread() : null;
 	}
 	
 	public static long profileGetTicks() {
@@ -85,7 +88,7 @@ public class BulletStats {
 	 * @param name must be {@link String#intern interned} String (not needed for String literals)
 	 */
 	public static void pushProfile(String name) {
-		if (enableProfile) {
+		if (enableProfile && Thread.currentThread() == profileThread) {
 			CProfileManager.startProfile(name);
 		}
 	}
@@ -94,7 +97,7 @@ public class BulletStats {
 	 * Pops profile node.
 	 */
 	public static void popProfile() {
-		if (enableProfile) {
+		if (enableProfile && Thread.currentThread() == profileThread) {
 			CProfileManager.stopProfile();
 		}
 	}
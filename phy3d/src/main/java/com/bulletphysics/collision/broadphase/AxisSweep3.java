@@ -48,7 +48,10 @@ public class AxisSweep3 extends AxisSweep3Internal {
 		this(worldAabbMin, worldAabbMax, maxHandles, null);
 	}
 	
-	private AxisSweep3(Vector3f worldAabbMin, Vector3f worldAabbMax, int maxHandles/* = 16384*/, OverlappingPairCache pairCache/* = 0*/) {
+	/**
+	 * @param pairCache a pair cache such as {@link PackedOverlappingPairCache}, or null for an own {@link HashedOverlappingPairCache}
+	 */
+	public AxisSweep3(Vector3f worldAabbMin, Vector3f worldAabbMax, int maxHandles/* = 16384*/, OverlappingPairCache pairCache/* = 0*/) {
 		super(worldAabbMin, worldAabbMax, 0xfffe, 0xffff, maxHandles, pairCache);
 		// 1 handle is reserved as sentinel
 		assert (maxHandles > 1 && maxHandles < 32767);
@@ -45,7 +45,10 @@ public class AxisSweep3_32 extends AxisSweep3Internal {
 		this(worldAabbMin, worldAabbMax, maxHandles, null);
 	}
 	
-	private AxisSweep3_32(Vector3f worldAabbMin, Vector3f worldAabbMax, int maxHandles/* = 1500000*/, OverlappingPairCache pairCache/* = 0*/) {
+	/**
+	 * @param pairCache a pair cache such as {@link PackedOverlappingPairCache}, or null for an own {@link HashedOverlappingPairCache}
+	 */
+	public AxisSweep3_32(Vector3f worldAabbMin, Vector3f worldAabbMax, int maxHandles/* = 1500000*/, OverlappingPairCache pairCache/* = 0*/) {
 		super(worldAabbMin, worldAabbMax, 0xfffffffe, 0x7fffffff, maxHandles, pairCache);
 		// 1 handle is reserved as sentinel
 		assert (maxHandles > 1 && maxHandles < 2147483647);
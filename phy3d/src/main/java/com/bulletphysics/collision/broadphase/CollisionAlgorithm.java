@@ -55,6 +55,16 @@ public abstract class CollisionAlgorithm {
 
 	public abstract void processCollision(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut);
 
+	/**
+	 * Whether {@link #processCollision} only touches this algorithm, its own manifold and the
+	 * given result, so that a parallel dispatch may run it on a worker thread alongside other
+	 * pairs.  Algorithms that create manifolds or sub-algorithms, or use shared state, must
+	 * return false (the default) and are processed by the dispatching thread.
+	 */
+	public boolean isConcurrent() {
+		return false;
+	}
+
 	public abstract float calculateTimeOfImpact(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut);
 	
 	public abstract void getAllContactManifolds(ObjectArrayList<PersistentManifold> manifoldArray);
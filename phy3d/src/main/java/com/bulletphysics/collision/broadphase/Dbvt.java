@@ -32,6 +32,7 @@ import com.bulletphysics.util.IntArrayList;
 import com.bulletphysics.util.ObjectArrayList;
 
 import javax.vecmath.Vector3f;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -231,6 +232,32 @@ public class Dbvt<X> {
         }
     }
 
+    /**
+     * Visits the leaves hit by any ray of the packet in mask (bit i = ray i), each with the mask of
+     * the rays that reach it.  A subtree is only descended by the rays that hit its volume, within
+     * their current {@link RayPacket#lambda}, so lowering lambda in the policy prunes the rest of
+     * the traversal for that ray.
+     */
+    public static <X> void collideRays(Node<X> root, RayPacket rays, int mask, ICollide<X> policy) {
+        if (root == null || mask == 0)
+            return;
+
+        int top = rays.push(0, root, mask);
+        do {
+            top--;
+            Node<X> n = rays.stack[top];
+            int m = rays.hits(n.volume, rays.masks[top]);
+            if (m != 0) {
+                if (n.isinternal()) {
+                    top = rays.push(top, n.childs[0], m);
+                    top = rays.push(top, n.childs[1], m);
+                } else {
+                    policy.acceptRays(n, m);
+                }
+            }
+        } while (top > 0);
+    }
+
     public static void collideKDOP(Node root, Vector3f[] normals, float[] offsets, int count, ICollide policy) {
         //DBVT_CHECKTYPE
         if (root != null) {
@@ -911,6 +938,76 @@ public class Dbvt<X> {
         }
     }
 
+    /**
+     * Up to {@link #SIZE} rays or box sweeps traversed together by {@link #collideRays}.  Ray i goes
+     * from origin[3i] along 1/invDir[3i], its fraction t within [0, lambda[i]]; a sweep tests the
+     * volumes grown by the swept box, given as its min and max relative to the origin.
+     */
+    public static final class RayPacket {
+        public static final int SIZE = 16;
+
+        public final float[] origin = new float[3 * SIZE];
+        public final float[] invDir = new float[3 * SIZE];
+        public final float[] lambda = new float[SIZE];
+        public final float[] sweepMin = new float[3], sweepMax = new float[3];
+
+        Node[] stack = new Node[SIMPLE_STACKSIZE];
+        int[] masks = new int[SIMPLE_STACKSIZE];
+
+        /** sets ray i, from and to */
+        public void set(int i, float fx, float fy, float fz, float tx, float ty, float tz, float lambda) {
+            int o = i * 3;
+            origin[o] = fx;
+            origin[o + 1] = fy;
+            origin[o + 2] = fz;
+            invDir[o] = 1.0f / (tx - fx);
+            invDir[o + 1] = 1.0f / (ty - fy);
+            invDir[o + 2] = 1.0f / (tz - fz);
+            this.lambda[i] = lambda;
+        }
+
+        /** the rays of mask whose segment enters the volume, grown by the sweep box */
+        public int hits(DbvtAabbMm volume, int mask) {
+            Vector3f min = volume.min, max = volume.max;
+            float minX = min.x - sweepMax[0], minY = min.y - sweepMax[1], minZ = min.z - sweepMax[2];
+            float maxX = max.x - sweepMin[0], maxY = max.y - sweepMin[1], maxZ = max.z - sweepMin[2];
+            float[] origin = this.origin, invDir = this.invDir;
+            int hits = 0;
+            for (int m = mask; m != 0; m &= m - 1) {
+                int i = Integer.numberOfTrailingZeros(m), o = i * 3;
+                // NaN slabs (a ray parallel to and on a face) compare false and don't clip
+                float tmin = 0.0f, tmax = lambda[i];
+                float t0 = (minX - origin[o]) * invDir[o], t1 = (maxX - origin[o]) * invDir[o];
+                if (t0 > t1) { float t = t0; t0 = t1; t1 = t; }
+                if (t0 > tmin) tmin = t0;
+                if (t1 < tmax) tmax = t1;
+                t0 = (minY - origin[o + 1]) * invDir[o + 1];
+                t1 = (maxY - origin[o + 1]) * invDir[o + 1];
+                if (t0 > t1) { float t = t0; t0 = t1; t1 = t; }
+                if (t0 > tmin) tmin = t0;
+                if (t1 < tmax) tmax = t1;
+                t0 = (minZ - origin[o + 2]) * invDir[o + 2];
+                t1 = (maxZ - origin[o + 2]) * invDir[o + 2];
+                if (t0 > t1) { float t = t0; t0 = t1; t1 = t; }
+                if (t0 > tmin) tmin = t0;
+                if (t1 < tmax) tmax = t1;
+                if (tmin <= tmax)
+                    hits |= 1 << i;
+            }
+            return hits;
+        }
+
+        private int push(int top, Node n, int mask) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+                masks = Arrays.copyOf(masks, top * 2);
+            }
+            stack[top] = n;
+            masks[top] = mask;
+            return top + 1;
+        }
+    }
+
     public static class ICollide<X> {
 
         protected boolean descend(Node<X> n) {
@@ -928,6 +1025,9 @@ public class Dbvt<X> {
         protected void accept(Node<X> n, float f) {
             accept(n);
         }
+
+        /** a leaf reached by the rays of the mask, from {@link #collideRays} */
+        protected void acceptRays(Node<X> n, int rays) { }
     }
 
     public abstract static class IWriter {
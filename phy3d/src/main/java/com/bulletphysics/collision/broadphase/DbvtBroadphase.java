@@ -26,7 +26,6 @@
 package com.bulletphysics.collision.broadphase;
 
 import javax.vecmath.Vector3f;
-import java.util.List;
 
 /**
  * @author jezek2
@@ -48,6 +47,14 @@ public class DbvtBroadphase extends BroadphaseInterface {
     private int pid;                                                // Parse id
     private int gid;                                                // Gen id
 
+    /** pairs whose proxies no longer overlap */
+    private static final OverlapCallback separated = new OverlapCallback() {
+        @Override
+        public boolean processOverlap(BroadphasePair pair) {
+            return !DbvtAabbMm.intersects(((DbvtProxy) pair.pProxy0).aabb, ((DbvtProxy) pair.pProxy1).aabb);
+        }
+    };
+
     //#if DBVT_BP_PROFILE
     //btClock					m_clock;
     //struct	{
@@ -63,7 +70,11 @@ public class DbvtBroadphase extends BroadphaseInterface {
         this(null);
     }
 
-    private DbvtBroadphase(OverlappingPairCache paircache) {
+    /**
+     * @param paircache the pair cache to use, or null for a {@link HashedOverlappingPairCache}.
+     *                  {@link PackedOverlappingPairCache} is faster when many pairs come and go.
+     */
+    public DbvtBroadphase(OverlappingPairCache paircache) {
         sets[0] = new Dbvt();
         sets[1] = new Dbvt();
 
@@ -141,25 +152,8 @@ public class DbvtBroadphase extends BroadphaseInterface {
         // clean up:
         {
             //SPC(m_profiling.m_cleanup);
-            List<BroadphasePair> pairs = paircache.getOverlappingPairArray();
-            if (!pairs.isEmpty()) {
-                for (int i = 0, ni = pairs.size(); i < ni; i++) {
-                    BroadphasePair p = pairs.get(i);
-                    DbvtProxy pa = (DbvtProxy) p.pProxy0;
-                    DbvtProxy pb = (DbvtProxy) p.pProxy1;
-                    if (!DbvtAabbMm.intersects(pa.aabb, pb.aabb)) {
-                        //if(pa>pb) btSwap(pa,pb);
-                        if (pa.hashCode() > pb.hashCode()) {
-                            DbvtProxy tmp = pa;
-                            pa = pb;
-                            pb = tmp;
-                        }
-                        paircache.removeOverlappingPair(pa, pb, dispatcher);
-                        ni--;
-                        i--;
-                    }
-                }
-            }
+            // removes the pairs in one pass, which a pair cache may batch
+            paircache.processAllOverlappingPairs(separated, dispatcher);
         }
         pid++;
     }
@@ -241,6 +235,15 @@ public class DbvtBroadphase extends BroadphaseInterface {
         //#endif
     }
 
+    /**
+     * Traverses both sets with a packet of rays, see {@link Dbvt#collideRays}.  The policy gets
+     * the leaves of the {@link DbvtProxy proxies}.
+     */
+    public void rayTest(Dbvt.RayPacket rays, int mask, Dbvt.ICollide<DbvtProxy> policy) {
+        Dbvt.collideRays(sets[0].root, rays, mask, policy);
+        Dbvt.collideRays(sets[1].root, rays, mask, policy);
+    }
+
     public OverlappingPairCache getOverlappingPairCache() {
         return paircache;
     }
@@ -0,0 +1,358 @@
+package com.bulletphysics.collision.broadphase;
+
+import com.bulletphysics.BulletStats;
+import com.bulletphysics.util.ObjectArrayList;
+
+import java.util.Arrays;
+
+/**
+ * {@link OverlappingPairCache} that finds pairs by a packed key of their proxy uids
+ * ({@code uid0 << 32 | uid1}, uid0 &lt; uid1) in an open addressed table, and keeps the pair array
+ * sorted by key, so {@link #processAllOverlappingPairs} visits the pairs of a proxy together and the
+ * proxies in the order they were created.<p>
+ *
+ * Adds and removes are batched over a broadphase update: a removed pair is only unhashed and
+ * marked, an added one appended, and the next {@link #processAllOverlappingPairs} or
+ * {@link #getOverlappingPairArray} merges them into the sorted array in one pass.  Until then a
+ * removed pair can still be seen in the array (its algorithm is already freed), so iterate the
+ * array as returned by {@link #getOverlappingPairArray}.  Removed pairs are reused.<p>
+ *
+ * Select it with {@link DbvtBroadphase#DbvtBroadphase(OverlappingPairCache)} or
+ * {@link AxisSweep3#AxisSweep3(javax.vecmath.Vector3f, javax.vecmath.Vector3f, int, OverlappingPairCache)}.
+ */
+public class PackedOverlappingPairCache extends OverlappingPairCache {
+
+    /** an empty slot, and a removed pair; no key is negative as uids are not */
+    private static final long EMPTY = -1L, REMOVED = -1L;
+
+    private final ObjectArrayList<BroadphasePair> overlappingPairArray = new ObjectArrayList<>();
+    /** key of each pair of the array, or REMOVED */
+    private long[] pairKeys = new long[16];
+    /** length of the sorted front of the array; pairs added since are behind it */
+    private int sorted;
+    /** pairs of the array that are not removed */
+    private int live;
+
+    private long[] slotKeys;
+    /** index in the array of the pair of each slot */
+    private int[] slotPairs;
+    private int slotMask;
+
+    private final ObjectArrayList<BroadphasePair> free = new ObjectArrayList<>();
+    private long[] tailKeys = new long[16];
+    private BroadphasePair[] tailPairs = new BroadphasePair[16];
+
+    private OverlapFilterCallback overlapFilterCallback;
+    private OverlappingPairCallback ghostPairCallback;
+
+    public PackedOverlappingPairCache() {
+        rehash(16);
+    }
+
+    static long key(int uid0, int uid1) {
+        return ((long) uid0 << 32) | (uid1 & 0xffffffffL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public BroadphasePair addOverlappingPair(BroadphaseProxy proxy0, BroadphaseProxy proxy1) {
+        BulletStats.gAddedPairs++;
+
+        if (!needsBroadphaseCollision(proxy0, proxy1))
+            return null;
+
+        if (proxy0.getUid() > proxy1.getUid()) {
+            BroadphaseProxy tmp = proxy0;
+            proxy0 = proxy1;
+            proxy1 = tmp;
+        }
+        long key = key(proxy0.getUid(), proxy1.getUid());
+
+        int s = slot(key);
+        if (slotKeys[s] == key)
+            return overlappingPairArray.get(slotPairs[s]);
+
+        if ((live + 1) * 2 > slotKeys.length) {
+            rehash(slotKeys.length * 2);
+            s = slot(key);
+        }
+
+        BroadphasePair pair = free.isEmpty() ? new BroadphasePair() : free.pop();
+        pair.pProxy0 = proxy0;
+        pair.pProxy1 = proxy1;
+        pair.algorithm = null;
+        pair.userInfo = null;
+
+        int index = overlappingPairArray.size();
+        overlappingPairArray.add(pair);
+        if (index == pairKeys.length)
+            pairKeys = Arrays.copyOf(pairKeys, index * 2);
+        pairKeys[index] = key;
+
+        slotKeys[s] = key;
+        slotPairs[s] = index;
+        live++;
+
+        // this is where we add an actual pair, so also call the 'ghost'
+        if (ghostPairCallback != null)
+            ghostPairCallback.addOverlappingPair(proxy0, proxy1);
+
+        return pair;
+    }
+
+    @Override
+    public Object removeOverlappingPair(BroadphaseProxy proxy0, BroadphaseProxy proxy1, Dispatcher dispatcher) {
+        BulletStats.gRemovePairs++;
+
+        long key = proxy0.getUid() > proxy1.getUid() ?
+                key(proxy1.getUid(), proxy0.getUid()) : key(proxy0.getUid(), proxy1.getUid());
+        int s = slot(key);
+        return slotKeys[s] == key ? remove(slotPairs[s], s, dispatcher) : null;
+    }
+
+    private Object remove(int index, int slot, Dispatcher dispatcher) {
+        BroadphasePair pair = overlappingPairArray.get(index);
+        cleanOverlappingPair(pair, dispatcher);
+        Object userData = pair.userInfo;
+
+        unslot(slot);
+        pairKeys[index] = REMOVED;
+        live--;
+
+        if (ghostPairCallback != null)
+            ghostPairCallback.removeOverlappingPair(pair.pProxy0, pair.pProxy1, dispatcher);
+
+        return userData;
+    }
+
+    @Override
+    public void removeOverlappingPairsContainingProxy(BroadphaseProxy proxy, Dispatcher dispatcher) {
+        long[] keys = pairKeys;
+        for (int i = 0, n = overlappingPairArray.size(); i < n; i++) {
+            long key = keys[i];
+            if (key != REMOVED) {
+                BroadphasePair pair = overlappingPairArray.get(i);
+                if (pair.pProxy0 == proxy || pair.pProxy1 == proxy)
+                    remove(i, slot(key), dispatcher);
+            }
+        }
+    }
+
+    private boolean needsBroadphaseCollision(BroadphaseProxy proxy0, BroadphaseProxy proxy1) {
+        if (overlapFilterCallback != null)
+            return overlapFilterCallback.needBroadphaseCollision(proxy0, proxy1);
+
+        boolean collides = (proxy0.collisionFilterGroup & proxy1.collisionFilterMask) != 0;
+        collides = collides && (proxy1.collisionFilterGroup & proxy0.collisionFilterMask) != 0;
+        return collides;
+    }
+
+    /** in key order; pairs the callback removes are compacted away once all are visited */
+    @Override
+    public void processAllOverlappingPairs(OverlapCallback callback, Dispatcher dispatcher) {
+        flush();
+        for (int i = 0; i < overlappingPairArray.size(); i++) {
+            if (pairKeys[i] == REMOVED)
+                continue;
+
+            if (callback.processOverlap(overlappingPairArray.get(i))) {
+                // unless the callback removed it itself
+                long key = pairKeys[i];
+                if (key != REMOVED)
+                    remove(i, slot(key), dispatcher);
+
+                BulletStats.gOverlappingPairs--;
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public void cleanProxyFromPairs(BroadphaseProxy proxy, Dispatcher dispatcher) {
+        for (int i = 0, n = overlappingPairArray.size(); i < n; i++) {
+            if (pairKeys[i] != REMOVED) {
+                BroadphasePair pair = overlappingPairArray.get(i);
+                if (pair.pProxy0 == proxy || pair.pProxy1 == proxy)
+                    cleanOverlappingPair(pair, dispatcher);
+            }
+        }
+    }
+
+    @Override
+    public ObjectArrayList<BroadphasePair> getOverlappingPairArray() {
+        flush();
+        return overlappingPairArray;
+    }
+
+    @Override
+    public void cleanOverlappingPair(BroadphasePair pair, Dispatcher dispatcher) {
+        if (pair.algorithm != null) {
+            dispatcher.freeCollisionAlgorithm(pair.algorithm);
+            pair.algorithm = null;
+        }
+    }
+
+    @Override
+    public BroadphasePair findPair(BroadphaseProxy proxy0, BroadphaseProxy proxy1) {
+        BulletStats.gFindPairs++;
+
+        long key = proxy0.getUid() > proxy1.getUid() ?
+                key(proxy1.getUid(), proxy0.getUid()) : key(proxy0.getUid(), proxy1.getUid());
+        int s = slot(key);
+        return slotKeys[s] == key ? overlappingPairArray.get(slotPairs[s]) : null;
+    }
+
+    public OverlapFilterCallback getOverlapFilterCallback() {
+        return overlapFilterCallback;
+    }
+
+    @Override
+    public void setOverlapFilterCallback(OverlapFilterCallback overlapFilterCallback) {
+        this.overlapFilterCallback = overlapFilterCallback;
+    }
+
+    @Override
+    public int getNumOverlappingPairs() {
+        return live;
+    }
+
+    @Override
+    public boolean hasDeferredRemoval() {
+        return false;
+    }
+
+    @Override
+    public void setInternalGhostPairCallback(OverlappingPairCallback ghostPairCallback) {
+        this.ghostPairCallback = ghostPairCallback;
+    }
+
+    /**
+     * drops the removed pairs and merges the added ones into the sorted array, in one pass
+     * over the pairs behind the first that changed
+     */
+    private void flush() {
+        ObjectArrayList<BroadphasePair> a = overlappingPairArray;
+        int n = a.size();
+        if (live == n && sorted == n)
+            return;
+
+        long[] keys = pairKeys;
+
+        // compact the sorted front, recycling the removed pairs
+        int w = 0, from = n;
+        for (int i = 0; i < sorted; i++) {
+            long key = keys[i];
+            if (key == REMOVED) {
+                recycle(a.get(i));
+                if (from == n)
+                    from = w;
+            } else {
+                if (w != i) {
+                    keys[w] = key;
+                    a.setQuick(w, a.get(i));
+                }
+                w++;
+            }
+        }
+
+        // take the added pairs out, pointing their slots at the tail for the sort below
+        int t = 0;
+        if (tailKeys.length < n - sorted) {
+            tailKeys = new long[n - sorted];
+            tailPairs = new BroadphasePair[n - sorted];
+        }
+        for (int i = sorted; i < n; i++) {
+            long key = keys[i];
+            if (key == REMOVED) {
+                recycle(a.get(i));
+            } else {
+                tailKeys[t] = key;
+                tailPairs[t] = a.get(i);
+                slotPairs[slot(key)] = t++;
+            }
+        }
+
+        // merge them in, from the back, sorted by key
+        if (t > 0) {
+            Arrays.sort(tailKeys, 0, t);
+            int i = w - 1, j = t - 1, k = w + t - 1;
+            while (j >= 0) {
+                long tk = tailKeys[j];
+                if (i >= 0 && keys[i] > tk) {
+                    keys[k] = keys[i];
+                    a.setQuick(k, a.get(i));
+                    i--;
+                } else {
+                    keys[k] = tk;
+                    a.setQuick(k, tailPairs[slotPairs[slot(tk)]]);
+                    j--;
+                }
+                k--;
+            }
+            from = Math.min(from, k + 1);
+        }
+        Arrays.fill(tailPairs, 0, t, null);
+
+        int size = w + t;
+        while (a.size() > size)
+            a.removeQuick(a.size() - 1);
+        sorted = size;
+
+        // point the slots of the moved pairs at their new index
+        for (int i = from; i < size; i++)
+            slotPairs[slot(keys[i])] = i;
+    }
+
+    private void recycle(BroadphasePair pair) {
+        pair.pProxy0 = null;
+        pair.pProxy1 = null;
+        pair.algorithm = null;
+        pair.userInfo = null;
+        free.add(pair);
+    }
+
+    /** the slot of the key, or the empty slot it would go in */
+    private int slot(long key) {
+        long[] slots = slotKeys;
+        int m = slotMask, s = hash(key) & m;
+        long k;
+        while ((k = slots[s]) != EMPTY && k != key)
+            s = (s + 1) & m;
+        return s;
+    }
+
+    /** empties a slot, shifting back the keys of its probe run */
+    private void unslot(int s) {
+        long[] slots = slotKeys;
+        int m = slotMask;
+        for (int j = (s + 1) & m; slots[j] != EMPTY; j = (j + 1) & m) {
+            int home = hash(slots[j]) & m;
+            if (((j - home) & m) >= ((j - s) & m)) {
+                slots[s] = slots[j];
+                slotPairs[s] = slotPairs[j];
+                s = j;
+            }
+        }
+        slots[s] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        slotKeys = new long[capacity];
+        slotPairs = new int[capacity];
+        slotMask = capacity - 1;
+        Arrays.fill(slotKeys, EMPTY);
+
+        for (int i = 0, n = overlappingPairArray.size(); i < n; i++) {
+            long key = pairKeys[i];
+            if (key != REMOVED) {
+                int s = slot(key);
+                slotKeys[s] = key;
+                slotPairs[s] = i;
+            }
+        }
+    }
+}
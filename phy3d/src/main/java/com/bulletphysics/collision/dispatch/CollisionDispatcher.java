@@ -24,12 +24,18 @@
 package com.bulletphysics.collision.dispatch;
 
 import com.bulletphysics.collision.broadphase.*;
+import com.bulletphysics.collision.narrowphase.GjkEpaPenetrationDepthSolver;
 import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.collision.narrowphase.VoronoiSimplexSolver;
 import com.bulletphysics.util.ObjectArrayList;
 import com.bulletphysics.util.ObjectPool;
+import com.bulletphysics.util.Tasks;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * CollisionDispatcher supports algorithms that handle ConvexConvex and ConvexConcave collision pairs.
@@ -56,6 +62,15 @@ public class CollisionDispatcher extends Dispatcher {
 	
 	private final CollisionAlgorithmConstructionInfo tmpCI = new CollisionAlgorithmConstructionInfo();
 
+	/** fewest pairs per task of a parallel dispatch */
+	private static final int DISPATCH_GRAIN = 64;
+
+	private @Nullable ForkJoinPool exe;
+	private int tasks;
+	private DispatchWorker[] workers = new DispatchWorker[0];
+	private final ObjectArrayList<BroadphasePair> concurrentPairs = new ObjectArrayList<>();
+	private final ConcurrentPairCallback concurrentPairCallback = new ConcurrentPairCallback();
+
 	public CollisionDispatcher(CollisionConfiguration collisionConfiguration) {
 		this.collisionConfiguration = collisionConfiguration;
 
@@ -75,6 +90,36 @@ public class CollisionDispatcher extends Dispatcher {
 		}
 	}
 
+	/**
+	 * Sets the number of tasks of {@link #dispatchAllCollisionPairs}.  With 0 (the default) all
+	 * pairs are processed on the calling thread.  Otherwise the calling thread creates the missing
+	 * algorithms and processes the pairs whose algorithm is not {@link CollisionAlgorithm#isConcurrent
+	 * concurrent}, then the others are split among this many tasks, run in the given pool (or the
+	 * common pool); 1 runs them on the calling thread.  Each pair only touches its own algorithm and
+	 * manifold, so the contacts do not depend on the number of tasks, but contact added and destroyed
+	 * callbacks may be invoked from the pool's threads.
+	 */
+	public synchronized void setNumTasks(@Nullable ForkJoinPool exe, int tasks) {
+		if (tasks < 0)
+			throw new IllegalArgumentException("tasks < 0");
+
+		this.exe = exe;
+		this.tasks = tasks;
+
+		if (workers.length != tasks) {
+			DispatchWorker[] w = new DispatchWorker[tasks];
+			int reuse = Math.min(tasks, workers.length);
+			System.arraycopy(workers, 0, w, 0, reuse);
+			for (int i = reuse; i < tasks; i++)
+				w[i] = new DispatchWorker();
+			workers = w;
+		}
+	}
+
+	public int getNumTasks() {
+		return tasks;
+	}
+
 	public void registerCollisionCreateFunc(int proxyType0, int proxyType1, CollisionAlgorithmCreateFunc createFunc) {
 		doubleDispatch[proxyType0][proxyType1] = createFunc;
 	}
@@ -237,12 +282,96 @@ public class CollisionDispatcher extends Dispatcher {
 	
 	@Override
 	public void dispatchAllCollisionPairs(OverlappingPairCache pairCache, DispatcherInfo dispatchInfo, Dispatcher dispatcher) {
+		if (tasks > 0 && dispatchInfo.dispatchFunc == DispatchFunc.DISPATCH_DISCRETE) {
+			dispatchParallel(pairCache, dispatchInfo, dispatcher);
+			return;
+		}
+
 		//m_blockedForChanges = true;
 		collisionPairCallback.init(dispatchInfo, this);
 		pairCache.processAllOverlappingPairs(collisionPairCallback, dispatcher);
 		//m_blockedForChanges = false;
 	}
 
+	private void dispatchParallel(OverlappingPairCache pairCache, DispatcherInfo dispatchInfo, Dispatcher dispatcher) {
+		ObjectArrayList<BroadphasePair> pairs = concurrentPairs;
+		concurrentPairCallback.dispatchInfo = dispatchInfo;
+		pairCache.processAllOverlappingPairs(concurrentPairCallback, dispatcher);
+
+		int n = pairs.size();
+		DispatchWorker[] workers = this.workers;
+		int parts = Math.min(workers.length, (n + DISPATCH_GRAIN - 1) / DISPATCH_GRAIN);
+
+		for (int k = 0; k < parts; k++) {
+			DispatchWorker w = workers[k];
+			w.dispatchInfo = dispatchInfo;
+			w.from = (int) (((long) n * k) / parts);
+			w.to = (int) (((long) n * (k + 1)) / parts);
+		}
+
+		Tasks.invokeParts(exe, workers, parts);
+
+		pairs.clear();
+	}
+
+	/**
+	 * sequential part of a parallel dispatch, in pair cache order: creates missing algorithms,
+	 * processes the pairs that cannot run concurrently and collects the others
+	 */
+	private final class ConcurrentPairCallback extends OverlapCallback {
+		private final ManifoldResult contactPointResult = new ManifoldResult();
+		DispatcherInfo dispatchInfo;
+
+		public boolean processOverlap(BroadphasePair pair) {
+			CollisionObject colObj0 = (CollisionObject) pair.pProxy0.clientObject;
+			CollisionObject colObj1 = (CollisionObject) pair.pProxy1.clientObject;
+
+			if (needsCollision(colObj0, colObj1)) {
+				if (pair.algorithm == null) {
+					pair.algorithm = findAlgorithm(colObj0, colObj1);
+				}
+
+				CollisionAlgorithm algo = pair.algorithm;
+				if (algo != null) {
+					if (algo.isConcurrent()) {
+						concurrentPairs.add(pair);
+					}
+					else {
+						contactPointResult.init(colObj0, colObj1);
+						algo.processCollision(colObj0, colObj1, dispatchInfo, contactPointResult);
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	/** processes a range of the concurrent pairs, with its own result and GJK solvers */
+	private final class DispatchWorker extends RecursiveAction {
+		final ManifoldResult contactPointResult = new ManifoldResult();
+		final VoronoiSimplexSolver simplexSolver = new VoronoiSimplexSolver();
+		final GjkEpaPenetrationDepthSolver pdSolver = new GjkEpaPenetrationDepthSolver();
+		DispatcherInfo dispatchInfo;
+		int from, to;
+
+		@Override
+		protected void compute() {
+			ObjectArrayList<BroadphasePair> pairs = concurrentPairs;
+			for (int i = from; i < to; i++) {
+				BroadphasePair pair = pairs.get(i);
+				CollisionObject colObj0 = (CollisionObject) pair.pProxy0.clientObject;
+				CollisionObject colObj1 = (CollisionObject) pair.pProxy1.clientObject;
+				CollisionAlgorithm algo = pair.algorithm;
+
+				contactPointResult.init(colObj0, colObj1);
+				if (algo instanceof ConvexConvexAlgorithm)
+					((ConvexConvexAlgorithm) algo).processCollision(colObj0, colObj1, dispatchInfo, contactPointResult, simplexSolver, pdSolver);
+				else
+					algo.processCollision(colObj0, colObj1, dispatchInfo, contactPointResult);
+			}
+		}
+	}
+
 	@Override
 	public int getNumManifolds() {
 		return manifoldsPtr.size();
@@ -33,6 +33,7 @@ import com.bulletphysics.collision.shapes.CompoundShape;
 import com.bulletphysics.collision.shapes.convex.ConcaveShape;
 import com.bulletphysics.collision.shapes.convex.ConvexShape;
 import com.bulletphysics.collision.shapes.mesh.BvhTriangleMeshShape;
+import com.bulletphysics.collision.shapes.mesh.BvhTriangleMeshShape.MyNodeOverlapCallback;
 import com.bulletphysics.collision.shapes.mesh.TriangleMeshShape;
 import com.bulletphysics.collision.shapes.simple.SphereShape;
 import com.bulletphysics.linearmath.*;
@@ -40,8 +41,12 @@ import com.bulletphysics.util.ObjectArrayList;
 
 import javax.vecmath.Matrix3f;
 import javax.vecmath.Quat4f;
+import org.jetbrains.annotations.Nullable;
+
 import javax.vecmath.Vector3f;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.bulletphysics.BulletGlobals.FLT_EPSILON;
 
@@ -60,6 +65,8 @@ public class CollisionWorld {
 	//protected btStackAlloc*	m_stackAlloc;
 	private final BroadphaseInterface broadphase;
 	protected IDebugDraw debugDrawer;
+	/** the tasks of batched ray and sweep queries */
+	private RayBatchQuery[] rayQueries = new RayBatchQuery[0];
 	
 	/**
 	 * This constructor doesn't own the dispatcher and paircache/broadphase.
@@ -252,6 +259,15 @@ public class CollisionWorld {
 			CollisionShape collisionShape,
 			Transform colObjWorldTransform,
 			RayResultCallback resultCallback, double eps) {
+		rayTestSingle(rayFromTrans, rayToTrans, collisionObject, collisionShape, colObjWorldTransform, resultCallback, eps, null);
+	}
+
+	/** with the caller's node callback for a {@link BvhTriangleMeshShape}, or null for a new one */
+	public static void rayTestSingle(Transform rayFromTrans, Transform rayToTrans,
+			CollisionObject collisionObject,
+			CollisionShape collisionShape,
+			Transform colObjWorldTransform,
+			RayResultCallback resultCallback, double eps, @Nullable MyNodeOverlapCallback nodeCallback) {
 
 
 		if (collisionShape.isConvex()) {
@@ -303,7 +319,7 @@ public class CollisionWorld {
 
 					BridgeTriangleRaycastCallback rcb = new BridgeTriangleRaycastCallback(rayFromLocal, rayToLocal, resultCallback, collisionObject, triangleMesh);
 					rcb.hitFraction = resultCallback.closestHitFraction;
-					triangleMesh.performRaycast(rcb, rayFromLocal, rayToLocal);
+					triangleMesh.performRaycast(rcb, rayFromLocal, rayToLocal, nodeCallback != null ? nodeCallback : new MyNodeOverlapCallback());
 				}
 				else {
 					ConcaveShape triangleMesh = (ConcaveShape)collisionShape;
@@ -346,7 +362,7 @@ public class CollisionWorld {
 								collisionObject,
 								childCollisionShape,
 								childWorldTrans,
-								resultCallback, eps);
+								resultCallback, eps, nodeCallback);
 						// restore
 						collisionObject.internalSetTemporaryCollisionShape(saveCollisionShape);
 					}
@@ -385,6 +401,11 @@ public class CollisionWorld {
 	 * objectQuerySingle performs a collision detection query and calls the resultCallback. It is used internally by rayTest.
 	 */
 	public static void objectQuerySingle(ConvexShape castShape, Transform convexFromTrans, Transform convexToTrans, CollisionObject collisionObject, CollisionShape collisionShape, Transform colObjWorldTransform, ConvexResultCallback resultCallback, float allowedPenetration) {
+		objectQuerySingle(castShape, convexFromTrans, convexToTrans, collisionObject, collisionShape, colObjWorldTransform, resultCallback, allowedPenetration, null);
+	}
+
+	/** with the caller's node callback for a {@link BvhTriangleMeshShape}, or null for a new one */
+	public static void objectQuerySingle(ConvexShape castShape, Transform convexFromTrans, Transform convexToTrans, CollisionObject collisionObject, CollisionShape collisionShape, Transform colObjWorldTransform, ConvexResultCallback resultCallback, float allowedPenetration, @Nullable MyNodeOverlapCallback nodeCallback) {
 		if (collisionShape.isConvex()) {
 			CastResult castResult = new CastResult();
 			castResult.allowedPenetration = allowedPenetration;
@@ -438,7 +459,7 @@ public class CollisionWorld {
 					Vector3f boxMinLocal = new Vector3f();
 					Vector3f boxMaxLocal = new Vector3f();
 					castShape.getAabb(rotationXform, boxMinLocal, boxMaxLocal);
-					triangleMesh.performConvexcast(tccb, convexFromLocal, convexToLocal, boxMinLocal, boxMaxLocal);
+					triangleMesh.performConvexcast(tccb, convexFromLocal, convexToLocal, boxMinLocal, boxMaxLocal, nodeCallback != null ? nodeCallback : new MyNodeOverlapCallback());
 				}
 				else {
 					BvhTriangleMeshShape triangleMesh = (BvhTriangleMeshShape)collisionShape;
@@ -472,7 +493,7 @@ public class CollisionWorld {
 					VectorUtil.setMax(rayAabbMaxLocal, convexToLocal);
 					rayAabbMinLocal.add(boxMinLocal);
 					rayAabbMaxLocal.add(boxMaxLocal);
-					triangleMesh.processAllTriangles(tccb, rayAabbMinLocal, rayAabbMaxLocal);
+					triangleMesh.processAllTriangles(tccb, rayAabbMinLocal, rayAabbMaxLocal, nodeCallback != null ? nodeCallback : new MyNodeOverlapCallback());
 				}
 			}
 			else {
@@ -491,7 +512,7 @@ public class CollisionWorld {
 						                  collisionObject,
 						                  childCollisionShape,
 						                  childWorldTrans,
-						                  resultCallback, allowedPenetration);
+						                  resultCallback, allowedPenetration, nodeCallback);
 						// restore
 						collisionObject.internalSetTemporaryCollisionShape(saveCollisionShape);
 					}
@@ -600,6 +621,58 @@ public class CollisionWorld {
 		}
 	}
 
+	/**
+	 * Finds the closest hit of each ray of the batch, on the calling thread.
+	 */
+	public void rayTest(RayBatch rays) {
+		rayTest(rays, null, 0);
+	}
+
+	/**
+	 * Finds the closest hit of each ray of the batch.  The rays are traversed through a
+	 * {@link DbvtBroadphase} in packets of {@link Dbvt.RayPacket#SIZE} (other broadphases test
+	 * every object), and the packets are spread over the given number of tasks, run in the pool (or
+	 * the common pool); 0 or 1 queries on the calling thread.  Each ray is cast by one task, so the
+	 * hits don't depend on the number of tasks.
+	 */
+	public void rayTest(RayBatch rays, @Nullable ForkJoinPool exe, int tasks) {
+		query(rays, null, exe, tasks);
+	}
+
+	/**
+	 * Finds the closest hit of the shape swept along each ray of the batch, on the calling thread.
+	 */
+	public void convexSweepTest(ConvexShape castShape, RayBatch sweeps) {
+		convexSweepTest(castShape, sweeps, null, 0);
+	}
+
+	/**
+	 * Finds the closest hit of the shape swept along each ray of the batch, as {@link #rayTest(RayBatch, ForkJoinPool, int)}.
+	 * The shape is swept in its own axes, without rotation.
+	 */
+	public void convexSweepTest(ConvexShape castShape, RayBatch sweeps, @Nullable ForkJoinPool exe, int tasks) {
+		query(sweeps, castShape, exe, tasks);
+	}
+
+	private synchronized void query(RayBatch batch, @Nullable ConvexShape castShape, @Nullable ForkJoinPool exe, int tasks) {
+		if (tasks < 0)
+			throw new IllegalArgumentException("tasks < 0");
+
+		batch.resetHits();
+		int packets = (batch.size() + Dbvt.RayPacket.SIZE - 1) / Dbvt.RayPacket.SIZE;
+		int parts = Math.max(1, Math.min(tasks, packets));
+		if (packets == 0)
+			return;
+
+		if (rayQueries.length < parts) {
+			RayBatchQuery[] q = Arrays.copyOf(rayQueries, parts);
+			for (int i = rayQueries.length; i < parts; i++)
+				q[i] = new RayBatchQuery(this);
+			rayQueries = q;
+		}
+		RayBatchQuery.run(rayQueries, parts, batch, castShape, exe);
+	}
+
 	public List<CollisionObject> getCollisionObjectArray() {
 		return collisionObjects;
 	}
@@ -31,6 +31,8 @@ import com.bulletphysics.collision.narrowphase.PersistentManifold;
 import com.bulletphysics.collision.narrowphase.SubsimplexConvexCast;
 import com.bulletphysics.collision.narrowphase.VoronoiSimplexSolver;
 import com.bulletphysics.collision.shapes.convex.ConcaveShape;
+import com.bulletphysics.collision.shapes.mesh.BvhTriangleMeshShape;
+import com.bulletphysics.collision.shapes.mesh.BvhTriangleMeshShape.MyNodeOverlapCallback;
 import com.bulletphysics.collision.shapes.simple.SphereShape;
 import com.bulletphysics.collision.shapes.simple.TriangleShape;
 import com.bulletphysics.collision.shapes.util.TriangleCallback;
@@ -51,6 +53,8 @@ public class ConvexConcaveCollisionAlgorithm extends CollisionAlgorithm {
 
 	private boolean isSwapped;
 	private ConvexTriangleCallback btConvexTriangleCallback;
+	/** this algorithm's own traversal of a {@link BvhTriangleMeshShape}, as pairs may be processed in parallel */
+	private final MyNodeOverlapCallback nodeCallback = new MyNodeOverlapCallback();
 	
 	private void init(CollisionAlgorithmConstructionInfo ci, CollisionObject body0, CollisionObject body1, boolean isSwapped) {
 		super.init(ci);
@@ -82,10 +86,12 @@ public class ConvexConcaveCollisionAlgorithm extends CollisionAlgorithm {
 
 				btConvexTriangleCallback.manifoldPtr.setBodies(convexBody, triBody);
 
-				concaveShape.processAllTriangles(
-						btConvexTriangleCallback,
-						btConvexTriangleCallback.getAabbMin(new Vector3f()),
-						btConvexTriangleCallback.getAabbMax(new Vector3f()));
+				Vector3f aabbMin = btConvexTriangleCallback.getAabbMin(new Vector3f());
+				Vector3f aabbMax = btConvexTriangleCallback.getAabbMax(new Vector3f());
+				if (concaveShape instanceof BvhTriangleMeshShape)
+					((BvhTriangleMeshShape) concaveShape).processAllTriangles(btConvexTriangleCallback, aabbMin, aabbMax, nodeCallback);
+				else
+					concaveShape.processAllTriangles(btConvexTriangleCallback, aabbMin, aabbMax);
 
 				resultOut.refreshContactPoints();
 			}
@@ -144,7 +150,10 @@ public class ConvexConcaveCollisionAlgorithm extends CollisionAlgorithm {
 
 			ConcaveShape triangleMesh = (ConcaveShape) triBody.getCollisionShape();
 
-			if (triangleMesh != null) {
+			if (triangleMesh instanceof BvhTriangleMeshShape) {
+				((BvhTriangleMeshShape) triangleMesh).processAllTriangles(raycastCallback, rayAabbMin, rayAabbMax, nodeCallback);
+			}
+			else if (triangleMesh != null) {
 				triangleMesh.processAllTriangles(raycastCallback, rayAabbMin, rayAabbMax);
 			}
 
@@ -44,7 +44,7 @@ import javax.vecmath.Vector3f;
  */
 public class ConvexConvexAlgorithm extends CollisionAlgorithm {
 	
-	private final ObjectPool<ClosestPointInput> pointInputsPool = ObjectPool.get(ClosestPointInput.class);
+	private final ClosestPointInput input = new ClosestPointInput();
 
 	private final GjkPairDetector gjkPairDetector = new GjkPairDetector();
 
@@ -103,7 +103,7 @@ public class ConvexConvexAlgorithm extends CollisionAlgorithm {
 		ConvexShape min0 = (ConvexShape) body0.getCollisionShape();
 		ConvexShape min1 = (ConvexShape) body1.getCollisionShape();
 
-		ClosestPointInput input = pointInputsPool.get();
+		ClosestPointInput input = this.input;
 		input.init();
 
 		// JAVA NOTE: original: TODO: if (dispatchInfo.m_useContinuous)
@@ -119,8 +119,7 @@ public class ConvexConvexAlgorithm extends CollisionAlgorithm {
 		body1.getWorldTransform(input.transformB);
 
 		gjkPairDetector.getClosestPoints(input, resultOut, dispatchInfo.debugDraw);
-		
-		pointInputsPool.release(input);
+
 		//	#endif
 
 		if (ownManifold) {
@@ -128,6 +127,36 @@ public class ConvexConvexAlgorithm extends CollisionAlgorithm {
 		}
 	}
 
+	/**
+	 * once its manifold exists (it is created by the first, sequential, call), and when using
+	 * the default solver types, which a worker can substitute with its own
+	 */
+	@Override
+	public boolean isConcurrent() {
+		return manifoldPtr != null &&
+				gjkPairDetector.getSimplexSolver() instanceof VoronoiSimplexSolver &&
+				gjkPairDetector.getPenetrationDepthSolver() instanceof GjkEpaPenetrationDepthSolver;
+	}
+
+	/**
+	 * {@link #processCollision} with the given solvers in place of those its {@link CreateFunc}
+	 * shares among all its algorithms, for a worker of a parallel dispatch.
+	 */
+	public void processCollision(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut,
+								 SimplexSolverInterface simplexSolver, ConvexPenetrationDepthSolver pdSolver) {
+		SimplexSolverInterface sharedSimplexSolver = gjkPairDetector.getSimplexSolver();
+		ConvexPenetrationDepthSolver sharedPdSolver = gjkPairDetector.getPenetrationDepthSolver();
+		gjkPairDetector.setSimplexSolver(simplexSolver);
+		gjkPairDetector.setPenetrationDepthSolver(pdSolver);
+		try {
+			processCollision(body0, body1, dispatchInfo, resultOut);
+		}
+		finally {
+			gjkPairDetector.setSimplexSolver(sharedSimplexSolver);
+			gjkPairDetector.setPenetrationDepthSolver(sharedPdSolver);
+		}
+	}
+
 	private static final boolean disableCcd = false;
 	
 	@Override
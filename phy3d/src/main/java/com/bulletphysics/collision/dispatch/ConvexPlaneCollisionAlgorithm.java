@@ -132,6 +132,11 @@ public class ConvexPlaneCollisionAlgorithm extends CollisionAlgorithm {
 		}
 	}
 
+	@Override
+	public boolean isConcurrent() {
+		return true;
+	}
+
 	@Override
 	public float calculateTimeOfImpact(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut) {
 		// not yet
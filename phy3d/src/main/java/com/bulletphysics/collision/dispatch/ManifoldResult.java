@@ -28,7 +28,6 @@ import com.bulletphysics.collision.narrowphase.DiscreteCollisionDetectorInterfac
 import com.bulletphysics.collision.narrowphase.ManifoldPoint;
 import com.bulletphysics.collision.narrowphase.PersistentManifold;
 import com.bulletphysics.linearmath.Transform;
-import com.bulletphysics.util.ObjectPool;
 
 import javax.vecmath.Vector3f;
 
@@ -40,7 +39,7 @@ import javax.vecmath.Vector3f;
 public class ManifoldResult extends DiscreteCollisionDetectorInterface.Result {
 
 	//protected final BulletStack stack = BulletStack.get();
-	private final ObjectPool<ManifoldPoint> pointsPool = ObjectPool.get(ManifoldPoint.class);
+	private final ManifoldPoint newPt = new ManifoldPoint();
 	
 	private PersistentManifold manifoldPtr;
 
@@ -108,7 +107,7 @@ public class ManifoldResult extends DiscreteCollisionDetectorInterface.Result {
 			rootTransB.invXform(pointInWorld, localB);
 		}
 
-		ManifoldPoint newPt = pointsPool.get();
+		ManifoldPoint newPt = this.newPt;
 		newPt.init(localA, localB, normalOnBInWorld, depth);
 
 		newPt.positionWorldOnA.set(pointA);
@@ -145,7 +144,6 @@ public class ManifoldResult extends DiscreteCollisionDetectorInterface.Result {
 			BulletGlobals.getContactAddedCallback().contactAdded(manifoldPtr.getContactPoint(insertIndex), obj0, partId0, index0, obj1, partId1, index1);
 		}
 
-		pointsPool.release(newPt);
 	}
 
 	///User can override this material combiner by implementing gContactAddedCallback and setting body0->m_collisionFlags |= btCollisionObject::customMaterialCallback;
@@ -0,0 +1,100 @@
+package com.bulletphysics.collision.dispatch;
+
+import com.bulletphysics.collision.broadphase.CollisionFilterGroups;
+
+import javax.vecmath.Vector3f;
+import java.util.Arrays;
+
+/**
+ * Rays (or the paths of a swept shape), from and to, for {@link CollisionWorld#rayTest(RayBatch)}
+ * and {@link CollisionWorld#convexSweepTest(com.bulletphysics.collision.shapes.convex.ConvexShape, RayBatch)},
+ * and the closest hit of each: its fraction along the ray (1 if none), world normal and object.
+ * Rays next to each other in the batch are traversed together, so a batch should be ordered so
+ * that neighbouring rays are close (a fan of a sensor, a row of pixels).
+ */
+public class RayBatch {
+
+    /** x, y, z of each ray */
+    public final float[] from, to;
+    public final float[] hitFraction;
+    /** x, y, z of each ray */
+    public final float[] hitNormal;
+    public final CollisionObject[] hitObject;
+
+    public short collisionFilterGroup = CollisionFilterGroups.DEFAULT_FILTER;
+    public short collisionFilterMask = CollisionFilterGroups.ALL_FILTER;
+
+    private int size;
+
+    public RayBatch(int capacity) {
+        from = new float[capacity * 3];
+        to = new float[capacity * 3];
+        hitFraction = new float[capacity];
+        hitNormal = new float[capacity * 3];
+        hitObject = new CollisionObject[capacity];
+    }
+
+    public int capacity() {
+        return hitFraction.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** adds a ray, returning its index; throws if the batch is full */
+    public int add(Vector3f from, Vector3f to) {
+        return add(from.x, from.y, from.z, to.x, to.y, to.z);
+    }
+
+    public int add(float fx, float fy, float fz, float tx, float ty, float tz) {
+        int i = size;
+        if (i == capacity())
+            throw new IndexOutOfBoundsException("ray batch full: " + i);
+        size = i + 1;
+        int o = i * 3;
+        from[o] = fx;
+        from[o + 1] = fy;
+        from[o + 2] = fz;
+        to[o] = tx;
+        to[o + 1] = ty;
+        to[o + 2] = tz;
+        return i;
+    }
+
+    public boolean hasHit(int i) {
+        return hitObject[i] != null;
+    }
+
+    public Vector3f hitPoint(int i, Vector3f out) {
+        int o = i * 3;
+        float f = hitFraction[i];
+        out.set(from[o] + (to[o] - from[o]) * f, from[o + 1] + (to[o + 1] - from[o + 1]) * f, from[o + 2] + (to[o + 2] - from[o + 2]) * f);
+        return out;
+    }
+
+    public Vector3f hitNormal(int i, Vector3f out) {
+        int o = i * 3;
+        out.set(hitNormal[o], hitNormal[o + 1], hitNormal[o + 2]);
+        return out;
+    }
+
+    void resetHits() {
+        Arrays.fill(hitFraction, 0, size, 1.0f);
+        Arrays.fill(hitNormal, 0, size * 3, 0.0f);
+        Arrays.fill(hitObject, 0, size, null);
+    }
+
+    void hit(int i, CollisionObject o, float fraction, Vector3f normal) {
+        hitFraction[i] = fraction;
+        hitObject[i] = o;
+        int k = i * 3;
+        hitNormal[k] = normal.x;
+        hitNormal[k + 1] = normal.y;
+        hitNormal[k + 2] = normal.z;
+    }
+}
@@ -0,0 +1,264 @@
+package com.bulletphysics.collision.dispatch;
+
+import com.bulletphysics.collision.broadphase.BroadphaseInterface;
+import com.bulletphysics.collision.broadphase.BroadphaseProxy;
+import com.bulletphysics.collision.broadphase.Dbvt;
+import com.bulletphysics.collision.broadphase.DbvtAabbMm;
+import com.bulletphysics.collision.broadphase.DbvtBroadphase;
+import com.bulletphysics.collision.broadphase.DbvtProxy;
+import com.bulletphysics.collision.narrowphase.ConvexCast.CastResult;
+import com.bulletphysics.collision.narrowphase.GjkConvexCast;
+import com.bulletphysics.collision.narrowphase.SubsimplexConvexCast;
+import com.bulletphysics.collision.narrowphase.VoronoiSimplexSolver;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.collision.shapes.convex.ConvexShape;
+import com.bulletphysics.collision.shapes.mesh.BvhTriangleMeshShape.MyNodeOverlapCallback;
+import com.bulletphysics.collision.shapes.simple.SphereShape;
+import com.bulletphysics.linearmath.Transform;
+import com.bulletphysics.util.Tasks;
+import org.jetbrains.annotations.Nullable;
+
+import javax.vecmath.Vector3f;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One task of a {@link RayBatch} query: takes the next packet of {@link Dbvt.RayPacket#SIZE}
+ * rays until none remain, traverses the broadphase with the packet and casts each ray against
+ * the objects it reaches, keeping the closest hit.  The casters, solvers and callbacks are owned,
+ * so a convex or compound object costs no allocation per ray, and a triangle mesh is read through
+ * this task's own node callback.
+ */
+final class RayBatchQuery extends RecursiveAction {
+
+    private final CollisionWorld world;
+
+    private RayBatch batch;
+    private @Nullable ConvexShape castShape;
+    private AtomicInteger next;
+
+    private final Dbvt.RayPacket packet = new Dbvt.RayPacket();
+    private int packetStart;
+
+    private final CastResult castResult = new CastResult();
+    private final VoronoiSimplexSolver simplexSolver = new VoronoiSimplexSolver();
+    private final SphereShape pointShape = new SphereShape(0.0f);
+    private final SubsimplexConvexCast rayCaster = new SubsimplexConvexCast(pointShape, null, simplexSolver);
+    private final GjkConvexCast sweepCaster = new GjkConvexCast(null, null, simplexSolver);
+
+    private final Transform fromTrans = new Transform(), toTrans = new Transform(), objTrans = new Transform();
+    /** child world transforms, by compound depth */
+    private Transform[] childTrans = new Transform[0];
+    private final Transform childLocal = new Transform();
+    private final DbvtAabbMm aabb = new DbvtAabbMm();
+    private final Vector3f tmp = new Vector3f();
+
+    private final BatchRayCallback rayCallback = new BatchRayCallback();
+    private final BatchConvexCallback convexCallback = new BatchConvexCallback();
+    private final MyNodeOverlapCallback nodeCallback = new MyNodeOverlapCallback();
+
+    private final Dbvt.ICollide<DbvtProxy> leaves = new Dbvt.ICollide<>() {
+        @Override
+        protected void acceptRays(Dbvt.Node<DbvtProxy> n, int rays) {
+            test((CollisionObject) n.data.clientObject, rays);
+        }
+    };
+
+    RayBatchQuery(CollisionWorld world) {
+        this.world = world;
+        pointShape.setMargin(0.0f);
+        fromTrans.setIdentity();
+        toTrans.setIdentity();
+    }
+
+    /** runs the query on the workers, in the pool (or the common pool) if more than one */
+    static void run(RayBatchQuery[] workers, int parts, RayBatch batch, @Nullable ConvexShape castShape, @Nullable ForkJoinPool exe) {
+        AtomicInteger next = new AtomicInteger();
+        for (int k = 0; k < parts; k++) {
+            RayBatchQuery w = workers[k];
+            w.batch = batch;
+            w.castShape = castShape;
+            w.next = next;
+        }
+
+        Tasks.invokeParts(exe, workers, parts);
+
+        for (int k = 0; k < parts; k++) {
+            workers[k].batch = null;
+            workers[k].castShape = null;
+        }
+    }
+
+    @Override
+    protected void compute() {
+        int n = batch.size(), p;
+        while ((p = next.getAndIncrement() * Dbvt.RayPacket.SIZE) < n)
+            query(p, Math.min(Dbvt.RayPacket.SIZE, n - p));
+    }
+
+    private void query(int start, int count) {
+        RayBatch batch = this.batch;
+        float[] from = batch.from, to = batch.to;
+
+        Dbvt.RayPacket packet = this.packet;
+        packetStart = start;
+        for (int i = 0; i < count; i++) {
+            int o = (start + i) * 3;
+            packet.set(i, from[o], from[o + 1], from[o + 2], to[o], to[o + 1], to[o + 2], 1.0f);
+        }
+
+        if (castShape != null) {
+            fromTrans.setIdentity();
+            castShape.getAabb(fromTrans, tmp, aabb.max);
+            packet.sweepMin[0] = tmp.x;
+            packet.sweepMin[1] = tmp.y;
+            packet.sweepMin[2] = tmp.z;
+            packet.sweepMax[0] = aabb.max.x;
+            packet.sweepMax[1] = aabb.max.y;
+            packet.sweepMax[2] = aabb.max.z;
+        } else {
+            Arrays.fill(packet.sweepMin, 0.0f);
+            Arrays.fill(packet.sweepMax, 0.0f);
+        }
+
+        int mask = -1 >>> (32 - count);
+        BroadphaseInterface broadphase = world.broadphase();
+        if (broadphase instanceof DbvtBroadphase) {
+            ((DbvtBroadphase) broadphase).rayTest(packet, mask, leaves);
+        } else {
+            List<CollisionObject> objects = world.getCollisionObjectArray();
+            for (int i = 0, n = objects.size(); i < n; i++) {
+                CollisionObject o = objects.get(i);
+                o.getCollisionShape().getAabb(o.getWorldTransform(objTrans), aabb.min, aabb.max);
+                int m = packet.hits(aabb, mask);
+                if (m != 0)
+                    test(o, m);
+            }
+        }
+    }
+
+    /** casts the rays of the mask against an object */
+    private void test(CollisionObject o, int rays) {
+        RayBatch batch = this.batch;
+        BroadphaseProxy proxy = o.getBroadphaseHandle();
+        boolean collides = ((proxy.collisionFilterGroup & batch.collisionFilterMask) & 0xFFFF) != 0;
+        collides = collides && ((batch.collisionFilterGroup & proxy.collisionFilterMask) & 0xFFFF) != 0;
+        if (!collides)
+            return;
+
+        o.getWorldTransform(objTrans);
+        // the shape's own bounds, which the single-ray queries cull by, rather than the broadphase's grown ones
+        o.getCollisionShape().getAabb(objTrans, aabb.min, aabb.max);
+        rays = packet.hits(aabb, rays);
+
+        float[] from = batch.from, to = batch.to;
+        for (int m = rays; m != 0; m &= m - 1) {
+            int i = Integer.numberOfTrailingZeros(m), r = packetStart + i;
+            // terminate further ray tests, once the closestHitFraction reached zero
+            if (batch.hitFraction[r] == 0.0f)
+                continue;
+
+            int k = r * 3;
+            fromTrans.origin.set(from[k], from[k + 1], from[k + 2]);
+            toTrans.origin.set(to[k], to[k + 1], to[k + 2]);
+            cast(o, o.getCollisionShape(), objTrans, r, 0);
+            packet.lambda[i] = batch.hitFraction[r];
+        }
+    }
+
+    private void cast(CollisionObject o, CollisionShape shape, Transform shapeTrans, int r, int depth) {
+        RayBatch batch = this.batch;
+        ConvexShape castShape = this.castShape;
+        if (shape.isConvex()) {
+            CastResult result = castResult;
+            result.normal.set(0.0f, 0.0f, 0.0f);
+            result.hitPoint.set(0.0f, 0.0f, 0.0f);
+            if (castShape == null) {
+                result.allowedPenetration = 0.0f;
+                result.fraction = batch.hitFraction[r];
+                rayCaster.setShapes(pointShape, (ConvexShape) shape);
+                if (rayCaster.timeOfImpact(fromTrans, toTrans, shapeTrans, shapeTrans, result)
+                        && result.fraction < batch.hitFraction[r]
+                        && result.normal.lengthSquared() > RayResultCallback.RAY_EPSILON * RayResultCallback.RAY_EPSILON) {
+                    result.normal.normalize();
+                    batch.hit(r, o, result.fraction, result.normal);
+                }
+            } else {
+                result.allowedPenetration = world.getDispatchInfo().allowedCcdPenetration;
+                result.fraction = 1.0f;
+                sweepCaster.setShapes(castShape, (ConvexShape) shape);
+                if (sweepCaster.timeOfImpact(fromTrans, toTrans, shapeTrans, shapeTrans, result)
+                        && result.normal.lengthSquared() > 0.0001f
+                        && result.fraction < batch.hitFraction[r]) {
+                    result.normal.normalize();
+                    batch.hit(r, o, result.fraction, result.normal);
+                }
+            }
+        } else if (shape.isCompound()) {
+            // instead of CollisionWorld's temporary collision shape, which would race between tasks
+            CompoundShape compound = (CompoundShape) shape;
+            if (childTrans.length == depth) {
+                childTrans = Arrays.copyOf(childTrans, depth + 1);
+                childTrans[depth] = new Transform();
+            }
+            Transform childWorld = childTrans[depth];
+            for (int c = 0, n = compound.childShapeCount(); c < n; c++) {
+                compound.childTransform(c, childLocal);
+                childWorld.set(shapeTrans);
+                childWorld.mul(childLocal);
+                cast(o, compound.childShape(c), childWorld, r, depth + 1);
+            }
+        } else if (shape.isConcave()) {
+            if (castShape == null) {
+                rayCallback.closestHitFraction = batch.hitFraction[r];
+                rayCallback.collisionObject = null;
+                CollisionWorld.rayTestSingle(fromTrans, toTrans, o, shape, shapeTrans, rayCallback, RayResultCallback.RAY_EPSILON, nodeCallback);
+                if (rayCallback.collisionObject != null)
+                    batch.hit(r, o, rayCallback.closestHitFraction, rayCallback.hitNormal);
+            } else {
+                convexCallback.closestHitFraction = batch.hitFraction[r];
+                convexCallback.hit = false;
+                CollisionWorld.objectQuerySingle(castShape, fromTrans, toTrans, o, shape, shapeTrans, convexCallback, world.getDispatchInfo().allowedCcdPenetration, nodeCallback);
+                if (convexCallback.hit)
+                    batch.hit(r, o, convexCallback.closestHitFraction, convexCallback.hitNormal);
+            }
+        }
+    }
+
+    /** the closest hit on a concave shape */
+    private static final class BatchRayCallback extends RayResultCallback {
+        final Vector3f hitNormal = new Vector3f();
+        final Transform tmpTrans = new Transform();
+
+        @Override
+        public float addSingleResult(CollisionWorld.LocalRayResult rayResult, boolean normalInWorldSpace) {
+            closestHitFraction = rayResult.hitFraction;
+            collisionObject = rayResult.collisionObject;
+            hitNormal.set(rayResult.hitNormalLocal);
+            if (!normalInWorldSpace)
+                collisionObject.getWorldTransform(tmpTrans).basis.transform(hitNormal);
+            return rayResult.hitFraction;
+        }
+    }
+
+    /** the closest hit of a sweep on a concave shape */
+    private static final class BatchConvexCallback extends CollisionWorld.ConvexResultCallback {
+        final Vector3f hitNormal = new Vector3f();
+        final Transform tmpTrans = new Transform();
+        boolean hit;
+
+        @Override
+        protected float addSingleResult(CollisionWorld.LocalConvexResult convexResult, boolean normalInWorldSpace) {
+            closestHitFraction = convexResult.hitFraction;
+            hit = true;
+            hitNormal.set(convexResult.hitNormalLocal);
+            if (!normalInWorldSpace)
+                convexResult.hitCollisionObject.getWorldTransform(tmpTrans).basis.transform(hitNormal);
+            return convexResult.hitFraction;
+        }
+    }
+}
@@ -126,6 +126,11 @@ public class SphereSphereCollisionAlgorithm extends CollisionAlgorithm {
 		//#endif //CLEAR_MANIFOLD
 	}
 
+	@Override
+	public boolean isConcurrent() {
+		return true;
+	}
+
 	@Override
 	public float calculateTimeOfImpact(CollisionObject body0, CollisionObject body1, DispatcherInfo dispatchInfo, ManifoldResult resultOut) {
 		return 1.0f;
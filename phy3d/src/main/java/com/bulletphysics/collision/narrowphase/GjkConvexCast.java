@@ -27,7 +27,6 @@ import com.bulletphysics.collision.narrowphase.DiscreteCollisionDetectorInterfac
 import com.bulletphysics.collision.shapes.convex.ConvexShape;
 import com.bulletphysics.linearmath.Transform;
 import com.bulletphysics.linearmath.VectorUtil;
-import com.bulletphysics.util.ObjectPool;
 
 import javax.vecmath.Vector3f;
 
@@ -39,7 +38,8 @@ import javax.vecmath.Vector3f;
 public class GjkConvexCast extends ConvexCast {
 
 	//protected final BulletStack stack = BulletStack.get();
-	private final ObjectPool<ClosestPointInput> pointInputsPool = ObjectPool.get(ClosestPointInput.class);
+	private final ClosestPointInput input = new ClosestPointInput();
+	private final PointCollector pointCollector = new PointCollector();
 
 //#ifdef BT_USE_DOUBLE_PRECISION
 //	private static final int MAX_ITERATIONS = 64;
@@ -48,8 +48,8 @@ public class GjkConvexCast extends ConvexCast {
 //#endif
 	
 	private final SimplexSolverInterface simplexSolver;
-	private final ConvexShape convexA;
-	private final ConvexShape convexB;
+	private ConvexShape convexA;
+	private ConvexShape convexB;
 	
 	private final GjkPairDetector gjk = new GjkPairDetector();
 
@@ -59,6 +59,14 @@ public class GjkConvexCast extends ConvexCast {
 		this.convexB = convexB;
 	}
 	
+	/**
+	 * Casts other shapes with the same simplex solver, so that one caster can be reused for many queries.
+	 */
+	public void setShapes(ConvexShape convexA, ConvexShape convexB) {
+		this.convexA = convexA;
+		this.convexB = convexB;
+	}
+
 	public boolean timeOfImpact(Transform fromA, Transform toA, Transform fromB, Transform toB, CastResult result) {
 		simplexSolver.reset();
 
@@ -88,101 +96,95 @@ public class GjkConvexCast extends ConvexCast {
 		int numIter = 0;
 		// first solution, using GJK
 
-		Transform identityTrans = new Transform();
-		identityTrans.setIdentity();
-
 		//result.drawCoordSystem(sphereTr);
 
-		PointCollector pointCollector = new PointCollector();
+		PointCollector pointCollector = this.pointCollector;
+		pointCollector.hasResult = false;
+		pointCollector.distance = 1.0e30f;
 
 		gjk.init(convexA, convexB, simplexSolver, null); // penetrationDepthSolver);		
-		ClosestPointInput input = pointInputsPool.get();
+		ClosestPointInput input = this.input;
 		input.init();
-		try {
-			// we don't use margins during CCD
-			//	gjk.setIgnoreMargin(true);
-
-			input.transformA.set(fromA);
-			input.transformB.set(fromB);
-			gjk.getClosestPoints(input, pointCollector, null);
-
-			hasResult = pointCollector.hasResult;
-			c.set(pointCollector.pointInWorld);
-
-			if (hasResult) {
-				float dist;
-				dist = pointCollector.distance;
-				n.set(pointCollector.normalOnBInWorld);
-
-				// not close enough
-				while (dist > radius) {
-					numIter++;
-					if (numIter > MAX_ITERATIONS) {
-						return false; // todo: report a failure
-					}
-					float dLambda;
+		// we don't use margins during CCD
+		//	gjk.setIgnoreMargin(true);
+
+		input.transformA.set(fromA);
+		input.transformB.set(fromB);
+		gjk.getClosestPoints(input, pointCollector, null);
+
+		hasResult = pointCollector.hasResult;
+		c.set(pointCollector.pointInWorld);
+
+		if (hasResult) {
+			float dist;
+			dist = pointCollector.distance;
+			n.set(pointCollector.normalOnBInWorld);
+
+			// not close enough
+			while (dist > radius) {
+				numIter++;
+				if (numIter > MAX_ITERATIONS) {
+					return false; // todo: report a failure
+				}
+				float dLambda;
 
-					float projectedLinearVelocity = r.dot(n);
+				float projectedLinearVelocity = r.dot(n);
 
-					dLambda = dist / (projectedLinearVelocity);
+				dLambda = dist / (projectedLinearVelocity);
 
-					lambda = lambda - dLambda;
+				lambda = lambda - dLambda;
 
-					if (lambda > 1.0f) {
-						return false;
-					}
-					if (lambda < 0.0f) {
-						return false;					// todo: next check with relative epsilon
-					}
-					
-					if (lambda <= lastLambda) {
-						return false;
-					//n.setValue(0,0,0);
-					//break;
-					}
-					lastLambda = lambda;
-
-					// interpolate to next lambda
-					result.debugDraw(lambda);
-					VectorUtil.setInterpolate3(input.transformA.origin, fromA.origin, toA.origin, lambda);
-					VectorUtil.setInterpolate3(input.transformB.origin, fromB.origin, toB.origin, lambda);
-
-					gjk.getClosestPoints(input, pointCollector, null);
-					if (pointCollector.hasResult) {
-						if (pointCollector.distance < 0.0f) {
-							result.fraction = lastLambda;
-							n.set(pointCollector.normalOnBInWorld);
-							result.normal.set(n);
-							result.hitPoint.set(pointCollector.pointInWorld);
-							return true;
-						}
-						c.set(pointCollector.pointInWorld);
+				if (lambda > 1.0f) {
+					return false;
+				}
+				if (lambda < 0.0f) {
+					return false;					// todo: next check with relative epsilon
+				}
+				
+				if (lambda <= lastLambda) {
+					return false;
+				//n.setValue(0,0,0);
+				//break;
+				}
+				lastLambda = lambda;
+
+				// interpolate to next lambda
+				result.debugDraw(lambda);
+				VectorUtil.setInterpolate3(input.transformA.origin, fromA.origin, toA.origin, lambda);
+				VectorUtil.setInterpolate3(input.transformB.origin, fromB.origin, toB.origin, lambda);
+
+				gjk.getClosestPoints(input, pointCollector, null);
+				if (pointCollector.hasResult) {
+					if (pointCollector.distance < 0.0f) {
+						result.fraction = lastLambda;
 						n.set(pointCollector.normalOnBInWorld);
-						dist = pointCollector.distance;
-					}
-					else {
-						// ??
-						return false;
+						result.normal.set(n);
+						result.hitPoint.set(pointCollector.pointInWorld);
+						return true;
 					}
-
+					c.set(pointCollector.pointInWorld);
+					n.set(pointCollector.normalOnBInWorld);
+					dist = pointCollector.distance;
 				}
-
-				// is n normalized?
-				// don't report time of impact for motion away from the contact normal (or causes minor penetration)
-				if (n.dot(r) >= -result.allowedPenetration) {
+				else {
+					// ??
 					return false;
 				}
-				result.fraction = lambda;
-				result.normal.set(n);
-				result.hitPoint.set(c);
-				return true;
+
 			}
 
-			return false;
-		}
-		finally {
-			pointInputsPool.release(input);
+			// is n normalized?
+			// don't report time of impact for motion away from the contact normal (or causes minor penetration)
+			if (n.dot(r) >= -result.allowedPenetration) {
+				return false;
+			}
+			result.fraction = lambda;
+			result.normal.set(n);
+			result.hitPoint.set(c);
+			return true;
 		}
+
+		return false;
 	}
 	
 }
\ No newline at end of file
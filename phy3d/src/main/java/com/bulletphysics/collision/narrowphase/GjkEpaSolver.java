@@ -29,7 +29,6 @@ import com.bulletphysics.linearmath.MatrixUtil;
 import com.bulletphysics.linearmath.QuaternionUtil;
 import com.bulletphysics.linearmath.Transform;
 import com.bulletphysics.linearmath.VectorUtil;
-import com.bulletphysics.util.ArrayPool;
 import com.bulletphysics.util.ObjectStackList;
 
 import javax.vecmath.Matrix3f;
@@ -49,7 +48,6 @@ Nov.2006
  */
 public class GjkEpaSolver {
 
-	private final ArrayPool<float[]> floatArrays = ArrayPool.get(float.class);
 
 	private final ObjectStackList<Mkv> stackMkv = new ObjectStackList<>(Mkv.class);
 	private final ObjectStackList<He> stackHe = new ObjectStackList<>(He.class);
@@ -512,33 +510,29 @@ public class GjkEpaSolver {
 			Vector3f o = new Vector3f();
 			o.scale(-face.d, face.n);
 
-			float[] a = floatArrays.getFixed(3);
-
 			Vector3f tmp = new Vector3f();
 			Vector3f tmp1 = new Vector3f();
 			Vector3f tmp2 = new Vector3f();
 			tmp1.sub(face.v[0].w, o);
 			tmp2.sub(face.v[1].w, o);
 			tmp.cross(tmp1, tmp2);
-			a[0] = tmp.length();
+			float a0 = tmp.length();
 
 			tmp1.sub(face.v[1].w, o);
 			tmp2.sub(face.v[2].w, o);
 			tmp.cross(tmp1, tmp2);
-			a[1] = tmp.length();
+			float a1 = tmp.length();
 
 			tmp1.sub(face.v[2].w, o);
 			tmp2.sub(face.v[0].w, o);
 			tmp.cross(tmp1, tmp2);
-			a[2] = tmp.length();
+			float a2 = tmp.length();
 
-			float sm = a[0] + a[1] + a[2];
+			float sm = a0 + a1 + a2;
 
-			out.set(a[1], a[2], a[0]);
+			out.set(a1, a2, a0);
 			out.scale(1.0f / (sm > 0.0f ? sm : 1.0f));
 
-			floatArrays.release(a);
-
 			return out;
 		}
 		
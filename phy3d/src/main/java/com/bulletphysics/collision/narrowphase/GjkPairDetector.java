@@ -337,6 +337,18 @@ public class GjkPairDetector extends DiscreteCollisionDetectorInterface {
 		cachedSeparatingAxis.set(seperatingAxis);
 	}
 
+	public SimplexSolverInterface getSimplexSolver() {
+		return simplexSolver;
+	}
+
+	public void setSimplexSolver(SimplexSolverInterface simplexSolver) {
+		this.simplexSolver = simplexSolver;
+	}
+
+	public ConvexPenetrationDepthSolver getPenetrationDepthSolver() {
+		return penetrationDepthSolver;
+	}
+
 	public void setPenetrationDepthSolver(ConvexPenetrationDepthSolver penetrationDepthSolver) {
 		this.penetrationDepthSolver = penetrationDepthSolver;
 	}
@@ -54,8 +54,8 @@ public class SubsimplexConvexCast extends ConvexCast {
 	private static final int MAX_ITERATIONS = 32;
 	
 	private final SimplexSolverInterface simplexSolver;
-	private final ConvexShape convexA;
-	private final ConvexShape convexB;
+	private ConvexShape convexA;
+	private ConvexShape convexB;
 
 	public SubsimplexConvexCast(ConvexShape shapeA, ConvexShape shapeB, SimplexSolverInterface simplexSolver) {
 		this.convexA = shapeA;
@@ -63,6 +63,14 @@ public class SubsimplexConvexCast extends ConvexCast {
 		this.simplexSolver = simplexSolver;
 	}
 	
+	/**
+	 * Casts other shapes with the same simplex solver, so that one caster can be reused for many queries.
+	 */
+	public void setShapes(ConvexShape convexA, ConvexShape convexB) {
+		this.convexA = convexA;
+		this.convexB = convexB;
+	}
+
 	public boolean timeOfImpact(Transform fromA, Transform toA, Transform fromB, Transform toB, CastResult result) {
 		Vector3f tmp = new Vector3f();
 		
@@ -24,7 +24,6 @@
 package com.bulletphysics.collision.narrowphase;
 
 import com.bulletphysics.linearmath.VectorUtil;
-import com.bulletphysics.util.ObjectPool;
 
 import javax.vecmath.Vector3f;
 
@@ -38,7 +37,8 @@ import javax.vecmath.Vector3f;
 public class VoronoiSimplexSolver extends SimplexSolverInterface {
 
 	//protected final BulletStack stack = BulletStack.get();
-	private final ObjectPool<SubSimplexClosestResult> subsimplexResultsPool = ObjectPool.get(SubSimplexClosestResult.class);
+	// owned rather than taken from the thread's ObjectPool, so that a solver is not tied to the thread that created it
+	private final SubSimplexClosestResult tempResult = new SubSimplexClosestResult();
 	
 	private static final int VORONOI_SIMPLEX_MAX_VERTS = 5;
 	
@@ -402,166 +402,161 @@ public class VoronoiSimplexSolver extends SimplexSolverInterface {
 	}
 	
 	private boolean closestPtPointTetrahedron(Vector3f p, Vector3f a, Vector3f b, Vector3f c, Vector3f d, SubSimplexClosestResult finalResult) {
-		SubSimplexClosestResult tempResult = subsimplexResultsPool.get();
+		SubSimplexClosestResult tempResult = this.tempResult;
 		tempResult.reset();
-		try {
-			Vector3f tmp = new Vector3f();
-			Vector3f q = new Vector3f();
-
-			// Start out assuming point inside all halfspaces, so closest to itself
-			finalResult.closestPointOnSimplex.set(p);
-			finalResult.usedVertices.reset();
-			finalResult.usedVertices.usedVertexA = true;
-			finalResult.usedVertices.usedVertexB = true;
-			finalResult.usedVertices.usedVertexC = true;
-			finalResult.usedVertices.usedVertexD = true;
-
-			int pointOutsideABC = pointOutsideOfPlane(p, a, b, c, d);
-			int pointOutsideACD = pointOutsideOfPlane(p, a, c, d, b);
-			int	pointOutsideADB = pointOutsideOfPlane(p, a, d, b, c);
-			int	pointOutsideBDC = pointOutsideOfPlane(p, b, d, c, a);
-
-		   if (pointOutsideABC < 0 || pointOutsideACD < 0 || pointOutsideADB < 0 || pointOutsideBDC < 0)
-		   {
-			   finalResult.degenerate = true;
-			   return false;
-		   }
-
-		   if (pointOutsideABC == 0 && pointOutsideACD == 0 && pointOutsideADB == 0 && pointOutsideBDC == 0)
-			 {
-				 return false;
-			 }
-
-
-			float bestSqDist = Float.MAX_VALUE;
-			// If point outside face abc then compute closest point on abc
-			if (pointOutsideABC != 0) 
-			{
-				closestPtPointTriangle(p, a, b, c,tempResult);
-				q.set(tempResult.closestPointOnSimplex);
-
-				tmp.sub(q, p);
-				float sqDist = tmp.dot(tmp);
-				// Update best closest point if (squared) distance is less than current best
-				if (sqDist < bestSqDist) {
-					bestSqDist = sqDist;
-					finalResult.closestPointOnSimplex.set(q);
-					//convert result bitmask!
-					finalResult.usedVertices.reset();
-					finalResult.usedVertices.usedVertexA = tempResult.usedVertices.usedVertexA;
-					finalResult.usedVertices.usedVertexB = tempResult.usedVertices.usedVertexB;
-					finalResult.usedVertices.usedVertexC = tempResult.usedVertices.usedVertexC;
-					finalResult.setBarycentricCoordinates(
-							tempResult.barycentricCoords[VERTA],
-							tempResult.barycentricCoords[VERTB],
-							tempResult.barycentricCoords[VERTC],
-							0
-					);
+		Vector3f tmp = new Vector3f();
+		Vector3f q = new Vector3f();
+
+		// Start out assuming point inside all halfspaces, so closest to itself
+		finalResult.closestPointOnSimplex.set(p);
+		finalResult.usedVertices.reset();
+		finalResult.usedVertices.usedVertexA = true;
+		finalResult.usedVertices.usedVertexB = true;
+		finalResult.usedVertices.usedVertexC = true;
+		finalResult.usedVertices.usedVertexD = true;
+
+		int pointOutsideABC = pointOutsideOfPlane(p, a, b, c, d);
+		int pointOutsideACD = pointOutsideOfPlane(p, a, c, d, b);
+		int	pointOutsideADB = pointOutsideOfPlane(p, a, d, b, c);
+		int	pointOutsideBDC = pointOutsideOfPlane(p, b, d, c, a);
+
+	   if (pointOutsideABC < 0 || pointOutsideACD < 0 || pointOutsideADB < 0 || pointOutsideBDC < 0)
+	   {
+		   finalResult.degenerate = true;
+		   return false;
+	   }
+
+	   if (pointOutsideABC == 0 && pointOutsideACD == 0 && pointOutsideADB == 0 && pointOutsideBDC == 0)
+		 {
+			 return false;
+		 }
+
+
+		float bestSqDist = Float.MAX_VALUE;
+		// If point outside face abc then compute closest point on abc
+		if (pointOutsideABC != 0) 
+		{
+			closestPtPointTriangle(p, a, b, c,tempResult);
+			q.set(tempResult.closestPointOnSimplex);
+
+			tmp.sub(q, p);
+			float sqDist = tmp.dot(tmp);
+			// Update best closest point if (squared) distance is less than current best
+			if (sqDist < bestSqDist) {
+				bestSqDist = sqDist;
+				finalResult.closestPointOnSimplex.set(q);
+				//convert result bitmask!
+				finalResult.usedVertices.reset();
+				finalResult.usedVertices.usedVertexA = tempResult.usedVertices.usedVertexA;
+				finalResult.usedVertices.usedVertexB = tempResult.usedVertices.usedVertexB;
+				finalResult.usedVertices.usedVertexC = tempResult.usedVertices.usedVertexC;
+				finalResult.setBarycentricCoordinates(
+						tempResult.barycentricCoords[VERTA],
+						tempResult.barycentricCoords[VERTB],
+						tempResult.barycentricCoords[VERTC],
+						0
+				);
 
-				}
 			}
+		}
 
 
-			// Repeat test for face acd
-			if (pointOutsideACD != 0) 
-			{
-				closestPtPointTriangle(p, a, c, d,tempResult);
-				q.set(tempResult.closestPointOnSimplex);
-				//convert result bitmask!
+		// Repeat test for face acd
+		if (pointOutsideACD != 0) 
+		{
+			closestPtPointTriangle(p, a, c, d,tempResult);
+			q.set(tempResult.closestPointOnSimplex);
+			//convert result bitmask!
 
-				tmp.sub(q, p);
-				float sqDist = tmp.dot(tmp);
-				if (sqDist < bestSqDist) 
-				{
-					bestSqDist = sqDist;
-					finalResult.closestPointOnSimplex.set(q);
-					finalResult.usedVertices.reset();
-					finalResult.usedVertices.usedVertexA = tempResult.usedVertices.usedVertexA;
-
-					finalResult.usedVertices.usedVertexC = tempResult.usedVertices.usedVertexB;
-					finalResult.usedVertices.usedVertexD = tempResult.usedVertices.usedVertexC;
-					finalResult.setBarycentricCoordinates(
-							tempResult.barycentricCoords[VERTA],
-							0,
-							tempResult.barycentricCoords[VERTB],
-							tempResult.barycentricCoords[VERTC]
-					);
+			tmp.sub(q, p);
+			float sqDist = tmp.dot(tmp);
+			if (sqDist < bestSqDist) 
+			{
+				bestSqDist = sqDist;
+				finalResult.closestPointOnSimplex.set(q);
+				finalResult.usedVertices.reset();
+				finalResult.usedVertices.usedVertexA = tempResult.usedVertices.usedVertexA;
+
+				finalResult.usedVertices.usedVertexC = tempResult.usedVertices.usedVertexB;
+				finalResult.usedVertices.usedVertexD = tempResult.usedVertices.usedVertexC;
+				finalResult.setBarycentricCoordinates(
+						tempResult.barycentricCoords[VERTA],
+						0,
+						tempResult.barycentricCoords[VERTB],
+						tempResult.barycentricCoords[VERTC]
+				);
 
-				}
 			}
-			// Repeat test for face adb
+		}
+		// Repeat test for face adb
 
 
-			if (pointOutsideADB != 0)
-			{
-				closestPtPointTriangle(p, a, d, b,tempResult);
-				q.set(tempResult.closestPointOnSimplex);
-				//convert result bitmask!
+		if (pointOutsideADB != 0)
+		{
+			closestPtPointTriangle(p, a, d, b,tempResult);
+			q.set(tempResult.closestPointOnSimplex);
+			//convert result bitmask!
 
-				tmp.sub(q, p);
-				float sqDist = tmp.dot(tmp);
-				if (sqDist < bestSqDist) 
-				{
-					bestSqDist = sqDist;
-					finalResult.closestPointOnSimplex.set(q);
-					finalResult.usedVertices.reset();
-					finalResult.usedVertices.usedVertexA = tempResult.usedVertices.usedVertexA;
-					finalResult.usedVertices.usedVertexB = tempResult.usedVertices.usedVertexC;
-
-					finalResult.usedVertices.usedVertexD = tempResult.usedVertices.usedVertexB;
-					finalResult.setBarycentricCoordinates(
-							tempResult.barycentricCoords[VERTA],
-							tempResult.barycentricCoords[VERTC],
-							0,
-							tempResult.barycentricCoords[VERTB]
-					);
+			tmp.sub(q, p);
+			float sqDist = tmp.dot(tmp);
+			if (sqDist < bestSqDist) 
+			{
+				bestSqDist = sqDist;
+				finalResult.closestPointOnSimplex.set(q);
+				finalResult.usedVertices.reset();
+				finalResult.usedVertices.usedVertexA = tempResult.usedVertices.usedVertexA;
+				finalResult.usedVertices.usedVertexB = tempResult.usedVertices.usedVertexC;
+
+				finalResult.usedVertices.usedVertexD = tempResult.usedVertices.usedVertexB;
+				finalResult.setBarycentricCoordinates(
+						tempResult.barycentricCoords[VERTA],
+						tempResult.barycentricCoords[VERTC],
+						0,
+						tempResult.barycentricCoords[VERTB]
+				);
 
-				}
 			}
-			// Repeat test for face bdc
+		}
+		// Repeat test for face bdc
 
 
-			if (pointOutsideBDC != 0)
+		if (pointOutsideBDC != 0)
+		{
+			closestPtPointTriangle(p, b, d, c,tempResult);
+			q.set(tempResult.closestPointOnSimplex);
+			//convert result bitmask!
+			tmp.sub(q, p);
+			float sqDist = tmp.dot(tmp);
+			if (sqDist < bestSqDist) 
 			{
-				closestPtPointTriangle(p, b, d, c,tempResult);
-				q.set(tempResult.closestPointOnSimplex);
-				//convert result bitmask!
-				tmp.sub(q, p);
-				float sqDist = tmp.dot(tmp);
-				if (sqDist < bestSqDist) 
-				{
                     finalResult.closestPointOnSimplex.set(q);
-					finalResult.usedVertices.reset();
-					//
-					finalResult.usedVertices.usedVertexB = tempResult.usedVertices.usedVertexA;
-					finalResult.usedVertices.usedVertexC = tempResult.usedVertices.usedVertexC;
-					finalResult.usedVertices.usedVertexD = tempResult.usedVertices.usedVertexB;
-
-					finalResult.setBarycentricCoordinates(
-							0,
-							tempResult.barycentricCoords[VERTA],
-							tempResult.barycentricCoords[VERTC],
-							tempResult.barycentricCoords[VERTB]
-					);
+				finalResult.usedVertices.reset();
+				//
+				finalResult.usedVertices.usedVertexB = tempResult.usedVertices.usedVertexA;
+				finalResult.usedVertices.usedVertexC = tempResult.usedVertices.usedVertexC;
+				finalResult.usedVertices.usedVertexD = tempResult.usedVertices.usedVertexB;
+
+				finalResult.setBarycentricCoordinates(
+						0,
+						tempResult.barycentricCoords[VERTA],
+						tempResult.barycentricCoords[VERTC],
+						tempResult.barycentricCoords[VERTB]
+				);
 
-				}
 			}
+		}
 
-			//help! we ended up full !
-
-			if (finalResult.usedVertices.usedVertexA &&
-				finalResult.usedVertices.usedVertexB &&
-				finalResult.usedVertices.usedVertexC &&
-				finalResult.usedVertices.usedVertexD) 
-			{
-				return true;
-			}
+		//help! we ended up full !
 
+		if (finalResult.usedVertices.usedVertexA &&
+			finalResult.usedVertices.usedVertexB &&
+			finalResult.usedVertices.usedVertexC &&
+			finalResult.usedVertices.usedVertexD) 
+		{
 			return true;
 		}
-		finally {
-			subsimplexResultsPool.release(tempResult);
-		}
+
+		return true;
 	}
 	
 	/**
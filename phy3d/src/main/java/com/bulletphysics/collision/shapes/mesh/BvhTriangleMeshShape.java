@@ -28,11 +28,14 @@ import com.bulletphysics.collision.broadphase.BroadphaseNativeType;
 import com.bulletphysics.collision.shapes.util.TriangleCallback;
 import com.bulletphysics.collision.shapes.util.VertexData;
 import com.bulletphysics.linearmath.VectorUtil;
-import com.bulletphysics.util.ObjectPool;
+import com.bulletphysics.util.bvh.BvhCache;
 import com.bulletphysics.util.bvh.NodeOverlapCallback;
 import com.bulletphysics.util.bvh.optimized.OptimizedBvh;
 
 import javax.vecmath.Vector3f;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * BvhTriangleMeshShape is a static-triangle mesh shape with several optimizations,
@@ -45,7 +48,7 @@ import javax.vecmath.Vector3f;
  *
  * Instead of building the bounding volume hierarchy acceleration structure, it is
  * also possible to serialize (save) and deserialize (load) the structure from disk.
- * See ConcaveDemo for an example.
+ * See ConcaveDemo for an example, and {@link BvhCache} for a faster binary format.
  * 
  * @author jezek2
  */
@@ -55,8 +58,6 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 	private boolean useQuantizedAabbCompression;
 	private boolean ownsBvh;
 	
-	private final ObjectPool<MyNodeOverlapCallback> myNodeCallbacks = ObjectPool.get(MyNodeOverlapCallback.class);
-	
 	public BvhTriangleMeshShape() {
 		super(null);
 		this.bvh = null;
@@ -81,7 +82,7 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 
 		if (buildBvh) {
 			bvh = new OptimizedBvh();
-			bvh.build(meshInterface, useQuantizedAabbCompression, bvhAabbMin, bvhAabbMax);
+			bvh.buildSah(meshInterface, useQuantizedAabbCompression, bvhAabbMin, bvhAabbMax, ForkJoinPool.commonPool());
 			ownsBvh = true;
 
 			// JAVA NOTE: moved from TriangleMeshShape
@@ -91,6 +92,37 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 		//#endif //DISABLE_BVH
 	}
 
+	/**
+	 * Loads the bvh from a {@link BvhCache} file if it holds one for this mesh, else builds it and
+	 * writes the file.
+	 */
+	public BvhTriangleMeshShape(StridingMeshInterface meshInterface, boolean useQuantizedAabbCompression, Path bvhCache) {
+		this(meshInterface, useQuantizedAabbCompression, false);
+
+		long hash = BvhCache.meshHash(meshInterface);
+		try {
+			bvh = OptimizedBvh.load(bvhCache, hash, useQuantizedAabbCompression);
+		} catch (IOException e) {
+			bvh = null;
+		}
+
+		if (bvh == null) {
+			Vector3f bvhAabbMin = new Vector3f(), bvhAabbMax = new Vector3f();
+			meshInterface.calculateAabbBruteForce(bvhAabbMin, bvhAabbMax);
+
+			bvh = new OptimizedBvh();
+			bvh.buildSah(meshInterface, useQuantizedAabbCompression, bvhAabbMin, bvhAabbMax, ForkJoinPool.commonPool());
+			try {
+				bvh.save(bvhCache, hash);
+			} catch (IOException e) {
+				System.err.println("warning BvhTriangleMeshShape: can't write " + bvhCache + ": " + e);
+			}
+		}
+		ownsBvh = true;
+
+		recalcLocalAabb();
+	}
+
 	/**
 	 * Optionally pass in a larger bvh aabb, used for quantization. This allows for deformations within this aabb.
 	 */
@@ -114,7 +146,7 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 		if (buildBvh) {
 			bvh = new OptimizedBvh();
 
-			bvh.build(meshInterface, useQuantizedAabbCompression, bvhAabbMin, bvhAabbMax);
+			bvh.buildSah(meshInterface, useQuantizedAabbCompression, bvhAabbMin, bvhAabbMax, ForkJoinPool.commonPool());
 			ownsBvh = true;
 		}
 
@@ -133,21 +165,24 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 	}
 
 	public void performRaycast(TriangleCallback callback, Vector3f raySource, Vector3f rayTarget) {
-		MyNodeOverlapCallback myNodeCallback = myNodeCallbacks.get();
+		performRaycast(callback, raySource, rayTarget, new MyNodeOverlapCallback());
+	}
+
+	/** with the caller's node callback, which it may reuse across calls but not share between threads */
+	public void performRaycast(TriangleCallback callback, Vector3f raySource, Vector3f rayTarget, MyNodeOverlapCallback myNodeCallback) {
 		myNodeCallback.init(callback, meshInterface);
 
 		bvh.rayOverlappingNodex(myNodeCallback, raySource, rayTarget);
-		
-		myNodeCallbacks.release(myNodeCallback);
 	}
 	
 	public void performConvexcast(TriangleCallback callback, Vector3f raySource, Vector3f rayTarget, Vector3f aabbMin, Vector3f aabbMax) {
-		MyNodeOverlapCallback myNodeCallback = myNodeCallbacks.get();
+		performConvexcast(callback, raySource, rayTarget, aabbMin, aabbMax, new MyNodeOverlapCallback());
+	}
+
+	public void performConvexcast(TriangleCallback callback, Vector3f raySource, Vector3f rayTarget, Vector3f aabbMin, Vector3f aabbMax, MyNodeOverlapCallback myNodeCallback) {
 		myNodeCallback.init(callback, meshInterface);
 
 		bvh.boxCastOverlappingNodex(myNodeCallback, raySource, rayTarget, aabbMin, aabbMax);
-
-		myNodeCallbacks.release(myNodeCallback);
 	}
 
 	/**
@@ -155,18 +190,19 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 	 */
 	@Override
 	public void processAllTriangles(TriangleCallback callback, Vector3f aabbMin, Vector3f aabbMax) {
+		processAllTriangles(callback, aabbMin, aabbMax, new MyNodeOverlapCallback());
+	}
+
+	public void processAllTriangles(TriangleCallback callback, Vector3f aabbMin, Vector3f aabbMax, MyNodeOverlapCallback myNodeCallback) {
 		//#ifdef DISABLE_BVH
 		// // brute force traverse all triangles
 		//btTriangleMeshShape::processAllTriangles(callback,aabbMin,aabbMax);
 		//#else
 
 		// first get all the nodes
-		MyNodeOverlapCallback myNodeCallback = myNodeCallbacks.get();
 		myNodeCallback.init(callback, meshInterface);
 
 		bvh.aabbOverlappingNodex(myNodeCallback, aabbMin, aabbMax);
-
-		myNodeCallbacks.release(myNodeCallback);
 		//#endif//DISABLE_BVH
 	}
 	
@@ -182,7 +218,7 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 	 * For a fast incremental refit of parts of the tree. Note: the entire AABB of the tree will become more conservative, it never shrinks.
 	 */
 	public void partialRefitTree(Vector3f aabbMin, Vector3f aabbMax) {
-		OptimizedBvh.refitPartial(meshInterface,aabbMin,aabbMax );
+		bvh.refitPartial(meshInterface, aabbMin, aabbMax);
 
 		VectorUtil.setMin(localAabbMin, aabbMin);
 		VectorUtil.setMax(localAabbMax, aabbMax);
@@ -247,19 +283,27 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 	
 	////////////////////////////////////////////////////////////////////////////
 	
+	/**
+	 * Reports the triangles of the nodes reached to a {@link TriangleCallback}. Holds its own read scratch
+	 * of the mesh, so each thread traversing a shape at once needs its own.
+	 */
 	public static class MyNodeOverlapCallback extends NodeOverlapCallback {
 		StridingMeshInterface meshInterface;
 		TriangleCallback callback;
+		private VertexData readData;
 
 		private final Vector3f[] triangle/*[3]*/ = { new Vector3f(), new Vector3f(), new Vector3f() };
 
 		void init(TriangleCallback callback, StridingMeshInterface meshInterface) {
-			this.meshInterface = meshInterface;
+			if (this.meshInterface != meshInterface) {
+				this.meshInterface = meshInterface;
+				readData = meshInterface.newReadData();
+			}
 			this.callback = callback;
 		}
 
 		public void processNode(int nodeSubPart, int nodeTriangleIndex) {
-			VertexData data = meshInterface.getLockedReadOnlyVertexIndexBase(nodeSubPart);
+			VertexData data = meshInterface.getLockedReadOnlyVertexIndexBase(nodeSubPart, readData);
 
 			Vector3f meshScaling = meshInterface.getScaling(new Vector3f());
 
@@ -268,7 +312,7 @@ public class BvhTriangleMeshShape extends TriangleMeshShape {
 			/* Perform ray vs. triangle collision here */
 			callback.processTriangle(triangle, nodeSubPart, nodeTriangleIndex);
 			
-			meshInterface.unLockReadOnlyVertexBase(nodeSubPart);
+			meshInterface.unLockReadOnlyVertexBase(nodeSubPart, readData);
 		}
 	}
 	
@@ -94,6 +94,19 @@ public abstract class StridingMeshInterface {
 
 	public abstract VertexData getLockedReadOnlyVertexIndexBase(int subpart/*=0*/);
 
+	/**
+	 * Read access to a subpart through the caller's own scratch, made by {@link #newReadData}, so that
+	 * several readers may hold the mesh at once. Finish it with {@link #unLockReadOnlyVertexBase(int, VertexData)}.
+	 */
+	public VertexData getLockedReadOnlyVertexIndexBase(int subpart, VertexData into) {
+		return getLockedReadOnlyVertexIndexBase(subpart);
+	}
+
+	/** scratch for {@link #getLockedReadOnlyVertexIndexBase(int, VertexData)}, or null if the mesh has its own */
+	public VertexData newReadData() {
+		return null;
+	}
+
 	/**
 	 * unLockVertexBase finishes the access to a subpart of the triangle mesh.
 	 * Make a call to unLockVertexBase when the read and write access (using getLockedVertexIndexBase) is finished.
@@ -102,6 +115,10 @@ public abstract class StridingMeshInterface {
 
 	public abstract void unLockReadOnlyVertexBase(int subpart);
 
+	public void unLockReadOnlyVertexBase(int subpart, VertexData data) {
+		unLockReadOnlyVertexBase(subpart);
+	}
+
 	/**
 	 * getNumSubParts returns the number of seperate subparts.
 	 * Each subpart has a continuous array of vertices and indices.
@@ -76,6 +76,10 @@ public class TriangleIndexVertexArray extends StridingMeshInterface {
 	
 	@Override
 	public VertexData getLockedVertexIndexBase(int subpart) {
+		return lock(data, subpart);
+	}
+
+	private ByteBufferVertexData lock(ByteBufferVertexData data, int subpart) {
 		assert (subpart < getNumSubParts());
 
 		IndexedMesh mesh = indexedMeshes.get(subpart);
@@ -102,14 +106,23 @@ public class TriangleIndexVertexArray extends StridingMeshInterface {
 		return getLockedVertexIndexBase(subpart);
 	}
 
+	@Override
+	public VertexData getLockedReadOnlyVertexIndexBase(int subpart, VertexData into) {
+		return lock((ByteBufferVertexData) into, subpart);
+	}
+
+	@Override
+	public VertexData newReadData() {
+		return new ByteBufferVertexData();
+	}
+
 	/**
 	 * unLockVertexBase finishes the access to a subpart of the triangle mesh.
 	 * Make a call to unLockVertexBase when the read and write access (using getLockedVertexIndexBase) is finished.
 	 */
 	@Override
 	public void unLockVertexBase(int subpart) {
-		data.vertexData = null;
-		data.indexData = null;
+		unlock(data);
 	}
 
 	@Override
@@ -117,6 +130,16 @@ public class TriangleIndexVertexArray extends StridingMeshInterface {
 		unLockVertexBase(subpart);
 	}
 
+	@Override
+	public void unLockReadOnlyVertexBase(int subpart, VertexData data) {
+		unlock((ByteBufferVertexData) data);
+	}
+
+	private static void unlock(ByteBufferVertexData data) {
+		data.vertexData = null;
+		data.indexData = null;
+	}
+
 	/**
 	 * getNumSubParts returns the number of seperate subparts.
 	 * Each subpart has a continuous array of vertices and indices.
@@ -37,10 +37,16 @@ import com.bulletphysics.dynamics.constraintsolver.TypedConstraint;
 import com.bulletphysics.dynamics.vehicle.RaycastVehicle;
 import com.bulletphysics.linearmath.*;
 import com.bulletphysics.util.ObjectArrayList;
+import com.bulletphysics.util.Tasks;
+import org.jetbrains.annotations.Nullable;
 
 import javax.vecmath.Vector3f;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * DiscreteDynamicsWorld provides discrete rigid body simulation.
@@ -68,6 +74,12 @@ public class DiscreteDynamicsWorld extends DynamicsWorld {
     private boolean ownsConstraintSolver;
     protected int profileTimings = 0;
 
+    private @Nullable ForkJoinPool exe;
+    private int numTasks;
+    private IslandWorker[] islandWorkers = new IslandWorker[0];
+    /** steps solved in parallel, mixed into the per-island solver seeds */
+    private long parallelSolves;
+
     private DiscreteDynamicsWorld(BroadphaseInterface pairCache, CollisionConfiguration collisionConfiguration) {
         this(pairCache, new SequentialImpulseConstraintSolver(), collisionConfiguration);
     }
@@ -97,9 +109,7 @@ public class DiscreteDynamicsWorld extends DynamicsWorld {
     }
 
     /**
-     * use the default collision dispatcher. For parallel processing you can use a diffent dispatcher (see Extras/BulletMultiThreaded)
-     *
-     * the default constraint solver. For parallel processing you can use a different solver (see Extras/BulletMultiThreaded)
+     * use the default collision dispatcher and constraint solver. For parallel processing see {@link #setNumTasks}
      */
     public DiscreteDynamicsWorld() {
         this(
@@ -566,11 +576,17 @@ public class DiscreteDynamicsWorld extends DynamicsWorld {
 
             solverCallback.init(solverInfo, constraintSolver, constraintsPtr, sortedConstraints.size(), debugDrawer/*,m_stackAlloc*/, dispatcher);
 
+            boolean parallel = numTasks > 0 && forkSolvers();
+            solverCallback.deferred = parallel;
+
             constraintSolver.prepareSolve(getCollisionWorld().getNumCollisionObjects(), getCollisionWorld().dispatcher().getNumManifolds());
 
             // solve all the constraints for this island
             islandManager.buildAndProcessIslands(getCollisionWorld().dispatcher(), getCollisionWorld().getCollisionObjectArray(), solverCallback);
 
+            if (parallel)
+                solveIslandsParallel();
+
             constraintSolver.allSolved(solverInfo, debugDrawer/*, m_stackAlloc*/);
         } finally {
             BulletStats.popProfile();
@@ -982,9 +998,94 @@ public class DiscreteDynamicsWorld extends DynamicsWorld {
         return DynamicsWorldType.DISCRETE_DYNAMICS_WORLD;
     }
 
+    /**
+     * Sets the number of tasks of a step, run in the common pool.
+     *
+     * @see #setNumTasks(ForkJoinPool, int)
+     */
     public void setNumTasks(int numTasks) {
+        setNumTasks(null, numTasks);
+    }
+
+    /**
+     * Sets the number of tasks of a step, run in the given pool (or the common pool).  With 0
+     * (the default) the step is sequential.  Otherwise the narrowphase is
+     * {@link CollisionDispatcher#setNumTasks dispatched in parallel} when the dispatcher is a
+     * CollisionDispatcher, and the simulation islands are solved in parallel, each task with its
+     * own solver, when the constraint solver can be {@link ConstraintSolver#fork forked}.  1 runs
+     * the parallel scheme on the calling thread.
+     * <p>
+     * Islands are independent, and a parallel solve seeds the solver of each island from the
+     * island and the step rather than from the previous island, so the results do not depend
+     * on the number of tasks; they do differ from a sequential step.  A single large island
+     * is solved by one task.
+     */
+    public synchronized void setNumTasks(@Nullable ForkJoinPool exe, int numTasks) {
+        if (numTasks < 0)
+            throw new IllegalArgumentException("numTasks < 0");
+
+        this.exe = exe;
+        this.numTasks = numTasks;
+
+        if (islandWorkers.length != numTasks) {
+            IslandWorker[] w = new IslandWorker[numTasks];
+            int reuse = Math.min(numTasks, islandWorkers.length);
+            System.arraycopy(islandWorkers, 0, w, 0, reuse);
+            for (int i = reuse; i < numTasks; i++)
+                w[i] = new IslandWorker();
+            islandWorkers = w;
+        }
+
+        if (dispatcher instanceof CollisionDispatcher)
+            ((CollisionDispatcher) dispatcher).setNumTasks(exe, numTasks);
+    }
+
+    public int getNumTasks() {
+        return numTasks;
+    }
+
+    /**
+     * gives each island worker a solver forked from the constraint solver, again when that or its settings changed;
+     * false if it can not be forked
+     */
+    private boolean forkSolvers() {
+        ConstraintSolver s = constraintSolver;
+        int version = s.forkVersion();
+        for (IslandWorker w : islandWorkers) {
+            if (w.forkedFrom != s || w.forkedVersion != version) {
+                ConstraintSolver f = s.fork();
+                if (f == null)
+                    return false;
+                w.solver = f;
+                w.forkedFrom = s;
+                w.forkedVersion = version;
+            }
+        }
+        return true;
     }
 
+    /** solves the islands deferred by {@link #solverCallback}, largest first, each task taking the next unsolved one */
+    private void solveIslandsParallel() {
+        InplaceSolverIslandCallback c = solverCallback;
+        int n = c.islandCount;
+        if (n == 0)
+            return;
+
+        Arrays.sort(c.order, 0, n, islandWorkOrder);
+        c.nextIsland.set(0);
+        c.seed = parallelSolves++ * 0x9E3779B9L;
+
+        IslandWorker[] workers = this.islandWorkers;
+        Tasks.invokeParts(exe, workers, Math.min(workers.length, n));
+
+        c.islandBodies.clear();
+    }
+
+    private static final Comparator<Island> islandWorkOrder = (a, b) -> {
+        int wa = a.numManifolds + a.numConstraints, wb = b.numManifolds + b.numConstraints;
+        return wa != wb ? Integer.compare(wb, wa) : Integer.compare(a.id, b.id);
+    };
+
     ////////////////////////////////////////////////////////////////////////////
 
     private static class InplaceSolverIslandCallback extends SimulationIslandManager.IslandCallback {
@@ -996,6 +1097,17 @@ public class DiscreteDynamicsWorld extends DynamicsWorld {
         //public StackAlloc* m_stackAlloc;
         Dispatcher dispatcher;
 
+        /** record the islands for {@link #solveIslandsParallel} instead of solving them */
+        boolean deferred;
+        final ObjectArrayList<CollisionObject> islandBodies = new ObjectArrayList<>();
+        List<PersistentManifold> manifolds;
+        Island[] islands = new Island[0];
+        /** the first islandCount islands, in solving order */
+        Island[] order = islands;
+        int islandCount;
+        final AtomicInteger nextIsland = new AtomicInteger();
+        long seed;
+
         void init(ContactSolverInfo solverInfo, ConstraintSolver solver, List<TypedConstraint> sortedConstraints, int numConstraints, IDebugDraw debugDrawer, Dispatcher dispatcher) {
             this.solverInfo = solverInfo;
             this.solver = solver;
@@ -1003,6 +1115,7 @@ public class DiscreteDynamicsWorld extends DynamicsWorld {
             this.numConstraints = numConstraints;
             this.debugDrawer = debugDrawer;
             this.dispatcher = dispatcher;
+            this.islandCount = 0;
         }
 
         public void processIsland(List<CollisionObject> bodies, int numBodies, List<PersistentManifold> manifolds, int manifolds_offset, int numManifolds, int islandId) {
@@ -1034,10 +1147,65 @@ public class DiscreteDynamicsWorld extends DynamicsWorld {
 
                 // only call solveGroup if there is some work: avoid virtual function call, its overhead can be excessive
                 if ((numManifolds + numCurConstraints) > 0) {
-                    solver.solveGroup(bodies, numBodies, manifolds, manifolds_offset, numManifolds, sortedConstraints, startConstraint_idx, numCurConstraints, solverInfo, debugDrawer/*,m_stackAlloc*/, dispatcher);
+                    if (deferred)
+                        defer(bodies, numBodies, manifolds, manifolds_offset, numManifolds, startConstraint_idx, numCurConstraints, islandId);
+                    else
+                        solver.solveGroup(bodies, numBodies, manifolds, manifolds_offset, numManifolds, sortedConstraints, startConstraint_idx, numCurConstraints, solverInfo, debugDrawer/*,m_stackAlloc*/, dispatcher);
                 }
             }
         }
+
+        private void defer(List<CollisionObject> bodies, int numBodies, List<PersistentManifold> manifolds, int manifolds_offset, int numManifolds, int constraints_offset, int numConstraints, int islandId) {
+            // the island manager reuses its body list, and the manifold list is the same for every island
+            this.manifolds = manifolds;
+
+            if (islandCount == islands.length) {
+                Island[] a = Arrays.copyOf(islands, Math.max(16, islandCount * 2));
+                for (int i = islandCount; i < a.length; i++)
+                    a[i] = new Island();
+                islands = a;
+                order = Arrays.copyOf(order, a.length);
+            }
+
+            Island island = islands[islandCount];
+            order[islandCount++] = island;
+            island.id = islandId;
+            island.bodyFrom = islandBodies.size();
+            island.numBodies = numBodies;
+            island.manifoldFrom = manifolds_offset;
+            island.numManifolds = numManifolds;
+            island.constraintFrom = constraints_offset;
+            island.numConstraints = numConstraints;
+            for (int i = 0; i < numBodies; i++)
+                islandBodies.add(bodies.get(i));
+        }
+
+        void solve(ConstraintSolver solver, Island island) {
+            solver.setRandSeed((seed + island.id) & 0xffffffffL);
+            solver.solveGroup(islandBodies.subList(island.bodyFrom, island.bodyFrom + island.numBodies), island.numBodies,
+                    manifolds, island.manifoldFrom, island.numManifolds,
+                    sortedConstraints, island.constraintFrom, island.numConstraints, solverInfo, debugDrawer, dispatcher);
+        }
+    }
+
+    /** a simulation island deferred for a parallel solve */
+    private static final class Island {
+        int id, bodyFrom, numBodies, manifoldFrom, numManifolds, constraintFrom, numConstraints;
+    }
+
+    /** solves islands with its own solver, taking the next unsolved one until none remain */
+    private final class IslandWorker extends RecursiveAction {
+        ConstraintSolver solver, forkedFrom;
+        int forkedVersion;
+
+        @Override
+        protected void compute() {
+            InplaceSolverIslandCallback c = solverCallback;
+            Island[] order = c.order;
+            int n = c.islandCount, i;
+            while ((i = c.nextIsland.getAndIncrement()) < n)
+                c.solve(solver, order[i]);
+        }
     }
 
 //	private static class DebugDrawcallback implements TriangleCallback, InternalTriangleIndexCallback {
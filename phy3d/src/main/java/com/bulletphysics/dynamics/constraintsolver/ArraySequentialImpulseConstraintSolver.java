@@ -0,0 +1,582 @@
+package com.bulletphysics.dynamics.constraintsolver;
+
+import com.bulletphysics.BulletGlobals;
+import com.bulletphysics.BulletStats;
+import com.bulletphysics.collision.broadphase.Dispatcher;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.narrowphase.ManifoldPoint;
+import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.linearmath.IDebugDraw;
+import com.bulletphysics.linearmath.Transform;
+import com.bulletphysics.linearmath.TransformUtil;
+
+import javax.vecmath.Matrix3f;
+import javax.vecmath.Vector3f;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The cache friendly {@link SequentialImpulseConstraintSolver}, with the solver bodies and the
+ * contact and friction rows in flat float arrays instead of pooled {@link SolverBody} and
+ * {@link SolverConstraint} objects.  Each body and row is a fixed stride of one array, so an
+ * iteration walks contiguous memory with no pointer chasing, and a solve allocates nothing
+ * once the arrays have grown to the size of the largest island.
+ * <p>
+ * The arithmetic is the same as SequentialImpulseConstraintSolver's, in the same order, so
+ * both solvers give the same results.  Set it with {@link com.bulletphysics.dynamics.DiscreteDynamicsWorld#setConstraintSolver}.
+ */
+public class ArraySequentialImpulseConstraintSolver extends ConstraintSolver {
+
+    // solver body: linear and angular velocity, push and turn velocity, inverse mass, angular factor
+    private static final int LIN = 0, ANG = 3, PUSH = 6, TURN = 9, INV_MASS = 12, ANGULAR_FACTOR = 13;
+    private static final int B = 16;
+
+    // contact or friction row: normal, relpos cross normal of A and B, angular component of A and B, jacobian diagonal inverse, restitution, penetration, friction
+    private static final int NORMAL = 0, REL_A = 3, REL_B = 6, ANG_A = 9, ANG_B = 12, JAC_DIAG_INV = 15, RESTITUTION = 16, PENETRATION = 17, FRICTION = 18;
+    private static final int R = 20;
+
+    private float[] body = new float[B * 64];
+    private RigidBody[] bodyOriginal = new RigidBody[64];
+    private int numBodies;
+
+    private float[] contact = new float[R * 64];
+    /** applied impulse, applied push impulse */
+    private float[] contactImpulse = new float[2 * 64];
+    /** solver body A, solver body B */
+    private int[] contactBody = new int[2 * 64];
+    /** the first of the two friction rows of each contact */
+    private int[] contactFriction = new int[64];
+    private ManifoldPoint[] contactPoint = new ManifoldPoint[64];
+    private int[] contactOrder = new int[64];
+    private int numContacts;
+
+    private float[] friction = new float[R * 128];
+    private float[] frictionImpulse = new float[128];
+    private int[] frictionBody = new int[2 * 128];
+    /** the contact of each friction row */
+    private int[] frictionContact = new int[128];
+    private int[] frictionOrder = new int[128];
+    private int numFrictions;
+
+    // btSeed2 is used for re-arranging the constraint rows. improves convergence/quality of friction
+    private long btSeed2 = 0L;
+
+    private final Transform tmpTrans = new Transform();
+    private final Transform tmpTrans2 = new Transform();
+    private final Matrix3f tmpMat = new Matrix3f();
+    private final Vector3f rel_pos1 = new Vector3f(), rel_pos2 = new Vector3f();
+    private final Vector3f pos1 = new Vector3f(), pos2 = new Vector3f();
+    private final Vector3f vel = new Vector3f(), vel1 = new Vector3f(), vel2 = new Vector3f();
+    private final Vector3f torqueAxis = new Vector3f(), angular = new Vector3f(), vec = new Vector3f();
+
+    @Override
+    public ConstraintSolver fork() {
+        return new ArraySequentialImpulseConstraintSolver();
+    }
+
+    @Override
+    public float solveGroup(List<CollisionObject> bodies, int numBodies, List<PersistentManifold> manifoldPtr, int manifold_offset, int numManifolds, List<TypedConstraint> constraints, int constraints_offset, int numConstraints, ContactSolverInfo infoGlobal, IDebugDraw debugDrawer, Dispatcher dispatcher) {
+        BulletStats.pushProfile("solveGroup");
+        try {
+            if ((numConstraints + numManifolds) == 0)
+                return 0.0f;
+
+            setup(manifoldPtr, manifold_offset, numManifolds, constraints, constraints_offset, numConstraints, infoGlobal);
+            iterate(constraints, constraints_offset, numConstraints, infoGlobal);
+            finish(infoGlobal);
+            return 0.0f;
+        } finally {
+            BulletStats.popProfile();
+        }
+    }
+
+    private void setup(List<PersistentManifold> manifoldPtr, int manifold_offset, int numManifolds, List<TypedConstraint> constraints, int constraints_offset, int numConstraints, ContactSolverInfo infoGlobal) {
+        BulletStats.pushProfile("solveGroupCacheFriendlySetup");
+        try {
+            boolean warmstarting = (infoGlobal.solverMode & SolverMode.SOLVER_USE_WARMSTARTING) != 0;
+
+            for (int i = 0; i < numManifolds; i++) {
+                PersistentManifold manifold = manifoldPtr.get(manifold_offset + i);
+                int numPoints = manifold.getNumContacts();
+                if (numPoints == 0)
+                    continue;
+
+                CollisionObject colObj0 = (CollisionObject) manifold.getBody0();
+                CollisionObject colObj1 = (CollisionObject) manifold.getBody1();
+                int solverBodyIdA = solverBody(colObj0);
+                int solverBodyIdB = solverBody(colObj1);
+                RigidBody rb0 = RigidBody.upcast(colObj0);
+                RigidBody rb1 = RigidBody.upcast(colObj1);
+
+                for (int j = 0; j < numPoints; j++) {
+                    ManifoldPoint cp = manifold.getContactPoint(j);
+                    if (cp.getDistance() > 0.0f)
+                        continue;
+
+                    cp.getPositionWorldOnA(pos1);
+                    cp.getPositionWorldOnB(pos2);
+                    rel_pos1.sub(pos1, colObj0.getWorldTransform(tmpTrans).origin);
+                    rel_pos2.sub(pos2, colObj1.getWorldTransform(tmpTrans).origin);
+
+                    float relaxation = 1.0f;
+
+                    int c = addContact();
+                    int r = c * R;
+                    float[] row = contact;
+                    contactBody[c * 2] = solverBodyIdA;
+                    contactBody[c * 2 + 1] = solverBodyIdB;
+                    contactPoint[c] = cp;
+
+                    Vector3f normal = cp.normalWorldOnB;
+                    float denom0 = rowJacobian(row, r, rel_pos1, normal, rb0, REL_A, ANG_A);
+                    float denom1 = rowJacobian(row, r, rel_pos2, normal, rb1, REL_B, ANG_B);
+                    row[r + JAC_DIAG_INV] = relaxation / (denom0 + denom1);
+                    put(row, r + NORMAL, normal);
+
+                    if (rb0 != null)
+                        rb0.getVelocityInLocalPoint(rel_pos1, vel1);
+                    else
+                        vel1.set(0.0f, 0.0f, 0.0f);
+                    if (rb1 != null)
+                        rb1.getVelocityInLocalPoint(rel_pos2, vel2);
+                    else
+                        vel2.set(0.0f, 0.0f, 0.0f);
+                    vel.sub(vel1, vel2);
+                    float rel_vel = normal.dot(vel);
+
+                    float penetration = Math.min(cp.getDistance() + infoGlobal.linearSlop, 0.0f);
+                    row[r + FRICTION] = cp.combinedFriction;
+                    float restitution = Math.max(cp.combinedRestitution * -rel_vel, 0.0f);
+                    row[r + RESTITUTION] = restitution;
+                    if (restitution > -penetration / infoGlobal.timeStep)
+                        penetration = 0.0f;
+                    row[r + PENETRATION] = penetration;
+
+                    // warm starting (or zero if disabled)
+                    float applied = warmstarting ? cp.appliedImpulse * infoGlobal.warmstartingFactor : 0.0f;
+                    contactImpulse[c * 2] = applied;
+                    contactImpulse[c * 2 + 1] = 0.0f;
+                    if (warmstarting) {
+                        if (rb0 != null)
+                            applyImpulse(solverBodyIdA, row, r, ANG_A, applied, LIN);
+                        if (rb1 != null)
+                            applyImpulse(solverBodyIdB, row, r, ANG_B, -applied, LIN);
+                    }
+
+                    int f = numFrictions;
+                    contactFriction[c] = f;
+                    if (!cp.lateralFrictionInitialized) {
+                        cp.lateralFrictionDir1.scale(rel_vel, normal);
+                        cp.lateralFrictionDir1.sub(vel, cp.lateralFrictionDir1);
+
+                        float lat_rel_vel = cp.lateralFrictionDir1.lengthSquared();
+                        if (lat_rel_vel > BulletGlobals.FLT_EPSILON) {
+                            cp.lateralFrictionDir1.scale(1.0f / (float) Math.sqrt(lat_rel_vel));
+                            addFriction(cp.lateralFrictionDir1, solverBodyIdA, solverBodyIdB, c, cp, rb0, rb1, relaxation);
+                            cp.lateralFrictionDir2.cross(cp.lateralFrictionDir1, normal);
+                            cp.lateralFrictionDir2.normalize();
+                        } else {
+                            TransformUtil.planeSpace1(normal, cp.lateralFrictionDir1, cp.lateralFrictionDir2);
+                            addFriction(cp.lateralFrictionDir1, solverBodyIdA, solverBodyIdB, c, cp, rb0, rb1, relaxation);
+                        }
+                        addFriction(cp.lateralFrictionDir2, solverBodyIdA, solverBodyIdB, c, cp, rb0, rb1, relaxation);
+                        cp.lateralFrictionInitialized = true;
+                    } else {
+                        addFriction(cp.lateralFrictionDir1, solverBodyIdA, solverBodyIdB, c, cp, rb0, rb1, relaxation);
+                        addFriction(cp.lateralFrictionDir2, solverBodyIdA, solverBodyIdB, c, cp, rb0, rb1, relaxation);
+                    }
+
+                    warmstartFriction(f, warmstarting, warmstarting ? cp.appliedImpulseLateral1 * infoGlobal.warmstartingFactor : 0.0f, rb0, rb1);
+                    warmstartFriction(f + 1, warmstarting, warmstarting ? cp.appliedImpulseLateral2 * infoGlobal.warmstartingFactor : 0.0f, rb0, rb1);
+                }
+            }
+
+            for (int j = 0; j < numConstraints; j++)
+                constraints.get(constraints_offset + j).buildJacobian();
+
+            for (int i = 0; i < numContacts; i++)
+                contactOrder[i] = i;
+            for (int i = 0; i < numFrictions; i++)
+                frictionOrder[i] = i;
+        } finally {
+            BulletStats.popProfile();
+        }
+    }
+
+    /** the solver body of a collision object, converting it on first use.  static objects get a body per contact manifold */
+    private int solverBody(CollisionObject o) {
+        if (o.getIslandTag() >= 0 && o.getCompanionId() >= 0)
+            return o.getCompanionId(); // body has already been converted
+
+        int id = numBodies++;
+        if (body.length < numBodies * B) {
+            body = Arrays.copyOf(body, body.length * 2);
+            bodyOriginal = Arrays.copyOf(bodyOriginal, bodyOriginal.length * 2);
+        }
+
+        float[] body = this.body;
+        int b = id * B;
+        RigidBody rb = RigidBody.upcast(o);
+        if (rb != null) {
+            put(body, b + LIN, rb.getLinearVelocity(vec));
+            put(body, b + ANG, rb.getAngularVelocity(vec));
+            body[b + INV_MASS] = rb.getInvMass();
+            body[b + ANGULAR_FACTOR] = rb.getAngularFactor();
+        } else {
+            Arrays.fill(body, b + LIN, b + ANG + 3, 0.0f);
+            body[b + INV_MASS] = 0.0f;
+            body[b + ANGULAR_FACTOR] = 1.0f;
+        }
+        Arrays.fill(body, b + PUSH, b + TURN + 3, 0.0f);
+        bodyOriginal[id] = rb;
+
+        if (o.getIslandTag() >= 0)
+            o.setCompanionId(id);
+        return id;
+    }
+
+    /** sets the relpos cross normal and angular component of one side of a row, returning its impulse denominator */
+    private float rowJacobian(float[] row, int r, Vector3f rel_pos, Vector3f normal, RigidBody rb, int rel, int ang) {
+        torqueAxis.cross(rel_pos, normal);
+        put(row, r + rel, torqueAxis);
+        if (rb == null) {
+            Arrays.fill(row, r + ang, r + ang + 3, 0.0f);
+            return 0.0f;
+        }
+        angular.set(torqueAxis);
+        rb.getInvInertiaTensorWorld(tmpMat).transform(angular);
+        put(row, r + ang, angular);
+        vec.cross(angular, rel_pos);
+        return rb.getInvMass() + normal.dot(vec);
+    }
+
+    private void addFriction(Vector3f normalAxis, int solverBodyIdA, int solverBodyIdB, int c, ManifoldPoint cp, RigidBody rb0, RigidBody rb1, float relaxation) {
+        int f = numFrictions++;
+        if (frictionContact.length < numFrictions) {
+            int n = frictionContact.length * 2;
+            friction = Arrays.copyOf(friction, n * R);
+            frictionImpulse = Arrays.copyOf(frictionImpulse, n);
+            frictionBody = Arrays.copyOf(frictionBody, n * 2);
+            frictionContact = Arrays.copyOf(frictionContact, n);
+            frictionOrder = Arrays.copyOf(frictionOrder, n);
+        }
+
+        float[] row = friction;
+        int r = f * R;
+        put(row, r + NORMAL, normalAxis);
+        frictionBody[f * 2] = solverBodyIdA;
+        frictionBody[f * 2 + 1] = solverBodyIdB;
+        frictionContact[f] = c;
+        row[r + FRICTION] = cp.combinedFriction;
+
+        float denom0 = rowJacobian(row, r, rel_pos1, normalAxis, rb0, REL_A, ANG_A);
+        float denom1 = rowJacobian(row, r, rel_pos2, normalAxis, rb1, REL_B, ANG_B);
+        row[r + JAC_DIAG_INV] = relaxation / (denom0 + denom1);
+    }
+
+    private void warmstartFriction(int f, boolean warmstarting, float applied, RigidBody rb0, RigidBody rb1) {
+        frictionImpulse[f] = applied;
+        if (warmstarting) {
+            if (rb0 != null)
+                applyImpulse(frictionBody[f * 2], friction, f * R, ANG_A, applied, LIN);
+            if (rb1 != null)
+                applyImpulse(frictionBody[f * 2 + 1], friction, f * R, ANG_B, -applied, LIN);
+        }
+    }
+
+    private int addContact() {
+        int c = numContacts++;
+        if (contactPoint.length < numContacts) {
+            int n = contactPoint.length * 2;
+            contact = Arrays.copyOf(contact, n * R);
+            contactImpulse = Arrays.copyOf(contactImpulse, n * 2);
+            contactBody = Arrays.copyOf(contactBody, n * 2);
+            contactFriction = Arrays.copyOf(contactFriction, n);
+            contactPoint = Arrays.copyOf(contactPoint, n);
+            contactOrder = Arrays.copyOf(contactOrder, n);
+        }
+        return c;
+    }
+
+    private void iterate(List<TypedConstraint> constraints, int constraints_offset, int numConstraints, ContactSolverInfo infoGlobal) {
+        BulletStats.pushProfile("solveGroupCacheFriendlyIterations");
+        try {
+            int numContacts = this.numContacts, numFrictions = this.numFrictions;
+            boolean randomize = (infoGlobal.solverMode & SolverMode.SOLVER_RANDMIZE_ORDER) != 0;
+
+            for (int iteration = 0; iteration < infoGlobal.numIterations; iteration++) {
+                if (randomize && (iteration & 7) == 0) {
+                    shuffle(contactOrder, numContacts);
+                    shuffle(frictionOrder, numFrictions);
+                }
+
+                for (int j = 0; j < numConstraints; j++) {
+                    TypedConstraint constraint = constraints.get(constraints_offset + j);
+                    // todo: use solver bodies, so we don't need to copy from/to btRigidBody
+                    RigidBody ra = constraint.getRigidBodyA(), rb = constraint.getRigidBodyB();
+                    boolean a = ra.getIslandTag() >= 0 && ra.getCompanionId() >= 0;
+                    boolean b = rb.getIslandTag() >= 0 && rb.getCompanionId() >= 0;
+                    if (a)
+                        writebackVelocity(ra.getCompanionId());
+                    if (b)
+                        writebackVelocity(rb.getCompanionId());
+
+                    constraint.solveConstraint(infoGlobal.timeStep);
+
+                    if (a)
+                        readVelocity(ra.getCompanionId());
+                    if (b)
+                        readVelocity(rb.getCompanionId());
+                }
+
+                for (int j = 0; j < numContacts; j++)
+                    solveContact(contactOrder[j], infoGlobal);
+
+                for (int j = 0; j < numFrictions; j++)
+                    solveFriction(frictionOrder[j]);
+            }
+
+            if (infoGlobal.splitImpulse) {
+                for (int iteration = 0; iteration < infoGlobal.numIterations; iteration++) {
+                    for (int j = 0; j < numContacts; j++)
+                        solveSplitPenetration(contactOrder[j], infoGlobal);
+                }
+            }
+        } finally {
+            BulletStats.popProfile();
+        }
+    }
+
+    /** velocity + friction response between two dynamic objects with friction */
+    private void solveContact(int c, ContactSolverInfo solverInfo) {
+        float[] row = contact, body = this.body;
+        int r = c * R;
+        int a = contactBody[c * 2] * B, b = contactBody[c * 2 + 1] * B;
+
+        float rel_vel = normalVelocity(row, r, body, a, b, LIN);
+
+        float positionalError = 0.0f;
+        float penetration = row[r + PENETRATION];
+        if (!solverInfo.splitImpulse || (penetration > solverInfo.splitImpulsePenetrationThreshold))
+            positionalError = -penetration * solverInfo.erp / solverInfo.timeStep;
+
+        float velocityError = row[r + RESTITUTION] - rel_vel;
+
+        float jacDiagABInv = row[r + JAC_DIAG_INV];
+        float normalImpulse = positionalError * jacDiagABInv + velocityError * jacDiagABInv;
+
+        // See Erin Catto's GDC 2006 paper: Clamp the accumulated impulse
+        float[] impulse = contactImpulse;
+        float oldNormalImpulse = impulse[c * 2];
+        float applied = Math.max(0.0f, oldNormalImpulse + normalImpulse);
+        impulse[c * 2] = applied;
+        normalImpulse = applied - oldNormalImpulse;
+
+        applyImpulse(body, a, row, r, ANG_A, normalImpulse, LIN);
+        applyImpulse(body, b, row, r, ANG_B, -normalImpulse, LIN);
+    }
+
+    private void solveFriction(int f) {
+        int c = frictionContact[f];
+        float appliedNormalImpulse = contactImpulse[c * 2] + contactImpulse[c * 2 + 1];
+        if (!(appliedNormalImpulse > 0.0f))
+            return;
+
+        float[] row = friction, body = this.body;
+        int r = f * R;
+        int a = frictionBody[f * 2] * B, b = frictionBody[f * 2 + 1] * B;
+
+        float limit = appliedNormalImpulse * row[r + FRICTION];
+
+        float rel_vel = normalVelocity(row, r, body, a, b, LIN);
+
+        // calculate j that moves us to zero relative velocity
+        float j1 = -rel_vel * row[r + JAC_DIAG_INV];
+        float oldTangentImpulse = frictionImpulse[f];
+        float applied = oldTangentImpulse + j1;
+        if (limit < applied)
+            applied = limit;
+        else if (applied < -limit)
+            applied = -limit;
+        frictionImpulse[f] = applied;
+        j1 = applied - oldTangentImpulse;
+
+        applyImpulse(body, a, row, r, ANG_A, j1, LIN);
+        applyImpulse(body, b, row, r, ANG_B, -j1, LIN);
+    }
+
+    private void solveSplitPenetration(int c, ContactSolverInfo solverInfo) {
+        float[] row = contact, body = this.body;
+        int r = c * R;
+        float penetration = row[r + PENETRATION];
+        if (!(penetration < solverInfo.splitImpulsePenetrationThreshold))
+            return;
+
+        BulletStats.gNumSplitImpulseRecoveries++;
+
+        int a = contactBody[c * 2] * B, b = contactBody[c * 2 + 1] * B;
+
+        float rel_vel = normalVelocity(row, r, body, a, b, PUSH);
+
+        float positionalError = -penetration * solverInfo.erp2 / solverInfo.timeStep;
+        float velocityError = row[r + RESTITUTION] - rel_vel;
+
+        float jacDiagABInv = row[r + JAC_DIAG_INV];
+        float normalImpulse = positionalError * jacDiagABInv + velocityError * jacDiagABInv;
+
+        float[] impulse = contactImpulse;
+        float oldNormalImpulse = impulse[c * 2 + 1];
+        float applied = Math.max(0.0f, oldNormalImpulse + normalImpulse);
+        impulse[c * 2 + 1] = applied;
+        normalImpulse = applied - oldNormalImpulse;
+
+        applyImpulse(body, a, row, r, ANG_A, normalImpulse, PUSH);
+        applyImpulse(body, b, row, r, ANG_B, -normalImpulse, PUSH);
+    }
+
+    /** the relative velocity of the two bodies of a row along its normal, of the linear/angular (LIN) or push/turn (PUSH) velocities */
+    private static float normalVelocity(float[] row, int r, float[] body, int a, int b, int lin) {
+        int ang = lin + 3;
+        float vel1Dotn = (row[r + NORMAL] * body[a + lin] + row[r + NORMAL + 1] * body[a + lin + 1] + row[r + NORMAL + 2] * body[a + lin + 2])
+                + (row[r + REL_A] * body[a + ang] + row[r + REL_A + 1] * body[a + ang + 1] + row[r + REL_A + 2] * body[a + ang + 2]);
+        float vel2Dotn = (row[r + NORMAL] * body[b + lin] + row[r + NORMAL + 1] * body[b + lin + 1] + row[r + NORMAL + 2] * body[b + lin + 2])
+                + (row[r + REL_B] * body[b + ang] + row[r + REL_B + 1] * body[b + ang + 1] + row[r + REL_B + 2] * body[b + ang + 2]);
+        return vel1Dotn - vel2Dotn;
+    }
+
+    private void applyImpulse(int solverBody, float[] row, int r, int angularComponent, float impulseMagnitude, int lin) {
+        applyImpulse(body, solverBody * B, row, r, angularComponent, impulseMagnitude, lin);
+    }
+
+    /** {@link SolverBody#internalApplyImpulse} (lin = LIN) or {@link SolverBody#internalApplyPushImpulse} (lin = PUSH) with the row's normal scaled by the body's inverse mass */
+    private static void applyImpulse(float[] body, int b, float[] row, int r, int angularComponent, float impulseMagnitude, int lin) {
+        float invMass = body[b + INV_MASS];
+        if (invMass != 0.0f) {
+            body[b + lin] = impulseMagnitude * (invMass * row[r + NORMAL]) + body[b + lin];
+            body[b + lin + 1] = impulseMagnitude * (invMass * row[r + NORMAL + 1]) + body[b + lin + 1];
+            body[b + lin + 2] = impulseMagnitude * (invMass * row[r + NORMAL + 2]) + body[b + lin + 2];
+            float angularImpulse = impulseMagnitude * body[b + ANGULAR_FACTOR];
+            int ang = lin + 3;
+            body[b + ang] = angularImpulse * row[r + angularComponent] + body[b + ang];
+            body[b + ang + 1] = angularImpulse * row[r + angularComponent + 1] + body[b + ang + 1];
+            body[b + ang + 2] = angularImpulse * row[r + angularComponent + 2] + body[b + ang + 2];
+        }
+    }
+
+    private void finish(ContactSolverInfo infoGlobal) {
+        float[] impulse = contactImpulse;
+        for (int c = 0; c < numContacts; c++) {
+            ManifoldPoint pt = contactPoint[c];
+            int f = contactFriction[c];
+            pt.appliedImpulse = impulse[c * 2];
+            pt.appliedImpulseLateral1 = frictionImpulse[f];
+            pt.appliedImpulseLateral2 = frictionImpulse[f + 1];
+        }
+
+        for (int i = 0; i < numBodies; i++) {
+            if (infoGlobal.splitImpulse)
+                writebackVelocity(i, infoGlobal.timeStep);
+            else
+                writebackVelocity(i);
+        }
+
+        Arrays.fill(bodyOriginal, 0, numBodies, null);
+        Arrays.fill(contactPoint, 0, numContacts, null);
+        numBodies = numContacts = numFrictions = 0;
+    }
+
+    private void writebackVelocity(int solverBody) {
+        int b = solverBody * B;
+        if (body[b + INV_MASS] != 0.0f) {
+            RigidBody rb = bodyOriginal[solverBody];
+            rb.setLinearVelocity(get(body, b + LIN, vec));
+            rb.setAngularVelocity(get(body, b + ANG, vec));
+        }
+    }
+
+    private void writebackVelocity(int solverBody, float timeStep) {
+        int b = solverBody * B;
+        if (body[b + INV_MASS] != 0.0f) {
+            writebackVelocity(solverBody);
+
+            // correct the position/orientation based on push/turn recovery
+            RigidBody rb = bodyOriginal[solverBody];
+            TransformUtil.integrateTransform(rb.getWorldTransform(tmpTrans), get(body, b + PUSH, vel1), get(body, b + TURN, vel2), timeStep, tmpTrans2);
+            rb.setWorldTransform(tmpTrans2);
+        }
+    }
+
+    private void readVelocity(int solverBody) {
+        int b = solverBody * B;
+        if (body[b + INV_MASS] != 0.0f) {
+            RigidBody rb = bodyOriginal[solverBody];
+            put(body, b + LIN, rb.getLinearVelocity(vec));
+            put(body, b + ANG, rb.getAngularVelocity(vec));
+        }
+    }
+
+    private static void put(float[] a, int i, Vector3f v) {
+        a[i] = v.x;
+        a[i + 1] = v.y;
+        a[i + 2] = v.z;
+    }
+
+    private static Vector3f get(float[] a, int i, Vector3f out) {
+        out.set(a[i], a[i + 1], a[i + 2]);
+        return out;
+    }
+
+    private void shuffle(int[] order, int n) {
+        for (int j = 0; j < n; ++j) {
+            int tmp = order[j];
+            int swapi = randInt2(j + 1);
+            order[j] = order[swapi];
+            order[swapi] = tmp;
+        }
+    }
+
+    private long rand2() {
+        btSeed2 = (1664525L * btSeed2 + 1013904223L) & 0xffffffff;
+        return btSeed2;
+    }
+
+    // See ODE: adam's all-int straightforward(?) dRandInt (0..n-1)
+    private int randInt2(int n) {
+        // seems good; xor-fold and modulus
+        long r = rand2();
+
+        if (n <= 0x00010000L) {
+            r ^= (r >>> 16);
+            if (n <= 0x00000100L) {
+                r ^= (r >>> 8);
+                if (n <= 0x00000010L) {
+                    r ^= (r >>> 4);
+                    if (n <= 0x00000004L) {
+                        r ^= (r >>> 2);
+                        if (n <= 0x00000002L) {
+                            r ^= (r >>> 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        return (int) Math.abs(r % n);
+    }
+
+    @Override
+    public void reset() {
+        btSeed2 = 0;
+    }
+
+    @Override
+    public void setRandSeed(long seed) {
+        btSeed2 = seed;
+    }
+
+    public long getRandSeed() {
+        return btSeed2;
+    }
+
+}
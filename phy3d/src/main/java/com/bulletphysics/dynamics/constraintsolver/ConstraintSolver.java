@@ -27,6 +27,7 @@ import com.bulletphysics.collision.broadphase.Dispatcher;
 import com.bulletphysics.collision.dispatch.CollisionObject;
 import com.bulletphysics.collision.narrowphase.PersistentManifold;
 import com.bulletphysics.linearmath.IDebugDraw;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
@@ -55,4 +56,25 @@ public abstract class ConstraintSolver {
      */
     public abstract void reset();
 
+    /**
+     * Seed the randomized order of the constraint rows, if any.
+     */
+    public void setRandSeed(long seed) {
+    }
+
+    /**
+     * A new solver of the same kind and settings, to solve simulation islands in parallel with
+     * this one, or null (the default) if this solver has to solve every island itself.
+     */
+    public @Nullable ConstraintSolver fork() {
+        return null;
+    }
+
+    /**
+     * Changes whenever a setting copied by {@link #fork} does, so that forks made before can be replaced.
+     */
+    public int forkVersion() {
+        return 0;
+    }
+
 }
\ No newline at end of file
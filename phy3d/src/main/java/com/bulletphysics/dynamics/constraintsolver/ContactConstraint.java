@@ -59,11 +59,28 @@ public class ContactConstraint {
     };
 
     /**
-     * Bilateral constraint between two dynamic objects.
+     * Bilateral constraint between two dynamic objects, with a jacobian entry from the calling thread's pool.
+     * Callers in a loop should keep their own entry and use the overload taking it.
      */
     public static void resolveSingleBilateral(RigidBody body1, Vector3f pos1,
                                               RigidBody body2, Vector3f pos2,
                                               float distance, Vector3f normal, float[] impulse, float timeStep, float contactDamping) {
+        ObjectPool<JacobianEntry> pool = ObjectPool.get(JacobianEntry.class);
+        JacobianEntry jac = pool.get();
+        try {
+            resolveSingleBilateral(body1, pos1, body2, pos2, distance, normal, impulse, timeStep, contactDamping, jac);
+        } finally {
+            pool.release(jac);
+        }
+    }
+
+    /**
+     * Bilateral constraint between two dynamic objects, using the caller's scratch jacobian entry.
+     */
+    public static void resolveSingleBilateral(RigidBody body1, Vector3f pos1,
+                                              RigidBody body2, Vector3f pos2,
+                                              float distance, Vector3f normal, float[] impulse, float timeStep, float contactDamping,
+                                              JacobianEntry jac) {
         float normalLenSqr = normal.lengthSquared();
         assert (Math.abs(normalLenSqr) < 1.1f);
         if (normalLenSqr > 1.1f) {
@@ -71,7 +88,6 @@ public class ContactConstraint {
             return;
         }
 
-        ObjectPool<JacobianEntry> jacobiansPool = ObjectPool.get(JacobianEntry.class);
         Vector3f tmp = new Vector3f();
 
         Vector3f rel_pos1 = new Vector3f();
@@ -97,7 +113,6 @@ public class ContactConstraint {
         Matrix3f mat2 = body2.getCenterOfMassTransform(new Transform()).basis;
         mat2.transpose();
 
-        JacobianEntry jac = jacobiansPool.get();
         jac.init(mat1, mat2,
                 rel_pos1, rel_pos2, normal,
                 body1.getInvInertiaDiagLocal(new Vector3f()), body1.getInvMass(),
@@ -118,8 +133,6 @@ public class ContactConstraint {
                 body2.getLinearVelocity(new Vector3f()),
                 tmp2);
 
-        jacobiansPool.release(jac);
-
         float rel_vel_1 = normal.dot(vel);
 
         //System.out.println(rel_vel_0 + " " + rel_vel);
@@ -38,6 +38,7 @@ import com.bulletphysics.linearmath.TransformUtil;
 import com.bulletphysics.util.IntArrayList;
 import com.bulletphysics.util.ObjectArrayList;
 import com.bulletphysics.util.ObjectPool;
+import org.jetbrains.annotations.Nullable;
 
 import javax.vecmath.Matrix3f;
 import javax.vecmath.Vector3f;
@@ -61,12 +62,15 @@ public class SequentialImpulseConstraintSolver extends ConstraintSolver {
     private static final int SEQUENTIAL_IMPULSE_MAX_SOLVER_POINTS = 16384;
     private final ContactSolverFunc[][] contactDispatch = new ContactSolverFunc[MAX_CONTACT_SOLVER_TYPES][MAX_CONTACT_SOLVER_TYPES];
     private final ContactSolverFunc[][] frictionDispatch = new ContactSolverFunc[MAX_CONTACT_SOLVER_TYPES][MAX_CONTACT_SOLVER_TYPES];
+    /** changes of the dispatch tables, which forks copy */
+    private int dispatchVersion;
     private final OrderIndex[] gOrder = new OrderIndex[SEQUENTIAL_IMPULSE_MAX_SOLVER_POINTS];
 
     ////////////////////////////////////////////////////////////////////////////
-    private final ObjectPool<SolverBody> bodiesPool = ObjectPool.get(SolverBody.class);
-    private final ObjectPool<SolverConstraint> constraintsPool = ObjectPool.get(SolverConstraint.class);
-    private final ObjectPool<JacobianEntry> jacobiansPool = ObjectPool.get(JacobianEntry.class);
+    // owned pools: a solver may run islands on a worker thread of a parallel step
+    private final ObjectPool<SolverBody> bodiesPool = ObjectPool.owned(SolverBody.class);
+    private final ObjectPool<SolverConstraint> constraintsPool = ObjectPool.owned(SolverConstraint.class);
+    private final ObjectPool<JacobianEntry> jacobiansPool = ObjectPool.owned(JacobianEntry.class);
 
     private final ObjectArrayList<SolverBody> tmpSolverBodyPool = new ObjectArrayList<>();
     private final ObjectArrayList<SolverConstraint> tmpSolverConstraintPool = new ObjectArrayList<>();
@@ -915,7 +919,7 @@ public class SequentialImpulseConstraintSolver extends ConstraintSolver {
             assert (pt != null);
             pt.appliedImpulse = solveManifold.appliedImpulse;
             pt.appliedImpulseLateral1 = tmpSolverFrictionConstraintPool.get(solveManifold.frictionIndex).appliedImpulse;
-            pt.appliedImpulseLateral1 = tmpSolverFrictionConstraintPool.get(solveManifold.frictionIndex + 1).appliedImpulse;
+            pt.appliedImpulseLateral2 = tmpSolverFrictionConstraintPool.get(solveManifold.frictionIndex + 1).appliedImpulse;
 
             // do a callback here?
         }
@@ -1250,12 +1254,31 @@ public class SequentialImpulseConstraintSolver extends ConstraintSolver {
         btSeed2 = 0;
     }
 
+    /** null for subclasses, which may add state or behaviour a fork would not have */
+    @Override
+    public @Nullable ConstraintSolver fork() {
+        if (getClass() != SequentialImpulseConstraintSolver.class)
+            return null;
+        SequentialImpulseConstraintSolver s = new SequentialImpulseConstraintSolver();
+        for (int i = 0; i < MAX_CONTACT_SOLVER_TYPES; i++) {
+            System.arraycopy(contactDispatch[i], 0, s.contactDispatch[i], 0, MAX_CONTACT_SOLVER_TYPES);
+            System.arraycopy(frictionDispatch[i], 0, s.frictionDispatch[i], 0, MAX_CONTACT_SOLVER_TYPES);
+        }
+        return s;
+    }
+
+    @Override
+    public int forkVersion() {
+        return dispatchVersion;
+    }
+
     /**
      * Advanced: Override the default contact solving function for contacts, for certain types of rigidbody<br>
      * See RigidBody.contactSolverType and RigidBody.frictionSolverType
      */
     public void setContactSolverFunc(ContactSolverFunc func, int type0, int type1) {
         contactDispatch[type0][type1] = func;
+        dispatchVersion++;
     }
 
     /**
@@ -1264,12 +1287,14 @@ public class SequentialImpulseConstraintSolver extends ConstraintSolver {
      */
     public void setFrictionSolverFunc(ContactSolverFunc func, int type0, int type1) {
         frictionDispatch[type0][type1] = func;
+        dispatchVersion++;
     }
 
     public long getRandSeed() {
         return btSeed2;
     }
 
+    @Override
     public void setRandSeed(long seed) {
         btSeed2 = seed;
     }
@@ -26,10 +26,10 @@ package com.bulletphysics.dynamics.vehicle;
 import com.bulletphysics.collision.dispatch.RayResultCallback;
 import com.bulletphysics.dynamics.RigidBody;
 import com.bulletphysics.dynamics.constraintsolver.ContactConstraint;
+import com.bulletphysics.dynamics.constraintsolver.JacobianEntry;
 import com.bulletphysics.dynamics.constraintsolver.TypedConstraint;
 import com.bulletphysics.dynamics.constraintsolver.TypedConstraintType;
 import com.bulletphysics.linearmath.*;
-import com.bulletphysics.util.ArrayPool;
 import com.bulletphysics.util.FloatArrayList;
 import com.bulletphysics.util.ObjectArrayList;
 
@@ -52,7 +52,9 @@ public class RaycastVehicle extends TypedConstraint {
     private final ObjectArrayList<Vector3f> axle = new ObjectArrayList<>();
     private final FloatArrayList forwardImpulse = new FloatArrayList();
     private final FloatArrayList sideImpulse = new FloatArrayList();
-    private final ArrayPool<float[]> floatArrays = ArrayPool.get(float.class);
+    // scratch for resolveSingleBilateral, owned rather than looked up per wheel
+    private final float[] bilateralImpulse = new float[1];
+    private final JacobianEntry bilateralJacobian = new JacobianEntry();
     private final VehicleRaycaster vehicleRaycaster;
     private final RigidBody chassisBody;
     private float tau;
@@ -513,12 +515,11 @@ public class RaycastVehicle extends TypedConstraint {
                     forwardWS.get(i).cross(surfNormalWS, axle.get(i));
                     forwardWS.get(i).normalize();
 
-                    float[] floatPtr = floatArrays.getFixed(1);
+                    float[] floatPtr = bilateralImpulse;
                     ContactConstraint.resolveSingleBilateral(chassisBody, wheel_info.raycastInfo.contactPointWS,
                             groundObject, wheel_info.raycastInfo.contactPointWS,
-                            0.0f, axle.get(i), floatPtr, timeStep, contactDamping);
+                            0.0f, axle.get(i), floatPtr, timeStep, contactDamping, bilateralJacobian);
                     sideImpulse.set(i, floatPtr[0]);
-                    floatArrays.release(floatPtr);
 
                     sideImpulse.set(i, sideImpulse.get(i) * sideFrictionStiffness2);
                 }
@@ -29,7 +29,6 @@ package com.bulletphysics.extras.gimpact;
 
 import com.bulletphysics.BulletGlobals;
 import com.bulletphysics.linearmath.VectorUtil;
-import com.bulletphysics.util.ArrayPool;
 
 import javax.vecmath.Vector3f;
 import javax.vecmath.Vector4f;
@@ -54,19 +53,22 @@ class ClipPolygon {
 
     /**
      * This function calcs the distance from a 3D plane.
+     *
+     * @return the new count of clipped points
      */
-    private static void plane_clip_polygon_collect(Vector3f point0, Vector3f point1, float dist0, float dist1, List<Vector3f> clipped, int[] clipped_count) {
+    private static int plane_clip_polygon_collect(Vector3f point0, Vector3f point1, float dist0, float dist1, List<Vector3f> clipped, int clipped_count) {
         boolean _prevclassif = (dist0 > BulletGlobals.SIMD_EPSILON);
         boolean _classif = (dist1 > BulletGlobals.SIMD_EPSILON);
         if (_classif != _prevclassif) {
             float blendfactor = -dist0 / (dist1 - dist0);
-            vec_blend(clipped.get(clipped_count[0]), point0, point1, blendfactor);
-            clipped_count[0]++;
+            vec_blend(clipped.get(clipped_count), point0, point1, blendfactor);
+            clipped_count++;
         }
         if (!_classif) {
-            clipped.get(clipped_count[0]).set(point1);
-            clipped_count[0]++;
+            clipped.get(clipped_count).set(point1);
+            clipped_count++;
         }
+        return clipped_count;
     }
 
     /**
@@ -75,23 +77,20 @@ class ClipPolygon {
      * @return The count of the clipped counts
      */
     public static int plane_clip_polygon(Vector4f plane, List<Vector3f> polygon_points, int polygon_point_count, List<Vector3f> clipped) {
-        ArrayPool<int[]> intArrays = ArrayPool.get(int.class);
-
-        int[] clipped_count = intArrays.getFixed(1);
-        clipped_count[0] = 0;
+        int clipped_count = 0;
 
         // clip first point
         float firstdist = distance_point_plane(plane, polygon_points.get(0));
         if (!(firstdist > BulletGlobals.SIMD_EPSILON)) {
-            clipped.get(clipped_count[0]).set(polygon_points.get(0));
-            clipped_count[0]++;
+            clipped.get(clipped_count).set(polygon_points.get(0));
+            clipped_count++;
         }
 
         float olddist = firstdist;
         for (int i = 1; i < polygon_point_count; i++) {
             float dist = distance_point_plane(plane, polygon_points.get(i));
 
-            plane_clip_polygon_collect(
+            clipped_count = plane_clip_polygon_collect(
                     polygon_points.get(i - 1), polygon_points.get(i),
                     olddist,
                     dist,
@@ -104,16 +103,14 @@ class ClipPolygon {
 
         // RETURN TO FIRST point
 
-        plane_clip_polygon_collect(
+        clipped_count = plane_clip_polygon_collect(
                 polygon_points.get(polygon_point_count - 1), polygon_points.get(0),
                 olddist,
                 firstdist,
                 clipped,
                 clipped_count);
 
-        int ret = clipped_count[0];
-        intArrays.release(clipped_count);
-        return ret;
+        return clipped_count;
     }
 
     /**
@@ -123,23 +120,20 @@ class ClipPolygon {
      * @return the count of the clipped counts
      */
     public static int plane_clip_triangle(Vector4f plane, Vector3f point0, Vector3f point1, Vector3f point2, List<Vector3f> clipped) {
-        ArrayPool<int[]> intArrays = ArrayPool.get(int.class);
-
-        int[] clipped_count = intArrays.getFixed(1);
-        clipped_count[0] = 0;
+        int clipped_count = 0;
 
         // clip first point0
         float firstdist = distance_point_plane(plane, point0);
         if (!(firstdist > BulletGlobals.SIMD_EPSILON)) {
-            clipped.get(clipped_count[0]).set(point0);
-            clipped_count[0]++;
+            clipped.get(clipped_count).set(point0);
+            clipped_count++;
         }
 
         // point 1
         float olddist = firstdist;
         float dist = distance_point_plane(plane, point1);
 
-        plane_clip_polygon_collect(
+        clipped_count = plane_clip_polygon_collect(
                 point0, point1,
                 olddist,
                 dist,
@@ -152,7 +146,7 @@ class ClipPolygon {
         // point 2
         dist = distance_point_plane(plane, point2);
 
-        plane_clip_polygon_collect(
+        clipped_count = plane_clip_polygon_collect(
                 point1, point2,
                 olddist,
                 dist,
@@ -162,16 +156,14 @@ class ClipPolygon {
 
 
         // RETURN TO FIRST point0
-        plane_clip_polygon_collect(
+        clipped_count = plane_clip_polygon_collect(
                 point2, point0,
                 olddist,
                 firstdist,
                 clipped,
                 clipped_count);
 
-        int ret = clipped_count[0];
-        intArrays.release(clipped_count);
-        return ret;
+        return clipped_count;
     }
 
 }
\ No newline at end of file
@@ -33,8 +33,13 @@ import com.bulletphysics.collision.shapes.util.TriangleCallback;
 import com.bulletphysics.extras.gimpact.BoxCollision.AABB;
 import com.bulletphysics.linearmath.Transform;
 import com.bulletphysics.util.ObjectArrayList;
+import com.bulletphysics.util.bvh.BvhCache;
 
 import javax.vecmath.Vector3f;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * @author jezek2
@@ -47,6 +52,81 @@ public class GImpactMeshShape extends GImpactShapeInterface {
         buildMeshParts(meshInterface);
     }
 
+    /**
+     * Creates the shape with the trees of its parts loaded from a {@link BvhCache} file, if it
+     * holds them for this mesh, else built and written to the file.  Either way the bound is
+     * updated, so there is no need to call {@link #updateBound}.
+     */
+    public GImpactMeshShape(StridingMeshInterface meshInterface, Path bvhCache) {
+        buildMeshParts(meshInterface);
+
+        long hash = BvhCache.meshHash(meshInterface);
+        boolean loaded;
+        try {
+            loaded = loadBvh(bvhCache, hash);
+        } catch (IOException e) {
+            loaded = false;
+        }
+        // refits the loaded trees, or builds them
+        updateBound();
+
+        if (!loaded) {
+            try {
+                saveBvh(bvhCache, hash);
+            } catch (IOException e) {
+                System.err.println("warning GImpactMeshShape: can't write " + bvhCache + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Writes the trees of the parts, building them if needed, to a {@link BvhCache} file for a mesh
+     * of the given {@link BvhCache#meshHash}.
+     */
+    public void saveBvh(Path file, long meshHash) throws IOException {
+        updateBound();
+
+        int size = 4;
+        for (int i = 0; i < mesh_parts.size(); i++)
+            size += mesh_parts.get(i).box_set.box_tree.serializedSize();
+
+        BvhCache.write(file, BvhCache.GIMPACT, meshHash, size, out -> {
+            out.putInt(mesh_parts.size());
+            for (int i = 0; i < mesh_parts.size(); i++)
+                mesh_parts.get(i).box_set.box_tree.write(out);
+        });
+    }
+
+    /**
+     * Replaces the trees of the parts by those of a file written by {@link #saveBvh} for a mesh of
+     * the given hash, returning false if there is no such file or it holds other trees, in which
+     * case trees it did replace are cleared, to be built again.  Call {@link #updateBound} after,
+     * which refits the loaded trees.
+     */
+    public boolean loadBvh(Path file, long meshHash) throws IOException {
+        ByteBuffer in = BvhCache.map(file, BvhCache.GIMPACT, meshHash);
+        if (in == null)
+            return false;
+
+        int i = -1;
+        try {
+            if (in.getInt() != mesh_parts.size())
+                return false;
+            for (i = 0; i < mesh_parts.size(); i++)
+                mesh_parts.get(i).box_set.box_tree.read(in);
+        } catch (BufferUnderflowException e) {
+            // truncated, or a node count beyond the end
+            for (; i >= 0; i--)
+                mesh_parts.get(i).box_set.box_tree.clearNodes();
+            return false;
+        }
+
+        for (i = 0; i < mesh_parts.size(); i++)
+            mesh_parts.get(i).needs_update = true;
+        needs_update = true;
+        return true;
+    }
+
     public int getMeshPartCount() {
         return mesh_parts.size();
     }
@@ -28,7 +28,6 @@
 package com.bulletphysics.extras.gimpact;
 
 import com.bulletphysics.BulletGlobals;
-import com.bulletphysics.util.ArrayPool;
 
 import javax.vecmath.Vector3f;
 import javax.vecmath.Vector4f;
@@ -43,7 +42,7 @@ class TriangleContact {
     public static final int MAX_TRI_CLIPPING = 16;
     public final Vector4f separating_normal = new Vector4f();
     public final Vector3f[] points = new Vector3f[MAX_TRI_CLIPPING];
-    private final ArrayPool<int[]> intArrays = ArrayPool.get(int.class);
+    private final int[] point_indices = new int[MAX_TRI_CLIPPING];
     public float penetration_depth;
     public int point_count;
 
@@ -76,7 +75,7 @@ class TriangleContact {
         this.point_count = 0;
         penetration_depth = -1000.0f;
 
-        int[] point_indices = intArrays.getFixed(MAX_TRI_CLIPPING);
+        int[] point_indices = this.point_indices;
 
         for (int _k = 0; _k < point_count; _k++) {
             float _dist = -ClipPolygon.distance_point_plane(plane, points.get(_k)) + margin;
@@ -96,8 +95,6 @@ class TriangleContact {
         for (int _k = 0; _k < this.point_count; _k++) {
             this.points[_k].set(points.get(point_indices[_k]));
         }
-
-        intArrays.release(point_indices);
     }
 
 }
\ No newline at end of file
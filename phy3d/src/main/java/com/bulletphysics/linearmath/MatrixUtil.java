@@ -24,7 +24,6 @@
 package com.bulletphysics.linearmath;
 
 import com.bulletphysics.BulletGlobals;
-import com.bulletphysics.util.ArrayPool;
 
 import javax.vecmath.Matrix3f;
 import javax.vecmath.Quat4f;
@@ -138,36 +137,42 @@ public class MatrixUtil {
 	}
 	
 	public static void getRotation(Matrix3f mat, Quat4f dest) {
-		ArrayPool<float[]> floatArrays = ArrayPool.get(float.class);
-		
 		float trace = mat.m00 + mat.m11 + mat.m22;
-		float[] temp = floatArrays.getFixed(4);
 
+		// the largest diagonal element selects the stable formula; spelled out per element
+		// rather than indexed through a pooled float[4]: this runs for every body every step
 		if (trace > 0.0f) {
 			float s = (float) Math.sqrt(trace + 1.0f);
-			temp[3] = (s * 0.5f);
+			float w = s * 0.5f;
 			s = 0.5f / s;
-
-			temp[0] = ((mat.m21 - mat.m12) * s);
-			temp[1] = ((mat.m02 - mat.m20) * s);
-			temp[2] = ((mat.m10 - mat.m01) * s);
+			dest.set((mat.m21 - mat.m12) * s, (mat.m02 - mat.m20) * s, (mat.m10 - mat.m01) * s, w);
+		}
+		else if (mat.m00 < mat.m11) {
+			if (mat.m11 < mat.m22) {
+				float s = (float) Math.sqrt(mat.m22 - mat.m00 - mat.m11 + 1.0f);
+				float z = s * 0.5f;
+				s = 0.5f / s;
+				dest.set((mat.m02 + mat.m20) * s, (mat.m12 + mat.m21) * s, z, (mat.m10 - mat.m01) * s);
+			}
+			else {
+				float s = (float) Math.sqrt(mat.m11 - mat.m22 - mat.m00 + 1.0f);
+				float y = s * 0.5f;
+				s = 0.5f / s;
+				dest.set((mat.m01 + mat.m10) * s, y, (mat.m21 + mat.m12) * s, (mat.m02 - mat.m20) * s);
+			}
+		}
+		else if (mat.m00 < mat.m22) {
+			float s = (float) Math.sqrt(mat.m22 - mat.m00 - mat.m11 + 1.0f);
+			float z = s * 0.5f;
+			s = 0.5f / s;
+			dest.set((mat.m02 + mat.m20) * s, (mat.m12 + mat.m21) * s, z, (mat.m10 - mat.m01) * s);
 		}
 		else {
-			int i = mat.m00 < mat.m11 ? (mat.m11 < mat.m22 ? 2 : 1) : (mat.m00 < mat.m22 ? 2 : 0);
-			int j = (i + 1) % 3;
-			int k = (i + 2) % 3;
-
-			float s = (float) Math.sqrt(mat.getElement(i, i) - mat.getElement(j, j) - mat.getElement(k, k) + 1.0f);
-			temp[i] = s * 0.5f;
+			float s = (float) Math.sqrt(mat.m00 - mat.m11 - mat.m22 + 1.0f);
+			float x = s * 0.5f;
 			s = 0.5f / s;
-
-			temp[3] = (mat.getElement(k, j) - mat.getElement(j, k)) * s;
-			temp[j] = (mat.getElement(j, i) + mat.getElement(i, j)) * s;
-			temp[k] = (mat.getElement(k, i) + mat.getElement(i, k)) * s;
+			dest.set(x, (mat.m10 + mat.m01) * s, (mat.m20 + mat.m02) * s, (mat.m21 - mat.m12) * s);
 		}
-		dest.set(temp[0], temp[1], temp[2], temp[3]);
-		
-		floatArrays.release(temp);
 	}
 
 	private static float cofac(Matrix3f mat, int r1, int c1, int r2, int c2) {
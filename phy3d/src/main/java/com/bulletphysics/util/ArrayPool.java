@@ -31,6 +31,8 @@ import java.util.Map;
 
 /**
  * Object pool for arrays.
+ * <p>
+ * Like {@link ObjectPool}, a pool belongs to the thread that obtained it and is not thread-safe.
  *
  * @author jezek2
  */
@@ -80,6 +82,8 @@ public class ArrayPool<T> {
 
     /**
      * Returns per-thread array pool for given type, or create one if it doesn't exist.
+     * Like {@link ObjectPool#get}, resolve it once rather than per call; and for small arrays
+     * of a fixed length prefer an owned array or locals to {@link #getFixed}, which searches.
      *
      * @param cls type
      * @return object pool
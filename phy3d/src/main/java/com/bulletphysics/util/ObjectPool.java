@@ -30,6 +30,12 @@ import java.util.Map;
 
 /**
  * Object pool.
+ * <p>
+ * Pools are not thread-safe.  A pool obtained with {@link #get} belongs to the calling thread,
+ * and an object that keeps one in a field may only be used by the thread that created it.
+ * Objects that are handed to worker threads (eg. the per-task solvers of a parallel
+ * {@link com.bulletphysics.dynamics.DiscreteDynamicsWorld} step) use an {@link #owned} pool
+ * or keep their temporaries in fields instead.
  *
  * @author jezek2
  */
@@ -53,6 +59,8 @@ public class ObjectPool<T> {
 
     /**
      * Returns per-thread object pool for given type, or create one if it doesn't exist.
+     * This costs a thread-local and a hash lookup, so resolve pools once, when constructing
+     * their user, rather than per call.
      *
      * @param cls type
      * @return object pool
@@ -70,6 +78,17 @@ public class ObjectPool<T> {
         return pool;
     }
 
+    /**
+     * Returns a new pool that is not shared with the current thread, for an owner that may
+     * be used by different threads, one at a time.
+     *
+     * @param cls type
+     * @return object pool
+     */
+    public static <T> ObjectPool<T> owned(Class<T> cls) {
+        return new ObjectPool<>(cls);
+    }
+
     public static void cleanCurrentThread() {
         threadLocal.remove();
     }
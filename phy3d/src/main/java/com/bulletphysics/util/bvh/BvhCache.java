@@ -0,0 +1,117 @@
+package com.bulletphysics.util.bvh;
+
+import com.bulletphysics.collision.shapes.mesh.StridingMeshInterface;
+import com.bulletphysics.collision.shapes.util.VertexData;
+import org.jetbrains.annotations.Nullable;
+
+import javax.vecmath.Vector3f;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Binary files of built trees, so that a mesh seen before skips its build.  A file is a header of
+ * the kind of tree and the {@link #meshHash} of the mesh it was built from, then the node arrays as
+ * the tree writes them, little endian.  Files are read memory mapped, and written to a temporary
+ * file that then replaces the old one, so a reader never sees half a file.
+ */
+public final class BvhCache {
+
+    /** "JBVH" */
+    private static final int MAGIC = 0x4A425648;
+    private static final int VERSION = 1;
+    private static final int HEADER = 24;
+
+    /** kinds of tree */
+    public static final int OPTIMIZED_QUANTIZED = 1, OPTIMIZED = 2, GIMPACT = 3;
+
+    private BvhCache() {
+    }
+
+    /**
+     * 64 bit hash of the vertices, indices and scaling of all parts of the mesh, which are what a
+     * tree of it depends on.
+     */
+    public static long meshHash(StridingMeshInterface mesh) {
+        long h = mix(0x9E3779B97F4A7C15L, mesh.getNumSubParts());
+
+        Vector3f v = new Vector3f();
+        for (int part = 0, n = mesh.getNumSubParts(); part < n; part++) {
+            VertexData data = mesh.getLockedReadOnlyVertexIndexBase(part);
+            try {
+                int vertices = data.getVertexCount(), indices = data.getIndexCount();
+                h = mix(h, vertices);
+                h = mix(h, indices);
+                for (int i = 0; i < vertices; i++) {
+                    data.getVertex(i, v);
+                    h = mix(h, ((long) Float.floatToIntBits(v.x) << 32) | (Float.floatToIntBits(v.y) & 0xFFFFFFFFL));
+                    h = mix(h, Float.floatToIntBits(v.z));
+                }
+                for (int i = 0; i < indices; i++)
+                    h = mix(h, data.getIndex(i));
+            } finally {
+                mesh.unLockReadOnlyVertexBase(part);
+            }
+        }
+
+        mesh.getScaling(v);
+        h = mix(h, ((long) Float.floatToIntBits(v.x) << 32) | (Float.floatToIntBits(v.y) & 0xFFFFFFFFL));
+        return mix(h, Float.floatToIntBits(v.z));
+    }
+
+    private static long mix(long h, long x) {
+        h = (h ^ x) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Maps the file, returning its payload if it holds a tree of this kind for this mesh hash, or
+     * null if there is no such file or it holds something else.
+     */
+    public static @Nullable ByteBuffer map(Path file, int kind, long meshHash) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER)
+                return null;
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getInt() != kind)
+            return null;
+        buf.getInt();
+        if (buf.getLong() != meshHash)
+            return null;
+        return buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes the file, giving the writer a mapped payload of the given size to fill, and replaces
+     * any file already there once it is complete.
+     */
+    public static void write(Path file, int kind, long meshHash, int payloadBytes, Consumer<ByteBuffer> writer) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) payloadBytes);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(0).putLong(meshHash);
+            writer.accept(buf.slice().order(ByteOrder.LITTLE_ENDIAN));
+            buf.force();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
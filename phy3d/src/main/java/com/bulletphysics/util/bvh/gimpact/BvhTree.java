@@ -31,6 +31,8 @@ import com.bulletphysics.extras.gimpact.BoxCollision.AABB;
 import com.bulletphysics.linearmath.VectorUtil;
 
 import javax.vecmath.Vector3f;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
 /**
  * @author jezek2
@@ -197,6 +199,26 @@ public class BvhTree {
         _build_sub_tree(primitive_boxes, 0, primitive_boxes.size());
     }
 
+    /** bytes {@link #write} takes */
+    public int serializedSize() {
+        return 4 + num_nodes * (6 * 4 + 4);
+    }
+
+    public void write(ByteBuffer out) {
+        out.putInt(num_nodes);
+        node_array.write(out, num_nodes);
+    }
+
+    /** replaces the tree by one written by {@link #write} */
+    public void read(ByteBuffer in) {
+        int n = in.getInt();
+        if (n < 0 || (long) n * (6 * 4 + 4) > in.remaining())
+            throw new BufferUnderflowException(); // before allocating for a corrupt count
+        num_nodes = 0;
+        node_array.read(in, n);
+        num_nodes = n;
+    }
+
     public void clearNodes() {
         node_array.clear();
         num_nodes = 0;
@@ -30,6 +30,8 @@ package com.bulletphysics.util.bvh.gimpact;
 import com.bulletphysics.extras.gimpact.BoxCollision.AABB;
 import jcog.util.ArrayUtil;
 
+import java.nio.ByteBuffer;
+
 /**
  * @author jezek2
  */
@@ -57,6 +59,24 @@ class BvhTreeNodeArray {
         size = newSize;
     }
 
+    /** writes the first num nodes, bounds first */
+    void write(ByteBuffer out, int num) {
+        out.asFloatBuffer().put(bound, 0, num * 6);
+        out.position(out.position() + num * 6 * 4);
+        out.asIntBuffer().put(escapeIndexOrDataIndex, 0, num);
+        out.position(out.position() + num * 4);
+    }
+
+    /** replaces the nodes by num nodes written by {@link #write} */
+    void read(ByteBuffer in, int num) {
+        size = 0;
+        resize(num);
+        in.asFloatBuffer().get(bound, 0, num * 6);
+        in.position(in.position() + num * 6 * 4);
+        in.asIntBuffer().get(escapeIndexOrDataIndex, 0, num);
+        in.position(in.position() + num * 4);
+    }
+
     public void set(int destIdx, BvhTreeNodeArray array, int srcIdx) {
         int dpos = destIdx * 6;
         int spos = srcIdx * 6;
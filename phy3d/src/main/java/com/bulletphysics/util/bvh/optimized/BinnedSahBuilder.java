@@ -0,0 +1,307 @@
+package com.bulletphysics.util.bvh.optimized;
+
+import com.bulletphysics.collision.shapes.util.InternalTriangleIndexCallback;
+import com.bulletphysics.util.ObjectArrayList;
+import org.jetbrains.annotations.Nullable;
+
+import javax.vecmath.Vector3f;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds the nodes of an {@link OptimizedBvh} top-down, splitting each range of triangles where
+ * the surface area heuristic, evaluated over {@link #BINS} bins of the centroids per axis, is
+ * lowest.  A range of k triangles takes 2k-1 nodes, so the nodes of both halves of a split are
+ * known before either is built, and ranges above {@link #GRAIN} triangles are built in parallel
+ * into their own part of the node array.  The tree does not depend on the parallelism.
+ */
+final class BinnedSahBuilder extends InternalTriangleIndexCallback {
+
+    static final int BINS = 16;
+    /** ranges of at most this many triangles are built by one task */
+    static final int GRAIN = 1 << 12;
+    /** deeper ranges are halved by count, which bounds the depth of degenerate meshes */
+    static final int MAX_SAH_DEPTH = 64;
+
+    private final OptimizedBvh bvh;
+    private final boolean quantized;
+
+    /** min x, y, z, max x, y, z of each triangle */
+    private float[] bounds = new float[6 * 256];
+    private int[] parts = new int[256], triangles = new int[256];
+    private int size;
+
+    /** triangles, ordered by the splits */
+    private int[] order;
+
+    private QuantizedBvhNodes quantizedNodes;
+    private ObjectArrayList<OptimizedBvhNode> nodes;
+
+    BinnedSahBuilder(OptimizedBvh bvh, boolean quantized) {
+        this.bvh = bvh;
+        this.quantized = quantized;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void internalProcessTriangleIndex(Vector3f[] triangle, int partId, int triangleIndex) {
+        if (size == parts.length) {
+            bounds = Arrays.copyOf(bounds, size * 12);
+            parts = Arrays.copyOf(parts, size * 2);
+            triangles = Arrays.copyOf(triangles, size * 2);
+        }
+
+        float minX = Math.min(triangle[0].x, Math.min(triangle[1].x, triangle[2].x));
+        float minY = Math.min(triangle[0].y, Math.min(triangle[1].y, triangle[2].y));
+        float minZ = Math.min(triangle[0].z, Math.min(triangle[1].z, triangle[2].z));
+        float maxX = Math.max(triangle[0].x, Math.max(triangle[1].x, triangle[2].x));
+        float maxY = Math.max(triangle[0].y, Math.max(triangle[1].y, triangle[2].y));
+        float maxZ = Math.max(triangle[0].z, Math.max(triangle[1].z, triangle[2].z));
+
+        if (quantized) {
+            // as QuantizedNodeTriangleCallback, for zero dimensions of aabb
+            if (maxX - minX < OptimizedBvh.MIN_AABB_DIMENSION) {
+                maxX += OptimizedBvh.MIN_AABB_HALF_DIMENSION;
+                minX -= OptimizedBvh.MIN_AABB_HALF_DIMENSION;
+            }
+            if (maxY - minY < OptimizedBvh.MIN_AABB_DIMENSION) {
+                maxY += OptimizedBvh.MIN_AABB_HALF_DIMENSION;
+                minY -= OptimizedBvh.MIN_AABB_HALF_DIMENSION;
+            }
+            if (maxZ - minZ < OptimizedBvh.MIN_AABB_DIMENSION) {
+                maxZ += OptimizedBvh.MIN_AABB_HALF_DIMENSION;
+                minZ -= OptimizedBvh.MIN_AABB_HALF_DIMENSION;
+            }
+        }
+
+        int o = size * 6;
+        bounds[o] = minX;
+        bounds[o + 1] = minY;
+        bounds[o + 2] = minZ;
+        bounds[o + 3] = maxX;
+        bounds[o + 4] = maxY;
+        bounds[o + 5] = maxZ;
+        parts[size] = partId;
+        triangles[size] = triangleIndex;
+        size++;
+    }
+
+    /** builds the 2 * {@link #size()} - 1 nodes, which must be allocated */
+    void build(@Nullable QuantizedBvhNodes quantizedNodes, @Nullable ObjectArrayList<OptimizedBvhNode> nodes, @Nullable ForkJoinPool exe) {
+        this.quantizedNodes = quantizedNodes;
+        this.nodes = nodes;
+
+        order = new int[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+
+        if (exe != null && size > GRAIN)
+            exe.invoke(new Build(0, size, 0, 0));
+        else
+            build(0, size, 0, 0, new Bins(), false);
+
+        order = null;
+    }
+
+    private void build(int start, int end, int node, int depth, Bins bins, boolean parallel) {
+        int count = end - start;
+        float[] bounds = this.bounds;
+        int[] order = this.order;
+
+        // bounds of the triangles, and of their centroids (doubled)
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        float[] cMin = bins.centroidMin, cMax = bins.centroidMax;
+        Arrays.fill(cMin, Float.POSITIVE_INFINITY);
+        Arrays.fill(cMax, Float.NEGATIVE_INFINITY);
+        for (int i = start; i < end; i++) {
+            int o = order[i] * 6;
+            minX = Math.min(minX, bounds[o]);
+            minY = Math.min(minY, bounds[o + 1]);
+            minZ = Math.min(minZ, bounds[o + 2]);
+            maxX = Math.max(maxX, bounds[o + 3]);
+            maxY = Math.max(maxY, bounds[o + 4]);
+            maxZ = Math.max(maxZ, bounds[o + 5]);
+            for (int a = 0; a < 3; a++) {
+                float c = bounds[o + a] + bounds[o + 3 + a];
+                cMin[a] = Math.min(cMin[a], c);
+                cMax[a] = Math.max(cMax[a], c);
+            }
+        }
+
+        if (count == 1) {
+            leaf(node, order[start]);
+            return;
+        }
+        internal(node, minX, minY, minZ, maxX, maxY, maxZ, 2 * count - 1);
+
+        int split = depth < MAX_SAH_DEPTH ? split(start, end, bins) : -1;
+        if (split <= start || split >= end)
+            split = start + (count >> 1);
+
+        int left = node + 1, right = node + 2 * (split - start);
+        if (parallel && count > GRAIN) {
+            ForkJoinTask.invokeAll(new Build(start, split, left, depth + 1), new Build(split, end, right, depth + 1));
+        } else {
+            build(start, split, left, depth + 1, bins, parallel);
+            build(split, end, right, depth + 1, bins, parallel);
+        }
+    }
+
+    /** partitions the range at the cheapest split, returning its index, or -1 if there is none */
+    private int split(int start, int end, Bins bins) {
+        float[] bounds = this.bounds;
+        int[] order = this.order;
+        float[] box = bins.box, rightArea = bins.rightArea;
+        int[] counts = bins.count;
+
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestAxis = -1, bestBin = 0;
+        float bestLo = 0, bestScale = 0;
+
+        for (int a = 0; a < 3; a++) {
+            float lo = bins.centroidMin[a], extent = bins.centroidMax[a] - lo;
+            if (!(extent > 0))
+                continue;
+            float scale = BINS / extent;
+
+            Arrays.fill(counts, 0);
+            for (int b = 0; b < BINS; b++)
+                empty(box, b);
+            for (int i = start; i < end; i++) {
+                int o = order[i] * 6;
+                int b = bin(bounds[o + a] + bounds[o + 3 + a], lo, scale);
+                counts[b]++;
+                int k = b * 6;
+                for (int d = 0; d < 3; d++) {
+                    box[k + d] = Math.min(box[k + d], bounds[o + d]);
+                    box[k + 3 + d] = Math.max(box[k + 3 + d], bounds[o + 3 + d]);
+                }
+            }
+
+            // areas of the bins right of each split, then sweep the left
+            float[] acc = bins.acc;
+            empty(acc, 0);
+            for (int b = BINS - 1; b > 0; b--) {
+                grow(acc, box, b);
+                rightArea[b] = area(acc);
+            }
+            empty(acc, 0);
+            int leftCount = 0;
+            for (int b = 1; b < BINS; b++) {
+                grow(acc, box, b - 1);
+                leftCount += counts[b - 1];
+                int rightCount = end - start - leftCount;
+                if (leftCount == 0 || rightCount == 0)
+                    continue;
+                float cost = area(acc) * leftCount + rightArea[b] * rightCount;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = a;
+                    bestBin = b;
+                    bestLo = lo;
+                    bestScale = scale;
+                }
+            }
+        }
+
+        if (bestAxis < 0)
+            return -1;
+
+        int i = start, j = end - 1;
+        while (i <= j) {
+            int o = order[i] * 6;
+            if (bin(bounds[o + bestAxis] + bounds[o + 3 + bestAxis], bestLo, bestScale) < bestBin) {
+                i++;
+            } else {
+                int t = order[i];
+                order[i] = order[j];
+                order[j--] = t;
+            }
+        }
+        return i;
+    }
+
+    private static int bin(float centroid, float lo, float scale) {
+        return Math.min(BINS - 1, (int) ((centroid - lo) * scale));
+    }
+
+    private static void empty(float[] box, int b) {
+        int k = b * 6;
+        Arrays.fill(box, k, k + 3, Float.POSITIVE_INFINITY);
+        Arrays.fill(box, k + 3, k + 6, Float.NEGATIVE_INFINITY);
+    }
+
+    private static void grow(float[] acc, float[] box, int b) {
+        int k = b * 6;
+        for (int d = 0; d < 3; d++) {
+            acc[d] = Math.min(acc[d], box[k + d]);
+            acc[3 + d] = Math.max(acc[3 + d], box[k + 3 + d]);
+        }
+    }
+
+    /** half the surface area */
+    private static float area(float[] box) {
+        float dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    private void leaf(int node, int triangle) {
+        float[] b = bounds;
+        int o = triangle * 6;
+        if (quantized) {
+            quantizedNodes.setQuantizedAabbMin(node, bvh.quantizeWithClamp(b[o], b[o + 1], b[o + 2]));
+            quantizedNodes.setQuantizedAabbMax(node, bvh.quantizeWithClamp(b[o + 3], b[o + 4], b[o + 5]));
+            quantizedNodes.escapeIndexOrTriangleIndex(node, (parts[triangle] << (31 - OptimizedBvh.MAX_NUM_PARTS_IN_BITS)) | triangles[triangle]);
+        } else {
+            OptimizedBvhNode n = nodes.get(node);
+            n.min.set(b[o], b[o + 1], b[o + 2]);
+            n.max.set(b[o + 3], b[o + 4], b[o + 5]);
+            n.escapeIndex = -1;
+            n.part = parts[triangle];
+            n.i = triangles[triangle];
+        }
+    }
+
+    private void internal(int node, float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int escapeIndex) {
+        if (quantized) {
+            quantizedNodes.setQuantizedAabbMin(node, bvh.quantizeWithClamp(minX, minY, minZ));
+            quantizedNodes.setQuantizedAabbMax(node, bvh.quantizeWithClamp(maxX, maxY, maxZ));
+            quantizedNodes.escapeIndexOrTriangleIndex(node, -escapeIndex);
+        } else {
+            OptimizedBvhNode n = nodes.get(node);
+            n.min.set(minX, minY, minZ);
+            n.max.set(maxX, maxY, maxZ);
+            n.escapeIndex = escapeIndex;
+        }
+    }
+
+    /** scratch of one task */
+    private static final class Bins {
+        final float[] box = new float[BINS * 6], acc = new float[6];
+        final float[] rightArea = new float[BINS];
+        final int[] count = new int[BINS];
+        final float[] centroidMin = new float[3], centroidMax = new float[3];
+    }
+
+    private final class Build extends RecursiveAction {
+        private final int start, end, node, depth;
+
+        Build(int start, int end, int node, int depth) {
+            this.start = start;
+            this.end = end;
+            this.node = node;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            build(start, end, node, depth, new Bins(), true);
+        }
+    }
+}
@@ -27,15 +27,22 @@ import com.bulletphysics.collision.shapes.mesh.StridingMeshInterface;
 import com.bulletphysics.collision.shapes.util.InternalTriangleIndexCallback;
 import com.bulletphysics.collision.shapes.util.VertexData;
 import com.bulletphysics.linearmath.AabbUtil2;
-import com.bulletphysics.linearmath.MiscUtil;
 import com.bulletphysics.linearmath.VectorUtil;
 import com.bulletphysics.util.ObjectArrayList;
+import com.bulletphysics.util.bvh.BvhCache;
 import com.bulletphysics.util.bvh.BvhSubtreeInfo;
 import com.bulletphysics.util.bvh.NodeOverlapCallback;
+import org.jetbrains.annotations.Nullable;
 
 import javax.vecmath.Vector3f;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 // JAVA NOTE: OptimizedBvh still from 2.66, update it for 2.70b1
 
@@ -51,9 +58,14 @@ public class OptimizedBvh implements Serializable {
 
     // Note: currently we have 16 bytes per quantized node
     private static final int MAX_SUBTREE_SIZE_IN_BYTES = 2048;
+    // min, max, escapeIndex, part, i of a saved non-quantized node
+    private static final int CONTIGUOUS_NODE_SIZE = 36;
     // 10 gives the potential for 1024 parts, with at most 2^21 (2097152) (minus one
     // actually) triangles each (since the sign bit is reserved
     public static final int MAX_NUM_PARTS_IN_BITS = 10;
+    // PCK: for zero dimensions of aabb
+    static final float MIN_AABB_DIMENSION = 0.002f;
+    static final float MIN_AABB_HALF_DIMENSION = 0.001f;
     private static final boolean DEBUG_TREE_BUILDING = false;
     private static int gStackDepth = 0;
     private static int gMaxStackDepth = 0;
@@ -75,42 +87,50 @@ public class OptimizedBvh implements Serializable {
     // quantization data
     private boolean useQuantization;
 
-    public static void refitPartial(StridingMeshInterface meshInterface, Vector3f aabbMin, Vector3f aabbMax) {
-        throw new UnsupportedOperationException();
-//		// incrementally initialize quantization values
-//		assert (useQuantization);
-//
-//		btAssert(aabbMin.getX() > m_bvhAabbMin.getX());
-//		btAssert(aabbMin.getY() > m_bvhAabbMin.getY());
-//		btAssert(aabbMin.getZ() > m_bvhAabbMin.getZ());
-//
-//		btAssert(aabbMax.getX() < m_bvhAabbMax.getX());
-//		btAssert(aabbMax.getY() < m_bvhAabbMax.getY());
-//		btAssert(aabbMax.getZ() < m_bvhAabbMax.getZ());
-//
-//		///we should update all quantization values, using updateBvhNodes(meshInterface);
-//		///but we only update chunks that overlap the given aabb
-//
-//		unsigned short	quantizedQueryAabbMin[3];
-//		unsigned short	quantizedQueryAabbMax[3];
-//
-//		quantizeWithClamp(&quantizedQueryAabbMin[0],aabbMin);
-//		quantizeWithClamp(&quantizedQueryAabbMax[0],aabbMax);
-//
-//		int i;
-//		for (i=0;i<this->m_SubtreeHeaders.size();i++)
-//		{
-//			btBvhSubtreeInfo& subtree = m_SubtreeHeaders[i];
-//
-//			//PCK: unsigned instead of bool
-//			unsigned overlap = testQuantizedAabbAgainstQuantizedAabb(quantizedQueryAabbMin,quantizedQueryAabbMax,subtree.m_quantizedAabbMin,subtree.m_quantizedAabbMax);
-//			if (overlap != 0)
-//			{
-//				updateBvhNodes(meshInterface,subtree.m_rootNodeIndex,subtree.m_rootNodeIndex+subtree.m_subtreeSize,i);
-//
-//				subtree.setAabbFromQuantizeNode(m_quantizedContiguousNodes[subtree.m_rootNodeIndex]);
-//			}
-//		}
+    /**
+     * Refits the subtrees whose bounds overlap the given aabb, then the nodes above them, keeping
+     * the quantization, so the aabb should be within the bounds the tree was built for.  The rest
+     * of the tree is not touched.
+     */
+    public void refitPartial(StridingMeshInterface meshInterface, Vector3f aabbMin, Vector3f aabbMax) {
+        if (!useQuantization) {
+            refit(meshInterface);
+            return;
+        }
+
+        ///we should update all quantization values, using updateBvhNodes(meshInterface);
+        ///but we only update chunks that overlap the given aabb
+        long quantizedQueryAabbMin = quantizeWithClamp(aabbMin);
+        long quantizedQueryAabbMax = quantizeWithClamp(aabbMax);
+
+        BitSet dirty = new BitSet();
+        for (int i = 0, n = SubtreeHeaders.size(); i < n; i++) {
+            BvhSubtreeInfo subtree = SubtreeHeaders.get(i);
+            int root = subtree.rootNodeIndex;
+            if (testQuantizedAabbAgainstQuantizedAabb(quantizedQueryAabbMin, quantizedQueryAabbMax, quantizedContiguousNodes.getQuantizedAabbMin(root), quantizedContiguousNodes.getQuantizedAabbMax(root))) {
+                updateBvhNodes(meshInterface, root, root + subtree.subtreeSize, i);
+                subtree.setAabbFromQuantizeNode(quantizedContiguousNodes, root);
+                dirty.set(root);
+            }
+        }
+
+        if (!dirty.isEmpty())
+            refitAbove(0, dirty);
+    }
+
+    /** merges the children of the nodes above the dirty subtree roots */
+    private void refitAbove(int node, BitSet dirty) {
+        if (dirty.get(node) || quantizedContiguousNodes.isLeafNode(node))
+            return;
+        int below = dirty.nextSetBit(node);
+        if (below < 0 || below >= node + quantizedContiguousNodes.escapeIndex(node))
+            return;
+
+        int leftChildNodeId = node + 1;
+        int rightChildNodeId = quantizedContiguousNodes.isLeafNode(leftChildNodeId) ? node + 2 : node + 1 + quantizedContiguousNodes.escapeIndex(leftChildNodeId);
+        refitAbove(leftChildNodeId, dirty);
+        refitAbove(rightChildNodeId, dirty);
+        mergeChildren(node);
     }
 
     private static boolean testQuantizedAabbAgainstQuantizedAabb(long aabbMin1, long aabbMax1, long aabbMin2, long aabbMax2) {
@@ -277,13 +297,79 @@ public class OptimizedBvh implements Serializable {
 
             // TODO: check
             //contiguousNodes.resize(2*numLeafNodes);
-            MiscUtil.resize(contiguousNodes, 2 * numLeafNodes, OptimizedBvhNode.class);
+            resizeContiguousNodes(2 * numLeafNodes);
         }
 
         curNodeIndex = 0;
 
         buildTree(0, numLeafNodes);
 
+        finishBuild();
+    }
+
+    /**
+     * Builds the tree as {@link #build}, but with binned surface area heuristic splits instead of
+     * splits at the mean, building large subtrees in parallel on the pool if given.  The tree
+     * does not depend on the pool.
+     */
+    public void buildSah(StridingMeshInterface triangles, boolean useQuantizedAabbCompression, Vector3f _aabbMin, Vector3f _aabbMax, @Nullable ForkJoinPool exe) {
+        this.useQuantization = useQuantizedAabbCompression;
+        SubtreeHeaders.clear();
+
+        BinnedSahBuilder builder = new BinnedSahBuilder(this, useQuantization);
+        if (useQuantization) {
+            // initialize quantization values
+            setQuantizationValues(_aabbMin, _aabbMax);
+            triangles.internalProcessAllTriangles(builder, bvhAabbMin, bvhAabbMax);
+        } else {
+            Vector3f aabbMin = new Vector3f(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+            Vector3f aabbMax = new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+            triangles.internalProcessAllTriangles(builder, aabbMin, aabbMax);
+        }
+
+        int numLeafNodes = builder.size();
+        curNodeIndex = 0;
+        if (numLeafNodes == 0) {
+            subtreeHeaderCount = 0;
+            return;
+        }
+
+        if (useQuantization) {
+            quantizedContiguousNodes.resize(2 * numLeafNodes);
+            builder.build(quantizedContiguousNodes, null, exe);
+        } else {
+            resizeContiguousNodes(2 * numLeafNodes);
+            builder.build(null, contiguousNodes, exe);
+        }
+        curNodeIndex = 2 * numLeafNodes - 1;
+
+        if (useQuantization)
+            addSubtreeHeaders(0);
+
+        finishBuild();
+    }
+
+    // JAVA NOTE: MiscUtil.resize can't reach the package-private constructor
+    private void resizeContiguousNodes(int size) {
+        while (contiguousNodes.size() < size)
+            contiguousNodes.add(new OptimizedBvhNode());
+        while (contiguousNodes.size() > size)
+            contiguousNodes.removeQuick(contiguousNodes.size() - 1);
+    }
+
+    /** adds the headers of the subtrees below a node too large for one, as {@link #buildTree} does */
+    private void addSubtreeHeaders(int node) {
+        if (quantizedContiguousNodes.isLeafNode(node) || quantizedContiguousNodes.escapeIndex(node) * QuantizedBvhNodes.getNodeSize() <= MAX_SUBTREE_SIZE_IN_BYTES)
+            return;
+
+        int leftChildNodeId = node + 1;
+        int rightChildNodeId = quantizedContiguousNodes.isLeafNode(leftChildNodeId) ? node + 2 : node + 1 + quantizedContiguousNodes.escapeIndex(leftChildNodeId);
+        updateSubtreeHeaders(leftChildNodeId, rightChildNodeId);
+        addSubtreeHeaders(leftChildNodeId);
+        addSubtreeHeaders(rightChildNodeId);
+    }
+
+    private void finishBuild() {
         //  if the entire tree is small then subtree size, we need to create a header info for the tree
         if (useQuantization && SubtreeHeaders.isEmpty()) {
             BvhSubtreeInfo subtree = new BvhSubtreeInfo();
@@ -302,6 +388,96 @@ public class OptimizedBvh implements Serializable {
         leafNodes.clear();
     }
 
+    /**
+     * Writes the tree to a {@link BvhCache} file, for a mesh of the given {@link BvhCache#meshHash}.
+     */
+    public void save(Path file, long meshHash) throws IOException {
+        int nodes = curNodeIndex;
+        int nodeBytes = useQuantization ? QuantizedBvhNodes.getNodeSize() : CONTIGUOUS_NODE_SIZE;
+        BvhCache.write(file, useQuantization ? BvhCache.OPTIMIZED_QUANTIZED : BvhCache.OPTIMIZED, meshHash,
+                4 + 9 * 4 + nodes * nodeBytes, out -> {
+                    out.putInt(nodes);
+                    put(out, bvhAabbMin);
+                    put(out, bvhAabbMax);
+                    put(out, bvhQuantization);
+                    if (useQuantization) {
+                        quantizedContiguousNodes.write(out.asIntBuffer(), nodes);
+                    } else {
+                        for (int i = 0; i < nodes; i++) {
+                            OptimizedBvhNode n = contiguousNodes.get(i);
+                            put(out, n.min);
+                            put(out, n.max);
+                            out.putInt(n.escapeIndex).putInt(n.part).putInt(n.i);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Loads a tree written by {@link #save} for a mesh of the given hash, or returns null if there
+     * is no such file or it holds another tree.  The quantized nodes are copied out of the mapped
+     * file in bulk and only the subtree headers are rebuilt, which is linear in the subtrees.
+     */
+    public static @Nullable OptimizedBvh load(Path file, long meshHash, boolean useQuantizedAabbCompression) throws IOException {
+        ByteBuffer in = BvhCache.map(file, useQuantizedAabbCompression ? BvhCache.OPTIMIZED_QUANTIZED : BvhCache.OPTIMIZED, meshHash);
+        if (in == null)
+            return null;
+
+        OptimizedBvh bvh = new OptimizedBvh();
+        try {
+            bvh.read(in, useQuantizedAabbCompression);
+        } catch (BufferUnderflowException e) {
+            // truncated
+            return null;
+        }
+        return bvh;
+    }
+
+    private void read(ByteBuffer in, boolean useQuantizedAabbCompression) {
+        useQuantization = useQuantizedAabbCompression;
+        SubtreeHeaders.clear();
+
+        int nodes = in.getInt();
+        get(in, bvhAabbMin);
+        get(in, bvhAabbMax);
+        get(in, bvhQuantization);
+        int nodeSize = useQuantization ? QuantizedBvhNodes.getNodeSize() : (6 + 3) * 4;
+        if (nodes < 0 || (long) nodes * nodeSize > in.remaining())
+            throw new BufferUnderflowException(); // before allocating for a corrupt count
+        if (useQuantization) {
+            quantizedContiguousNodes.read(in.asIntBuffer(), nodes);
+        } else {
+            resizeContiguousNodes(nodes);
+            for (int i = 0; i < nodes; i++) {
+                OptimizedBvhNode n = contiguousNodes.get(i);
+                get(in, n.min);
+                get(in, n.max);
+                n.escapeIndex = in.getInt();
+                n.part = in.getInt();
+                n.i = in.getInt();
+            }
+        }
+
+        curNodeIndex = nodes;
+        if (nodes == 0) {
+            subtreeHeaderCount = 0;
+            return;
+        }
+
+        if (useQuantization)
+            addSubtreeHeaders(0);
+
+        finishBuild();
+    }
+
+    private static void put(ByteBuffer out, Vector3f v) {
+        out.putFloat(v.x).putFloat(v.y).putFloat(v.z);
+    }
+
+    private static void get(ByteBuffer in, Vector3f v) {
+        v.set(in.getFloat(), in.getFloat(), in.getFloat());
+    }
+
     public void refit(StridingMeshInterface meshInterface) {
         if (useQuantization) {
             // calculate new aabb
@@ -350,6 +526,7 @@ public class OptimizedBvh implements Serializable {
                         meshInterface.unLockReadOnlyVertexBase(curNodeSubPart);
                     }
                     data = meshInterface.getLockedReadOnlyVertexIndexBase(nodeSubPart);
+                    curNodeSubPart = nodeSubPart;
                 }
                 //triangles->getLockedReadOnlyVertexIndexBase(vertexBase,numVerts,
 
@@ -368,28 +545,33 @@ public class OptimizedBvh implements Serializable {
                 curNodes.setQuantizedAabbMax(i, quantizeWithClamp(aabbMax));
             } else {
                 // combine aabb from both children
+                mergeChildren(i);
+            }
+        }
 
-                //quantizedContiguousNodes
-                int leftChildNodeId = i + 1;
+        if (curNodeSubPart >= 0) {
+            meshInterface.unLockReadOnlyVertexBase(curNodeSubPart);
+        }
+    }
 
-                int rightChildNodeId = quantizedContiguousNodes.isLeafNode(leftChildNodeId) ? i + 2 : i + 1 + quantizedContiguousNodes.escapeIndex(leftChildNodeId);
+    private void mergeChildren(int i) {
+        QuantizedBvhNodes curNodes = quantizedContiguousNodes;
 
-                for (int i2 = 0; i2 < 3; i2++) {
-                    curNodes.setQuantizedAabbMin(i, i2, quantizedContiguousNodes.getQuantizedAabbMin(leftChildNodeId, i2));
-                    if (curNodes.getQuantizedAabbMin(i, i2) > quantizedContiguousNodes.getQuantizedAabbMin(rightChildNodeId, i2)) {
-                        curNodes.setQuantizedAabbMin(i, i2, quantizedContiguousNodes.getQuantizedAabbMin(rightChildNodeId, i2));
-                    }
+        //quantizedContiguousNodes
+        int leftChildNodeId = i + 1;
 
-                    curNodes.setQuantizedAabbMax(i, i2, quantizedContiguousNodes.getQuantizedAabbMax(leftChildNodeId, i2));
-                    if (curNodes.getQuantizedAabbMax(i, i2) < quantizedContiguousNodes.getQuantizedAabbMax(rightChildNodeId, i2)) {
-                        curNodes.setQuantizedAabbMax(i, i2, quantizedContiguousNodes.getQuantizedAabbMax(rightChildNodeId, i2));
-                    }
-                }
+        int rightChildNodeId = quantizedContiguousNodes.isLeafNode(leftChildNodeId) ? i + 2 : i + 1 + quantizedContiguousNodes.escapeIndex(leftChildNodeId);
+
+        for (int i2 = 0; i2 < 3; i2++) {
+            curNodes.setQuantizedAabbMin(i, i2, quantizedContiguousNodes.getQuantizedAabbMin(leftChildNodeId, i2));
+            if (curNodes.getQuantizedAabbMin(i, i2) > quantizedContiguousNodes.getQuantizedAabbMin(rightChildNodeId, i2)) {
+                curNodes.setQuantizedAabbMin(i, i2, quantizedContiguousNodes.getQuantizedAabbMin(rightChildNodeId, i2));
             }
-        }
 
-        if (curNodeSubPart >= 0) {
-            meshInterface.unLockReadOnlyVertexBase(curNodeSubPart);
+            curNodes.setQuantizedAabbMax(i, i2, quantizedContiguousNodes.getQuantizedAabbMax(leftChildNodeId, i2));
+            if (curNodes.getQuantizedAabbMax(i, i2) < quantizedContiguousNodes.getQuantizedAabbMax(rightChildNodeId, i2)) {
+                curNodes.setQuantizedAabbMax(i, i2, quantizedContiguousNodes.getQuantizedAabbMax(rightChildNodeId, i2));
+            }
         }
     }
 
@@ -900,19 +1082,20 @@ public class OptimizedBvh implements Serializable {
     }
 
     private long quantizeWithClamp(Vector3f point) {
-        assert (useQuantization);
+        return quantizeWithClamp(point.x, point.y, point.z);
+    }
 
-        Vector3f clampedPoint = new Vector3f(point);
-        VectorUtil.setMax(clampedPoint, bvhAabbMin);
-        VectorUtil.setMin(clampedPoint, bvhAabbMax);
+    long quantizeWithClamp(float x, float y, float z) {
+        assert (useQuantization);
 
-        Vector3f v = new Vector3f();
-        v.sub(clampedPoint, bvhAabbMin);
-        VectorUtil.mul(v, v, bvhQuantization);
+        Vector3f min = bvhAabbMin, max = bvhAabbMax, q = bvhQuantization;
+        float vx = (Math.min(Math.max(x, min.x), max.x) - min.x) * q.x;
+        float vy = (Math.min(Math.max(y, min.y), max.y) - min.y) * q.y;
+        float vz = (Math.min(Math.max(z, min.z), max.z) - min.z) * q.z;
 
-        int out0 = (int) (v.x + 0.5f) & 0xFFFF;
-        int out1 = (int) (v.y + 0.5f) & 0xFFFF;
-        int out2 = (int) (v.z + 0.5f) & 0xFFFF;
+        int out0 = (int) (vx + 0.5f) & 0xFFFF;
+        int out1 = (int) (vy + 0.5f) & 0xFFFF;
+        int out2 = (int) (vz + 0.5f) & 0xFFFF;
 
         return out0 | (((long) out1) << 16) | (((long) out2) << 32);
     }
@@ -972,8 +1155,6 @@ public class OptimizedBvh implements Serializable {
             VectorUtil.setMax(aabbMax, triangle[2]);
 
             // PCK: add these checks for zero dimensions of aabb
-            final float MIN_AABB_DIMENSION = 0.002f;
-            final float MIN_AABB_HALF_DIMENSION = 0.001f;
             if (aabbMax.x - aabbMin.x < MIN_AABB_DIMENSION) {
                 aabbMax.x = (aabbMax.x + MIN_AABB_HALF_DIMENSION);
                 aabbMin.x = (aabbMin.x - MIN_AABB_HALF_DIMENSION);
@@ -24,6 +24,7 @@
 package com.bulletphysics.util.bvh.optimized;
 
 import java.io.Serializable;
+import java.nio.IntBuffer;
 
 /**
  * QuantizedBvhNodes is array of compressed AABB nodes, each of 16 bytes.
@@ -84,6 +85,18 @@ public class QuantizedBvhNodes implements Serializable {
 	static int getNodeSize() {
 		return STRIDE*4;
 	}
+
+	/** writes the first num nodes */
+	void write(IntBuffer out, int num) {
+		out.put(buf, 0, num*STRIDE);
+	}
+
+	/** replaces the nodes by num nodes read in one bulk copy */
+	void read(IntBuffer in, int num) {
+		buf = new int[Math.max(num, 16)*STRIDE];
+		in.get(buf, 0, num*STRIDE);
+		size = 0;
+	}
 	
 	public void set(int destId, QuantizedBvhNodes srcNodes, int srcId) {
 		//assert (STRIDE == 4);
@@ -0,0 +1,57 @@
+package com.bulletphysics.bench;
+
+import com.bulletphysics.collision.shapes.simple.BoxShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+
+import javax.vecmath.Vector3f;
+import java.lang.management.ManagementFactory;
+
+/**
+ * step throughput and allocation rate of the BasicDemo scene (9*9*9 boxes dropped on a ground
+ * box), while the boxes fall and collide and then once they have settled.  the allocation is
+ * measured on the stepping thread, so run it sequentially (the default) for comparable numbers.
+ */
+public class BasicSceneBench {
+
+    static final int SIZE = 9;
+    static final int WARMUP = 60, STEPS = 300, ROUNDS = 3;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+
+        System.out.println("round\tphase\tms/step\tsteps/s\tbytes/step");
+        for (int r = 0; r < ROUNDS; r++) {
+            DiscreteDynamicsWorld w = scene();
+            for (int i = 0; i < WARMUP; i++)
+                w.next(1 / 60f, 1);
+
+            for (String phase : new String[]{"falling", "settled"}) {
+                long bytes = mx.getThreadAllocatedBytes(tid);
+                long start = System.nanoTime();
+                for (int i = 0; i < STEPS; i++)
+                    w.next(1 / 60f, 1);
+                double s = (System.nanoTime() - start) / 1.0e9;
+                bytes = mx.getThreadAllocatedBytes(tid) - bytes;
+
+                System.out.printf("%d\t%s\t%.3f\t%.0f\t%d%n",
+                        r, phase, s * 1000 / STEPS, STEPS / s, bytes / STEPS);
+            }
+        }
+    }
+
+    static DiscreteDynamicsWorld scene() {
+        DiscreteDynamicsWorld w = new DiscreteDynamicsWorld();
+        w.setGravity(new Vector3f(0, -10, 0));
+
+        w.addBody(BoxPileBench.body(new BoxShape(new Vector3f(50, 50, 50)), 0, 0, -56, 0));
+
+        BoxShape box = new BoxShape(new Vector3f(1, 1, 1));
+        float x = -5 - SIZE / 2.0f, z = -3 - SIZE / 2.0f;
+        for (int k = 0; k < SIZE; k++)
+            for (int i = 0; i < SIZE; i++)
+                for (int j = 0; j < SIZE; j++)
+                    w.addBody(BoxPileBench.body(box, 1, 2 * i + x, 2 * k + 5, 2 * j + z));
+        return w;
+    }
+}
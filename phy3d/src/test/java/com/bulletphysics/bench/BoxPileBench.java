@@ -0,0 +1,103 @@
+package com.bulletphysics.bench;
+
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.simple.BoxShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
+import com.bulletphysics.linearmath.DefaultMotionState;
+import com.bulletphysics.linearmath.Transform;
+
+import javax.vecmath.Vector3f;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * step time of 10,000 boxes settling in a grid of separate piles (one simulation island each),
+ * sequentially and with {@link DiscreteDynamicsWorld#setNumTasks} 1..8.  the parallel results
+ * are checked to be identical for every number of tasks.
+ */
+public class BoxPileBench {
+
+    static final int PILES = 20, LAYERS = 5, ROW = 5; //20*20 piles of 5 layers of 5 boxes
+    static final int[] TASKS = {0, 1, 2, 4, 8};
+    static final int WARMUP = 30, STEPS = 120;
+
+    public static void main(String[] args) {
+        System.out.println("boxes\ttasks\tms/step\tmanifolds\tchecksum");
+        long expect = 0;
+        for (int t : TASKS) {
+            ForkJoinPool exe = t > 1 ? new ForkJoinPool(t) : null;
+            DiscreteDynamicsWorld w = piles();
+            w.setNumTasks(exe, t);
+
+            for (int i = 0; i < WARMUP; i++)
+                w.next(1 / 60f, 1);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < STEPS; i++)
+                w.next(1 / 60f, 1);
+            double s = (System.nanoTime() - start) / 1.0e9;
+
+            long hash = checksum(w);
+            if (t == 1)
+                expect = hash;
+
+            System.out.printf("%d\t%s\t%.3f\t%d\t%x%s%n",
+                    w.getNumCollisionObjects() - 1, t == 0 ? "sequential" : t,
+                    s * 1000 / STEPS, w.dispatcher().getNumManifolds(), hash,
+                    t > 1 && hash != expect ? " MISMATCH" : "");
+
+            if (exe != null)
+                exe.shutdown();
+        }
+    }
+
+    static long checksum(DiscreteDynamicsWorld w) {
+        long h = 1;
+        Transform t = new Transform();
+        for (CollisionObject o : w.getCollisionObjectArray()) {
+            Vector3f p = o.getWorldTransform(t).origin;
+            h = h * 31 + Float.floatToRawIntBits(p.x);
+            h = h * 31 + Float.floatToRawIntBits(p.y);
+            h = h * 31 + Float.floatToRawIntBits(p.z);
+        }
+        return h;
+    }
+
+    static DiscreteDynamicsWorld piles() {
+        DiscreteDynamicsWorld w = new DiscreteDynamicsWorld();
+        w.setGravity(new Vector3f(0, -10, 0));
+
+        float extent = PILES * ROW * 1.5f;
+        w.addBody(body(new BoxShape(new Vector3f(extent, 1, extent)), 0, 0, -1, 0));
+
+        CollisionShape box = new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f));
+        float spacing = ROW * 2.5f;
+        for (int px = 0; px < PILES; px++) {
+            for (int pz = 0; pz < PILES; pz++) {
+                float cx = (px - PILES / 2f) * spacing, cz = (pz - PILES / 2f) * spacing;
+                for (int y = 0; y < LAYERS; y++) {
+                    //alternate the rows of each layer between x and z, slightly offset so the piles topple
+                    for (int i = 0; i < ROW; i++) {
+                        float d = (i - ROW / 2f) * 1.05f + y * 0.1f;
+                        w.addBody(y % 2 == 0 ?
+                                body(box, 1, cx + d, 0.5f + y * 1.01f, cz) :
+                                body(box, 1, cx, 0.5f + y * 1.01f, cz + d));
+                    }
+                }
+            }
+        }
+        return w;
+    }
+
+    static RigidBody body(CollisionShape shape, float mass, float x, float y, float z) {
+        Transform t = new Transform();
+        t.setIdentity();
+        t.origin.set(x, y, z);
+        Vector3f inertia = new Vector3f();
+        if (mass != 0)
+            shape.calculateLocalInertia(mass, inertia);
+        return new RigidBody(new RigidBodyConstructionInfo(mass, new DefaultMotionState(t), shape, inertia));
+    }
+}
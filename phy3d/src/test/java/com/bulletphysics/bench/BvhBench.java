@@ -0,0 +1,141 @@
+package com.bulletphysics.bench;
+
+import com.bulletphysics.collision.shapes.mesh.TriangleIndexVertexArray;
+import com.bulletphysics.util.bvh.NodeOverlapCallback;
+import com.bulletphysics.util.bvh.optimized.OptimizedBvh;
+
+import javax.vecmath.Vector3f;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link OptimizedBvh} of a generated terrain of about a million triangles: build time of
+ * {@link OptimizedBvh#build} and of {@link OptimizedBvh#buildSah} on one thread and on the common
+ * pool, then aabb and ray query rates of each tree, and full vs partial refit time of a small
+ * deformed patch.  all trees hold the same leaves, so the hit counts are expected to match.
+ */
+public class BvhBench {
+
+    static final int VERTS = 708; // 2 * 707 * 707 triangles
+    static final float CELL = 1, HEIGHT = 20;
+    static final int QUERIES = 20_000, ROUNDS = 3;
+    static final float BOX = 4, PATCH = 16;
+
+    public static void main(String[] args) {
+        ByteBuffer vertices = ByteBuffer.allocateDirect(VERTS * VERTS * 3 * 4).order(ByteOrder.nativeOrder());
+        TriangleIndexVertexArray mesh = terrain(vertices);
+        Vector3f min = new Vector3f(), max = new Vector3f();
+        mesh.calculateAabbBruteForce(min, max);
+        // room for the deformation
+        min.y -= HEIGHT;
+        max.y += HEIGHT;
+
+        System.out.println("tree\tbuild ms\taabb/s\taabb hits\tray/s\tray hits");
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int t = 0; t < 3; t++) {
+                OptimizedBvh bvh = new OptimizedBvh();
+                long start = System.nanoTime();
+                switch (t) {
+                    case 0 -> bvh.build(mesh, true, min, max);
+                    case 1 -> bvh.buildSah(mesh, true, min, max, null);
+                    default -> bvh.buildSah(mesh, true, min, max, ForkJoinPool.commonPool());
+                }
+                double buildMs = (System.nanoTime() - start) / 1.0e6;
+
+                Count count = new Count();
+                Random rng = new Random(1);
+                Vector3f a = new Vector3f(), b = new Vector3f();
+                start = System.nanoTime();
+                for (int q = 0; q < QUERIES; q++) {
+                    point(rng, a);
+                    b.set(a.x + BOX, a.y + BOX, a.z + BOX);
+                    bvh.aabbOverlappingNodex(count, a, b);
+                }
+                double aabbS = (System.nanoTime() - start) / 1.0e9;
+                long aabbHits = count.n;
+
+                count.n = 0;
+                start = System.nanoTime();
+                for (int q = 0; q < QUERIES; q++) {
+                    point(rng, a);
+                    a.y = HEIGHT * 2;
+                    point(rng, b);
+                    b.y = -HEIGHT * 2;
+                    bvh.rayOverlappingNodex(count, a, b);
+                }
+                double rayS = (System.nanoTime() - start) / 1.0e9;
+
+                System.out.printf("%s\t%.1f\t%.3e\t%d\t%.3e\t%d%n",
+                        t == 0 ? "mean" : t == 1 ? "sah" : "sah/pool", buildMs,
+                        QUERIES / aabbS, aabbHits, QUERIES / rayS, count.n);
+
+                if (t == 2)
+                    refit(bvh, mesh, vertices);
+            }
+        }
+    }
+
+    /** deforms a patch in the middle, then refits the whole tree and only the patch */
+    static void refit(OptimizedBvh bvh, TriangleIndexVertexArray mesh, ByteBuffer vertices) {
+        float c = VERTS * CELL / 2;
+        for (int i = 0; i < VERTS; i++)
+            for (int j = 0; j < VERTS; j++) {
+                float x = i * CELL, z = j * CELL;
+                if (Math.abs(x - c) < PATCH && Math.abs(z - c) < PATCH) {
+                    int o = ((i + j * VERTS) * 3 + 1) * 4;
+                    vertices.putFloat(o, vertices.getFloat(o) + 1);
+                }
+            }
+
+        long start = System.nanoTime();
+        bvh.refit(mesh);
+        double fullMs = (System.nanoTime() - start) / 1.0e6;
+
+        start = System.nanoTime();
+        bvh.refitPartial(mesh, new Vector3f(c - PATCH, -HEIGHT * 2, c - PATCH), new Vector3f(c + PATCH, HEIGHT * 2, c + PATCH));
+        double partialMs = (System.nanoTime() - start) / 1.0e6;
+
+        System.out.printf("refit\tfull %.2f ms\tpartial %.3f ms%n", fullMs, partialMs);
+    }
+
+    static void point(Random rng, Vector3f out) {
+        out.set(rng.nextFloat() * VERTS * CELL, (rng.nextFloat() - 0.5f) * HEIGHT, rng.nextFloat() * VERTS * CELL);
+    }
+
+    static TriangleIndexVertexArray terrain(ByteBuffer vertices) {
+        for (int i = 0; i < VERTS; i++)
+            for (int j = 0; j < VERTS; j++) {
+                int o = (i + j * VERTS) * 3 * 4;
+                vertices.putFloat(o, i * CELL);
+                vertices.putFloat(o + 4, HEIGHT / 2 * (float) (Math.sin(i * 0.05) * Math.cos(j * 0.07)));
+                vertices.putFloat(o + 8, j * CELL);
+            }
+
+        int triangles = 2 * (VERTS - 1) * (VERTS - 1);
+        ByteBuffer indices = ByteBuffer.allocateDirect(triangles * 3 * 4).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < VERTS - 1; i++)
+            for (int j = 0; j < VERTS - 1; j++) {
+                indices.putInt(j * VERTS + i);
+                indices.putInt(j * VERTS + i + 1);
+                indices.putInt((j + 1) * VERTS + i + 1);
+
+                indices.putInt(j * VERTS + i);
+                indices.putInt((j + 1) * VERTS + i + 1);
+                indices.putInt((j + 1) * VERTS + i);
+            }
+        indices.flip();
+
+        return new TriangleIndexVertexArray(triangles, indices, 3 * 4, VERTS * VERTS, vertices, 3 * 4);
+    }
+
+    static final class Count extends NodeOverlapCallback {
+        long n;
+
+        @Override
+        public void processNode(int subPart, int triangleIndex) {
+            n++;
+        }
+    }
+}
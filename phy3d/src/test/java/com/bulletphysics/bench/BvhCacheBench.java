@@ -0,0 +1,119 @@
+package com.bulletphysics.bench;
+
+import com.bulletphysics.collision.shapes.mesh.TriangleIndexVertexArray;
+import com.bulletphysics.extras.gimpact.GImpactMeshShape;
+import com.bulletphysics.linearmath.Transform;
+import com.bulletphysics.util.bvh.BvhCache;
+import com.bulletphysics.util.bvh.optimized.OptimizedBvh;
+
+import javax.vecmath.Vector3f;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * startup time of the trees of the {@link BvhBench} terrain: a cold build against a load of the
+ * {@link BvhCache} file written by it, for {@link OptimizedBvh} and for the trees of a
+ * {@link GImpactMeshShape}.  the load time includes hashing the mesh.  the loaded optimized tree
+ * is queried as the built one, so the hit counts are expected to match, as are the bounds of the
+ * gimpact shapes.  last, files claiming more nodes than they hold are expected not to load.
+ */
+public class BvhCacheBench {
+
+    static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        ByteBuffer vertices = ByteBuffer.allocateDirect(BvhBench.VERTS * BvhBench.VERTS * 3 * 4).order(ByteOrder.nativeOrder());
+        TriangleIndexVertexArray mesh = BvhBench.terrain(vertices);
+        Vector3f min = new Vector3f(), max = new Vector3f();
+        mesh.calculateAabbBruteForce(min, max);
+
+        Path dir = Files.createTempDirectory("bvh");
+        Path optimized = dir.resolve("terrain.bvh"), gimpact = dir.resolve("terrain.gbvh");
+        try {
+            System.out.println("tree\tbuild ms\tsave ms\tload ms\thash ms\tfile MB\tbuilt\tloaded");
+            for (int r = 0; r < ROUNDS; r++) {
+                long start = System.nanoTime();
+                OptimizedBvh built = new OptimizedBvh();
+                built.buildSah(mesh, true, min, max, ForkJoinPool.commonPool());
+                double buildMs = ms(start);
+
+                start = System.nanoTime();
+                long hash = BvhCache.meshHash(mesh);
+                double hashMs = ms(start);
+
+                start = System.nanoTime();
+                built.save(optimized, hash);
+                double saveMs = ms(start);
+
+                start = System.nanoTime();
+                OptimizedBvh loaded = OptimizedBvh.load(optimized, BvhCache.meshHash(mesh), true);
+                double loadMs = ms(start);
+                if (loaded == null)
+                    throw new IllegalStateException("not loaded");
+
+                System.out.printf("optimized\t%.1f\t%.1f\t%.1f\t%.1f\t%.1f\t%d\t%d%n", buildMs, saveMs, loadMs, hashMs,
+                        Files.size(optimized) / 1.0e6, hits(built), hits(loaded));
+
+                Files.deleteIfExists(gimpact);
+                start = System.nanoTime();
+                GImpactMeshShape cold = new GImpactMeshShape(mesh);
+                cold.updateBound();
+                buildMs = ms(start);
+
+                start = System.nanoTime();
+                cold.saveBvh(gimpact, hash);
+                saveMs = ms(start);
+
+                start = System.nanoTime();
+                GImpactMeshShape warm = new GImpactMeshShape(mesh, gimpact);
+                loadMs = ms(start);
+
+                System.out.printf("gimpact\t%.1f\t%.1f\t%.1f\t%.1f\t%.1f\t%s\t%s%n", buildMs, saveMs, loadMs, hashMs,
+                        Files.size(gimpact) / 1.0e6, aabb(cold), aabb(warm));
+            }
+
+            //files claiming more nodes than they hold are rejected before allocating for them
+            long hash = BvhCache.meshHash(mesh);
+            BvhCache.write(optimized, BvhCache.OPTIMIZED_QUANTIZED, hash, 4 + 9 * 4, out -> out.putInt(Integer.MAX_VALUE));
+            if (OptimizedBvh.load(optimized, hash, true) != null)
+                throw new IllegalStateException("corrupt optimized tree loaded");
+            GImpactMeshShape shape = new GImpactMeshShape(mesh);
+            BvhCache.write(gimpact, BvhCache.GIMPACT, hash, 4 + 4, out -> out.putInt(shape.getMeshPartCount()).putInt(Integer.MAX_VALUE));
+            if (shape.loadBvh(gimpact, hash))
+                throw new IllegalStateException("corrupt gimpact tree loaded");
+        } finally {
+            Files.deleteIfExists(optimized);
+            Files.deleteIfExists(gimpact);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    static double ms(long start) {
+        return (System.nanoTime() - start) / 1.0e6;
+    }
+
+    static String aabb(GImpactMeshShape shape) {
+        Transform t = new Transform();
+        t.setIdentity();
+        Vector3f min = new Vector3f(), max = new Vector3f();
+        shape.getAabb(t, min, max);
+        return min + "-" + max;
+    }
+
+    static long hits(OptimizedBvh bvh) {
+        BvhBench.Count count = new BvhBench.Count();
+        Random rng = new Random(1);
+        Vector3f a = new Vector3f(), b = new Vector3f();
+        for (int q = 0; q < BvhBench.QUERIES; q++) {
+            BvhBench.point(rng, a);
+            b.set(a.x + BvhBench.BOX, a.y + BvhBench.BOX, a.z + BvhBench.BOX);
+            bvh.aabbOverlappingNodex(count, a, b);
+        }
+        return count.n;
+    }
+}
@@ -0,0 +1,114 @@
+package com.bulletphysics.bench;
+
+import com.bulletphysics.BulletStats;
+import com.bulletphysics.collision.broadphase.*;
+
+import javax.vecmath.Vector3f;
+import java.util.Random;
+
+/**
+ * broadphase update time, with {@link HashedOverlappingPairCache} and {@link PackedOverlappingPairCache},
+ * of many small proxies jittering in a box so that a good part of their pairs come and go every
+ * step.  each step moves every proxy, updates the pairs and visits them once, as the dispatcher
+ * would.  the pair checksums of both caches are expected to match.
+ */
+public class PairChurnBench {
+
+    static final int OBJECTS = 50_000;
+    static final float FIELD = 150, SIZE = 1, JITTER = 0.5f;
+    static final int WARMUP = 20, STEPS = 100, ROUNDS = 3;
+
+    public static void main(String[] args) {
+        System.out.println("broadphase\tcache\tms/step\tpairs\tchurn/step\tchecksum");
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int b = 0; b < 2; b++) {
+                long expect = 0;
+                for (int c = 0; c < 2; c++) {
+                    OverlappingPairCache cache = c == 0 ? new HashedOverlappingPairCache() : new PackedOverlappingPairCache();
+                    Churn churn = new Churn(broadphase(b, cache));
+
+                    for (int i = 0; i < WARMUP; i++)
+                        churn.step();
+
+                    int added = BulletStats.gAddedPairs;
+                    long start = System.nanoTime();
+                    for (int i = 0; i < STEPS; i++)
+                        churn.step();
+                    double ms = (System.nanoTime() - start) / 1.0e6;
+                    int churned = BulletStats.gAddedPairs - added;
+
+                    long hash = churn.visit.hash;
+                    if (c == 0)
+                        expect = hash;
+
+                    System.out.printf("%s\t%s\t%.3f\t%d\t%d\t%x%s%n",
+                            b == 0 ? "dbvt" : "sweep", cache.getClass().getSimpleName(), ms / STEPS,
+                            cache.getNumOverlappingPairs(), churned / STEPS, hash,
+                            hash != expect ? " MISMATCH" : "");
+                }
+            }
+        }
+    }
+
+    static BroadphaseInterface broadphase(int b, OverlappingPairCache cache) {
+        if (b == 0)
+            return new DbvtBroadphase(cache);
+        // AxisSweep3 is limited to 16k handles
+        return new AxisSweep3_32(new Vector3f(-FIELD, -FIELD, -FIELD), new Vector3f(FIELD, FIELD, FIELD), OBJECTS + 1, cache);
+    }
+
+    /** proxies in a box, moved by the same random walk for any broadphase */
+    static final class Churn {
+        final BroadphaseInterface broadphase;
+        final BroadphaseProxy[] proxies = new BroadphaseProxy[OBJECTS];
+        final float[] pos = new float[OBJECTS * 3];
+        final Random rng = new Random(1);
+        final Visit visit = new Visit();
+        final Vector3f min = new Vector3f(), max = new Vector3f();
+
+        Churn(BroadphaseInterface broadphase) {
+            this.broadphase = broadphase;
+            for (int i = 0; i < OBJECTS; i++) {
+                for (int d = 0; d < 3; d++)
+                    pos[i * 3 + d] = (rng.nextFloat() - 0.5f) * FIELD;
+                bounds(i);
+                proxies[i] = broadphase.createProxy(min, max, BroadphaseNativeType.BOX_SHAPE_PROXYTYPE, null,
+                        CollisionFilterGroups.DEFAULT_FILTER, CollisionFilterGroups.ALL_FILTER, null, null);
+            }
+        }
+
+        void bounds(int i) {
+            int o = i * 3;
+            min.set(pos[o] - SIZE, pos[o + 1] - SIZE, pos[o + 2] - SIZE);
+            max.set(pos[o] + SIZE, pos[o + 1] + SIZE, pos[o + 2] + SIZE);
+        }
+
+        void step() {
+            for (int i = 0; i < OBJECTS; i++) {
+                for (int d = 0; d < 3; d++) {
+                    int o = i * 3 + d;
+                    pos[o] = Math.max(-FIELD / 2, Math.min(FIELD / 2, pos[o] + (rng.nextFloat() - 0.5f) * 2 * JITTER));
+                }
+                bounds(i);
+                broadphase.setAabb(proxies[i], min, max, null);
+            }
+            broadphase.calculateOverlappingPairs(null);
+
+            visit.hash = 0;
+            broadphase.getOverlappingPairCache().processAllOverlappingPairs(visit, null);
+        }
+    }
+
+    /** order independent checksum of the pairs */
+    static final class Visit extends OverlapCallback {
+        long hash;
+
+        @Override
+        public boolean processOverlap(BroadphasePair pair) {
+            long k = ((long) Math.min(pair.pProxy0.getUid(), pair.pProxy1.getUid()) << 32)
+                    | Math.max(pair.pProxy0.getUid(), pair.pProxy1.getUid());
+            hash += k * 0x9E3779B97F4A7C15L ^ (k >>> 29);
+            return false;
+        }
+    }
+}
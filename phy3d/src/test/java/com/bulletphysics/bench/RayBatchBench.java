@@ -0,0 +1,132 @@
+package com.bulletphysics.bench;
+
+import com.bulletphysics.collision.dispatch.CollisionWorld.ClosestRayResultCallback;
+import com.bulletphysics.collision.dispatch.RayBatch;
+import com.bulletphysics.collision.dispatch.RayResultCallback;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.mesh.BvhTriangleMeshShape;
+import com.bulletphysics.collision.shapes.mesh.TriangleIndexVertexArray;
+import com.bulletphysics.collision.shapes.simple.BoxShape;
+import com.bulletphysics.collision.shapes.simple.SphereShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+
+import javax.vecmath.Vector3f;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * rays per second of sensor fans (a fan of rays from each of a number of sensors, sloping down)
+ * through a field of boxes and spheres on a triangle-mesh terrain, cast one at a time with {@link com.bulletphysics.collision.dispatch.CollisionWorld#rayTest(Vector3f, Vector3f, RayResultCallback, double)}
+ * and as a {@link RayBatch} on 0..8 tasks.  the batch hits are checked against the single rays.
+ */
+public class RayBatchBench {
+
+    static final int OBJECTS = 4000, SENSORS = 500, FAN = 64;
+    static final float FIELD = 200, RANGE = 40, DROP = 15;
+    /** terrain vertices per side */
+    static final int TERRAIN = 101;
+    static final int[] TASKS = {0, 1, 2, 4, 8};
+    static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        DiscreteDynamicsWorld w = field();
+        RayBatch rays = fans(SENSORS * FAN);
+
+        ClosestRayResultCallback[] single = new ClosestRayResultCallback[rays.size()];
+        Vector3f from = new Vector3f(), to = new Vector3f();
+
+        System.out.println("query\ttasks\trays/s\tmismatches");
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rays.size(); i++) {
+                from.set(rays.from[i * 3], rays.from[i * 3 + 1], rays.from[i * 3 + 2]);
+                to.set(rays.to[i * 3], rays.to[i * 3 + 1], rays.to[i * 3 + 2]);
+                single[i] = new ClosestRayResultCallback(from, to);
+                w.rayTest(from, to, single[i], RayResultCallback.RAY_EPSILON);
+            }
+            report("single", "-", start, rays.size(), "");
+
+            for (int t : TASKS) {
+                ForkJoinPool exe = t > 1 ? new ForkJoinPool(t) : null;
+                start = System.nanoTime();
+                w.rayTest(rays, exe, t);
+                report("batch", t == 0 ? "sequential" : Integer.toString(t), start, rays.size(), Integer.toString(mismatches(rays, single)));
+                if (exe != null)
+                    exe.shutdown();
+            }
+        }
+    }
+
+    static void report(String query, String tasks, long start, int n, String mismatches) {
+        double s = (System.nanoTime() - start) / 1.0e9;
+        System.out.printf("%s\t%s\t%.3e\t%s%n", query, tasks, n / s, mismatches);
+    }
+
+    static int mismatches(RayBatch rays, ClosestRayResultCallback[] single) {
+        int n = 0;
+        for (int i = 0; i < rays.size(); i++) {
+            ClosestRayResultCallback c = single[i];
+            if (rays.hasHit(i) != c.hasHit() || (c.hasHit() && rays.hitFraction[i] != c.closestHitFraction))
+                n++;
+        }
+        return n;
+    }
+
+    static DiscreteDynamicsWorld field() {
+        DiscreteDynamicsWorld w = new DiscreteDynamicsWorld();
+        Random rng = new Random(1);
+        CollisionShape box = new BoxShape(new Vector3f(1, 1, 1)), sphere = new SphereShape(1);
+        for (int i = 0; i < OBJECTS; i++)
+            w.addBody(BoxPileBench.body(i % 2 == 0 ? box : sphere, 0,
+                    (rng.nextFloat() - 0.5f) * FIELD, rng.nextFloat() * 10, (rng.nextFloat() - 0.5f) * FIELD));
+        w.addBody(BoxPileBench.body(new BvhTriangleMeshShape(terrain(), true), 0, -FIELD / 2, -1, -FIELD / 2));
+        w.next(1 / 60f, 1);
+        return w;
+    }
+
+    static RayBatch fans(int n) {
+        RayBatch rays = new RayBatch(n);
+        Random rng = new Random(2);
+        for (int s = 0; s < SENSORS; s++) {
+            float x = (rng.nextFloat() - 0.5f) * FIELD, y = rng.nextFloat() * 10, z = (rng.nextFloat() - 0.5f) * FIELD;
+            float heading = rng.nextFloat() * 2 * (float) Math.PI;
+            for (int i = 0; i < FAN; i++) {
+                double a = heading + (i - FAN / 2f) * 0.01;
+                rays.add(x, y, z, x + (float) Math.cos(a) * RANGE, y - DROP, z + (float) Math.sin(a) * RANGE);
+            }
+        }
+        return rays;
+    }
+
+    /** a rolling grid over the field */
+    static TriangleIndexVertexArray terrain() {
+        int n = TERRAIN;
+        float cell = FIELD / (n - 1);
+        ByteBuffer vertices = ByteBuffer.allocateDirect(n * n * 3 * 4).order(ByteOrder.nativeOrder());
+        for (int j = 0; j < n; j++)
+            for (int i = 0; i < n; i++) {
+                vertices.putFloat(i * cell);
+                vertices.putFloat(2 * (float) (Math.sin(i * 0.3) * Math.cos(j * 0.2)));
+                vertices.putFloat(j * cell);
+            }
+        vertices.flip();
+
+        int triangles = 2 * (n - 1) * (n - 1);
+        ByteBuffer indices = ByteBuffer.allocateDirect(triangles * 3 * 4).order(ByteOrder.nativeOrder());
+        for (int j = 0; j < n - 1; j++)
+            for (int i = 0; i < n - 1; i++) {
+                indices.putInt(j * n + i);
+                indices.putInt(j * n + i + 1);
+                indices.putInt((j + 1) * n + i + 1);
+
+                indices.putInt(j * n + i);
+                indices.putInt((j + 1) * n + i + 1);
+                indices.putInt((j + 1) * n + i);
+            }
+        indices.flip();
+
+        return new TriangleIndexVertexArray(triangles, indices, 3 * 4, n * n, vertices, 3 * 4);
+    }
+}
@@ -0,0 +1,94 @@
+package com.bulletphysics.bench;
+
+import com.bulletphysics.collision.broadphase.Dispatcher;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.narrowphase.PersistentManifold;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.simple.BoxShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.constraintsolver.*;
+import com.bulletphysics.linearmath.IDebugDraw;
+
+import javax.vecmath.Vector3f;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * constraint solver time of tall box stacks, with {@link SequentialImpulseConstraintSolver} and
+ * {@link ArraySequentialImpulseConstraintSolver}.  only the time spent in the solver is counted.
+ * both solvers do the same arithmetic, so the checksums are expected to match.
+ */
+public class SolverBench {
+
+    static final int STACKS = 10, HEIGHT = 30;
+    static final int ITERATIONS = new ContactSolverInfo().numIterations;
+    static final int WARMUP = 100, STEPS = 200, ROUNDS = 3;
+
+    public static void main(String[] args) {
+        System.out.println("solver\tms/step\titerations/ms\tmanifolds\tchecksum");
+        for (int r = 0; r < ROUNDS; r++) {
+            long expect = 0;
+            for (int s = 0; s < 2; s++) {
+                Supplier<ConstraintSolver> solver = s == 0 ?
+                        SequentialImpulseConstraintSolver::new : ArraySequentialImpulseConstraintSolver::new;
+                Timed timed = new Timed(solver.get());
+                DiscreteDynamicsWorld w = stacks();
+                w.setConstraintSolver(timed);
+
+                for (int i = 0; i < WARMUP; i++)
+                    w.next(1 / 60f, 1);
+
+                timed.nanos = 0;
+                for (int i = 0; i < STEPS; i++)
+                    w.next(1 / 60f, 1);
+                double ms = timed.nanos / 1.0e6;
+
+                long hash = BoxPileBench.checksum(w);
+                if (s == 0)
+                    expect = hash;
+
+                System.out.printf("%s\t%.3f\t%.1f\t%d\t%x%s%n",
+                        timed.solver.getClass().getSimpleName(), ms / STEPS,
+                        ITERATIONS * (double) STEPS / ms, w.dispatcher().getNumManifolds(), hash,
+                        hash != expect ? " MISMATCH" : "");
+            }
+        }
+    }
+
+    static DiscreteDynamicsWorld stacks() {
+        DiscreteDynamicsWorld w = new DiscreteDynamicsWorld();
+        w.setGravity(new Vector3f(0, -10, 0));
+
+        w.addBody(BoxPileBench.body(new BoxShape(new Vector3f(STACKS * 3, 1, STACKS * 3)), 0, 0, -1, 0));
+
+        CollisionShape box = new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f));
+        for (int sx = 0; sx < STACKS; sx++)
+            for (int sz = 0; sz < STACKS; sz++)
+                for (int y = 0; y < HEIGHT; y++)
+                    w.addBody(BoxPileBench.body(box, 1, (sx - STACKS / 2f) * 3, 0.5f + y * 1.01f, (sz - STACKS / 2f) * 3));
+        return w;
+    }
+
+    /** counts the time spent solving */
+    static final class Timed extends ConstraintSolver {
+        final ConstraintSolver solver;
+        long nanos;
+
+        Timed(ConstraintSolver solver) {
+            this.solver = solver;
+        }
+
+        @Override
+        public float solveGroup(List<CollisionObject> bodies, int numBodies, List<PersistentManifold> manifold, int manifold_offset, int numManifolds, List<TypedConstraint> constraints, int constraints_offset, int numConstraints, ContactSolverInfo info, IDebugDraw debugDrawer, Dispatcher dispatcher) {
+            long start = System.nanoTime();
+            float f = solver.solveGroup(bodies, numBodies, manifold, manifold_offset, numManifolds, constraints, constraints_offset, numConstraints, info, debugDrawer, dispatcher);
+            nanos += System.nanoTime() - start;
+            return f;
+        }
+
+        @Override
+        public void reset() {
+            solver.reset();
+        }
+    }
+}
@@ -6,7 +6,6 @@
 package net.beadsproject.beads.core;
 
 import jcog.data.list.FastCoWList;
-import jcog.data.list.Lst;
 import net.beadsproject.beads.data.Sample;
 import net.beadsproject.beads.events.AudioContextStopTrigger;
 import net.beadsproject.beads.ugens.Clock;
@@ -14,14 +13,17 @@ import net.beadsproject.beads.ugens.FuncGen;
 import net.beadsproject.beads.ugens.Gain;
 import net.beadsproject.beads.ugens.RecordToSample;
 import org.jctools.queues.MpmcArrayQueue;
+import org.jetbrains.annotations.Nullable;
 import spacegraph.audio.Audio;
 import spacegraph.audio.SoundSource;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TODO this needs stereo support for the SoNAR sound system
@@ -79,10 +81,27 @@ public class AudioContext {
      * Used for allocating buffers to UGens.
      */
     private final int maxReserveBufs;
-    private List<float[]> bufferStore;
-    private int bufStoreIndex;
+    private volatile float[][] bufferStore;
+    private final AtomicInteger bufStoreIndex = new AtomicInteger();
     private float[] zeroBuf;
 
+    /**
+     * Whether {@link #out} and the UGens it pulls are updated through a compiled {@link UGenSchedule}.
+     */
+    private volatile boolean compiled;
+
+    /**
+     * Pool updating the independent UGens of a compiled schedule, or null for the audio thread alone.
+     */
+    private volatile @Nullable ForkJoinPool workers;
+
+    /**
+     * Incremented whenever a UGen's connections change.
+     */
+    private final AtomicInteger graphVersion = new AtomicInteger();
+    private volatile @Nullable UGenSchedule schedule;
+    private final AtomicBoolean compiling = new AtomicBoolean();
+
 //    /**
 //     * Used for testing for dropped frames.
 //     */
@@ -139,40 +158,36 @@ public class AudioContext {
     }
 
 
-//    /**
-//     * Creates a new AudioContext with the specified buffer size, AudioIO and audio format.
-//     *
-//     * @param bufferSizeInFrames the buffer size in samples.
-//     * @param ioSystem           the AudioIO system.
-//     * @param audioFormat        the audio format, which specifies sample rate, bit depth,
-//     *                           number of channels, signedness and byte order.
-//     */
-//    public AudioContext(AudioIO ioSystem, int bufferSizeInFrames, IOAudioFormat audioFormat) {
-//
-//        this.audioIO = ioSystem;
-//        this.audioIO.context = this;
-//
-//        this.audioFormat = audioFormat;
-//
-//        setBufferSize(bufferSizeInFrames);
-//
-//        logTime = false;
-//        maxReserveBufs = 50;
-//        stopped = true;
-//
-//        out = new Gain(this, audioFormat.outputs);
-//        AudioIO.prepare();
-//    }
+    /**
+     * Creates a new AudioContext with the specified buffer size, AudioIO and audio format. Unlike the default
+     * AudioContext it is not played through {@link Audio}, and is not started; the AudioIO drives it once it is.
+     *
+     * @param ioSystem           the AudioIO system.
+     * @param bufferSizeInFrames the buffer size in samples.
+     * @param audioFormat        the audio format, which specifies sample rate, bit depth,
+     *                           number of channels, signedness and byte order.
+     */
+    public AudioContext(AudioIO ioSystem, int bufferSizeInFrames, IOAudioFormat audioFormat) {
+
+        this.audioIO = ioSystem;
+        this.audioIO.context = this;
+
+        this.audioFormat = audioFormat;
+
+        maxReserveBufs = 32;
+        setBufferSize(bufferSizeInFrames);
+
+        stopped = true;
+
+        out = new Gain(this, audioFormat.outputs);
+    }
 
 
     /**
      * Sets up the reserve of buffers.
      */
     private void setupBufs() {
-        bufferStore = new Lst<>(maxReserveBufs);
-        while (bufferStore.size() < maxReserveBufs) {
-            bufferStore.add(new float[bufferSizeInFrames]);
-        }
+        bufferStore = new float[maxReserveBufs][bufferSizeInFrames];
         zeroBuf = new float[bufferSizeInFrames];
     }
 
@@ -181,11 +196,23 @@ public class AudioContext {
      */
 
     public void update() {
+        update(false);
+    }
+
+    /**
+     * @param wait whether an outdated compiled schedule is compiled again before updating, rather than in the
+     *             background.
+     */
+    void update(boolean wait) {
 //        try {
-            bufStoreIndex = 0;
+            bufStoreIndex.set(0);
             Arrays.fill(zeroBuf, 0.0f);
             sendBeforeFrameMessages();
-            out.update();
+            if (compiled) {
+                if (!schedule(wait).run(workers))
+                    graphChanged();
+            } else
+                out.update();
             sendAfterFrameMessages();
             timeStep++;
 //            if (Thread.interrupted()) {
@@ -200,6 +227,73 @@ public class AudioContext {
 //        }
     }
 
+    /**
+     * The compiled schedule of the UGens pulled by {@link #out}, compiled here if there is none yet. Once there is
+     * one, a change to the graph has it compiled again in the background, on the workers or the common pool, and
+     * the old one is returned until then, so the audio thread never waits on a compile. Unless wait is set, in
+     * which case an outdated schedule is compiled again here.
+     */
+    UGenSchedule schedule(boolean wait) {
+        UGenSchedule s = schedule;
+        int version = graphVersion.get();
+        if (s == null || (wait && s.version != version)) {
+            schedule = s = new UGenSchedule(out, version);
+        } else if (s.version != version && compiling.compareAndSet(false, true)) {
+            ForkJoinPool exe = workers;
+            (exe != null ? exe : ForkJoinPool.commonPool()).execute(() -> {
+                try {
+                    int v = graphVersion.get();
+                    UGenSchedule next = new UGenSchedule(out, v);
+                    UGenSchedule prev = schedule;
+                    if (prev == null || prev.version != v)
+                        schedule = next;
+                } finally {
+                    compiling.set(false);
+                }
+            });
+        }
+        return s;
+    }
+
+    /**
+     * Called by UGens when their connections change, outdating the compiled schedule.
+     */
+    void graphChanged() {
+        graphVersion.incrementAndGet();
+    }
+
+    /**
+     * Sets whether the UGens are updated through a schedule compiled from the graph pulled by {@link #out}, in
+     * topological order and without locking, rather than recursively from {@link #out}. Changes to the graph take
+     * effect once it has been compiled again, typically by the next time step.
+     *
+     * @param compiled true to update through a compiled schedule.
+     */
+    public void setCompiled(boolean compiled) {
+        this.compiled = compiled;
+    }
+
+    /**
+     * Checks whether the UGens are updated through a compiled schedule.
+     *
+     * @return true if compiled.
+     * @see #setCompiled(boolean)
+     */
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    /**
+     * Sets the pool on which the compiled schedule updates UGens that do not depend on each other, such as the
+     * voices of a mix, in parallel. UGens that update others from their {@link UGen#gen()} may then be updated
+     * from several threads, each exactly once per time step.
+     *
+     * @param workers the pool, or null to update all UGens on the audio thread.
+     */
+    public void setWorkers(@Nullable ForkJoinPool workers) {
+        this.workers = workers;
+    }
+
     /**
      * Gets a buffer from the buffer reserve. This buffer will be owned by you
      * until the next time step, and you shouldn't attempt to use it outside of
@@ -209,14 +303,25 @@ public class AudioContext {
      * @return buffer of size bufSize, unknown contents.
      */
     public float[] getBuf() {
-        if (bufStoreIndex < bufferStore.size()) {
-            return bufferStore.get(bufStoreIndex++);
-        } else {
-            float[] buf = new float[bufferSizeInFrames];
-            bufferStore.add(buf);
-            bufStoreIndex++;
-            return buf;
+        int i = bufStoreIndex.getAndIncrement();
+        float[][] store = bufferStore;
+        return i < store.length ? store[i] : growBufs(i);
+    }
+
+    /**
+     * Grows the buffer reserve to include the i'th buffer; locked, so that UGens updated in parallel can get
+     * buffers without locking otherwise.
+     */
+    private synchronized float[] growBufs(int i) {
+        float[][] store = bufferStore;
+        if (i >= store.length) {
+            int n = store.length;
+            store = Arrays.copyOf(store, Math.max(i + 1, n * 2));
+            for (int j = n; j < store.length; j++)
+                store[j] = new float[bufferSizeInFrames];
+            bufferStore = store;
         }
+        return store[i];
     }
 
 
@@ -247,41 +352,32 @@ public class AudioContext {
         return zeroBuf;
     }
 
-//    /**
-//     * Starts the AudioContext running in non-realtime. This occurs in the
-//     * current Thread.
-//     */
-//    private void runNonRealTime() {
-//        if (stopped) {
-//            stopped = false;
-//            reset();
-//            while (out != null && !stopped) {
-//                bufStoreIndex = 0;
-//                Arrays.fill(zeroBuf, 0f);
-//                if (!out.isPaused()) {
-//                    sendBeforeFrameMessages();
-//                    out.update();
-//                    sendAfterFrameMessages();
-//                }
-//                timeStep++;
-//
-//            }
-//        }
-//    }
+    /**
+     * Starts the AudioContext running in non-realtime, as fast as it can, until it is stopped. This occurs in the
+     * current Thread, and the output is discarded; to keep it, create the AudioContext with a {@link NonrealtimeIO}.
+     */
+    public void runNonRealTime() {
+        runNonRealTime(Long.MAX_VALUE);
+    }
 
-//    /**
-//     * Runs the AudioContext in non-realtime for n milliseconds (that's n
-//     * non-realtime milliseconds).
-//     *
-//     * @param n number of milliseconds.
-//     */
-//    public void runForNMillisecondsNonRealTime(double n) {
-//
-//        DelayTrigger dt = new DelayTrigger(this, n,
-//                new AudioContextStopTrigger(this));
-//        out.dependsOn(dt);
-//        runNonRealTime();
-//    }
+    /**
+     * Runs the AudioContext in non-realtime for n milliseconds (that's n
+     * non-realtime milliseconds), or until it is stopped.
+     *
+     * @param n number of milliseconds.
+     */
+    public void runForNMillisecondsNonRealTime(double n) {
+        runNonRealTime((long) Math.ceil(msToSamples(n) / bufferSizeInFrames));
+    }
+
+    private void runNonRealTime(long timeSteps) {
+        if (stopped) {
+            stopped = false;
+            reset();
+            for (long i = 0; i < timeSteps && !stopped; i++)
+                update(true);
+        }
+    }
 
     /**
      * Sets the buffer size.
@@ -448,6 +544,10 @@ public class AudioContext {
      * @see Sample sample
      **/
     public void record(double timeMS, String filename) throws IOException {
+        if (audioIO instanceof NonrealtimeIO n) {
+            n.render(timeMS, filename, 16);
+            return;
+        }
         Sample s = new Sample(timeMS, audioFormat.outputs, audioFormat.sampleRate);
         try {
             RecordToSample r = new RecordToSample(this, s);
@@ -0,0 +1,185 @@
+/*
+ * This file is part of Beads. See http:
+ */
+package net.beadsproject.beads.core;
+
+import net.beadsproject.beads.data.Sample;
+import net.beadsproject.beads.data.SampleAudioFormat;
+import net.beadsproject.beads.file.FileFormatException;
+import net.beadsproject.beads.file.WavFileReaderWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * NonrealtimeIO renders an {@link AudioContext} on the calling thread as fast as the CPU allows, rather than at the
+ * pace of an audio device, so it needs no audio hardware. The output of {@link AudioContext#out} is handed to a
+ * {@link Sink} in chunks of a fixed number of frames, so that long renders streamed to a file use bounded memory.
+ * <p>
+ * Create the AudioContext with {@link AudioContext#AudioContext(AudioIO, int, IOAudioFormat)}, build the patch, and
+ * call one of the render methods. Rendering stops after the given duration, or earlier if the context is stopped
+ * (for example by an {@link net.beadsproject.beads.events.AudioContextStopTrigger}); a later render continues from
+ * where the last one ended.
+ */
+public class NonrealtimeIO extends AudioIO {
+
+    /**
+     * Receives the rendered output, one chunk at a time.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Takes a chunk of frames.
+         *
+         * @param frames the frames, [channel][frame], reused for the next chunk.
+         * @param length the number of frames of the chunk.
+         */
+        void put(float[][] frames, int length) throws IOException;
+    }
+
+    /**
+     * The frames of each chunk, 64k by default.
+     */
+    private final int chunkFrames;
+
+    public NonrealtimeIO() {
+        this(1 << 16);
+    }
+
+    /**
+     * @param chunkFrames the number of frames handed to the sink at a time.
+     */
+    public NonrealtimeIO(int chunkFrames) {
+        if (chunkFrames < 1)
+            throw new IllegalArgumentException("chunkFrames < 1");
+        this.chunkFrames = chunkFrames;
+    }
+
+    /**
+     * Does nothing, the render methods driving the AudioContext instead.
+     */
+    @Override
+    protected boolean start() {
+        return true;
+    }
+
+    /**
+     * Gets an input of silence, there being no audio device.
+     */
+    @Override
+    protected UGen getAudioInput(int[] channels) {
+        return new UGen(context, channels.length) {
+            {
+                outputInitializationRegime = OutputInitializationRegime.ZERO;
+            }
+
+            @Override
+            protected void gen() {
+            }
+        };
+    }
+
+    @Override
+    public boolean read(float[] buf, int readRate) {
+        AudioContext ac = context;
+        ac.setBufferSize(buf.length);
+        update();
+        float[] out = ac.out.getOutBuffer(0);
+        if (out != null)
+            System.arraycopy(out, 0, buf, 0, buf.length);
+        else
+            Arrays.fill(buf, 0);
+        return !ac.stopped;
+    }
+
+    /**
+     * Renders up to the given number of frames, or until the AudioContext is stopped.
+     *
+     * @param frames the number of frames to render.
+     * @param sink   receives the output.
+     * @return the number of frames rendered.
+     */
+    public long render(long frames, Sink sink) throws IOException {
+        AudioContext ac = context;
+        // resumed where the last render ended: AudioContext.start() would reset the time step
+        ac.stopped = false;
+
+        int channels = ac.getAudioFormat().outputs;
+        float[][] chunk = new float[channels][chunkFrames];
+        int filled = 0;
+        long rendered = 0;
+        while (rendered < frames && !ac.stopped) {
+            // a changed graph is compiled before the next buffer, so that renders are repeatable
+            ac.update(true);
+
+            int n = (int) Math.min(ac.getBufferSize(), frames - rendered);
+            for (int from = 0; from < n; ) {
+                int k = Math.min(n - from, chunkFrames - filled);
+                for (int c = 0; c < channels; c++) {
+                    float[] b = ac.out.getOutBuffer(c);
+                    if (b != null)
+                        System.arraycopy(b, from, chunk[c], filled, k);
+                    else
+                        Arrays.fill(chunk[c], filled, filled + k, 0);
+                }
+                from += k;
+                filled += k;
+                if (filled == chunkFrames) {
+                    sink.put(chunk, filled);
+                    filled = 0;
+                }
+            }
+            rendered += n;
+        }
+        if (filled > 0)
+            sink.put(chunk, filled);
+        return rendered;
+    }
+
+    /**
+     * Renders the given duration into a new {@link Sample}, silent past where the AudioContext was stopped.
+     *
+     * @param timeMS the duration in milliseconds.
+     * @return the Sample.
+     */
+    public Sample render(double timeMS) {
+        AudioContext ac = context;
+        Sample s = new Sample(timeMS, ac.getAudioFormat().outputs, ac.getSampleRate());
+        long[] at = {0};
+        try {
+            render(s.getNumFrames(), (frames, length) -> {
+                s.putFrames((int) at[0], frames, 0, length);
+                at[0] += length;
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e); /* won't happen */
+        }
+        return s;
+    }
+
+    /**
+     * Renders the given duration into a wav file, streamed a chunk at a time.
+     *
+     * @param timeMS   the duration in milliseconds, at most the 4 GB of data a wav file can hold: rendering
+     *                 fails there, leaving a file of what was rendered.
+     * @param filename the file to write.
+     * @param bitDepth the bits per sample: 16 or 24 for integers, 32 for floating point.
+     * @return the number of frames written.
+     */
+    public long render(double timeMS, String filename, int bitDepth) throws IOException {
+        AudioContext ac = context;
+        IOAudioFormat format = ac.getAudioFormat();
+        WavFileReaderWriter wav = new WavFileReaderWriter();
+        try {
+            wav.beginWriting(filename, format.outputs, new SampleAudioFormat(format.sampleRate, bitDepth, format.outputs));
+        } catch (FileFormatException e) {
+            throw new IOException("Could not write audio file: " + e.getMessage(), e);
+        }
+        try {
+            return render((long) ac.msToSamples(timeMS), (frames, length) -> wav.write(frames, 0, length));
+        } finally {
+            wav.endWriting();
+        }
+    }
+}
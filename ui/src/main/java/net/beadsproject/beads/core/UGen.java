@@ -3,6 +3,7 @@
  */
 package net.beadsproject.beads.core;
 
+import jcog.Util;
 import jcog.data.list.FastCoWList;
 import jcog.data.list.Lst;
 import net.beadsproject.beads.events.KillTrigger;
@@ -10,8 +11,10 @@ import net.beadsproject.beads.ugens.Clock;
 import net.beadsproject.beads.ugens.Envelope;
 import net.beadsproject.beads.ugens.Gain;
 
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -36,6 +39,15 @@ import java.util.stream.IntStream;
 public abstract class UGen extends Auvent {
 
 	private static final Map<Class<?>, HashMap<String, Method>> envelopeGetterMethods = new HashMap<>();
+	private static final VarHandle UPDATING = Util.VAR(UGen.class, "updating", Thread.class);
+	/**
+	 * The UGen each thread is waiting to claim, while another thread updates it.
+	 */
+	private static final Map<Thread, UGen> waiting = new ConcurrentHashMap<>();
+	/**
+	 * The most threads followed looking for a cycle of waits.
+	 */
+	private static final int MAX_WAIT_CHAIN = 64;
 	/**
 	 * A collection of UGens that should be triggered by this one.
 	 */
@@ -79,9 +91,15 @@ public abstract class UGen extends Auvent {
 	 */
 	private boolean noInputs;
 	/**
-	 * Counter to track of whether this UGen has been updated at this timeStep (determined by {@link AudioContext}).
+	 * The last timeStep (determined by {@link AudioContext}) at which this UGen finished updating.
 	 */
-	private long lastTimeStep;
+	private volatile long lastTimeStep;
+	/**
+	 * The thread updating this UGen, if any. Claimed before updating so that a UGen reached from several threads
+	 * updates once per timeStep, and one reached again through a feedback loop is not re-entered.
+	 */
+	@SuppressWarnings("unused")
+	private volatile Thread updating;
 
 	/**
 	 * Create a new UGen from the given AudioContext with no inputs and the
@@ -329,25 +347,179 @@ public abstract class UGen extends Auvent {
 	 */
 	public void update() {
 		if (!isPaused()) {
-			if (!isUpdated()) {
-				//if (timerMode) {
-				//timeTemp = System.nanoTime();
-				//}
-				lastTimeStep = context.getTimeStep();
-				pullInputs();
+			long timeStep = context.getTimeStep();
+			if (claim(timeStep)) {
+				try {
+					//if (timerMode) {
+					//timeTemp = System.nanoTime();
+					//}
+					pullInputs();
+
+
+					initializeOuts();
+					gen();
+					//if (timerMode) {
+					//timeTakenLastUpdate = System.nanoTime() - timeTemp;
+					//}
+				} finally {
+					release(timeStep);
+				}
+			}
+
+
+		} else {
+			setOutsToPause();
+		}
+	}
+
+	/**
+	 * Updates the UGen as part of a compiled {@link UGenSchedule}, which has already updated the UGens connected
+	 * to its inputs, so that they are summed from the given snapshot of its connections without locking or
+	 * recursion.
+	 *
+	 * @param sources the UGens connected at each input.
+	 * @param outputs the output of each source.
+	 * @return false if a source has been deleted since the snapshot, which is then stale.
+	 */
+	boolean update(UGen[][] sources, int[][] outputs) {
+		if (isPaused()) {
+			setOutsToPause();
+			return true;
+		}
 
+		boolean live = true;
+		long timeStep = context.getTimeStep();
+		if (claim(timeStep)) {
+			try {
+				for (int i = 0; i < ins; i++)
+					live &= pullInput(i, sources[i], outputs[i]);
 
 				initializeOuts();
 				gen();
-				//if (timerMode) {
-				//timeTakenLastUpdate = System.nanoTime() - timeTemp;
-				//}
+			} finally {
+				release(timeStep);
 			}
+		}
+		return live;
+	}
 
+	private boolean pullInput(int i, UGen[] sources, int[] outputs) {
+		boolean live = true;
+		float[] bi = context.getZeroBuf();
+		int size = sources.length;
+		if (size == 1) {
+			UGen u = sources[0];
+			if (u.isDeleted()) {
+				live = false;
+			} else {
+				int o = outputs[0];
+				bi = u.bufOut[o];
+				if (bi == null) {
+					bi = context.getBuf();
+					for (int j = 0; j < bufferSize; j++)
+						bi[j] = u.getValue(o, j);
+				}
+			}
+		} else if (size != 0) {
+			bi = context.getCleanBuf();
+			for (int k = 0; k < size; k++) {
+				UGen u = sources[k];
+				if (u.isDeleted()) {
+					live = false;
+					continue;
+				}
+				int o = outputs[k];
+				float[] b = u.bufOut[o];
+				if (b != null) {
+					for (int j = 0; j < bufferSize; j++)
+						bi[j] += b[j];
+				} else {
+					for (int j = 0; j < bufferSize; j++)
+						bi[j] += u.getValue(o, j);
+				}
+			}
+		}
+		bufIn[i] = bi;
+		return live;
+	}
+
+	/**
+	 * Claims the update of this timeStep for the calling thread. Returns false if it has already been done, or is
+	 * being done further up this thread's call chain; waits if another thread is doing it. If that thread is in
+	 * turn waiting, through others, for one this thread is updating, as when a feedback loop is entered from two
+	 * threads at once, it is treated as a loop within this thread: not waited for, its outputs read as they are.
+	 */
+	private boolean claim(long timeStep) {
+		Thread me = Thread.currentThread();
+		boolean waits = false;
+		try {
+			while (lastTimeStep != timeStep) {
+				Thread u = updating;
+				if (u == me)
+					return false;
+				if (u == null) {
+					if (UPDATING.compareAndSet(this, null, me)) {
+						if (lastTimeStep != timeStep)
+							return true;
+						updating = null;
+						return false;
+					}
+				} else if (!waits) {
+					waiting.put(me, this);
+					waits = true;
+				} else if (waitsFor(u, me))
+					return false;
+				else
+					Thread.onSpinWait();
+			}
+			return false;
+		} finally {
+			if (waits)
+				waiting.remove(me);
+		}
+	}
 
-		} else {
-			setOutsToPause();
+	/**
+	 * Whether the thread is waiting, through a chain of others updating what it waits for, for the given one.
+	 */
+	private static boolean waitsFor(Thread t, Thread me) {
+		for (int i = 0; i < MAX_WAIT_CHAIN; i++) {
+			UGen w = waiting.get(t);
+			if (w == null || (t = w.updating) == null)
+				return false;
+			if (t == me)
+				return true;
 		}
+		return false;
+	}
+
+	private void release(long timeStep) {
+		lastTimeStep = timeStep;
+		updating = null;
+	}
+
+	/**
+	 * Snapshot of the connections at each input, for {@link UGenSchedule}, dropping those to deleted UGens as
+	 * {@link #pullInputs()} would.
+	 */
+	synchronized BufferPointer[][] inputs() {
+		BufferPointer[][] inputs = new BufferPointer[ins][];
+		for (int i = 0; i < ins; i++) {
+			Lst<BufferPointer> ic = inputsAtChannel[i];
+			synchronized (ic) {
+				ic.removeIf(bp -> bp.ugen.isDeleted());
+				inputs[i] = ic.toArray(new BufferPointer[0]);
+			}
+		}
+		return inputs;
+	}
+
+	/**
+	 * Snapshot of the dependents, for {@link UGenSchedule}, dropping deleted ones as {@link #pullInputs()} would.
+	 */
+	UGen[] dependents() {
+		dependents.removeIf(Auvent::isDeleted);
+		return dependents.array();
 	}
 
 	/**
@@ -394,6 +566,7 @@ public abstract class UGen extends Auvent {
 		inputsAtChannel[inputIndex].add(new BufferPointer(sourceUGen, sourceOutputIndex));
 
 		noInputs = false;
+		changed();
 	}
 
 	/**
@@ -433,6 +606,7 @@ public abstract class UGen extends Auvent {
 	 */
 	public void dependsOn(UGen dependent) {
 		dependents.add(dependent);
+		changed();
 	}
 
 	/**
@@ -441,7 +615,8 @@ public abstract class UGen extends Auvent {
 	 * @param dependent UGen to remove.
 	 */
 	public void removeDepends(UGen dependent) {
-		dependents.remove(dependent);
+		if (dependents.remove(dependent))
+			changed();
 	}
 
 	/**
@@ -449,6 +624,7 @@ public abstract class UGen extends Auvent {
 	 */
 	public void clearDepends() {
 		dependents.clear();
+		changed();
 	}
 
 	/**
@@ -513,6 +689,17 @@ public abstract class UGen extends Auvent {
 		synchronized (ic) {
 			ic.remove(bp);
 		}
+		changed();
+	}
+
+	/**
+	 * Tells the {@link AudioContext} that the connections of this UGen have changed, so that its compiled
+	 * schedule is rebuilt.
+	 */
+	private void changed() {
+		AudioContext c = context;
+		if (c != null)
+			c.graphChanged();
 	}
 
 	/**
@@ -721,15 +908,6 @@ public abstract class UGen extends Auvent {
 		return getValue();
 	}
 
-	/**
-	 * Checks if this UGen has been updated in the current timeStep.
-	 *
-	 * @return true if the UGen has been updated in the current timeStep.
-	 */
-	private boolean isUpdated() {
-		return lastTimeStep == context.getTimeStep();
-	}
-
 	/**
 	 * Pauses/un-pauses the current UGen. When paused, a UGen does not perform an audio calculations and does not respond to messages.
 	 *
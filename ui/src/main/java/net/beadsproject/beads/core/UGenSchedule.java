@@ -0,0 +1,281 @@
+/*
+ * This file is part of Beads. See http:
+ */
+package net.beadsproject.beads.core;
+
+import jcog.data.list.Lst;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A flat schedule of the UGens reachable from a root UGen through their inputs and dependents, compiled from a
+ * snapshot of their connections so that an {@link AudioContext} can update them in topological order, without
+ * the recursion and locking of {@link UGen#update()}. The UGens are grouped into levels, each depending only on
+ * earlier ones, so the UGens of a level are independent of each other and may be updated on worker threads.
+ * <p>
+ * UGens that others update from within their {@link UGen#gen()} (such as the envelopes of a {@link
+ * net.beadsproject.beads.ugens.Gain}) are not part of the schedule, and are updated as before when first needed.
+ *
+ * @see AudioContext#setCompiled(boolean)
+ */
+final class UGenSchedule {
+
+    /**
+     * The fewest UGens of a level updated by one worker task.
+     */
+    private static final int GRAIN = 8;
+
+    /**
+     * The version of the graph this was compiled from.
+     */
+    final int version;
+
+    /**
+     * The UGens, grouped by level, the root last.
+     */
+    private final UGen[] order;
+    private final UGen[][][] sources;
+    private final int[][][] outputs;
+
+    /**
+     * The UGens each one pulls (indices into {@link #order}, all earlier), as {@code pred[predStart[i] ..
+     * predStart[i+1]]}. Connections back up a feedback loop are not included.
+     */
+    private final int[] predStart, pred;
+
+    /**
+     * Level {@code l} is {@code order[levelStart[l] .. levelStart[l+1]]}.
+     */
+    private final int[] levelStart;
+
+    /**
+     * Whether each UGen is pulled at the current time step, which a paused UGen does not do to its inputs.
+     */
+    private final boolean[] needed;
+
+    /**
+     * Set when a UGen is found deleted, so the schedule should be compiled again.
+     */
+    private volatile boolean stale;
+
+    UGenSchedule(UGen root, int version) {
+        this.version = version;
+
+        Map<UGen, Integer> index = new IdentityHashMap<>();
+        Lst<UGen> post = new Lst<>();
+        Lst<UGen.BufferPointer[][]> postInputs = new Lst<>();
+        Lst<int[]> postPreds = new Lst<>();
+        Lst<Integer> postLevel = new Lst<>();
+
+        // iterative depth-first search; a UGen is indexed once all it pulls are, so indices are topological
+        Map<UGen, Frame> open = new IdentityHashMap<>();
+        Lst<Frame> stack = new Lst<>();
+        Frame top = new Frame(root);
+        open.put(root, top);
+        stack.add(top);
+        while (!stack.isEmpty()) {
+            Frame f = stack.get(stack.size() - 1);
+            if (f.next < f.pulls.length) {
+                UGen p = f.pulls[f.next++];
+                Integer pi = index.get(p);
+                if (pi != null) {
+                    f.addPred(pi, postLevel.get(pi));
+                } else if (!open.containsKey(p)) {
+                    Frame g = new Frame(p);
+                    open.put(p, g);
+                    stack.add(g);
+                }
+                // else a connection back up a feedback loop, which is pulled from the previous time step
+            } else {
+                stack.remove(stack.size() - 1);
+                open.remove(f.ugen);
+                int i = post.size();
+                index.put(f.ugen, i);
+                post.add(f.ugen);
+                postInputs.add(f.inputs);
+                postPreds.add(Arrays.copyOf(f.preds, f.predCount));
+                postLevel.add(f.level);
+                if (!stack.isEmpty())
+                    stack.get(stack.size() - 1).addPred(i, f.level);
+            }
+        }
+
+        int n = post.size();
+        int levels = 0;
+        for (int i = 0; i < n; i++)
+            levels = Math.max(levels, postLevel.get(i) + 1);
+
+        // stable counting sort by level, keeping the root (last, at the highest level) last
+        levelStart = new int[levels + 1];
+        for (int i = 0; i < n; i++)
+            levelStart[postLevel.get(i) + 1]++;
+        for (int l = 0; l < levels; l++)
+            levelStart[l + 1] += levelStart[l];
+        int[] at = new int[n], fill = Arrays.copyOf(levelStart, levels);
+        for (int i = 0; i < n; i++)
+            at[i] = fill[postLevel.get(i)]++;
+
+        order = new UGen[n];
+        sources = new UGen[n][][];
+        outputs = new int[n][][];
+        predStart = new int[n + 1];
+        int[][] preds = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int j = at[i];
+            order[j] = post.get(i);
+            UGen.BufferPointer[][] in = postInputs.get(i);
+            sources[j] = new UGen[in.length][];
+            outputs[j] = new int[in.length][];
+            for (int c = 0; c < in.length; c++) {
+                UGen.BufferPointer[] bps = in[c];
+                sources[j][c] = new UGen[bps.length];
+                outputs[j][c] = new int[bps.length];
+                for (int k = 0; k < bps.length; k++) {
+                    sources[j][c][k] = bps[k].ugen;
+                    outputs[j][c][k] = bps[k].index;
+                }
+            }
+            int[] p = postPreds.get(i);
+            for (int k = 0; k < p.length; k++)
+                p[k] = at[p[k]];
+            preds[j] = p;
+        }
+        int e = 0;
+        for (int j = 0; j < n; j++) {
+            predStart[j] = e;
+            e += preds[j].length;
+        }
+        predStart[n] = e;
+        pred = new int[e];
+        for (int j = 0; j < n; j++)
+            System.arraycopy(preds[j], 0, pred, predStart[j], preds[j].length);
+
+        needed = new boolean[n];
+    }
+
+    /**
+     * Number of UGens in the schedule.
+     */
+    int size() {
+        return order.length;
+    }
+
+    /**
+     * Number of levels, the length of the longest chain of UGens in the schedule.
+     */
+    int levels() {
+        return levelStart.length - 1;
+    }
+
+    /**
+     * Updates the UGens for the current time step of their context.
+     *
+     * @param workers pool updating the UGens of wide levels, or null to update all on the calling thread.
+     * @return false if the schedule has found a deleted UGen and should be compiled again.
+     */
+    boolean run(@Nullable ForkJoinPool workers) {
+        int n = order.length;
+        Arrays.fill(needed, false);
+        needed[n - 1] = true;
+        for (int i = n - 1; i >= 0; i--) {
+            if (needed[i]) {
+                UGen u = order[i];
+                if (!u.isPaused() && !u.isDeleted())
+                    for (int k = predStart[i], end = predStart[i + 1]; k < end; k++)
+                        needed[pred[k]] = true;
+            }
+        }
+
+        stale = false;
+        for (int l = 0, levels = levels(); l < levels; l++) {
+            int from = levelStart[l], to = levelStart[l + 1];
+            if (workers != null && to - from >= 2 * GRAIN)
+                workers.invoke(new UpdateLevel(from, to));
+            else
+                update(from, to);
+        }
+        return !stale;
+    }
+
+    private void update(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (needed[i]) {
+                UGen u = order[i];
+                if (u.isDeleted() || !u.update(sources[i], outputs[i]))
+                    stale = true;
+            }
+        }
+    }
+
+    private final class UpdateLevel extends RecursiveAction {
+
+        private final int from, to;
+
+        UpdateLevel(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN) {
+                update(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new UpdateLevel(from, mid), new UpdateLevel(mid, to));
+            }
+        }
+    }
+
+    /**
+     * A UGen being visited by the depth-first search of the constructor.
+     */
+    private static final class Frame {
+        final UGen ugen;
+        final UGen.BufferPointer[][] inputs;
+        /**
+         * The dependents and then the distinct UGens connected to the inputs, as {@link UGen#pullInputs()}
+         * updates them.
+         */
+        final UGen[] pulls;
+        int next;
+
+        int[] preds = new int[4];
+        int predCount;
+        int level;
+
+        Frame(UGen ugen) {
+            this.ugen = ugen;
+            inputs = ugen.inputs();
+            Lst<UGen> pulls = new Lst<>();
+            for (UGen d : ugen.dependents())
+                pull(pulls, d);
+            for (UGen.BufferPointer[] in : inputs)
+                for (UGen.BufferPointer bp : in)
+                    pull(pulls, bp.ugen);
+            this.pulls = pulls.toArray(new UGen[0]);
+        }
+
+        private static void pull(Lst<UGen> pulls, UGen u) {
+            for (UGen p : pulls)
+                if (p == u)
+                    return;
+            pulls.add(u);
+        }
+
+        void addPred(int i, int predLevel) {
+            for (int k = 0; k < predCount; k++)
+                if (preds[k] == i)
+                    return;
+            if (predCount == preds.length)
+                preds = Arrays.copyOf(preds, predCount * 2);
+            preds[predCount++] = i;
+            level = Math.max(level, predLevel + 1);
+        }
+    }
+}
@@ -6,10 +6,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.HashSet;
 
 /**
- * This class supports 'one-shot'  reading and writing of wav files.
+ * This class supports 'one-shot'  reading and writing of wav files, and writing them in chunks with
+ * {@link #beginWriting}, {@link #write} and {@link #endWriting}.
  * It has no dependencies on 3rd party libraries so it should work on all platforms.
  * <p>
  * Based on WavFile IO class by: A.Greensted (http:
@@ -35,6 +37,11 @@ public class WavFileReaderWriter implements AudioFileReader, AudioFileWriter {
     private static final int DATA_CHUNK_ID = 0x61746164;
     private static final int RIFF_CHUNK_ID = 0x46464952;
     private static final int RIFF_TYPE_ID = 0x45564157;
+    /**
+     * The most bytes of audio data whose sizes, that of the data and that of the whole file after its first 8
+     * bytes, fit the 32 bits of the header: about 4 GB.
+     */
+    private static final long MAX_DATA_BYTES = 0xFFFFFFFFL - (4 + 8 + 18 + 8) - 1;
 
     
     private static final int WAVE_FORMAT_PCM = 0x0001;
@@ -96,6 +103,67 @@ public class WavFileReaderWriter implements AudioFileReader, AudioFileWriter {
         }
     }
 
+    /**
+     * Opens a wav file to be written in chunks by {@link #write}, for audio whose length is not known in advance
+     * or that is too long to hold in memory. The sizes in its header are filled in by {@link #endWriting}.
+     *
+     * @param filename    the name of the file to be written
+     * @param numChannels the number of channels
+     * @param saf         the sample rate and bit depth
+     */
+    public void beginWriting(String filename, int numChannels, SampleAudioFormat saf) throws IOException, FileFormatException {
+        if (ioState != IOState.CLOSED) throw new IOException("Incorrect IOState");
+
+        this.sampleRate = (long) saf.sampleRate;
+        this.numChannels = numChannels;
+        this.validBits = saf.bitDepth;
+        this.numFrames = 0;
+        this.file = new File(filename);
+
+        writeHeader();
+
+        // unbounded until endWriting, as writeFrames stops at numFrames
+        this.numFrames = Long.MAX_VALUE;
+    }
+
+    /**
+     * Writes a chunk of frames to a file opened by {@link #beginWriting}, rejecting one that would take the data
+     * past the 4 GB a wav header can describe; {@link #endWriting} then closes a file of what was written.
+     *
+     * @param data      the audio data, [channels][frames]
+     * @param offset    the first frame of data to write
+     * @param numFrames the number of frames to write
+     */
+    public void write(float[][] data, int offset, int numFrames) throws IOException {
+        if ((frameCounter + numFrames) * blockAlign > MAX_DATA_BYTES)
+            throw new IOException("Wav data past " + MAX_DATA_BYTES + " bytes, which its 32 bit header can't describe");
+        writeFrames(data, offset, numFrames);
+    }
+
+    /**
+     * Closes a file opened by {@link #beginWriting}, writing the sizes of what has been written into its header.
+     */
+    public void endWriting() throws IOException {
+        if (ioState != IOState.WRITING) throw new IOException("Incorrect IOState");
+
+        long dataChunkSize = blockAlign * frameCounter;
+        wordAlignAdjust = dataChunkSize % 2 == 1;
+        close();
+
+        int formatDataSize = compressionCode == WAVE_FORMAT_PCM ? 16 : 18;
+        long mainChunkSize = 4 + 8 + formatDataSize + 8 + dataChunkSize + (wordAlignAdjust ? 1 : 0);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            putLE(mainChunkSize, buffer, 0, 4);
+            raf.seek(4);
+            raf.write(buffer, 0, 4);
+
+            putLE(dataChunkSize, buffer, 0, 4);
+            raf.seek(12 + 8 + formatDataSize + 4);
+            raf.write(buffer, 0, 4);
+        }
+        numFrames = frameCounter;
+    }
+
     /**
      * See {@link AudioFileWriter#getSupportedFileTypesForWriting}
      */
@@ -174,6 +242,8 @@ public class WavFileReaderWriter implements AudioFileReader, AudioFileWriter {
         if (validBits < 2 || validBits > 65535)
             throw new FileFormatException("Illegal number of valid bits, valid range 2 to 65536");
         if (sampleRate < 0) throw new FileFormatException("Sample rate must be positive");
+        if (numFrames * blockAlign > MAX_DATA_BYTES)
+            throw new FileFormatException("Wav data past " + MAX_DATA_BYTES + " bytes, which its 32 bit header can't describe");
 
         
         compressionCode = validBits == 32 || validBits == 64 ? WAVE_FORMAT_IEEE_FLOAT : WAVE_FORMAT_PCM;
@@ -78,6 +78,11 @@ public abstract class Audio implements Runnable {
         return bufferSamples;
     }
 
+    /** the mixer, whose {@link SoundMixer#mixNanos()} is the time mixing each buffer takes */
+    public SoundMixer mixer() {
+        return mixer;
+    }
+
     public <S extends SoundProducer> Sound<S> play(S p) {
         return play(p, 1, 1, 0);
     }
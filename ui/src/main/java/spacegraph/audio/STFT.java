@@ -0,0 +1,269 @@
+package spacegraph.audio;
+
+import spacegraph.audio.modem.chirp.transceive.util.FloatFFT;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * streaming short-time fourier transform of one or more channels.
+ *
+ * samples written in blocks of any length are buffered per channel; every hop samples, once a whole frame of
+ * size samples is buffered, the last frame of each channel is windowed and transformed, and the magnitudes of
+ * all channels are handed to every listener at once.  FFT plans and windows are cached per size, and the
+ * frame, work and magnitude buffers reused, so steady streaming allocates nothing.
+ *
+ * {@link #shared} returns the one instance per source and configuration, fed by the first subscriber and
+ * released with the last, so that any number of views of a signal pay for one transform.
+ */
+public final class STFT {
+
+    public enum Window {
+        RECTANGULAR, HANN, HAMMING, BLACKMAN;
+
+        private final Map<Integer, float[]> cache = new ConcurrentHashMap<>();
+
+        /** the window's coefficients for frames of the given size, shared: do not modify */
+        public float[] coefficients(int size) {
+            return cache.computeIfAbsent(size, this::compute);
+        }
+
+        private float[] compute(int n) {
+            float[] w = new float[n];
+            for (int i = 0; i < n; i++) {
+                double p = 2 * Math.PI * i / n; //periodic, as for overlapping frames
+                w[i] = (float) switch (this) {
+                    case RECTANGULAR -> 1;
+                    case HANN -> 0.5 - 0.5 * Math.cos(p);
+                    case HAMMING -> 0.54 - 0.46 * Math.cos(p);
+                    case BLACKMAN -> 0.42 - 0.5 * Math.cos(p) + 0.08 * Math.cos(2 * p);
+                };
+            }
+            return w;
+        }
+    }
+
+    /** receives each frame's spectra */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param magnitude [channel][bin], bins from 0 Hz to the nyquist frequency, of amplitude relative to a full scale
+         *                  sine; reused for the next frame, so copy what is kept
+         */
+        void frame(float[][] magnitude);
+    }
+
+    private static final Map<Integer, FloatFFT> plans = new ConcurrentHashMap<>();
+
+    /** the cached transform of the given size */
+    public static FloatFFT plan(int size) {
+        return plans.computeIfAbsent(size, FloatFFT::new);
+    }
+
+    public final int channels, size, hop;
+    public final Window window;
+
+    private final FloatFFT fft;
+    private final float[] win;
+    private final float scale;
+
+    /** the last size samples of each channel, circular from at */
+    private final float[][] ring;
+    private int at, buffered, untilHop;
+
+    private final float[] work;
+    private final float[][] magnitude;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param size frame length in samples, a power of two
+     * @param hop  samples between the starts of successive frames
+     */
+    public STFT(int channels, int size, int hop, Window window) {
+        if (channels < 1)
+            throw new IllegalArgumentException("channels < 1");
+        if (size < 4 || Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("size must be a power of two, at least 4");
+        if (hop < 1)
+            throw new IllegalArgumentException("hop < 1");
+        this.channels = channels;
+        this.size = size;
+        this.hop = hop;
+        this.window = window;
+
+        fft = plan(size);
+        win = window.coefficients(size);
+        double sum = 0;
+        for (float w : win)
+            sum += w;
+        scale = (float) (2 / sum);
+
+        ring = new float[channels][size];
+        work = new float[size];
+        magnitude = new float[channels][bins()];
+        untilHop = size;
+    }
+
+    /** number of frequency bins of each spectrum, 0 Hz to nyquist inclusive */
+    public int bins() {
+        return size / 2 + 1;
+    }
+
+    /** frequency of a bin, at a sample rate */
+    public float frequency(int bin, float sampleRate) {
+        return bin * sampleRate / size;
+    }
+
+    public void on(Listener l) {
+        listeners.add(l);
+    }
+
+    /** @return whether no listeners remain */
+    public boolean off(Listener l) {
+        listeners.remove(l);
+        return listeners.isEmpty();
+    }
+
+    /** writes length samples of a single channel transform */
+    public void write(float[] x, int offset, int length) {
+        if (channels != 1)
+            throw new IllegalStateException("write all " + channels + " channels");
+        write(null, x, offset, length);
+    }
+
+    /** writes length samples of each channel, x[channel][offset ..] */
+    public void write(float[][] x, int offset, int length) {
+        if (x.length != channels)
+            throw new IllegalArgumentException("expected " + channels + " channels");
+        write(x, null, offset, length);
+    }
+
+    private synchronized void write(float[][] multi, float[] mono, int offset, int length) {
+        while (length > 0) {
+            int n = Math.min(length, Math.min(untilHop, size - at));
+            for (int c = 0; c < channels; c++)
+                System.arraycopy(mono != null ? mono : multi[c], offset, ring[c], at, n);
+            at = (at + n) & (size - 1);
+            buffered = Math.min(size, buffered + n);
+            untilHop -= n;
+            offset += n;
+            length -= n;
+            if (untilHop == 0) {
+                untilHop = hop;
+                if (buffered == size)
+                    transform();
+            }
+        }
+    }
+
+    private void transform() {
+        float[] work = this.work, win = this.win;
+        int n = size, split = n - at;
+        for (int c = 0; c < channels; c++) {
+            float[] r = ring[c];
+            // oldest sample first
+            for (int i = 0; i < split; i++)
+                work[i] = r[at + i] * win[i];
+            for (int i = split; i < n; i++)
+                work[i] = r[i - split] * win[i];
+
+            fft.realForward(work);
+
+            float[] m = magnitude[c];
+            float s = scale;
+            m[0] = Math.abs(work[0]) * s / 2;
+            m[n / 2] = Math.abs(work[1]) * s / 2;
+            for (int k = 1; k < n / 2; k++) {
+                float re = work[2 * k], im = work[2 * k + 1];
+                m[k] = (float) Math.sqrt(re * re + im * im) * s;
+            }
+        }
+        for (Listener l : listeners)
+            l.frame(magnitude);
+    }
+
+    /** the shared transforms of each source, by identity */
+    private static final Map<Object, List<Shared>> shared = new IdentityHashMap<>();
+
+    /**
+     * subscribes to the transform of a source, shared by all subscribers of the same source and configuration.
+     * the first subscriber's feed connects the source (writing its samples to the transform) and returns the
+     * means of disconnecting it, run when the last subscription is closed.
+     *
+     * @return the subscription, closed to unsubscribe
+     */
+    public static Subscription shared(Object source, int channels, int size, int hop, Window window,
+                                      Function<STFT, Runnable> feed, Listener l) {
+        synchronized (shared) {
+            List<Shared> ss = shared.computeIfAbsent(source, z -> new ArrayList<>(1));
+            Shared s = null;
+            for (Shared x : ss) {
+                STFT t = x.stft;
+                if (t.channels == channels && t.size == size && t.hop == hop && t.window == window) {
+                    s = x;
+                    break;
+                }
+            }
+            if (s == null) {
+                STFT t = new STFT(channels, size, hop, window);
+                t.on(l);
+                ss.add(s = new Shared(source, t, feed.apply(t)));
+            } else
+                s.stft.on(l);
+            return new Subscription(s, l);
+        }
+    }
+
+    private static final class Shared {
+        final Object source;
+        final STFT stft;
+        final Runnable disconnect;
+
+        Shared(Object source, STFT stft, Runnable disconnect) {
+            this.source = source;
+            this.stft = stft;
+            this.disconnect = disconnect;
+        }
+    }
+
+    /** a listener of a {@link #shared} transform */
+    public static final class Subscription implements AutoCloseable {
+        private final Shared s;
+        private final Listener l;
+        private boolean closed;
+
+        private Subscription(Shared s, Listener l) {
+            this.s = s;
+            this.l = l;
+        }
+
+        public STFT stft() {
+            return s.stft;
+        }
+
+        @Override
+        public void close() {
+            Runnable disconnect = null;
+            synchronized (shared) {
+                if (closed)
+                    return;
+                closed = true;
+                if (s.stft.off(l)) {
+                    List<Shared> ss = shared.get(s.source);
+                    ss.remove(s);
+                    if (ss.isEmpty())
+                        shared.remove(s.source);
+                    disconnect = s.disconnect;
+                }
+            }
+            if (disconnect != null)
+                disconnect.run();
+        }
+    }
+}
@@ -18,6 +18,16 @@ public class Sound<S extends SoundProducer> implements SoundSource, Comparable
     public float amplitude;
     boolean playing;
 
+    /** which of the {@link SoundMixer}'s heaps this is in, and where */
+    byte heap = SoundMixer.NONE;
+    int heapIndex = -1;
+
+    /** the left and right gains this was last mixed with, NaN if never */
+    float gainL = Float.NaN, gainR = Float.NaN;
+
+    /** mixed for one more buffer, ramped to silence, after leaving the audible voices */
+    boolean fading;
+
     public Sound(S producer, SoundSource source, float volume, float priority) {
         this.producer = producer;
         this.source = source;
@@ -74,6 +84,10 @@ public class Sound<S extends SoundProducer> implements SoundSource, Comparable
         return playing;
     }
 
+    float score() {
+        return score;
+    }
+
     @Override
     public int compareTo(Object o) {
         if (this == o) return 0;
@@ -6,16 +6,43 @@ import jcog.util.ArrayUtil;
 
 import java.util.Arrays;
 
-
+/**
+ * mixes the highest scoring sounds, up to a number of audible voices, into a stereo buffer.
+ *
+ * the voices are kept in two heaps: the audible ones in a min-heap, its root the first to be culled,
+ * and the rest in a max-heap, its root the first to be heard.  a voice whose score changes is sifted
+ * within its heap, and the roots are exchanged while the culled outscores the audible, so each update
+ * costs O(changes * log n) rather than a sort of every sound.
+ *
+ * gain and pan changes are ramped across each buffer.  a voice becoming audible ramps in from silence,
+ * and one culled is mixed for one more buffer ramping out to silence, so neither clicks.
+ *
+ * heaps and gains belong to the audio thread calling update and read; sounds may be added from any.
+ */
 public class SoundMixer extends FastCoWList<Sound> implements StereoSoundProducer {
 
+	static final byte NONE = 0, AUDIBLE = 1, CULLED = 2, REMOVED = 3;
+
 	private final int audibleSources;
 	private float[] buf = ArrayUtil.EMPTY_FLOAT_ARRAY;
 	private SoundSource soundSource;
 
+	/** min-heap of the audible voices */
+	private final Sound[] audible;
+	private int audibleSize;
+
+	/** max-heap of the culled voices */
+	private Sound[] culled = new Sound[16];
+	private int culledSize;
+
+	/** nanoseconds the last read took, and their moving average */
+	private volatile long mixNanos;
+	private volatile double mixNanosMean;
+
 	public SoundMixer(int audibleSources) {
 		super(Sound[]::new);
 		this.audibleSources = audibleSources;
+		this.audible = new Sound[audibleSources];
 	}
 
 	public void setSoundListener(SoundSource soundSource) {
@@ -32,67 +59,233 @@ public class SoundMixer extends FastCoWList<Sound> implements StereoSoundProduce
 	public void update(float receiverBalance) {
 		boolean updating = (soundSource != null);
 
-		this.removeIf(sound -> !updating || !sound.update(soundSource, receiverBalance));
+		boolean removed = false;
+		for (Sound s : array()) {
+			float score = s.score();
+			if (!updating || !s.update(soundSource, receiverBalance)) {
+				unheap(s);
+				s.heap = REMOVED;
+				removed = true;
+			} else if (s.heap == NONE) {
+				if (audibleSize < audibleSources)
+					push(s, AUDIBLE);
+				else
+					push(s, CULLED);
+			} else if (s.score() != score) {
+				sift(s);
+			}
+		}
+		if (removed)
+			this.removeIf(s -> s.heap == REMOVED);
+
+		rebalance();
+	}
+
+	/** moves voices between the heaps until every audible outscores every culled */
+	private void rebalance() {
+		while (culledSize > 0) {
+			Sound c = culled[0];
+			if (audibleSize == audibleSources) {
+				if (audibleSize == 0 || c.compareTo(audible[0]) <= 0)
+					break;
+				Sound a = audible[0];
+				remove(AUDIBLE, 0);
+				push(a, CULLED);
+				a.fading = !Float.isNaN(a.gainL);
+			}
+			remove(CULLED, 0);
+			push(c, AUDIBLE);
+			if (c.fading)
+				c.fading = false; //never faded, so ramps on from the gains it was last mixed with
+			else
+				c.gainL = c.gainR = 0;
+		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public void read(float[] leftBuf, float[] rightBuf, int readRate) {
+		if (isEmpty())
+			return;
 
-		Sound[] ss = array();
-		int s = ss.length;
+		long start = System.nanoTime();
 
-		if (s == 0)
-			return;
+		int l = leftBuf.length;
+		if (buf.length != l)
+			buf = new float[l];
 
-		if (buf.length != leftBuf.length)
-			buf = new float[leftBuf.length];
+		for (int i = 0; i < audibleSize; i++) {
+			Sound sound = audible[i];
 
-		if (s > audibleSources) {
-			//Collections.sort(this);
-			sort();
+			float pan = sound.pan, amp = sound.amplitude;
+			float rp = (pan <= 0 ? 1 : 1 + pan) * amp;
+			float lp = (pan >= 0 ? 1 : 1 - pan) * amp;
+
+			mix(sound, leftBuf, rightBuf, readRate, lp, rp);
 		}
 
+		for (int i = 0; i < culledSize; i++) {
+			Sound sound = culled[i];
+			if (sound.fading) {
+				mix(sound, leftBuf, rightBuf, readRate, 0, 0);
+				sound.fading = false;
+			} else
+				sound.skip(l, readRate);
+		}
 
-		int l = leftBuf.length;
+		long dt = System.nanoTime() - start;
+		mixNanos = dt;
+		double mean = mixNanosMean;
+		mixNanosMean = mean == 0 ? dt : mean + (dt - mean) * 0.05;
+	}
+
+	private void mix(Sound sound, float[] leftBuf, float[] rightBuf, int readRate, float lp, float rp) {
+		float[] buf = this.buf;
+		Arrays.fill(buf, 0);
+
+		boolean kontinues = sound.producer.read(buf, readRate);
 
-		for (int i = 0; i < s; i++) {
-			Sound sound = ss[i];
+		float l0 = sound.gainL, r0 = sound.gainR;
+		if (l0 != l0) {
+			//first mixed: the producer's own signal begins here
+			l0 = lp;
+			r0 = rp;
+		}
+		mix(buf, leftBuf, rightBuf, buf.length, l0, r0, lp, rp);
+		sound.gainL = lp;
+		sound.gainR = rp;
+
+		if (!kontinues)
+			sound.stop();
+	}
 
-			if (i < audibleSources) {
-				float[] buf = this.buf;
-				Arrays.fill(buf, 0);
+	/**
+	 * adds x, ramped linearly from gains (l0, r0) to (l1, r1) over n samples, into left and right.
+	 * plain indexed loops, free of loop-carried state, so that C2 compiles them to SIMD.
+	 */
+	static void mix(float[] x, float[] left, float[] right, int n, float l0, float r0, float l1, float r1) {
+		if (l0 == l1 && r0 == r1) {
+			for (int j = 0; j < n; j++)
+				left[j] += x[j] * l1;
+			for (int j = 0; j < n; j++)
+				right[j] += x[j] * r1;
+		} else {
+			float dl = (l1 - l0) / n, dr = (r1 - r0) / n;
+			for (int j = 0; j < n; j++)
+				left[j] += x[j] * (l0 + dl * (j + 1));
+			for (int j = 0; j < n; j++)
+				right[j] += x[j] * (r0 + dr * (j + 1));
+		}
+	}
 
-				boolean kontinues = sound.producer.read(buf, readRate);
+	@Override
+	public void skip(int samplesToSkip, int readRate) {
+		for (Sound sound : this) sound.skip(samplesToSkip, readRate);
+	}
 
-				float pan = sound.pan;
+	/** nanoseconds the last {@link #read} took */
+	public long mixNanos() {
+		return mixNanos;
+	}
 
-				float amp = sound.amplitude;
-				float rp = (pan <= 0 ? 1 : 1 + pan) * amp;
-				float lp = (pan >= 0 ? 1 : 1 - pan) * amp;
+	/** exponential moving average of the nanoseconds each {@link #read} takes */
+	public double mixNanosMean() {
+		return mixNanosMean;
+	}
 
-				for (int j = 0; j < l; j++) {
-					float bj = buf[j];
-					leftBuf[j] += bj * lp;
-					rightBuf[j] += bj * rp;
-				}
+	/** number of voices currently mixed */
+	public int audible() {
+		return audibleSize;
+	}
 
-				if (!kontinues)
-					sound.stop();
+	private void push(Sound s, byte heap) {
+		Sound[] h;
+		int i;
+		if (heap == AUDIBLE) {
+			h = audible;
+			i = audibleSize++;
+		} else {
+			if (culledSize == culled.length)
+				culled = Arrays.copyOf(culled, culledSize * 2);
+			h = culled;
+			i = culledSize++;
+		}
+		s.heap = heap;
+		set(h, i, s);
+		siftUp(h, i);
+	}
 
-			} else {
-				sound.skip(leftBuf.length, readRate);
-			}
+	private void unheap(Sound s) {
+		if (s.heap == AUDIBLE || s.heap == CULLED) {
+			remove(s.heap, s.heapIndex);
+			s.heap = NONE;
+			s.heapIndex = -1;
+			s.fading = false;
+		}
+	}
 
+	private void remove(byte heap, int i) {
+		Sound[] h;
+		int last;
+		if (heap == AUDIBLE) {
+			h = audible;
+			last = --audibleSize;
+		} else {
+			h = culled;
+			last = --culledSize;
+		}
+		Sound moved = h[last];
+		h[last] = null;
+		if (i < last) {
+			set(h, i, moved);
+			siftUp(h, i);
+			siftDown(h, moved.heapIndex, last);
 		}
+	}
 
+	private void sift(Sound s) {
+		Sound[] h = s.heap == AUDIBLE ? audible : culled;
+		int size = s.heap == AUDIBLE ? audibleSize : culledSize;
+		siftUp(h, s.heapIndex);
+		siftDown(h, s.heapIndex, size);
+	}
 
+	/** whether a belongs nearer the root than b: the audible heap's root scores lowest, the culled's highest */
+	private boolean above(Sound[] h, Sound a, Sound b) {
+		int c = a.compareTo(b);
+		return h == audible ? c < 0 : c > 0;
+	}
 
+	private void siftUp(Sound[] h, int i) {
+		Sound s = h[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			Sound p = h[parent];
+			if (!above(h, s, p))
+				break;
+			set(h, i, p);
+			i = parent;
+		}
+		set(h, i, s);
 	}
 
+	private void siftDown(Sound[] h, int i, int size) {
+		Sound s = h[i];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1, right = child + 1;
+			if (right < size && above(h, h[right], h[child]))
+				child = right;
+			if (!above(h, h[child], s))
+				break;
+			set(h, i, h[child]);
+			i = child;
+		}
+		set(h, i, s);
+	}
 
-	@Override
-	public void skip(int samplesToSkip, int readRate) {
-		for (Sound sound : this) sound.skip(samplesToSkip, readRate);
+	private static void set(Sound[] h, int i, Sound s) {
+		h[i] = s;
+		s.heapIndex = i;
 	}
-}
\ No newline at end of file
+}
@@ -2,12 +2,10 @@ package spacegraph.audio.modem.chirp.transceive;
 
 
 import org.eclipse.collections.impl.list.mutable.primitive.FloatArrayList;
-import spacegraph.audio.modem.chirp.transceive.reedsolomon.GenericGF;
-import spacegraph.audio.modem.chirp.transceive.reedsolomon.ReedSolomonDecoder;
-import spacegraph.audio.modem.chirp.transceive.reedsolomon.ReedSolomonEncoder;
 import spacegraph.audio.modem.chirp.transceive.util.AudioEvent;
 import spacegraph.audio.modem.chirp.transceive.util.AudioFormat;
 import spacegraph.audio.modem.chirp.transceive.util.PitchProcessor;
+import spacegraph.audio.modem.reedsolomon.ReedSolomon;
 
 import java.util.*;
 
@@ -36,13 +34,10 @@ public class AudioTransceiver {
 
     public final AudioFormat fmt;
 
-    private final GenericGF lGenericGF = new GenericGF(synth.range.mGaloisPolynomial, synth.range.mFrameLength + 1, 1);
     /**
-     * Declare the Galois Field. (5-bit, using root polynomial a^5 + a^2 + 1.)
-     * Allocate the ReedSolomonEncoder and ReedSolomonDecoder.
+     * The Reed/Solomon codec over the Galois Field. (5-bit, using root polynomial a^5 + a^2 + 1.)
      */
-    private final ReedSolomonEncoder mReedSolomonEncoder = new ReedSolomonEncoder(lGenericGF);
-    private final ReedSolomonDecoder mReedSolomonDecoder = new ReedSolomonDecoder(lGenericGF);
+    private static final ReedSolomon mReedSolomon = new ReedSolomon(synth.range.mGaloisPolynomial, synth.range.mFrameLength + 1, 1, synth.errLen);
 
     private final boolean mSampleSelf;
     private FloatArrayList pitchBuffer;
@@ -65,7 +60,7 @@ public class AudioTransceiver {
                 pitchBuffer.add(pPitchDetectionResult.getPitch());
                 confBuffer.add(pPitchDetectionResult.getProbability());
                 // Process the signal.
-                receive(mReedSolomonDecoder, pitchBuffer, confBuffer, READ_SUBSAMPLING_FACTOR, this::_onMessage);
+                receive(mReedSolomon, pitchBuffer, confBuffer, READ_SUBSAMPLING_FACTOR, this::_onMessage);
             });
 
 
@@ -174,7 +169,7 @@ public class AudioTransceiver {
     /**
      * Called when the samples have been updated.
      */
-    private static void receive(ReedSolomonDecoder pReedSolomonDecoder,
+    private static void receive(ReedSolomon pReedSolomon,
                                 FloatArrayList pSamples, FloatArrayList pConfidences,
                                 int pSubsamples,
                                 Synth.IListener listener) {
@@ -209,10 +204,17 @@ public class AudioTransceiver {
                 // Update the Packetized with the corresponding index value.
                 lPacketized[synth.range.mFrameLength - synth.errLen + i] = synth.range.chars.indexOf(lAccumulation.charAt(synth.identifier.length() + synth.payloadLen + i));
             }
-            // Attempt to Reed/Solomon Decode.
-            try {
-                // Decode the Sample.
-                pReedSolomonDecoder.decode(lPacketized, synth.errLen);
+            // Symbols that weren't recognized are erasures; zero them and tell the decoder where they are.
+            int[] lErasures = new int[lPacketized.length];
+            int lErasureCount = 0;
+            for (int i = 0; i < lPacketized.length; i++) {
+                if (lPacketized[i] < 0) {
+                    lPacketized[i] = 0;
+                    lErasures[lErasureCount++] = i;
+                }
+            }
+            // Attempt to Reed/Solomon Decode. (Uncorrectable packets are dropped; we're transmitting across a very lossy channel!)
+            if (pReedSolomon.decode(lPacketized, 0, lPacketized.length, lErasures, lErasureCount) >= 0) {
                 // Declare the search metric.
                 boolean acc = true;
                 int bound = synth.identifier.length();
@@ -235,8 +237,6 @@ public class AudioTransceiver {
                     // Call the callback.
                     listener.listen(lMessage);
                 }
-            } catch (ReedSolomonDecoder.ReedSolomonException pReedSolomonException) {
-                /* Do nothing; we're transmitting across a very lossy channel! */
             }
         }
     }
@@ -374,7 +374,7 @@ public class AudioTransceiver {
         // Fetch the indices of the Message.
         indices(pMessage, buffer, 0);
         // Encode the Bytes.
-        mReedSolomonEncoder.encode(buffer, synth.errLen);
+        mReedSolomon.encode(buffer, 0, buffer.length);
 
         String msg = decode(buffer, pMessage.length()); // "hj050422014jikhif";
         // (Period is in milliseconds.)
@@ -34,22 +34,19 @@ package spacegraph.audio.modem.reedsolomon;
  */
 
 public class RS implements Settings {
+    /* The same code, table-driven, encoding and computing syndromes */
+    static final ReedSolomon codec = ReedSolomon.rscode(Settings.kParityBytes);
+
     /* Encoder parity bytes */
     final int[] pBytes = new int[Settings.kMaxDeg];
 
     /* Decoder syndrome bytes */
     final int[] synBytes = new int[Settings.kMaxDeg];
 
-    /* generator polynomial */
-    final int[] genPoly = new int[Settings.kMaxDeg * 2];
-
     /* Initialize lookup tables, polynomials, etc. */
     public RS() {
         /* Initialize the galois field arithmetic tables */
         Galois.init_galois_tables();
-
-        /* Compute the encoder generator polynomial */
-        compute_genpoly(Settings.kParityBytes, genPoly);
     }
 
     static void zero_fill_from(byte[] buf, int from, int to) {
@@ -74,18 +71,6 @@ public class RS implements Settings {
         System.out.println();
     }
 
-    /* Append the parity bytes onto the end of the message */
-    void build_codeword(byte[] msg, int nbytes, byte[] codeword) {
-        int i;
-
-        for (i = 0; i < nbytes; i++)
-            codeword[i] = msg[i];
-
-        for (i = 0; i < Settings.kParityBytes; i++) {
-            codeword[i + nbytes] = (byte) pBytes[Settings.kParityBytes - 1 - i];
-        }
-    }
-
     /**********************************************************
      * Reed Solomon Decoder
      *
@@ -94,14 +79,7 @@ public class RS implements Settings {
      */
 
     public void decode(byte[] codeword, int nbytes) {
-        for (int j = 0; j < Settings.kParityBytes; j++) {
-            int sum = 0;
-            for (int i = 0; i < nbytes; i++) {
-                // !!!: byte-ify
-                sum = (0xFF & codeword[i]) ^ Galois.gmult(Galois.gexp[j + 1], sum);
-            }
-            synBytes[j] = sum;
-        }
+        codec.syndromes(codeword, 0, nbytes, synBytes);
     }
 
     /* Check if the syndrome is zero */
@@ -130,57 +108,17 @@ public class RS implements Settings {
     }
 
     /*
-     * Create a generator polynomial for an n byte RS code. The coefficients are
-     * returned in the genPoly arg. Make sure that the genPoly array which is
-     * passed in is at least n+1 bytes long.
-     */
-
-    static void compute_genpoly(int nbytes, int[] genpoly) {
-        int[] tp1 = new int[256];
-
-        /* multiply (x + a^n) for n = 1 to nbytes */
-
-        Berlekamp.zero_poly(tp1);
-        tp1[0] = 1;
-
-        int[] tp = new int[256];
-        for (int i = 1; i <= nbytes; i++) {
-            Berlekamp.zero_poly(tp);
-            tp[0] = Galois.gexp[i]; /* set up x+a^n */
-            tp[1] = 1;
-
-            Berlekamp.mult_polys(genpoly, tp, tp1);
-            Berlekamp.copy_poly(tp1, genpoly);
-        }
-    }
-
-    /*
-     * Simulate a LFSR with generator polynomial for n byte RS code. Pass in a
-     * pointer to the data array, and amount of data.
+     * Encode nbytes of msg, by the shared table-driven ReedSolomon codec.
      *
      * The parity bytes are deposited into pBytes[], and the whole message and
      * parity are copied to dest to make a codeword.
      */
 
     public void encode(byte[] msg, int nbytes, byte[] codeword) {
-        int i;
-        int[] LFSR = new int[Settings.kParityBytes + 1];
+        System.arraycopy(msg, 0, codeword, 0, nbytes);
+        codec.encode(codeword, 0, nbytes + Settings.kParityBytes);
 
-        for (i = 0; i < Settings.kParityBytes + 1; i++)
-            LFSR[i] = 0;
-
-        for (i = 0; i < nbytes; i++) {
-            // !!!: byte-ify
-            int dbyte = ((msg[i] ^ LFSR[Settings.kParityBytes - 1]) & 0xFF);
-            for (int j = Settings.kParityBytes - 1; j > 0; j--) {
-                LFSR[j] = LFSR[j - 1] ^ Galois.gmult(genPoly[j], dbyte);
-            }
-            LFSR[0] = Galois.gmult(genPoly[0], dbyte);
-        }
-
-        for (i = 0; i < Settings.kParityBytes; i++)
-            pBytes[i] = LFSR[i];
-
-        build_codeword(msg, nbytes, codeword);
+        for (int i = 0; i < Settings.kParityBytes; i++)
+            pBytes[i] = codeword[nbytes + Settings.kParityBytes - 1 - i] & 0xFF;
     }
 }
\ No newline at end of file
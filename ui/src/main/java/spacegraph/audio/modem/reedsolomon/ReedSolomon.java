@@ -0,0 +1,380 @@
+package spacegraph.audio.modem.reedsolomon;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * table-driven systematic reed-solomon codec over GF(2^m), m <= 8, encoding and decoding many codewords
+ * per call.
+ *
+ * a codeword is its data symbols followed by the parity symbols, the first the highest degree coefficient,
+ * with generator polynomial (x - a^b)(x - a^(b+1))..(x - a^(b+parity-1)).  this is the code of both
+ * {@link RS} (GF(256), x^8 + x^4 + x^3 + x^2 + 1, b = 1) and the chirp modem's
+ * {@link spacegraph.audio.modem.chirp.transceive.reedsolomon.ReedSolomonEncoder}, so codewords of either
+ * are interchangeable with this.
+ *
+ * multiplications are lookups into a full product table, and multiplications by the generator and syndrome
+ * roots into rows of it.  decoding computes the syndromes and, when all are zero (the usual case), is done;
+ * otherwise it corrects errors and erasures by berlekamp-massey, chien search and forney.
+ *
+ * instances are immutable but for each thread's decoding state, and may be shared between threads.
+ */
+public final class ReedSolomon {
+
+    /** number of elements of the field */
+    public final int size;
+
+    /** number of parity symbols of a codeword, correcting up to parity/2 errors, or parity erasures */
+    public final int parity;
+
+    private final int generatorBase;
+
+    /** a^i for i in 0 .. 2(size-1), so sums of two logs need no modulo */
+    private final int[] exp;
+    private final int[] log;
+
+    /** a * b at [a * size + b] */
+    private final byte[] mul;
+
+    /** feedback * the generator's coefficients, highest degree (after the implicit leading 1) first, at [feedback * parity + j] */
+    private final byte[] genMul;
+
+    /** s * a^(b+i) at [i * size + s], the horner step of syndrome i */
+    private final byte[] rootMul;
+
+    /** each thread's decoding state, reused for its codewords */
+    private final ThreadLocal<Decoder> decoders = ThreadLocal.withInitial(Decoder::new);
+
+    /** the field and code of {@link RS} */
+    public static ReedSolomon rscode(int parity) {
+        return new ReedSolomon(0x11D, 256, 1, parity);
+    }
+
+    /**
+     * @param primitive     irreducible polynomial of the field, bit i the coefficient of x^i
+     * @param size          number of elements of the field, a power of two up to 256
+     * @param generatorBase b, the power of a of the generator's first root
+     * @param parity        number of parity symbols per codeword
+     */
+    public ReedSolomon(int primitive, int size, int generatorBase, int parity) {
+        if (size < 4 || size > 256 || Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("size must be a power of two from 4 to 256");
+        if (parity < 1 || parity >= size - 1)
+            throw new IllegalArgumentException("parity out of range");
+
+        this.size = size;
+        this.parity = parity;
+        this.generatorBase = generatorBase;
+
+        int order = size - 1;
+        exp = new int[2 * order];
+        log = new int[size];
+        int x = 1;
+        for (int i = 0; i < order; i++) {
+            exp[i] = exp[i + order] = x;
+            log[x] = i;
+            x <<= 1;
+            if (x >= size)
+                x = (x ^ primitive) & order;
+        }
+        if (x != 1)
+            throw new IllegalArgumentException("not a primitive polynomial: " + Integer.toHexString(primitive));
+
+        mul = new byte[size * size];
+        for (int a = 1; a < size; a++)
+            for (int c = 1; c < size; c++)
+                mul[a * size + c] = (byte) exp[log[a] + log[c]];
+
+        // g(x) = prod (x + a^(b+i)), coefficients highest degree first
+        int[] g = new int[parity + 1];
+        g[0] = 1;
+        for (int i = 0; i < parity; i++) {
+            int root = exp[Math.floorMod(generatorBase + i, order)];
+            for (int j = i + 1; j > 0; j--)
+                g[j] ^= mul(g[j - 1], root);
+        }
+        genMul = new byte[size * parity];
+        for (int f = 0; f < size; f++)
+            for (int j = 0; j < parity; j++)
+                genMul[f * parity + j] = (byte) mul(f, g[j + 1]);
+
+        rootMul = new byte[parity * size];
+        for (int i = 0; i < parity; i++) {
+            int root = exp[Math.floorMod(generatorBase + i, order)];
+            for (int s = 0; s < size; s++)
+                rootMul[i * size + s] = (byte) mul(s, root);
+        }
+    }
+
+    private int mul(int a, int b) {
+        return mul[a * size + b] & 0xFF;
+    }
+
+    /** longest codeword, data and parity */
+    public int maxLength() {
+        return size - 1;
+    }
+
+    private void checkLength(int length) {
+        if (length <= parity || length > size - 1)
+            throw new IllegalArgumentException("codeword length out of range: " + length);
+    }
+
+    /**
+     * computes the parity of the codeword at block[offset .. offset + length], from its first length - parity
+     * symbols, into its last parity symbols.
+     */
+    public void encode(byte[] block, int offset, int length) {
+        encode(block, offset, length, 1);
+    }
+
+    /** encodes count codewords of length symbols, consecutive from offset */
+    public void encode(byte[] blocks, int offset, int length, int count) {
+        checkLength(length);
+        int p = parity, data = length - p;
+        byte[] genMul = this.genMul;
+        int[] reg = new int[p];
+        for (int c = 0; c < count; c++, offset += length) {
+            Arrays.fill(reg, 0);
+            for (int i = offset, end = offset + data; i < end; i++) {
+                int row = ((blocks[i] & 0xFF) ^ reg[0]) * p;
+                for (int j = 0; j < p - 1; j++)
+                    reg[j] = reg[j + 1] ^ (genMul[row + j] & 0xFF);
+                reg[p - 1] = genMul[row + p - 1] & 0xFF;
+            }
+            for (int j = 0; j < p; j++)
+                blocks[offset + data + j] = (byte) reg[j];
+        }
+    }
+
+    /** {@link #encode(byte[], int, int)} of symbols held in ints */
+    public void encode(int[] codeword, int offset, int length) {
+        checkLength(length);
+        int p = parity, data = length - p;
+        int[] reg = new int[p];
+        for (int i = offset, end = offset + data; i < end; i++) {
+            int row = (codeword[i] ^ reg[0]) * p;
+            for (int j = 0; j < p - 1; j++)
+                reg[j] = reg[j + 1] ^ (genMul[row + j] & 0xFF);
+            reg[p - 1] = genMul[row + p - 1] & 0xFF;
+        }
+        System.arraycopy(reg, 0, codeword, offset + data, p);
+    }
+
+    /**
+     * computes the syndromes of a codeword, into s[0 .. parity].  each is a chain of dependent lookups, so four
+     * are evaluated in one pass over the codeword, letting their lookups overlap.
+     *
+     * @return whether any is non-zero, so the codeword has errors
+     */
+    boolean syndromes(byte[] block, int offset, int length, int[] s) {
+        byte[] rootMul = this.rootMul;
+        int size = this.size, end = offset + length, any = 0, i = 0;
+        for (; i + 4 <= parity; i += 4) {
+            int r0 = i * size, r1 = r0 + size, r2 = r1 + size, r3 = r2 + size;
+            int x0 = 0, x1 = 0, x2 = 0, x3 = 0;
+            for (int k = offset; k < end; k++) {
+                int c = block[k] & 0xFF;
+                x0 = (rootMul[r0 + x0] & 0xFF) ^ c;
+                x1 = (rootMul[r1 + x1] & 0xFF) ^ c;
+                x2 = (rootMul[r2 + x2] & 0xFF) ^ c;
+                x3 = (rootMul[r3 + x3] & 0xFF) ^ c;
+            }
+            any |= (s[i] = x0) | (s[i + 1] = x1) | (s[i + 2] = x2) | (s[i + 3] = x3);
+        }
+        for (; i < parity; i++) {
+            int row = i * size, x = 0;
+            for (int k = offset; k < end; k++)
+                x = (rootMul[row + x] & 0xFF) ^ (block[k] & 0xFF);
+            any |= (s[i] = x);
+        }
+        return any != 0;
+    }
+
+    private boolean syndromes(int[] codeword, int offset, int length, int[] s) {
+        int any = 0;
+        for (int i = 0; i < parity; i++) {
+            int row = i * size, x = 0;
+            for (int k = offset, end = offset + length; k < end; k++)
+                x = (rootMul[row + x] & 0xFF) ^ codeword[k];
+            any |= (s[i] = x);
+        }
+        return any != 0;
+    }
+
+    /**
+     * corrects the codeword at block[offset .. offset + length] in place.
+     *
+     * @return the number of symbols corrected, 0 if it had no errors, or -1 if it has more errors than can be
+     * corrected, when it is left unchanged
+     */
+    public int decode(byte[] block, int offset, int length) {
+        return decode(block, offset, length, null, 0);
+    }
+
+    /**
+     * {@link #decode(byte[], int, int)} given the positions (indices into the codeword) of erasures, symbols known
+     * to be wrong.  each erasure consumes one parity symbol, each error of unknown position two.
+     */
+    public int decode(byte[] block, int offset, int length, @Nullable int[] erasures, int erasureCount) {
+        checkLength(length);
+        Decoder d = decoders.get();
+        if (!syndromes(block, offset, length, d.s))
+            return 0;
+        int n = d.correct(length, erasures, erasureCount);
+        for (int k = 0; k < n; k++)
+            block[offset + d.at[k]] ^= (byte) d.magnitude[k];
+        return n;
+    }
+
+    /**
+     * decodes count codewords of length symbols, consecutive from offset.
+     *
+     * @param corrected if not null, receives what {@link #decode(byte[], int, int)} returns for each codeword
+     * @return the number of codewords that could not be corrected
+     */
+    public int decode(byte[] blocks, int offset, int length, int count, @Nullable int[] corrected) {
+        checkLength(length);
+        Decoder d = decoders.get();
+        int failed = 0;
+        for (int c = 0; c < count; c++, offset += length) {
+            int n = 0;
+            if (syndromes(blocks, offset, length, d.s)) {
+                n = d.correct(length, null, 0);
+                for (int k = 0; k < n; k++)
+                    blocks[offset + d.at[k]] ^= (byte) d.magnitude[k];
+                if (n < 0)
+                    failed++;
+            }
+            if (corrected != null)
+                corrected[c] = n;
+        }
+        return failed;
+    }
+
+    /** {@link #decode(byte[], int, int)} of symbols held in ints */
+    public int decode(int[] codeword, int offset, int length) {
+        return decode(codeword, offset, length, null, 0);
+    }
+
+    /** {@link #decode(byte[], int, int, int[], int)} of symbols held in ints */
+    public int decode(int[] codeword, int offset, int length, @Nullable int[] erasures, int erasureCount) {
+        checkLength(length);
+        Decoder d = decoders.get();
+        if (!syndromes(codeword, offset, length, d.s))
+            return 0;
+        int n = d.correct(length, erasures, erasureCount);
+        for (int k = 0; k < n; k++)
+            codeword[offset + d.at[k]] ^= d.magnitude[k];
+        return n;
+    }
+
+    /** working state of decoding codewords with non-zero syndromes */
+    private final class Decoder {
+        final int[] s = new int[parity];
+        final int[] lambda = new int[parity + 1], b = new int[parity + 1], t = new int[parity + 1];
+        final int[] omega = new int[parity];
+        /** found errors: indices into the codeword, and the values to xor there */
+        final int[] at = new int[parity], magnitude = new int[parity];
+
+        /**
+         * finds the errors of a codeword of the given length from its syndromes, into at and magnitude.
+         *
+         * @return the number found, or -1 if uncorrectable
+         */
+        int correct(int length, @Nullable int[] erasures, int erasureCount) {
+            int p = parity, order = size - 1;
+            if (erasureCount > p)
+                return -1;
+
+            int[] lambda = this.lambda, b = this.b, t = this.t, s = this.s;
+            Arrays.fill(lambda, 0);
+            lambda[0] = 1;
+            // erasure locator: prod (1 + X x), X = a^(degree of the erased symbol)
+            for (int e = 0; e < erasureCount; e++) {
+                int pos = erasures[e];
+                if (pos < 0 || pos >= length)
+                    throw new IllegalArgumentException("erasure outside codeword: " + pos);
+                int X = exp[length - 1 - pos];
+                for (int j = e + 1; j > 0; j--)
+                    lambda[j] ^= mul(lambda[j - 1], X);
+            }
+            System.arraycopy(lambda, 0, b, 0, p + 1);
+
+            // berlekamp-massey, begun from the erasure locator
+            int L = erasureCount;
+            for (int r = erasureCount; r < p; r++) {
+                int delta = s[r];
+                for (int j = 1; j <= L; j++)
+                    delta ^= mul(lambda[j], s[r - j]);
+
+                System.arraycopy(b, 0, b, 1, p);
+                b[0] = 0;
+
+                if (delta != 0) {
+                    for (int j = 0; j <= p; j++)
+                        t[j] = lambda[j] ^ mul(delta, b[j]);
+                    if (2 * L <= r + erasureCount) {
+                        int inv = exp[order - log[delta]];
+                        for (int j = 0; j <= p; j++)
+                            b[j] = mul(lambda[j], inv);
+                        L = r + 1 + erasureCount - L;
+                    }
+                    System.arraycopy(t, 0, lambda, 0, p + 1);
+                }
+            }
+            if (2 * L - erasureCount > p)
+                return -1;
+
+            // chien search over the degrees of the codeword: lambda(a^-d) = 0 where the symbol of degree d is wrong
+            int found = 0;
+            for (int d = 0; d < length && found <= L; d++) {
+                int sum = lambda[0];
+                int step = order - d; // log of a^-d
+                for (int j = 1, lj = step; j <= L; j++, lj = (lj + step) % order)
+                    if (lambda[j] != 0)
+                        sum ^= exp[log[lambda[j]] + lj];
+                if (sum == 0) {
+                    if (found == L)
+                        return -1;
+                    at[found++] = d;
+                }
+            }
+            if (found != L)
+                return -1;
+
+            // forney: e = X^(1-b) omega(X^-1) / lambda'(X^-1), omega = s lambda mod x^parity
+            int[] omega = this.omega;
+            for (int i = 0; i < p; i++) {
+                int o = 0;
+                for (int j = 0; j <= Math.min(i, L); j++)
+                    o ^= mul(lambda[j], s[i - j]);
+                omega[i] = o;
+            }
+            for (int k = 0; k < found; k++) {
+                int d = at[k];
+                int xInv = exp[(order - d) % order];
+                int num = 0, xi = 1;
+                for (int i = 0; i < p; i++) {
+                    num ^= mul(omega[i], xi);
+                    xi = mul(xi, xInv);
+                }
+                int den = 0, x2 = mul(xInv, xInv);
+                xi = 1;
+                for (int j = 1; j <= L; j += 2) {
+                    den ^= mul(lambda[j], xi);
+                    xi = mul(xi, x2);
+                }
+                if (den == 0)
+                    return -1;
+                int e = mul(num, exp[order - log[den]]);
+                if (num != 0)
+                    e = exp[Math.floorMod(log[e] + d * (1 - generatorBase), order)];
+                magnitude[k] = e;
+                at[k] = length - 1 - d;
+            }
+            return found;
+        }
+    }
+}
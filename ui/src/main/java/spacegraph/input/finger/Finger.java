@@ -348,7 +348,10 @@ public abstract class Finger extends Part<SpaceGraph> implements Predicate<Finge
     public boolean intersects(RectF bounds) {
         //System.out.println(bounds + " contains " + posGlobal() + " ? " + bounds.contains(posGlobal()));
         //return globalToPixel(bounds).contains(posPixel);
-        return posRelative(bounds).inUnit();
+        //posRelative(bounds).inUnit(), without allocating
+        v2 g = posGlobal();
+        float x = (g.x - bounds.x) / bounds.w, y = (g.y - bounds.y) / bounds.h;
+        return x >= 0 && x <= 1 && y >= 0 && y <= 1;
     }
 
 //    public v2 globalToNumScreens(RectFloat bounds) {
@@ -130,6 +130,7 @@ public abstract class Surface implements Surfacelike {
         //      throw new WTF();
 
         BOUNDS.set(this, next);
+        moved();
 
         //BOUNDS.accumulateAndGet(this, next, (prev, n) -> prev.equals(n) ? prev : n);
 
@@ -143,17 +144,33 @@ public abstract class Surface implements Surfacelike {
         RectF last = (RectF) BOUNDS.getAndSet(this, next);
 //        if (bounds.area() < ScalarValue.EPSILON)
 //            throw new WTF();
-        return last != next && !last.equals(next, EPSILONf);
+        if (last != next && !last.equals(next, EPSILONf)) {
+            moved();
+            return true;
+        }
+        return false;
     }
     protected boolean posChanged(MutableRectFloat next) {
         RectF last = (RectF) BOUNDS.get(this);
         if (!last.equals(next, EPSILONf)) {
             BOUNDS.set(this, next.immutable());
+            moved();
             return true;
         }
         return false;
     }
 
+    /** informs the parent, which may index its children's bounds */
+    private void moved() {
+        if (parent instanceof ContainerSurface p)
+            p.childMoved(this);
+    }
+
+    private static void childrenChanged(Surfacelike parent) {
+        if (parent instanceof ContainerSurface p)
+            p.childrenChanged();
+    }
+
     public final Surface posXYWH(float cx, float cy, float w, float h) {
         return pos(RectF.XYWH(cx, cy, w, h));
     }
@@ -206,6 +223,7 @@ public abstract class Surface implements Surfacelike {
         else {
             assert p == null;
             starting();
+            childrenChanged(parent);
             return true;
         }
     }
@@ -215,6 +233,7 @@ public abstract class Surface implements Surfacelike {
         if (p != null) {
             hide();
             stopping();
+            childrenChanged(p);
             return true;
         }
         return false;
@@ -326,6 +345,7 @@ public abstract class Surface implements Surfacelike {
             }
 
             stop();
+            childrenChanged(p);
 
             if (this instanceof ContainerSurface) {
                 ((ContainerSurface) this).forEach(Surface::delete);
@@ -29,6 +29,14 @@ public abstract class ContainerSurface extends Surface {
     @SuppressWarnings({"FieldMayBeFinal", "unused"})
     private volatile int mustLayout;
 
+    private volatile @Nullable HitIndex hits;
+
+    private static final VarHandle FINGERFIRST = Util.VAR(ContainerSurface.class, "fingerFirst", FingerFirst.class);
+
+    /** reused by finger(), taken while in use */
+    @SuppressWarnings("unused")
+    private volatile FingerFirst fingerFirst = new FingerFirst();
+
 
     @Override
     public @Nullable RankedN<Surface> rank(FloatRank<Surface> o, int n) {
@@ -129,14 +137,49 @@ public abstract class ContainerSurface extends Surface {
     public Surface finger(Finger finger) {
 
         if (showing() && childrenCount() > 0 && (!clipBounds || finger.intersects(bounds))) {
-            FingerFirst ff = new FingerFirst(finger);
-            if (!whileEachReverse(ff))
-                return ff.found;
+            HitIndex h = this.hits;
+            if (h != null)
+                return h.finger(finger);
+
+            FingerFirst ff = (FingerFirst) FINGERFIRST.getAndSet(this, (FingerFirst) null);
+            if (ff == null)
+                ff = new FingerFirst(); //in use by another thread
+            ff.finger = finger;
+            boolean found = !whileEachReverse(ff);
+            Surface s = ff.found;
+            ff.finger = null; ff.found = null;
+            FINGERFIRST.setRelease(this, ff);
+            if (found)
+                return s;
         }
 
         return null;
     }
 
+    /**
+     * whether fingers are offered only to the children whose bounds contain them, found in a bounding-volume
+     * index of those, rather than to each child in turn.  for containers of many children which, unless not
+     * clipped, react to fingers only within their bounds.
+     */
+    public ContainerSurface hitIndex(boolean enabled) {
+        hits = enabled ? new HitIndex(this) : null;
+        return this;
+    }
+
+    /** a child's bounds changed */
+    public final void childMoved(Surface child) {
+        HitIndex h = this.hits;
+        if (h != null)
+            h.moved(child);
+    }
+
+    /** a child was added or removed, or the children reordered, changing which are above others */
+    public final void childrenChanged() {
+        HitIndex h = this.hits;
+        if (h != null)
+            h.invalidate();
+    }
+
     public abstract int childrenCount();
 
 
@@ -205,12 +248,8 @@ public abstract class ContainerSurface extends Surface {
 //        return MUSTLAYOUT.getOpaque(this)>0;
 //    }
     private static final class FingerFirst implements Predicate<Surface> {
-        private final Finger finger;
-        public Surface found;
-
-        FingerFirst(Finger finger) {
-            this.finger = finger;
-        }
+        Finger finger;
+        Surface found;
 
         @Override
         public boolean test(Surface c) {
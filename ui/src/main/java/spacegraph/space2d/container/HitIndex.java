@@ -0,0 +1,355 @@
+package spacegraph.space2d.container;
+
+import jcog.math.v2;
+import jcog.tree.rtree.rect.RectF;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import spacegraph.input.finger.Finger;
+import spacegraph.space2d.Surface;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * bounding-volume hierarchy of a container's children, so that a finger is offered only to those whose bounds
+ * contain it, topmost first, instead of to every child in turn.  for containers whose children react to fingers
+ * only within their bounds, unless not clipped to them: those are offered it wherever it is.
+ *
+ * the tree is a binary one of boxes in arrays, split at the median of the longer axis down to a few children per
+ * leaf.  it is rebuilt when children are added, removed or reordered, and refit to the bounds of those which moved,
+ * from their leaves up: both lazily, on the next query, so that layout does no more than note it.  once many have
+ * moved, every node is refit instead, or the tree rebuilt if that has grown its boxes to twice their area when
+ * built.  queries allocate nothing.
+ */
+final class HitIndex {
+
+    /** children per leaf node, at most */
+    private static final int LEAF = 4;
+
+    private final ContainerSurface container;
+
+    /** whether children were added or removed since the tree was built, or so many moved that all nodes need refit */
+    private volatile boolean stale = true, moved;
+
+    /** the children, in order of iteration: later ones are drawn above */
+    private Surface[] children = new Surface[0];
+    private int count;
+    /** children offered the finger anywhere */
+    private int[] unclipped = new int[0];
+    private int unclippedCount;
+    /** the other children, ordered so that each leaf's are a range */
+    private int[] clipped = new int[0];
+    private int clippedCount;
+
+    /**
+     * nodes in depth-first order: the left child of a node follows it.  of an internal node, right is its right
+     * child and size is 0; of a leaf, right is the start of its range of clipped children and size their number
+     */
+    private float[] x0 = new float[0], y0 = x0, x1 = x0, y1 = x0;
+    private int[] right = new int[0], size = right, up = right;
+    private int nodes;
+    /** total area of the nodes when built */
+    private double builtArea;
+
+    /** position of each child in children */
+    private final ObjectIntHashMap<Surface> slots = new ObjectIntHashMap<>();
+    /** leaf of each child, or -1 if unclipped */
+    private int[] leaf = new int[0];
+    /** leaves of children moved since refit, each once */
+    private int[] dirty = new int[0];
+    private boolean[] isDirty = new boolean[0];
+    private int dirtyCount;
+    /** leaves refit since every node was */
+    private int refitLeaves;
+
+    private final Predicate<Surface> add = this::add;
+    private float[] cx = new float[0], cy = cx;
+    private int[] stack = new int[64];
+    /** children under the finger, topmost first */
+    private int[] hits = new int[16];
+    /** the children under the finger, while offered it; taken while in use */
+    private volatile Surface[] found = new Surface[16];
+
+    HitIndex(ContainerSurface container) {
+        this.container = container;
+    }
+
+    /** children were added, removed or reordered */
+    void invalidate() {
+        stale = true;
+    }
+
+    /** a child's bounds changed */
+    void moved(Surface child) {
+        if (stale || moved)
+            return;
+        synchronized (this) {
+            if (stale || moved)
+                return;
+            int c = slots.getIfAbsent(child, -1);
+            int k = c >= 0 ? leaf[c] : -1;
+            if (k < 0 || isDirty[k])
+                return;
+            if (dirtyCount == dirty.length)
+                moved = true; //too many to refit separately
+            else {
+                isDirty[k] = true;
+                dirty[dirtyCount++] = k;
+            }
+        }
+    }
+
+    /**
+     * the topmost child, of those containing the finger, accepting it.  they are offered it after the lock is
+     * released, so that a child's handler neither holds up other threads' queries nor runs under it
+     */
+    Surface finger(Finger f) {
+        v2 p = f.posGlobal();
+        Surface[] under;
+        int n;
+        synchronized (this) {
+            update();
+            n = query(p.x, p.y);
+            under = found;
+            found = null;
+            if (under == null || under.length < n)
+                under = new Surface[Math.max(n, hits.length)]; //or in use by another thread
+            int[] hits = this.hits;
+            Surface[] children = this.children;
+            for (int i = 0; i < n; i++)
+                under[i] = children[hits[i]];
+        }
+        try {
+            for (int i = 0; i < n; i++) {
+                Surface s = under[i].finger(f);
+                if (s != null)
+                    return s;
+            }
+            return null;
+        } finally {
+            Arrays.fill(under, 0, n, null);
+            found = under;
+        }
+    }
+
+    private void update() {
+        if (stale)
+            build();
+        else if (moved || refitLeaves > nodes) {
+            if (refit() > 2 * builtArea)
+                build();
+        } else if (dirtyCount > 0) {
+            for (int i = 0; i < dirtyCount; i++) {
+                int k = dirty[i];
+                isDirty[k] = false;
+                fitLeaf(k);
+                for (k = up[k]; k >= 0; k = up[k])
+                    fitInternal(k);
+            }
+            refitLeaves += dirtyCount;
+            dirtyCount = 0;
+        }
+    }
+
+    /** children containing the point, into hits, topmost first; returns their number */
+    private int query(float px, float py) {
+        int n = 0;
+        if (nodes > 0) {
+            int[] stack = this.stack;
+            int sp = 0;
+            stack[sp++] = 0;
+            while (sp > 0) {
+                int k = stack[--sp];
+                if (px < x0[k] || px > x1[k] || py < y0[k] || py > y1[k])
+                    continue;
+                int s = size[k];
+                if (s > 0) {
+                    for (int i = right[k], end = i + s; i < end; i++) {
+                        int c = clipped[i];
+                        if (contains(children[c].bounds, px, py))
+                            n = hit(n, c);
+                    }
+                } else {
+                    if (sp + 2 > stack.length)
+                        this.stack = stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[sp++] = right[k];
+                    stack[sp++] = k + 1;
+                }
+            }
+        }
+        for (int i = 0; i < unclippedCount; i++)
+            n = hit(n, unclipped[i]);
+
+        //insertion sort, descending: few hits
+        int[] h = hits;
+        for (int i = 1; i < n; i++) {
+            int x = h[i], j = i - 1;
+            for (; j >= 0 && h[j] < x; j--)
+                h[j + 1] = h[j];
+            h[j + 1] = x;
+        }
+        return n;
+    }
+
+    private int hit(int n, int child) {
+        if (n == hits.length)
+            hits = Arrays.copyOf(hits, n * 2);
+        hits[n] = child;
+        return n + 1;
+    }
+
+    private static boolean contains(RectF b, float px, float py) {
+        float x = px - b.x, y = py - b.y;
+        return x >= 0 && x <= b.w && y >= 0 && y <= b.h;
+    }
+
+    private void build() {
+        stale = moved = false;
+
+        Arrays.fill(children, 0, count, null);
+        count = unclippedCount = clippedCount = 0;
+        slots.clear();
+        container.whileEach(add);
+
+        int m = clippedCount;
+        if (cx.length < count) {
+            cx = new float[children.length];
+            cy = new float[children.length];
+        }
+        for (int i = 0; i < m; i++) {
+            int c = clipped[i];
+            RectF b = children[c].bounds;
+            cx[c] = b.x + b.w / 2;
+            cy[c] = b.y + b.h / 2;
+        }
+
+        int maxNodes = Math.max(1, 2 * m); //leaves of at least one child
+        if (right.length < maxNodes) {
+            x0 = new float[maxNodes]; y0 = new float[maxNodes];
+            x1 = new float[maxNodes]; y1 = new float[maxNodes];
+            right = new int[maxNodes]; size = new int[maxNodes]; up = new int[maxNodes];
+            isDirty = new boolean[maxNodes];
+            dirty = new int[Math.max(8, maxNodes / 16)];
+        }
+        if (leaf.length < children.length)
+            leaf = new int[children.length];
+        for (int i = 0; i < unclippedCount; i++)
+            leaf[unclipped[i]] = -1;
+        nodes = 0;
+        if (m > 0) {
+            build(0, m);
+            up[0] = -1;
+        }
+        Arrays.fill(isDirty, 0, nodes, false);
+        dirtyCount = refitLeaves = 0;
+        builtArea = area();
+    }
+
+    private boolean add(Surface s) {
+        int i = count;
+        if (i == children.length) {
+            int c = Math.max(16, i * 2);
+            children = Arrays.copyOf(children, c);
+            clipped = Arrays.copyOf(clipped, c);
+        }
+        children[i] = s;
+        slots.put(s, i);
+        count = i + 1;
+        if (s.clipBounds)
+            clipped[clippedCount++] = i;
+        else {
+            if (unclippedCount == unclipped.length)
+                unclipped = Arrays.copyOf(unclipped, Math.max(4, unclippedCount * 2));
+            unclipped[unclippedCount++] = i;
+        }
+        return true;
+    }
+
+    /** builds the subtree of the clipped children in [from, to), returning its root */
+    private int build(int from, int to) {
+        int k = nodes++;
+        if (to - from <= LEAF) {
+            right[k] = from;
+            size[k] = to - from;
+            for (int i = from; i < to; i++)
+                leaf[clipped[i]] = k;
+            fitLeaf(k);
+        } else {
+            float ax0 = Float.POSITIVE_INFINITY, ay0 = ax0, ax1 = Float.NEGATIVE_INFINITY, ay1 = ax1;
+            for (int i = from; i < to; i++) {
+                int c = clipped[i];
+                float x = cx[c], y = cy[c];
+                if (x < ax0) ax0 = x;
+                if (x > ax1) ax1 = x;
+                if (y < ay0) ay0 = y;
+                if (y > ay1) ay1 = y;
+            }
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, ax1 - ax0 >= ay1 - ay0 ? cx : cy);
+            size[k] = 0;
+            up[build(from, mid)] = k;
+            up[right[k] = build(mid, to)] = k;
+            fitInternal(k);
+        }
+        return k;
+    }
+
+    /** partially sorts clipped[lo..hi] by key so that the k'th is in place, lesser before it */
+    private void select(int lo, int hi, int k, float[] key) {
+        int[] a = clipped;
+        while (hi > lo) {
+            float pivot = key[a[(lo + hi) >>> 1]];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[a[i]] < pivot) i++;
+                while (key[a[j]] > pivot) j--;
+                if (i <= j) {
+                    int t = a[i]; a[i] = a[j]; a[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    /** refits every node to the children's current bounds; returns their total area */
+    private double refit() {
+        moved = false;
+        Arrays.fill(isDirty, 0, nodes, false);
+        dirtyCount = refitLeaves = 0;
+        for (int k = nodes - 1; k >= 0; k--) {
+            if (size[k] > 0) fitLeaf(k);
+            else fitInternal(k);
+        }
+        return area();
+    }
+
+    private void fitLeaf(int k) {
+        float ax0 = Float.POSITIVE_INFINITY, ay0 = ax0, ax1 = Float.NEGATIVE_INFINITY, ay1 = ax1;
+        for (int i = right[k], end = i + size[k]; i < end; i++) {
+            RectF b = children[clipped[i]].bounds;
+            ax0 = Math.min(ax0, b.x);
+            ay0 = Math.min(ay0, b.y);
+            ax1 = Math.max(ax1, b.x + b.w);
+            ay1 = Math.max(ay1, b.y + b.h);
+        }
+        x0[k] = ax0; y0[k] = ay0; x1[k] = ax1; y1[k] = ay1;
+    }
+
+    private void fitInternal(int k) {
+        int l = k + 1, r = right[k];
+        x0[k] = Math.min(x0[l], x0[r]);
+        y0[k] = Math.min(y0[l], y0[r]);
+        x1[k] = Math.max(x1[l], x1[r]);
+        y1[k] = Math.max(y1[l], y1[r]);
+    }
+
+    private double area() {
+        double a = 0;
+        for (int k = 0; k < nodes; k++)
+            a += (double) (x1[k] - x0[k]) * (y1[k] - y0[k]);
+        return a;
+    }
+}
@@ -26,6 +26,7 @@ public abstract class MutableListContainer extends MutableContainer {
             @Override
             public void commit() {
                 super.commit();
+                childrenChanged();
                 layout();
             }
         };
@@ -119,6 +120,7 @@ public abstract class MutableListContainer extends MutableContainer {
 
                 if (parent == null) {
                     children.setDirect(next);
+                    childrenChanged();
                     return this;
                 } else {
 
@@ -171,6 +173,7 @@ public abstract class MutableListContainer extends MutableContainer {
     public final ContainerSurface set(Collection<? extends Surface> next) {
         //set(next.toArray(Surface.EmptySurfaceArray));
         children.set(next);
+        childrenChanged(); //including when only reordered
         layout();
         return this;
     }
@@ -83,11 +83,13 @@ public class MutableMapContainer<K, V> extends MutableContainer {
     @Override
     protected MutableContainer clear() {
         cells.clear();
+        childrenChanged();
         return null;
     }
 
     protected void removeAll(Iterable<K> x) {
         cells.removeAll(x);
+        childrenChanged();
     }
 
     public Collection<K> keySet() {
@@ -123,9 +125,15 @@ public class MutableMapContainer<K, V> extends MutableContainer {
 
         CellMap.CacheCell<K, V> entry = cells.map.computeIfAbsent(key, k -> cells.cellPool.get());
 
-        ((SurfaceCacheCell<K,V>) entry).update(key, nextValue, renderer, this::hide);
+        SurfaceCacheCell<K, V> e = (SurfaceCacheCell<K, V>) entry;
+        boolean existed = e.key != null;
+        Surface prev = e.surface;
+        e.update(key, nextValue, renderer, this::hide);
 
-        return cells.update(key, entry, entry.key != null);
+        CellMap.CacheCell<K, V> y = cells.update(key, entry, entry.key != null);
+        if (existed != (entry.key != null) || prev != e.surface)
+            childrenChanged(); //added, removed or replaced, not just updated
+        return y;
 
     }
 
@@ -141,6 +149,8 @@ public class MutableMapContainer<K, V> extends MutableContainer {
 
     public V remove(Object key) {
         CellMap.CacheCell<K, V> c = cells.remove(key);
+        if (c != null)
+            childrenChanged();
         return c!=null ? c.value : null;
     }
 
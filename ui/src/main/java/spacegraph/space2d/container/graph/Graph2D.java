@@ -72,6 +72,7 @@ public class Graph2D<X> extends MutableMapContainer<X, NodeVis<X>> {
 	public Graph2D(Graph2DUpdater<X> updater) {
 		super();
 //        clipBounds = false;
+		hitIndex(true);
 		update(updater);
 	}
 
@@ -299,6 +300,7 @@ public class Graph2D<X> extends MutableMapContainer<X, NodeVis<X>> {
 
 		if (ww!=null) {
 			cells.removeAll(Iterables.transform(ww, x ->x.id));
+			childrenChanged();
 			ww.clear();
 		}
 
@@ -9,6 +9,7 @@ import jcog.data.graph.path.FromTo;
 import jcog.event.Off;
 import jcog.math.v2;
 import jcog.tree.rtree.rect.RectF;
+import org.jetbrains.annotations.Nullable;
 import spacegraph.SpaceGraph;
 import spacegraph.input.finger.Finger;
 import spacegraph.input.finger.state.DoubleClicking;
@@ -28,6 +29,7 @@ import spacegraph.space2d.meta.MetaFrame;
 import spacegraph.space2d.meta.ProtoWidget;
 import spacegraph.space2d.meta.WeakSurface;
 import spacegraph.space2d.meta.WizardFrame;
+import spacegraph.space2d.widget.port.Dataflow;
 import spacegraph.space2d.widget.port.Wire;
 import spacegraph.space2d.widget.port.util.Wiring;
 import spacegraph.space2d.widget.text.AbstractLabel;
@@ -74,6 +76,9 @@ public class GraphEdit2D extends MutableMapContainer<Surface, ContainerSurface>
 
     private transient Off loop;
 
+    /** delivers the values sent between ports asynchronously, if set; otherwise they are handled on the sending thread */
+    @Nullable private volatile Dataflow dataflow;
+
     public GraphEdit2D() {
         this(new VerletGraphEditPhysics());
     }
@@ -114,6 +119,15 @@ public class GraphEdit2D extends MutableMapContainer<Surface, ContainerSurface>
         physics.stop();
     }
 
+    public GraphEdit2D dataflow(@Nullable Dataflow d) {
+        this.dataflow = d;
+        return this;
+    }
+
+    @Nullable public Dataflow dataflow() {
+        return dataflow;
+    }
+
     public final Windo add(Surface x) {
         return add(x, xx ->
                 new DependentWindow(new Scale(new MetaFrame(xx), 0.98f)));
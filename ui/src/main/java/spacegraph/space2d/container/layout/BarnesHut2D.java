@@ -0,0 +1,225 @@
+package spacegraph.space2d.container.layout;
+
+import jcog.tree.rtree.Spatialization;
+import spacegraph.util.MutableRectFloat;
+
+import java.util.Arrays;
+
+/**
+ * flat-array quadtree for Barnes-Hut approximated repulsion.
+ * cells aggregate the repulsion radius and radius-weighted center of their nodes; a cell
+ * seen from a node at an angle (width / distance) below theta is treated as one node.
+ *
+ * rebuilt each iteration; the arrays are reused so that steady-state layout does not allocate.
+ *
+ * @see com.jujutsu.tsne.barneshut.SPTree
+ */
+final class BarnesHut2D {
+
+    private static final int LEAF_CAPACITY = 8;
+    private static final int MAX_DEPTH = 24;
+
+    /** per node (input) */
+    private float[] px = new float[0], py = new float[0], pr = new float[0];
+    private int[] next = new int[0];
+
+    /** per cell */
+    private float[] x0 = new float[0], y0 = new float[0], size = new float[0];
+    private double[] mx = new double[0], my = new double[0], mr = new double[0];
+    private int[] count = new int[0], head = new int[0], child = new int[0], depth = new int[0];
+    private int cells;
+
+    private int[] stack = new int[64];
+
+    void build(MutableRectFloat[] nn, int n) {
+        if (px.length < n) {
+            int c = n + n / 2;
+            px = new float[c];
+            py = new float[c];
+            pr = new float[c];
+            next = new int[c];
+        }
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            MutableRectFloat A = nn[i];
+            float x = px[i] = A.x, y = py[i] = A.y;
+            pr[i] = A.radius() / 2;
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+
+        cells = 0;
+        newCell(minX, minY, Math.max(Math.max(maxX - minX, maxY - minY), 1.0E-3f) * 1.0001f, 0);
+
+        for (int i = 0; i < n; i++)
+            insert(i);
+    }
+
+    private int newCell(float x, float y, float s, int d) {
+        int c = cells++;
+        if (c >= count.length)
+            grow(Math.max(16, c * 2));
+        x0[c] = x;
+        y0[c] = y;
+        size[c] = s;
+        depth[c] = d;
+        mx[c] = my[c] = mr[c] = 0;
+        count[c] = 0;
+        head[c] = -1;
+        child[c] = -1;
+        return c;
+    }
+
+    private void grow(int capacity) {
+        x0 = Arrays.copyOf(x0, capacity);
+        y0 = Arrays.copyOf(y0, capacity);
+        size = Arrays.copyOf(size, capacity);
+        mx = Arrays.copyOf(mx, capacity);
+        my = Arrays.copyOf(my, capacity);
+        mr = Arrays.copyOf(mr, capacity);
+        count = Arrays.copyOf(count, capacity);
+        head = Arrays.copyOf(head, capacity);
+        child = Arrays.copyOf(child, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+    }
+
+    private void insert(int i) {
+        float x = px[i], y = py[i], r = pr[i];
+        int c = 0;
+        while (true) {
+            mx[c] += r * x;
+            my[c] += r * y;
+            mr[c] += r;
+            count[c]++;
+
+            int ch = child[c];
+            if (ch < 0) {
+                next[i] = head[c];
+                head[c] = i;
+                if (count[c] > LEAF_CAPACITY && depth[c] < MAX_DEPTH)
+                    split(c);
+                return;
+            }
+            c = ch + quadrant(c, x, y);
+        }
+    }
+
+    private int quadrant(int c, float x, float y) {
+        float h = size[c] / 2;
+        return (x >= x0[c] + h ? 1 : 0) | (y >= y0[c] + h ? 2 : 0);
+    }
+
+    /** subdivide a leaf, distributing its nodes to the 4 new children */
+    private void split(int c) {
+        float h = size[c] / 2, x = x0[c], y = y0[c];
+        int d = depth[c] + 1;
+        int first = newCell(x, y, h, d);
+        newCell(x + h, y, h, d);
+        newCell(x, y + h, h, d);
+        newCell(x + h, y + h, h, d);
+        child[c] = first;
+
+        int i = head[c];
+        head[c] = -1;
+        while (i >= 0) {
+            int ni = next[i];
+            int q = first + quadrant(c, px[i], py[i]);
+            float r = pr[i];
+            mx[q] += r * px[i];
+            my[q] += r * py[i];
+            mr[q] += r;
+            count[q]++;
+            next[i] = head[q];
+            head[q] = i;
+            i = ni;
+        }
+    }
+
+    /**
+     * accumulates into dxy the repulsion acting on every node, using the same
+     * force law as the all-pairs Force2D.repel
+     */
+    void repel(int n, double[] dxy, float repelSpeed, float maxRepelDist, float equilibriumDistFactor, float theta) {
+        double theta2 = theta * theta;
+        int[] stack = this.stack;
+        for (int a = 0; a < n; a++) {
+            float ax = px[a], ay = py[a], ar = pr[a];
+            double fx = 0, fy = 0;
+
+            int sp = 0;
+            stack[sp++] = 0;
+            while (sp > 0) {
+                int c = stack[--sp];
+                int cn = count[c];
+                if (cn == 0)
+                    continue;
+
+                float cx0 = x0[c], cy0 = y0[c], cs = size[c];
+                //nearest point of the cell: entirely beyond the cutoff?
+                float ex = Math.max(Math.max(cx0 - ax, ax - (cx0 + cs)), 0);
+                float ey = Math.max(Math.max(cy0 - ay, ay - (cy0 + cs)), 0);
+                if (ex * ex + ey * ey >= maxRepelDist * maxRepelDist)
+                    continue;
+
+                int ch = child[c];
+                if (ch < 0) {
+                    for (int b = head[c]; b >= 0; b = next[b]) {
+                        if (b == a) continue;
+                        double dx = ax - px[b], dy = ay - py[b];
+                        double len = Math.sqrt(dx * dx + dy * dy);
+                        double s = force(len, ar, pr[b], repelSpeed, maxRepelDist, equilibriumDistFactor);
+                        if (s != 0) {
+                            s *= pr[b] / len;
+                            fx += dx * s;
+                            fy += dy * s;
+                        }
+                    }
+                    continue;
+                }
+
+                double m = mr[c];
+                double comX = mx[c] / m, comY = my[c] / m;
+                double dx = ax - comX, dy = ay - comY;
+                double d2 = dx * dx + dy * dy;
+                boolean inside = ax >= cx0 && ax < cx0 + cs && ay >= cy0 && ay < cy0 + cs;
+                if (!inside && cs * cs < theta2 * d2) {
+                    double len = Math.sqrt(d2);
+                    double s = force(len, ar, (float) (m / cn), repelSpeed, maxRepelDist, equilibriumDistFactor);
+                    if (s != 0) {
+                        s *= m / len;
+                        fx += dx * s;
+                        fy += dy * s;
+                    }
+                } else {
+                    if (sp + 4 > stack.length)
+                        this.stack = stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[sp++] = ch;
+                    stack[sp++] = ch + 1;
+                    stack[sp++] = ch + 2;
+                    stack[sp++] = ch + 3;
+                }
+            }
+
+            dxy[a * 2] += fx;
+            dxy[a * 2 + 1] += fy;
+        }
+    }
+
+    /** repulsion magnitude per unit of the other's radius; 0 if out of range */
+    private static double force(double len, float ar, float br, float repelSpeed, float maxRepelDist, float equilibriumDistFactor) {
+        if (len >= maxRepelDist || len < Float.MIN_NORMAL)
+            return 0;
+
+        double radSum = ar + br;
+        double ideal = radSum * (1 + equilibriumDistFactor);
+        len -= ideal;
+
+        double s = repelSpeed;
+        if (len > 0) s /= (1 + (len * len)) / radSum;
+        return s > Spatialization.EPSILONf ? s : 0;
+    }
+}
@@ -35,11 +35,19 @@ public class Force2D<X> extends DynamicLayout2D<X> {
     /** 1.0 - momentum LERP */
     public final FloatRange speed = new FloatRange(0.2f, 0.0f, 1.0f);
 
+    /**
+     * Barnes-Hut opening angle for repulsion: cells narrower than theta * distance are
+     * approximated as one node.  0 = exact all-pairs, O(n^2); ~0.5..1 = O(n log n)
+     */
+    public final FloatRange repelTheta = new FloatRange(0, 0, 1.5f);
+
     int iterations = 1;
 
-    private float maxRepelDist;
+    float maxRepelDist;
+
+    float equilibriumDistFactor;
 
-    private float equilibriumDistFactor;
+    private final BarnesHut2D quadtree = new BarnesHut2D();
     protected transient double[] dxy;
     protected transient int n;
     protected transient MutableRectFloat<X>[] nn;
@@ -142,9 +150,17 @@ public class Force2D<X> extends DynamicLayout2D<X> {
             attract(a, nn[a], attractSpeed);
     }
 
-    private void repel(float repelSpeed) {
+    void repel(float repelSpeed) {
         int n = this.n;
         MutableRectFloat<X>[] nn = this.nn;
+
+        float theta = repelTheta.floatValue();
+        if (theta > 0) {
+            quadtree.build(nn, n);
+            quadtree.repel(n, dxy, repelSpeed, maxRepelDist, equilibriumDistFactor, theta);
+            return;
+        }
+
         for (int a = 0; a < n; a++) {
             MutableRectFloat<X> A = nn[a];
             float ar = A.radius()/2;
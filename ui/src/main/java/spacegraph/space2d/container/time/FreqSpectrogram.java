@@ -2,21 +2,81 @@ package spacegraph.space2d.container.time;
 
 import jcog.signal.Tensor;
 import jcog.signal.wave1d.FreqDomain;
+import org.jetbrains.annotations.Nullable;
+import spacegraph.audio.STFT;
 import spacegraph.space2d.widget.meter.BitmapMatrixView;
 import spacegraph.video.Draw;
 
 import java.awt.image.BufferedImage;
+import java.util.function.Function;
 
 public class FreqSpectrogram extends BitmapMatrixView implements BitmapMatrixView.BitmapPainter {
 
-    final FreqDomain data;
+    /** decibels below full scale shown as black */
+    static final float RANGE_DB = 80;
+
+    @Nullable final FreqDomain data;
 
     /** comptued frequency domain output for display */
     private Tensor freq;
 
+    /** when subscribed to a shared {@link STFT}: its last history spectra, row head the oldest */
+    @Nullable private final float[] spectra;
+    private int head;
+    @Nullable private final Object source;
+    private final int size, hop;
+    @Nullable private final Function<STFT, Runnable> feed;
+    @Nullable private STFT.Subscription subscription;
+
     public FreqSpectrogram(int fftSize, int history) {
         super(fftSize, history, null);
         this.data = new FreqDomain(fftSize, history);
+        this.spectra = null;
+        this.source = null;
+        this.size = this.hop = 0;
+        this.feed = null;
+    }
+
+    /**
+     * displays the spectra of a source, from the {@link STFT#shared} transform of it while showing.
+     *
+     * @param feed connects the source to the transform, if not already by another view, see {@link STFT#shared}
+     */
+    public FreqSpectrogram(Object source, int fftSize, int hop, Function<STFT, Runnable> feed, int history) {
+        super(fftSize / 2 + 1, history, null);
+        this.data = null;
+        this.spectra = new float[history * w];
+        this.source = source;
+        this.size = fftSize;
+        this.hop = hop;
+        this.feed = feed;
+    }
+
+    @Override
+    protected void starting() {
+        super.starting();
+        if (source != null)
+            subscription = STFT.shared(source, 1, size, hop, STFT.Window.HANN, feed, this::spectrum);
+    }
+
+    @Override
+    protected void stopping() {
+        STFT.Subscription s = subscription;
+        if (s != null) {
+            subscription = null;
+            s.close();
+        }
+        super.stopping();
+    }
+
+    private void spectrum(float[][] magnitude) {
+        float[] m = magnitude[0], spectra = this.spectra;
+        int w = this.w;
+        synchronized (spectra) {
+            System.arraycopy(m, 0, spectra, head * w, w);
+            head = (head + 1) % h;
+        }
+        updateIfShowing();
     }
 
     public FreqSpectrogram set(Tensor x) {
@@ -27,6 +87,19 @@ public class FreqSpectrogram extends BitmapMatrixView implements BitmapMatrixVie
 
     @Override
     public void color(BufferedImage buf, int[] pix) {
+        float[] spectra = this.spectra;
+        if (spectra != null) {
+            synchronized (spectra) {
+                int rows = h, w = this.w, split = (rows - head) * w;
+                // oldest row first
+                for (int i = 0; i < split; i++)
+                    pix[i] = gray(spectra[head * w + i]);
+                for (int i = split; i < rows * w; i++)
+                    pix[i] = gray(spectra[i - split]);
+            }
+            return;
+        }
+
         int v = freq.volume();
         for (int i = 0; i < v; i++) {
             float x = freq.getAt(i);
@@ -36,21 +109,9 @@ public class FreqSpectrogram extends BitmapMatrixView implements BitmapMatrixVie
         }
     }
 
-//    @Override
-//    protected void starting() {
-//        super.starting();
-//        off = this.in.wave.on(raw-> {
-//            fft = freqDomain.next(raw);
-//            updateIfShowing();
-//        });
-//    }
-
-
-//
-//    @Override
-//    protected void stopping() {
-//        off.close();
-//        off = null;
-//        super.stopping();
-//    }
+    private static int gray(float magnitude) {
+        float db = 20 * (float) Math.log10(magnitude + 1.0e-9f);
+        float x = Math.min(1, Math.max(0, 1 + db / RANGE_DB));
+        return Draw.rgbInt(x, x, x);
+    }
 }
@@ -26,7 +26,7 @@ public class WebcamChip extends Bordering {
         set(new VideoSurface(wc));
         set(S, new Gridding(enable, Labelling.awesome(out, "play")  /*, device select, ... framerate, */));
         on = wc.tensor.on((x)-> {
-            if (enable.get() && out.active()) {
+            if (enable.get() && out.active() && !out.congested()) {
                 //out.out(x);
                 out.out(wc.tensor);
             }
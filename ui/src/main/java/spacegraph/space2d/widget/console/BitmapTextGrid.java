@@ -18,7 +18,11 @@ import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * renders a matrix of characters to a texture
+ * renders a matrix of characters to a texture.
+ *
+ * cells are copied from the shared {@link GlyphAtlas} of their font and colors into a bitmap, and each row
+ * remembers the span of its columns changed since the last upload; only the bands of changed rows are uploaded,
+ * so the work of a frame follows the cells redrawn rather than the size of the grid.
  */
 public abstract class BitmapTextGrid extends AbstractConsoleSurface {
 
@@ -40,28 +44,32 @@ public abstract class BitmapTextGrid extends AbstractConsoleSurface {
     boolean quality;
     private float alpha = 1;
 
-    @Deprecated private final Color cursorColor = new Color(255, 200, 0, 127);
     public int cursorCol;
     public int cursorRow;
     protected int fontWidth;
     protected int fontHeight;
     private transient BufferedImage backbuffer;
+    private transient int[] pixels;
     private final transient Tex tex;
     private transient Font font;
-    private transient Graphics2D g;
+
+    /** per row, the columns changed since the last upload: [dirtyFrom, dirtyTo), empty if from >= to */
+    private transient int[] dirtyFrom = new int[0], dirtyTo = dirtyFrom;
+    /** whether the whole bitmap is to be uploaded */
+    private final AtomicBoolean invalidAll = new AtomicBoolean(false);
+
+    /** atlas of the colors last drawn, likely those of the next cell */
+    private transient GlyphAtlas atlas;
 
     @Override
     public boolean delete() {
 
         tex.delete();
         font = null;
-
-        Graphics2D b = g;
-        g = null;
-        if (b!=null)
-            b.dispose();
+        atlas = null;
 
         backbuffer = null;
+        pixels = null;
 
 
         return super.delete();
@@ -77,68 +85,25 @@ public abstract class BitmapTextGrid extends AbstractConsoleSurface {
 //        resize(cols, rows);
 //    }
 
-    private void allocate(int pw, int ph) {
+    private synchronized void allocate(int pw, int ph) {
 
         BufferedImage bPrev = this.backbuffer;
-        if (bPrev != null) {
-            if (bPrev.getWidth() == pw && bPrev.getHeight() == ph)
-                return; //re-use same size
-
-            this.g.dispose();
-            this.backbuffer = null;
-            this.g = null;
-        }
-
-
+        if (bPrev != null && bPrev.getWidth() == pw && bPrev.getHeight() == ph && dirtyFrom.length == rows)
+            return; //re-use same size
 
         BufferedImage next = new BufferedImage(pw, ph, BufferedImage.TYPE_INT_ARGB);
         //next.setAccelerationPriority(1);
 
-        Graphics2D nextGraphics = next.createGraphics();
-//        System.out.println(cols + "," + rows + "\t" + b + "\t" + g);
-
-        if (antialias) {
-            nextGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
-                RenderingHints.VALUE_TEXT_ANTIALIAS_ON
-            );
-        } else {
-            nextGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
-                RenderingHints.VALUE_TEXT_ANTIALIAS_OFF
-            );
-
-        }
-        if (quality)
-            nextGraphics.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION,
-                    RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY
-                    //RenderingHints.VALUE_ALPHA_INTERPOLATION_DEFAULT
-                    //RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED
-            );
-        else
-            nextGraphics.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION,
-                RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED
-            );
-
-//        next.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, quality ?
-//            RenderingHints.VALUE_FRACTIONALMETRICS_ON :
-//            RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
-
-        nextGraphics.setRenderingHint(RenderingHints.KEY_RENDERING, quality ?
-            RenderingHints.VALUE_RENDER_QUALITY :
-            RenderingHints.VALUE_RENDER_SPEED
-//          RenderingHints.VALUE_RENDER_DEFAULT
-        );
-
-        nextGraphics.setFont(font);
-        this.g = nextGraphics;
+        this.pixels = ((DataBufferInt) next.getRaster().getDataBuffer()).getData();
         this.backbuffer = next;
+        dirtyFrom = new int[rows];
+        dirtyTo = new int[rows];
+        invalidAll.set(true);
     }
 
     protected void clearBackground() {
-        Arrays.fill(intData(), 0);
-    }
-
-    private int[] intData() {
-        return ((DataBufferInt) backbuffer.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, 0);
+        invalidAll.set(true);
     }
 
     public BitmapTextGrid alpha(float alpha) {
@@ -172,11 +137,52 @@ public abstract class BitmapTextGrid extends AbstractConsoleSurface {
 
     @Override
     protected final void paintIt(GL2 gl, ReSurface r) {
-        if (invalidTex.weakCompareAndSetAcquire(true, false)) {
-            if (!tex.set(backbuffer, gl))
+        if (invalidTex.weakCompareAndSetAcquire(true, false))
+            upload(gl);
+        tex.paint(gl, textBounds(), alpha);
+    }
+
+    /** uploads the whole bitmap if necessary, otherwise each band of consecutive changed rows */
+    private void upload(GL2 gl) {
+        BufferedImage b = backbuffer;
+        if (b == null)
+            return;
+        if (invalidAll.getAndSet(false) || tex.texture == null) {
+            synchronized (this) {
+                Arrays.fill(dirtyFrom, 0);
+                Arrays.fill(dirtyTo, 0);
+            }
+            if (!tex.set(b, gl) || tex.texture == null) {
+                invalidAll.set(true);
                 invalidTex.setRelease(true); //try again later
+            }
+            return;
+        }
+
+        int fw = fontWidth, fh = fontHeight;
+        int[] from = dirtyFrom, to = dirtyTo;
+        int rows = Math.min(from.length, b.getHeight() / fh);
+        for (int y = 0; y < rows; ) {
+            int x1, x2, y2;
+            synchronized (this) {
+                if (from[y] >= to[y]) {
+                    y++;
+                    continue;
+                }
+                x1 = Integer.MAX_VALUE; x2 = 0;
+                for (y2 = y; y2 < rows && from[y2] < to[y2]; y2++) {
+                    x1 = Math.min(x1, from[y2]);
+                    x2 = Math.max(x2, to[y2]);
+                    from[y2] = to[y2] = 0;
+                }
+            }
+            if (!tex.update(gl, x1 * fw, y * fh, (x2 - x1) * fw, (y2 - y) * fh)) {
+                invalidAll.set(true);
+                invalidTex.setRelease(true);
+                return;
+            }
+            y = y2;
         }
-        tex.paint(gl, textBounds(), alpha);
     }
 
     protected RectF textBounds() {
@@ -220,10 +226,7 @@ public abstract class BitmapTextGrid extends AbstractConsoleSurface {
 //            this.fontHeight = (int) Math.ceil((float) b.getHeight());
             this.fontWidth = (int) Math.ceil(font.getSize() / CHARACTER_ASPECT);
             this.fontHeight = font.getSize();
-
-
-            if (g != null)
-                g.setFont(font);
+            this.atlas = null;
 
             invalidate();
         }
@@ -254,7 +257,8 @@ public abstract class BitmapTextGrid extends AbstractConsoleSurface {
         if (columnIndex<0 || columnIndex >= this.cols) return;
         if (rowIndex<0 ||rowIndex >= this.rows) return;
 
-        if (g == null)
+        int[] pixels = this.pixels;
+        if (pixels == null || rowIndex >= dirtyFrom.length)
             return;
         Font font1 = this.font;
         if (font1 == null)
@@ -262,39 +266,22 @@ public abstract class BitmapTextGrid extends AbstractConsoleSurface {
 
         charAt(columnIndex, rowIndex, c);
 
-        int x = columnIndex * fontWidth;
-        int y = rowIndex * fontHeight;
+        int fgARGB = argb(fg), bgARGB = argb(backgroundColor);
+        GlyphAtlas a = this.atlas;
+        if (a == null || a.fg != fgARGB || a.bg != bgARGB)
+            this.atlas = a = GlyphAtlas.the(font1, fontWidth, fontHeight, antialias, quality, fgARGB, bgARGB);
 
-        Color bg = backgroundColor.toAWT();
-        if (bg.getAlpha()>0) {
-            g.setColor(bg);
-            g.fillRect(x, y, fontWidth, fontHeight);
-        }
+        int decoration = (underlined ? GlyphAtlas.UNDERLINE : 0) | (crossedOut ? GlyphAtlas.CROSSED_OUT : 0) |
+                ((columnIndex == cursorCol) && (rowIndex == cursorRow) ? GlyphAtlas.CURSOR : 0);
+        a.blit(c, decoration, pixels, backbuffer.getWidth(), columnIndex * fontWidth, rowIndex * fontHeight);
 
-        g.setColor(fg.toAWT());
-
-        int descent = font1.getSize() / 4; //estimate
-        if (c != ' ') {
-            charc[0] = c;
-            g.drawChars(charc, 0, 1, x, y + fontHeight + 1 - descent);
-        }
-
-        if (crossedOut) {
-            int lineStartY = y + fontHeight / 2;
-            int lineEndX = x + fontWidth;
-            g.drawLine(x, lineStartY, lineEndX, lineStartY);
-        }
-
-        if (underlined) {
-            int lineStartY = y + fontHeight - descent + 1;
-            int lineEndX = x + fontWidth;
-            g.drawLine(x, lineStartY, lineEndX, lineStartY);
-        }
-
-        boolean drawCursor = (columnIndex == cursorCol) && (rowIndex == cursorRow);
-        if (drawCursor) {
-            g.setColor(cursorColor);
-            g.fillRect(x, y + 1, fontWidth, fontHeight - 2);
+        int f = dirtyFrom[rowIndex], t = dirtyTo[rowIndex];
+        if (f >= t) {
+            dirtyFrom[rowIndex] = columnIndex;
+            dirtyTo[rowIndex] = columnIndex + 1;
+        } else {
+            if (columnIndex < f) dirtyFrom[rowIndex] = columnIndex;
+            if (columnIndex >= t) dirtyTo[rowIndex] = columnIndex + 1;
         }
     }
 
@@ -302,7 +289,9 @@ public abstract class BitmapTextGrid extends AbstractConsoleSurface {
 //        redraw(c, columnIndex, rowIndex, foregroundColor, backgroundColor, false, false);
 //    }
 
-    private final transient char[] charc = new char[1];
+    private static int argb(Color4f c) {
+        return (int) (c.w * 255 + 0.5f) << 24 | (int) (c.x * 255 + 0.5f) << 16 | (int) (c.y * 255 + 0.5f) << 8 | (int) (c.z * 255 + 0.5f);
+    }
 
     protected void charAt(int x, int y, char c) {
 
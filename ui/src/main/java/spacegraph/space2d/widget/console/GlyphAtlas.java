@@ -0,0 +1,165 @@
+package spacegraph.space2d.widget.console;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * rasterized character cells of one font, cell size, style and pair of colors, shared by every grid drawing with
+ * them.  each glyph is drawn by Java2D once, on first use, into a cell of ARGB pixels with its background; a grid
+ * then only copies cells into its bitmap.  needs no display, so works headless.
+ *
+ * at most {@link #MAX_ATLASES} are cached, those least recently looked up being dropped beyond that and their
+ * drawing resources released; one still held by a grid keeps working, drawing its glyphs again as needed.
+ */
+public final class GlyphAtlas {
+
+    /** decorations of a glyph, combined */
+    public static final int UNDERLINE = 1, CROSSED_OUT = 2, CURSOR = 4;
+    private static final int VARIANTS = 8;
+
+    private static final int CURSOR_ARGB = 0x7FFFC800;
+
+    /** most atlases cached */
+    static final int MAX_ATLASES = 64;
+
+    private static final Map<Key, GlyphAtlas> atlases = new ConcurrentHashMap<>();
+    /** orders lookups, for dropping the least recent */
+    private static final AtomicLong lookups = new AtomicLong();
+
+    private record Key(Font font, int width, int height, boolean antialias, boolean quality, int fg, int bg) {
+    }
+
+    /** the shared atlas of a font drawn into cells of width x height pixels, in fg over bg */
+    public static GlyphAtlas the(Font font, int width, int height, boolean antialias, boolean quality, int fgARGB, int bgARGB) {
+        Key k = new Key(font, width, height, antialias, quality, fgARGB, bgARGB);
+        GlyphAtlas a = atlases.get(k);
+        if (a == null) {
+            a = atlases.computeIfAbsent(k, GlyphAtlas::new);
+            if (atlases.size() > MAX_ATLASES)
+                evict();
+        }
+        a.used = lookups.incrementAndGet();
+        return a;
+    }
+
+    /** drops the least recently looked up atlases, down to the most cached */
+    private static synchronized void evict() {
+        while (atlases.size() > MAX_ATLASES) {
+            GlyphAtlas lru = null;
+            for (GlyphAtlas a : atlases.values())
+                if (lru == null || a.used < lru.used)
+                    lru = a;
+            if (lru != null && atlases.remove(lru.key, lru))
+                lru.dispose();
+        }
+    }
+
+    /** number of atlases cached */
+    public static int atlases() {
+        return atlases.size();
+    }
+
+    public final int width, height;
+    /** ARGB colors */
+    public final int fg, bg;
+    private final Key key;
+    /** when last looked up, of {@link #lookups} */
+    private volatile long used;
+
+    /** glyphs of the first 256 chars, by char and decoration */
+    private final AtomicReferenceArray<int[]> latin = new AtomicReferenceArray<>(256 * VARIANTS);
+    private final Map<Integer, int[]> other = new ConcurrentHashMap<>();
+
+    /** draws glyphs, created on first use and released once dropped from the cache; used only while holding this */
+    private BufferedImage cell;
+    private Graphics2D g;
+    private final char[] chars = new char[1];
+
+    private GlyphAtlas(Key k) {
+        this.key = k;
+        this.width = k.width;
+        this.height = k.height;
+        this.fg = k.fg;
+        this.bg = k.bg;
+        this.used = lookups.incrementAndGet();
+    }
+
+    private Graphics2D graphics() {
+        Key k = key;
+        cell = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = cell.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, k.antialias ?
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, k.quality ?
+                RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY : RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, k.quality ?
+                RenderingHints.VALUE_RENDER_QUALITY : RenderingHints.VALUE_RENDER_SPEED);
+        g.setFont(k.font);
+        return g;
+    }
+
+    private synchronized void dispose() {
+        if (g != null) {
+            g.dispose();
+            g = null;
+            cell = null;
+        }
+    }
+
+    /** the width x height ARGB pixels of a char's cell, rows top to bottom; shared: do not modify */
+    public int[] glyph(char c, int decoration) {
+        int i = c * VARIANTS + (decoration & (VARIANTS - 1));
+        if (c < 256) {
+            int[] p = latin.get(i);
+            return p != null ? p : drawLatin(i, c, decoration);
+        } else
+            return other.computeIfAbsent(i, z -> draw(c, decoration));
+    }
+
+    private synchronized int[] drawLatin(int i, char c, int decoration) {
+        int[] p = latin.get(i);
+        if (p == null)
+            latin.set(i, p = draw(c, decoration));
+        return p;
+    }
+
+    private synchronized int[] draw(char c, int decoration) {
+        Graphics2D g = this.g;
+        if (g == null)
+            this.g = g = graphics();
+        Key k = key;
+        int w = width, h = height;
+        int[] pixels = ((DataBufferInt) cell.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, bg);
+
+        g.setColor(new Color(fg, true));
+        int descent = k.font.getSize() / 4; //estimate
+        if (c != ' ') {
+            chars[0] = c;
+            g.drawChars(chars, 0, 1, 0, h + 1 - descent);
+        }
+        if ((decoration & CROSSED_OUT) != 0)
+            g.drawLine(0, h / 2, w, h / 2);
+        if ((decoration & UNDERLINE) != 0)
+            g.drawLine(0, h - descent + 1, w, h - descent + 1);
+        if ((decoration & CURSOR) != 0) {
+            g.setColor(new Color(CURSOR_ARGB, true));
+            g.fillRect(0, 1, w, h - 2);
+        }
+        return pixels.clone();
+    }
+
+    /** copies a glyph into the cell at pixel (x, y) of an ARGB bitmap of the given width */
+    public void blit(char c, int decoration, int[] dst, int dstWidth, int x, int y) {
+        int[] p = glyph(c, decoration);
+        int w = width;
+        for (int r = 0, from = 0, to = y * dstWidth + x; r < height; r++, from += w, to += dstWidth)
+            System.arraycopy(p, from, dst, to, w);
+    }
+}
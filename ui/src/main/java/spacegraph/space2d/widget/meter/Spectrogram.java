@@ -2,7 +2,9 @@ package spacegraph.space2d.widget.meter;
 
 import com.jogamp.opengl.GL2;
 import jcog.tree.rtree.rect.RectF;
+import org.eclipse.collections.api.block.function.primitive.FloatToIntFunction;
 import org.eclipse.collections.api.block.function.primitive.IntToIntFunction;
+import spacegraph.audio.STFT;
 import spacegraph.space2d.ReSurface;
 import spacegraph.space2d.Surface;
 import spacegraph.space2d.container.RingContainer;
@@ -10,6 +12,7 @@ import spacegraph.space2d.container.grid.Gridding;
 import spacegraph.space2d.widget.text.VectorLabel;
 
 import java.util.Iterator;
+import java.util.function.Consumer;
 import java.util.function.ToIntFunction;
 
 /**
@@ -58,7 +61,7 @@ public class Spectrogram extends RingContainer<BitmapMatrixView> implements Bitm
 				W = n;
 				H = 1;
 			}
-			BitmapMatrixView r = new BitmapMatrixView(W, H, this);
+			BitmapMatrixView r = new BitmapMatrixView(W, H, new Row());
 			r.cellTouch(false);
 			r.pos(RectF.Unit);
 			r.start(this);
@@ -83,8 +86,56 @@ public class Spectrogram extends RingContainer<BitmapMatrixView> implements Bitm
 
 	public void next(IntToIntFunction color) {
 		this._color = color;
-		next(BitmapMatrixView::update);
+		next(Spectrogram::colored);
 	}
+
+	private static void colored(BitmapMatrixView v) {
+		((Row) v.view).color = null;
+		v.update();
+	}
+
+	/**
+	 * a listener of an {@link STFT} (N being its bins) appending each spectrum of a channel as the next row, colored
+	 * by magnitude.  subscribe it with {@link STFT#on} or {@link STFT#shared}.  each row keeps its own copy of the
+	 * magnitudes, which the transform reuses for its next frame.
+	 */
+	public STFT.Listener spectra(int channel, FloatToIntFunction color) {
+		return magnitude -> {
+			synchronized (this) {
+				nextSpectrum = magnitude[channel];
+				nextColor = color;
+				next(spectrum);
+				nextSpectrum = null;
+				nextColor = null;
+			}
+		};
+	}
+
+	/** the spectrum being appended, and its coloring; guarded by this */
+	private float[] nextSpectrum;
+	private FloatToIntFunction nextColor;
+	private final Consumer<BitmapMatrixView> spectrum = v -> {
+		Row r = (Row) v.view;
+		float[] m = nextSpectrum, y = r.values;
+		if (y == null || y.length != N)
+			r.values = y = new float[N];
+		System.arraycopy(m, 0, y, 0, Math.min(m.length, y.length));
+		r.color = nextColor;
+		v.update();
+	};
+
+	/** paints a row: from its copy of a spectrum, if appended by {@link #spectra}, or else by {@link #_color} */
+	private final class Row implements BitmapMatrixView.ViewFunction2D {
+		float[] values;
+		FloatToIntFunction color;
+
+		@Override
+		public int color(int x, int y) {
+			FloatToIntFunction c = color;
+			return c != null ? c.valueOf(values[horizOrVert ? y : x]) : Spectrogram.this.color(x, y);
+		}
+	}
+
 //    public void next(Tensor data, FloatToIntFunction color) {
 //        this._color = color;
 //        next((BitmapMatrixView b)->b.update());
@@ -0,0 +1,240 @@
+package spacegraph.space2d.widget.port;
+
+import org.jetbrains.annotations.Nullable;
+import spacegraph.space2d.Surface;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * delivers values sent along wires asynchronously, instead of calling each receiving port's handler on the
+ * sending thread.  each receiving port has a bounded mailbox, drained by one task at a time on an executor, so
+ * its handler is never run concurrently with itself, while a slow port delays only its own inputs and chains of
+ * ports do not recurse.
+ *
+ * when a mailbox is full, the oldest value with a later one from the same wire is dropped: only the latest values
+ * of a stream outpacing its receiver are delivered, in the order sent, and the last value along each wire always
+ * is.  the mailbox holds more than its capacity only while each value in it is the last from a different wire.
+ * senders never block; {@link Port#congested} tells them whether to bother producing.
+ * the values pending for a port are dropped when it stops, as they would be with the wires it was removed with.
+ *
+ * enabled for the ports of a graph by {@link spacegraph.space2d.container.graph.GraphEdit2D#dataflow}.
+ */
+public class Dataflow {
+
+    /** values delivered per task before yielding the worker to other ports */
+    private static final int BATCH = 16;
+
+    private final Executor exe;
+    private final int capacity;
+
+    public Dataflow() {
+        this(ForkJoinPool.commonPool(), 4);
+    }
+
+    /** @param capacity values pending per receiving port */
+    public Dataflow(Executor exe, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity < 1");
+        this.exe = exe;
+        this.capacity = capacity;
+    }
+
+    final void post(Wire wire, Surface sender, Port receiver, Object x) {
+        Mailbox m = mailbox(receiver);
+        if (m != null)
+            m.post(wire, sender, x);
+    }
+
+    /** whether values to a port are being coalesced, its mailbox full */
+    final boolean full(Port receiver) {
+        Mailbox m = receiver.mailbox;
+        return m != null && m.size >= capacity;
+    }
+
+    /** the port's mailbox, or null if it has stopped */
+    @Nullable private Mailbox mailbox(Port p) {
+        Mailbox m = p.mailbox;
+        if (m == null || m.flow != this) {
+            synchronized (p) {
+                if (p.stopped)
+                    return null;
+                if ((m = p.mailbox) == null || m.flow != this)
+                    p.mailbox = m = new Mailbox(this, p);
+            }
+        }
+        return m;
+    }
+
+    /** the values pending for a port, in order of sending, and the task delivering them */
+    static final class Mailbox implements Runnable {
+        final Dataflow flow;
+        private final Port receiver;
+
+        private Wire[] wires;
+        private Surface[] senders;
+        private Object[] values;
+        private long[] sent;
+        /** ring of size entries from head */
+        private int head;
+        volatile int size;
+        private boolean scheduled;
+        /** once its port stopped: values are dropped */
+        private boolean closed;
+
+        Mailbox(Dataflow flow, Port receiver) {
+            this.flow = flow;
+            this.receiver = receiver;
+            int c = flow.capacity;
+            wires = new Wire[c];
+            senders = new Surface[c];
+            values = new Object[c];
+            sent = new long[c];
+        }
+
+        void post(Wire w, Surface sender, Object x) {
+            long now = System.nanoTime();
+            boolean schedule;
+            synchronized (this) {
+                if (closed)
+                    return;
+                if (size >= flow.capacity) {
+                    int k = superseded(w, sender);
+                    if (k >= 0) {
+                        int i = (head + k) % wires.length;
+                        wires[i].coalesced(senders[i]);
+                        remove(k);
+                    } else if (size == wires.length)
+                        grow();
+                }
+                int i = (head + size) % wires.length;
+                size++;
+                wires[i] = w;
+                senders[i] = sender;
+                values[i] = x;
+                sent[i] = now;
+
+                if (schedule = !scheduled)
+                    scheduled = true;
+            }
+            if (schedule)
+                execute();
+        }
+
+        /**
+         * position from head of the oldest pending value with a later one from the same sender along the same wire,
+         * pending or now arriving along w, or -1
+         */
+        private int superseded(Wire w, Surface sender) {
+            int c = wires.length;
+            for (int k = 0; k < size; k++) {
+                int i = (head + k) % c;
+                Wire wi = wires[i];
+                Surface si = senders[i];
+                if (wi == w && si == sender)
+                    return k;
+                for (int l = k + 1; l < size; l++) {
+                    int j = (head + l) % c;
+                    if (wires[j] == wi && senders[j] == si)
+                        return k;
+                }
+            }
+            return -1;
+        }
+
+        /** removes the value at position k from head, those after moving up */
+        private void remove(int k) {
+            int c = wires.length;
+            for (; k < size - 1; k++) {
+                int i = (head + k) % c, j = (i + 1) % c;
+                wires[i] = wires[j];
+                senders[i] = senders[j];
+                values[i] = values[j];
+                sent[i] = sent[j];
+            }
+            int last = (head + size - 1) % c;
+            wires[last] = null;
+            senders[last] = null;
+            values[last] = null;
+            size--;
+        }
+
+        /** doubles the ring, when every pending value is the latest from a different sender */
+        private void grow() {
+            int c = wires.length, n = c * 2;
+            Wire[] w = new Wire[n];
+            Surface[] s = new Surface[n];
+            Object[] v = new Object[n];
+            long[] t = new long[n];
+            for (int k = 0; k < size; k++) {
+                int i = (head + k) % c;
+                w[k] = wires[i];
+                s[k] = senders[i];
+                v[k] = values[i];
+                t[k] = sent[i];
+            }
+            wires = w;
+            senders = s;
+            values = v;
+            sent = t;
+            head = 0;
+        }
+
+        /** drops the values pending, and any posted later */
+        synchronized void clear() {
+            closed = true;
+            Arrays.fill(wires, null);
+            Arrays.fill(senders, null);
+            Arrays.fill(values, null);
+            head = size = 0;
+        }
+
+        @Override
+        public void run() {
+            boolean idle = false;
+            try {
+                for (int n = 0; n < BATCH; n++) {
+                    Wire w;
+                    Surface sender;
+                    Object x;
+                    long sentNS;
+                    synchronized (this) {
+                        if (size == 0) {
+                            scheduled = false;
+                            idle = true;
+                            return;
+                        }
+                        int i = head;
+                        w = wires[i];
+                        sender = senders[i];
+                        x = values[i];
+                        sentNS = sent[i];
+                        wires[i] = null;
+                        senders[i] = null;
+                        values[i] = null;
+                        head = (i + 1) % wires.length;
+                        size--;
+                    }
+                    if (receiver.recv(w, x))
+                        w.delivered(sender, x, sentNS);
+                }
+            } finally {
+                //continue after others, or after whatever escaped the handler
+                if (!idle)
+                    execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                flow.exe.execute(this);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    scheduled = false; //the next value posted schedules it
+                }
+                throw e;
+            }
+        }
+    }
+}
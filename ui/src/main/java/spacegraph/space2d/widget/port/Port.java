@@ -28,6 +28,11 @@ public class Port<X> extends Widget implements Wiring.Wireable {
     private FloatObjectProcedure<Port<X>> updater;
 
     private transient Node<Surface, Wire> node;
+    private transient GraphEdit2D graph;
+    /** values pending delivery, when the graph has a {@link Dataflow} */
+    transient volatile Dataflow.Mailbox mailbox;
+    /** whether stopped, no longer receiving values from a {@link Dataflow}; guarded by this */
+    transient boolean stopped;
     public transient volatile Wiring beingWiredOut;
     public transient volatile Wiring beingWiredIn;
     private boolean enabled = true;
@@ -256,7 +261,11 @@ public class Port<X> extends Widget implements Wiring.Wireable {
     protected void starting() {
         super.starting();
 
-        GraphEdit2D graph = parentOrSelf(GraphEdit2D.class);
+        synchronized (this) {
+            stopped = false;
+        }
+
+        GraphEdit2D graph = this.graph = parentOrSelf(GraphEdit2D.class);
         if (graph != null)
             this.node = graph.links.addNode(this);
 //        else
@@ -271,10 +280,21 @@ public class Port<X> extends Widget implements Wiring.Wireable {
     @Override
     protected void stopping() {
         node = null;
+        graph = null;
         enabled = false;
         GraphEdit2D p = parentOrSelf(GraphEdit2D.class);
         if (p != null)
             p.links.removeNode(this);
+
+        Dataflow.Mailbox m;
+        synchronized (this) {
+            stopped = true;
+            m = mailbox;
+            mailbox = null;
+        }
+        if (m != null)
+            m.clear(); //as if sent along wires now gone
+
         super.stopping();
     }
 
@@ -282,12 +302,17 @@ public class Port<X> extends Widget implements Wiring.Wireable {
         if (enabled) {
             Node<Surface, Wire> n = this.node;
             if (n != null) {
+                Dataflow d = dataflow();
                 for (Iterator<FromTo<Node<Surface, Wire>, Wire>> iterator = n.edgeIterator(true, true); iterator.hasNext(); ) {
                     FromTo<Node<Surface, Wire>, Wire> t = iterator.next();
                     Wire wire = t.id();
                     Port recv = ((Port) wire.other(Port.this));
-                    if (recv != sender) //1-level cycle block
-                        wire.send(this, recv, x);
+                    if (recv != sender) { //1-level cycle block
+                        if (d != null)
+                            d.post(wire, this, recv, x);
+                        else
+                            wire.send(this, recv, x);
+                    }
                 }
                 return true;
             }
@@ -295,10 +320,33 @@ public class Port<X> extends Widget implements Wiring.Wireable {
         return false;
     }
 
+    @Nullable private Dataflow dataflow() {
+        GraphEdit2D g = this.graph;
+        return g != null ? g.dataflow() : null;
+    }
+
+    /**
+     * whether any port connected to this has its {@link Dataflow} mailbox full, so values output now would
+     * replace others not yet delivered
+     */
+    public boolean congested() {
+        Dataflow d = dataflow();
+        Node<Surface, Wire> n = this.node;
+        if (d == null || n == null)
+            return false;
+        for (Iterator<FromTo<Node<Surface, Wire>, Wire>> iterator = n.edgeIterator(true, true); iterator.hasNext(); ) {
+            if (d.full((Port) iterator.next().id().other(this)))
+                return true;
+        }
+        return false;
+    }
+
     /** returns true if sent */
     final boolean recv(Wire from, X s) {
         if (!enabled) {
-            in.accept(null, s);
+            In<? super X> in = this.in;
+            if (in != null)
+                in.accept(null, s);
 		} else {
             In<? super X> in = this.in;
             if (in != null) {
@@ -5,6 +5,7 @@ import jcog.event.RunThese;
 import spacegraph.space2d.Surface;
 
 import java.lang.reflect.Array;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** undirected edge
  * see: https://github.com/apache/nifi/blob/master/nifi-api/src/main/java/org/apache/nifi/processor/ProcessContext.java
@@ -18,6 +19,13 @@ public class Wire {
     private volatile int aTypeHash;
     private volatile int bTypeHash;
 
+    /** values delivered from each side, and those coalesced away by a {@link Dataflow} mailbox before delivery */
+    private final AtomicLong aSent = new AtomicLong(), bSent = new AtomicLong(),
+        aCoalesced = new AtomicLong(), bCoalesced = new AtomicLong();
+    /** moving averages of the nanoseconds from sending to handled, and between deliveries */
+    private volatile double aLatency, bLatency, aInterval, bInterval;
+    private static final double MOVING_AVERAGE = 0.1;
+
     public final Surface a;
     public final Surface b;
 
@@ -63,39 +71,84 @@ public class Wire {
         return hash;
     }
 
-    /** sends to target */
+    /** sends to target, handled on this thread */
     public final boolean send(Surface sender, Port receiver, Object x) {
 
         //System.out.println(sender + " " + x + " " + receiver);
 
+        long start = System.nanoTime();
         if (receiver.recv(this, x)) {
+            delivered(sender, x, start);
+            return true;
+        }
+        return false;
+    }
 
-            long now = System.nanoTime();
+    /** records the handling of a value sent at sentNS */
+    final void delivered(Surface sender, Object x, long sentNS) {
+        long now = System.nanoTime();
 
-            int th;
-            if (x == null) {
-                th = 0;
-            } else {
-                Class<?> cl = x.getClass();
-                th = cl.hashCode();
-                if (cl.isArray()) {
+        int th;
+        if (x == null) {
+            th = 0;
+        } else {
+            Class<?> cl = x.getClass();
+            th = cl.hashCode();
+            if (cl.isArray()) {
 
-                    th = Util.hashCombine(th, Array.getLength(x));
-                }
+                th = Util.hashCombine(th, Array.getLength(x));
             }
+        }
 
-            if (sender == a) {
-                this.aLastActive = now;
-                this.aTypeHash = th;
-            } else if (sender == b) {
-                this.bLastActive = now;
-                this.bTypeHash = th;
-            } else
-                throw new UnsupportedOperationException();
+        double latency = now - sentNS;
+        if (sender == a) {
+            long prev = this.aLastActive;
+            if (prev != Long.MIN_VALUE)
+                this.aInterval = aInterval == 0 ? now - prev : average(aInterval, now - prev);
+            this.aLatency = aSent.getAndIncrement() == 0 ? latency : average(aLatency, latency);
+            this.aLastActive = now;
+            this.aTypeHash = th;
+        } else if (sender == b) {
+            long prev = this.bLastActive;
+            if (prev != Long.MIN_VALUE)
+                this.bInterval = bInterval == 0 ? now - prev : average(bInterval, now - prev);
+            this.bLatency = bSent.getAndIncrement() == 0 ? latency : average(bLatency, latency);
+            this.bLastActive = now;
+            this.bTypeHash = th;
+        } else
+            throw new UnsupportedOperationException();
+    }
 
-            return true;
-        }
-        return false;
+    /** records a value from sender replaced, undelivered, by a later one */
+    final void coalesced(Surface sender) {
+        if (sender == a) aCoalesced.incrementAndGet();
+        else if (sender == b) bCoalesced.incrementAndGet();
+        else throw new UnsupportedOperationException();
+    }
+
+    private static double average(double prev, double next) {
+        return prev + (next - prev) * MOVING_AVERAGE;
+    }
+
+    /** number of values delivered from side a, or b */
+    public long sent(boolean aOrB) {
+        return (aOrB ? aSent : bSent).get();
+    }
+
+    /** number of values from side a, or b, replaced before delivery by later ones */
+    public long coalesced(boolean aOrB) {
+        return (aOrB ? aCoalesced : bCoalesced).get();
+    }
+
+    /** moving average of nanoseconds from sending a value from side a, or b, to its handling completed */
+    public double latency(boolean aOrB) {
+        return aOrB ? aLatency : bLatency;
+    }
+
+    /** moving average of values delivered per second from side a, or b */
+    public double throughput(boolean aOrB) {
+        double i = aOrB ? aInterval : bInterval;
+        return i > 0 ? 1.0e9 / i : 0;
     }
 
     public Surface other(Surface x) {
@@ -13,7 +13,7 @@ import spacegraph.space2d.Surface;
 import spacegraph.space2d.container.PaintSurface;
 import spacegraph.util.animate.Animated;
 import spacegraph.video.Draw;
-import toxi.geom.QuadtreeIndex;
+import toxi.geom.GridIndex;
 import toxi.geom.Vec2D;
 import toxi.physics2d.VerletParticle2D;
 import toxi.physics2d.VerletPhysics2D;
@@ -54,7 +54,8 @@ public class VerletSurface extends PaintSurface implements Animated {
 //        physics.setDrag(0.05f);
 
         physics.setIndex(
-                new QuadtreeIndex(bounds.x - 1, bounds.y - 1, bounds.w + 1, bounds.h + 1)
+                new GridIndex<>(bounds, 32)
+                //new QuadtreeIndex(bounds.x - 1, bounds.y - 1, bounds.w + 1, bounds.h + 1)
                 //new RTreeQuadTree()
         );
 
@@ -13,7 +13,6 @@ import spacegraph.space2d.ReSurface;
 import spacegraph.space2d.Surface;
 import spacegraph.space2d.container.ScrollXY;
 import spacegraph.space2d.widget.textedit.buffer.Buffer;
-import spacegraph.space2d.widget.textedit.buffer.BufferLine;
 import spacegraph.space2d.widget.textedit.keybind.TextEditKeys;
 import spacegraph.space2d.widget.textedit.view.CharView;
 import spacegraph.space2d.widget.textedit.view.LineView;
@@ -209,14 +208,9 @@ public class TextEdit extends ScrollXY<TextEditModel> implements KeyPressed {
             float oy = -(y1-vy);
             if (view.realloc(y2-y1, x2-x1) || text.buffer.changed.compareAndSet(true, false)) {
 
-                for (int dy = y1; dy < y2; dy++) {
-                    int visibleRow = dy - y1;
-                    BufferLine l = buffer.lines.get(dy);
-                    if (l!=null) {
-                        text.view.lines[visibleRow].update(l, x1, x2);
-                        l.updatePosition(visibleRow);
-                    }
-                }
+                int rows = Math.min(y2, buffer.height());
+                for (int dy = y1; dy < rows; dy++)
+                    text.view.lines[dy - y1].update(buffer, dy, x1, x2);
 
                 viewMax(new v2(Math.max(viewMax.x, buffer.width()), Math.max(viewMax.y, buffer.height())));
                 onChange.accept(TextEdit.this);
@@ -1,22 +1,24 @@
 package spacegraph.space2d.widget.textedit.buffer;
 
 
-import jcog.TODO;
-import jcog.data.list.FastCoWList;
-
-import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
+/**
+ * editable text, stored in a {@link PieceTable}, with a cursor and mark of (row, col).  lines are not stored as
+ * objects; their chars are copied out on demand, for only the rows shown.
+ */
 public class Buffer {
 
 
     public CursorPosition cursor;
     private CursorPosition mark;
 
-    public final FastCoWList<BufferLine> lines = new FastCoWList<>(BufferLine[]::new);
+    private PieceTable text;
     public final AtomicBoolean changed = new AtomicBoolean(false);
 
+    /** widest line, in columns, or -1 to recompute */
+    private int width = -1;
+
     public Buffer(String value) {
         cursor = new CursorPosition(0, 0, changed);
         mark = new CursorPosition(0, 0, changed);
@@ -24,24 +26,20 @@ public class Buffer {
     }
 
     private boolean isEmpty() {
-        return lines.isEmpty() || height() == 1 && lines.get(0).length() == 0;
+        return text.length() == 0;
     }
 
     public void clear() {
 
         synchronized (this) {
-            int l = height();
-            if (l == 1 && lines.get(0).length() == 0)
+            if (isEmpty())
                 return; //no change
 
-            if (l > 0)
-                lines.clear();
+            text = new PieceTable();
+            width = 0;
 
             cursor.set(0, 0);
             mark.set(0, 0);
-
-            addLine(new BufferLine());
-
         }
 
         update();
@@ -63,48 +61,44 @@ public class Buffer {
                 insertEnter(true);
                 break;
             default:
-                if (string.contains("\n")) {
-                    String[] values = string.split("\n");
-                    synchronized (this) {
-                        for (String x : values) {
-                            insertChars(x, false);
-                            insertEnter(false);
-                        }
-                        update();
-                    }
-                } else {
-                    insertChars(string, true);
-                }
-//                String[] values = string.split("(\r\n|\n|\r)");
-//                if (values.length == 1) {
-//                    values[0].codePoints().forEach(
-//                            codePoint -> insertChar(new String(Character.toChars(codePoint))));
-//                } else {
-//                    Arrays.stream(values).forEach(v -> {
-//                        v.codePoints().forEach(codePoint -> insertChar(new String(Character.toChars(codePoint))));
-//                        insertEnter();
-//                    });
-//                }
+                insertChars(lineBreaks(string));
                 break;
         }
 
     }
 
     public void insert(CharSequence c) {
-        throw new TODO();
+        insert(c.toString());
+    }
+
+    /** unix line breaks */
+    private static String lineBreaks(String s) {
+        return s.indexOf('\r') < 0 ? s : s.replace("\r\n", "\n").replace('\r', '\n');
     }
-    private void insertChars(CharSequence string, boolean update) {
+
+    private void insertChars(String string) {
         synchronized (this) {
             int n = string.length();
-            if (n > 0) {
-                BufferLine line = currentLine();
-                int c = cursor.col;
-                for (int i = 0; i < n; i++)
-                    line.insertChar(string.charAt(i), c++);
+            int row = cursor.row;
+            boolean widest = text.lineLength(row) == width;
+            text.insert(offset(row, cursor.col), string);
+
+            int last = string.lastIndexOf('\n');
+            if (last < 0) {
                 cursor.incCol(n);
-                if (update)
-                    update();
+                widen(row);
+            } else {
+                int rows = 0;
+                for (int i = 0; i <= last; i++)
+                    if (string.charAt(i) == '\n') rows++;
+                cursor.set(row + rows, n - last - 1);
+                if (widest)
+                    width = -1; //the widest line was split
+                else
+                    for (int r = row; r <= row + rows; r++)
+                        widen(r);
             }
+            update();
         }
     }
 
@@ -113,91 +107,93 @@ public class Buffer {
      */
     public void insertEnter(boolean update) {
         synchronized (this) {
-            BufferLine currentRow = currentLine();
-
-            List<BufferChar> nextLineChars = currentRow.splitReturn(cursor.col);
-
+            int row = cursor.row;
+            if (text.lineLength(row) == width)
+                width = -1; //the widest line is split
+            text.insert(offset(row, cursor.col), "\n");
             cursor.setCol(0);
             cursor.incRow(1);
-            BufferLine nextLine = new BufferLine();
-            addLine(nextLine);
-
-//            if (update) {
-//                update();
-//                //observer.update(this); //light
-//            }
-
-            //List<BufferChar> nlc = nextLine.getChars();
-            int[] k = {0};
-            nextLineChars.forEach(c -> {
-                //nlc.add(c);
-                //observer.moveChar(currentLine, nextLine, c);
-                nextLine.insertChar(k[0]++, c);
-
-            });
-
-//            nextLine.update();
-
             if (update)
                 update();
         }
     }
 
-    private void addLine(BufferLine nextLine) {
-        lines.add(cursor.row, nextLine);
-//        observer.addLine(nextLine);
+    /** offset of a position, its col clamped to the line */
+    private int offset(int row, int col) {
+        return text.lineStart(row) + Math.min(col, text.lineLength(row));
+    }
+
+    /** updates the width for a lengthened line */
+    private void widen(int row) {
+        if (width >= 0)
+            width = Math.max(width, text.lineLength(row));
     }
 
     /**
      * width in columns
      */
     public int width() {
-        return lines.stream().mapToInt(BufferLine::length).max().orElse(0);
+        synchronized (this) {
+            int w = width;
+            if (w < 0) {
+                w = 0;
+                for (int r = 0, h = height(); r < h; r++)
+                    w = Math.max(w, text.lineLength(r));
+                width = w;
+            }
+            return w;
+        }
     }
 
     /**
      * height in lines aka rows
      */
     public int height() {
-        return lines.size();
-    }
-
-    private BufferLine currentLine() {
-        //synchronized (this) {
-        return lines.get(cursor.row);
-        //}
-    }
-
-//    public BufferLine preLine() {
-//        if (currentCursor.getRow() == 0) {
-//            return null;
-//        }
-//        return lines.get(currentCursor.getRow() - 1);
-//    }
-//
-//    public BufferLine postLine() {
-//        if (currentCursor.getRow() == lines.size() - 1) {
-//            return null;
-//        }
-//        return lines.get(currentCursor.getRow() - 1);
-//    }
-
-
-//    public boolean textEquals(String s) {
-//        if (s.isEmpty()) {
-//            return isEmpty();
-//        } else {
-//			//TODO optimize without necessarily constructing String
-//			return !lines.isEmpty() && text().equals(s);
-//        }
-//    }
+        synchronized (this) {
+            return text.lines();
+        }
+    }
+
+    /** length of a line, in columns */
+    public int length(int row) {
+        synchronized (this) {
+            return text.lineLength(row);
+        }
+    }
+
+    /**
+     * copies the chars of a line from column from up to column to, or its end, into dst
+     * @return number of chars copied
+     */
+    public int line(int row, int from, int to, char[] dst) {
+        synchronized (this) {
+            if (row < 0 || row >= text.lines())
+                return 0;
+            int start = text.lineStart(row);
+            int end = start + Math.min(to, text.lineLength(row));
+            int a = start + from;
+            if (a >= end)
+                return 0;
+            text.copy(a, end, dst, 0);
+            return end - a;
+        }
+    }
+
+    public String line(int row) {
+        synchronized (this) {
+            int start = text.lineStart(row);
+            return text.substring(start, start + text.lineLength(row));
+        }
+    }
+
+    private int currentLineLength() {
+        return length(cursor.row);
+    }
 
     public String text() {
-        return switch (height()) {
-            case 0 -> "";
-            case 1 -> lines.get(0).toLineString();
-            default -> lines.stream().map(BufferLine::toLineString).collect(Collectors.joining("\n"));
-        };
+        synchronized (this) {
+            return text.toString();
+        }
     }
 
     @Override
@@ -217,37 +213,35 @@ public class Buffer {
 
     public void delete() {
         synchronized (this) {
-            if (!isEmpty() && (!isBufferLast() || !isLineEnd())) {
-                BufferLine currentLine = currentLine();
-                if (isLineEnd()) {
-                    if (!isBufferLast()) {
-                        BufferLine removedLine = lines.remove(cursor.row + 1);
-//                        observer.removeLine(removedLine);
-                        currentLine.join(removedLine);
-//                        removedLine.getChars().forEach(c -> {
-//                        //TODO fix where characters are appended here. to not use moveChar() then remove that method
-//                        //see splitReturn() for similarity
-//                            observer.moveChar(removedLine, currentLine, c);
-//                        });
-                    }
-                } else {
-                    currentLine.removeChar(cursor.col);
-                }
+            int at = offset(cursor.row, cursor.col);
+            if (at < text.length()) {
+                delete(at, at + 1);
                 update();
             }
         }
     }
 
+    private void delete(int from, int to) {
+        int w = width;
+        if (w >= 0) {
+            int first = text.line(from), last = text.line(to);
+            for (int r = first; r <= last; r++) {
+                if (text.lineLength(r) >= w) {
+                    width = -1; //the widest line may have been shortened
+                    break;
+                }
+            }
+        }
+        text.delete(from, to);
+        widen(text.line(from)); //lines joined
+    }
+
     public void head() {
         cursor.setCol(0);
     }
 
     public void last() {
-        last(true);
-    }
-
-    private void last(boolean update) {
-        cursor.setCol(currentLine().length());
+        cursor.setCol(currentLineLength());
     }
 
     public void back() {
@@ -276,8 +270,8 @@ public class Buffer {
     public void previous() {
         if (!isBufferHead()) {
             if (cursor.decRow(1)) {
-                if (cursor.col > currentLine().length()) {
-                    last(false);
+                if (cursor.col > currentLineLength()) {
+                    last();
                 }
             }
         }
@@ -286,8 +280,8 @@ public class Buffer {
     public void next() {
         if (!isBufferLast()) {
             if (cursor.incRow(1)) {
-                if (cursor.col > currentLine().length()) {
-                    last(false);
+                if (cursor.col > currentLineLength()) {
+                    last();
                 }
             }
 
@@ -301,7 +295,7 @@ public class Buffer {
 
     public void bufferLast() {
         cursor.setRow(height() - 1);
-        cursor.setCol(currentLine().length());
+        cursor.setCol(currentLineLength());
     }
 
     private boolean isBufferHead() {
@@ -318,7 +312,7 @@ public class Buffer {
 
     public boolean isLineEnd() {
 
-        int ll = currentLine().length();
+        int ll = currentLineLength();
         int cc = cursor.col;
         if (cc > ll) {
             cursor.setCol(ll);
@@ -334,55 +328,39 @@ public class Buffer {
     }
 
     public String copy() {
-        StringBuilder buf = new StringBuilder();
-        if (mark.compareTo(cursor) == 0) {
-            return buf.toString();
-        }
-
-        CursorPosition head = mark;
-        CursorPosition tail = cursor;
-        if (mark.compareTo(cursor) > 0) {
-            head = cursor;
-            tail = mark;
-        }
-
-        int rows = tail.row;
-        if (head.row == rows) {
-            buf.append(lines.get(head.row).toLineString(), head.col, tail.col);
-        } else {
-            buf.append(lines.get(head.row).toLineString().substring(head.col));
-            if (rows - head.row > 1) {
-                for (int i = head.row + 1; i < rows; i++) {
-                    buf.append('\n');
-                    buf.append(lines.get(i).toLineString());
-                }
-            }
-            buf.append('\n');
-            buf.append(lines.get(rows).toLineString(), 0, tail.col);
+        synchronized (this) {
+            int c = mark.compareTo(cursor);
+            if (c == 0)
+                return "";
+            CursorPosition head = c < 0 ? mark : cursor, tail = c < 0 ? cursor : mark;
+            return text.substring(offset(head.row, head.col), offset(tail.row, tail.col));
         }
-        return buf.toString();
     }
 
     public void cut() {
-        if (mark.compareTo(cursor) == 0) {
-            return;
-        }
-        if (mark.compareTo(cursor) > 0) {
-            CursorPosition tmp = mark;
-            mark = cursor;
-            cursor = tmp;
-        }
-        while (mark.compareTo(cursor) != 0) {
-            backspace();
+        synchronized (this) {
+            int c = mark.compareTo(cursor);
+            if (c == 0)
+                return;
+            CursorPosition head = c < 0 ? mark : cursor, tail = c < 0 ? cursor : mark;
+            int row = head.row, col = head.col;
+            delete(offset(row, col), offset(tail.row, tail.col));
+            cursor.set(row, col);
+            mark.set(row, col);
+            update();
         }
     }
 
 
+    /** replaces the text, loaded as the original of a new piece table, the cursor at its end */
     public void text(String text) {
         synchronized (this) {
-            clear();
-            insert(text);
+            this.text = new PieceTable(lineBreaks(text));
+            width = -1;
+            mark.set(0, 0);
+            bufferLast();
         }
+        update();
     }
 
-}
\ No newline at end of file
+}
@@ -12,8 +12,8 @@ public class CursorPosition implements Comparable<CursorPosition> {
     }
 
     public CursorPosition(int row, int col, AtomicBoolean whenChanged) {
-        set(row, col);
         this.whenChanged = whenChanged;
+        set(row, col);
     }
 
     public final void set(int row, int col) {
@@ -0,0 +1,323 @@
+package spacegraph.space2d.widget.textedit.buffer;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * text as a sequence of pieces of two buffers: the original text, loaded once, and an append-only buffer of
+ * everything inserted since.  the pieces are the nodes of a treap ordered by position, each subtree summing its
+ * length and line breaks, so that edits and finding the start of a line take logarithmic time in the number of
+ * pieces rather than time proportional to the text.  the line breaks of each buffer are indexed as they are
+ * written, so a piece counts and locates its own by binary search.
+ *
+ * consecutive insertions, as typed, extend the same piece.  not thread-safe.
+ */
+public final class PieceTable {
+
+    private static final int ORIGINAL = 0, ADDED = 1;
+
+    /** the original and added text */
+    private final char[][] text = new char[2][];
+    /** positions of each buffer's line breaks, ascending */
+    private final int[][] breaks = new int[2][];
+    private int added, addedBreaks;
+
+    private Node root;
+
+    private final SplittableRandom priorities = new SplittableRandom(1);
+
+    public PieceTable() {
+        this("");
+    }
+
+    public PieceTable(CharSequence original) {
+        int n = original.length();
+        char[] o = new char[n];
+        int lines = 0;
+        for (int i = 0; i < n; i++) {
+            if ((o[i] = original.charAt(i)) == '\n')
+                lines++;
+        }
+        int[] ob = new int[lines];
+        for (int i = 0, b = 0; b < lines; i++)
+            if (o[i] == '\n')
+                ob[b++] = i;
+
+        text[ORIGINAL] = o;
+        breaks[ORIGINAL] = ob;
+        text[ADDED] = new char[16];
+        breaks[ADDED] = new int[4];
+        root = n > 0 ? new Node(ORIGINAL, 0, n, 0, lines, priorities.nextInt()) : null;
+    }
+
+    /** number of chars */
+    public int length() {
+        return size(root);
+    }
+
+    /** number of lines, one more than the line breaks */
+    public int lines() {
+        return lines(root) + 1;
+    }
+
+    /** offset of the first char of a line */
+    public int lineStart(int line) {
+        if (line <= 0)
+            return 0;
+        if (line >= lines())
+            throw new IndexOutOfBoundsException(line);
+        int base = 0;
+        Node t = root;
+        while (true) {
+            int l = lines(t.left);
+            if (line <= l) {
+                t = t.left;
+            } else {
+                line -= l;
+                base += size(t.left);
+                if (line <= t.lines) {
+                    int at = breaks[t.buffer][t.firstBreak + line - 1];
+                    return base + at - t.start + 1;
+                }
+                line -= t.lines;
+                base += t.length;
+                t = t.right;
+            }
+        }
+    }
+
+    /** number of chars of a line, excluding its break */
+    public int lineLength(int line) {
+        int start = lineStart(line);
+        int end = line == lines() - 1 ? length() : lineStart(line + 1) - 1;
+        return end - start;
+    }
+
+    /** line containing the char at an offset */
+    public int line(int offset) {
+        int line = 0;
+        Node t = root;
+        while (t != null) {
+            int l = size(t.left);
+            if (offset < l) {
+                t = t.left;
+            } else {
+                line += lines(t.left);
+                offset -= l;
+                if (offset < t.length)
+                    return line + breaksBefore(t, t.start + offset) - t.firstBreak;
+                line += t.lines;
+                offset -= t.length;
+                t = t.right;
+            }
+        }
+        return line;
+    }
+
+    public char charAt(int offset) {
+        Node t = root;
+        while (true) {
+            int l = size(t.left);
+            if (offset < l) {
+                t = t.left;
+            } else {
+                offset -= l;
+                if (offset < t.length)
+                    return text[t.buffer][t.start + offset];
+                offset -= t.length;
+                t = t.right;
+            }
+        }
+    }
+
+    /** copies the chars from offset from to offset to into dst at dstOffset */
+    public void copy(int from, int to, char[] dst, int dstOffset) {
+        if (from < 0 || to > length() || from > to)
+            throw new IndexOutOfBoundsException(from + ".." + to);
+        copy(root, from, to, dst, dstOffset - from);
+    }
+
+    private void copy(Node t, int from, int to, char[] dst, int shift) {
+        while (t != null && from < to) {
+            int l = size(t.left);
+            if (from < l)
+                copy(t.left, from, Math.min(to, l), dst, shift);
+            int a = Math.max(from, l), b = Math.min(to, l + t.length);
+            if (a < b)
+                System.arraycopy(text[t.buffer], t.start + a - l, dst, a + shift, b - a);
+            int r = l + t.length;
+            from = Math.max(from, r) - r;
+            to -= r;
+            shift += r;
+            t = t.right;
+        }
+    }
+
+    public String substring(int from, int to) {
+        char[] c = new char[to - from];
+        copy(from, to, c, 0);
+        return new String(c);
+    }
+
+    @Override
+    public String toString() {
+        return substring(0, length());
+    }
+
+    public void insert(int offset, CharSequence s) {
+        int n = s.length();
+        if (n == 0)
+            return;
+        if (offset < 0 || offset > length())
+            throw new IndexOutOfBoundsException(offset);
+
+        int start = added, firstBreak = addedBreaks;
+        append(s);
+        int lines = addedBreaks - firstBreak;
+
+        Node[] lr = split(root, offset);
+        Node l = lr[0], r = lr[1];
+        if (!extend(l, start, n, lines))
+            l = merge(l, new Node(ADDED, start, n, firstBreak, lines, priorities.nextInt()));
+        root = merge(l, r);
+    }
+
+    public void delete(int from, int to) {
+        if (from < 0 || to > length() || from > to)
+            throw new IndexOutOfBoundsException(from + ".." + to);
+        if (from == to)
+            return;
+        Node[] lr = split(root, from);
+        Node[] mr = split(lr[1], to - from);
+        root = merge(lr[0], mr[1]);
+    }
+
+    private void append(CharSequence s) {
+        int n = s.length();
+        char[] a = text[ADDED];
+        if (added + n > a.length)
+            text[ADDED] = a = Arrays.copyOf(a, Math.max(a.length * 2, added + n));
+        int[] b = breaks[ADDED];
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '\n') {
+                if (addedBreaks == b.length)
+                    breaks[ADDED] = b = Arrays.copyOf(b, b.length * 2);
+                b[addedBreaks++] = added + i;
+            }
+            a[added + i] = c;
+        }
+        added += n;
+    }
+
+    /** lengthens the last piece of t by the n chars just added at start, if it ends where they begin */
+    private static boolean extend(Node t, int start, int n, int lines) {
+        if (t == null)
+            return false;
+        if (t.right != null) {
+            if (!extend(t.right, start, n, lines))
+                return false;
+        } else if (t.buffer == ADDED && t.start + t.length == start) {
+            t.length += n;
+            t.lines += lines;
+        } else
+            return false;
+        t.update();
+        return true;
+    }
+
+    /** the pieces before offset, and those after, splitting the piece it falls within */
+    private Node[] split(Node t, int offset) {
+        if (t == null)
+            return new Node[2];
+        int l = size(t.left);
+        if (offset <= l) {
+            if (offset == l && offset > 0) {
+                Node left = t.left;
+                t.left = null;
+                t.update();
+                return new Node[]{left, t};
+            }
+            Node[] s = split(t.left, offset);
+            t.left = s[1];
+            t.update();
+            s[1] = t;
+            return s;
+        }
+        int within = offset - l;
+        if (within >= t.length) {
+            Node[] s = split(t.right, within - t.length);
+            t.right = s[0];
+            t.update();
+            s[0] = t;
+            return s;
+        }
+        int at = t.start + within;
+        int before = breaksBefore(t, at) - t.firstBreak;
+        Node tail = new Node(t.buffer, at, t.length - within, t.firstBreak + before, t.lines - before, priorities.nextInt());
+        Node right = merge(tail, t.right);
+        t.length = within;
+        t.lines = before;
+        t.right = null;
+        t.update();
+        return new Node[]{t, right};
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        } else {
+            b.left = merge(a, b.left);
+            b.update();
+            return b;
+        }
+    }
+
+    /** index, in the breaks of t's buffer, of the first break at or after position at */
+    private int breaksBefore(Node t, int at) {
+        int[] b = breaks[t.buffer];
+        int lo = t.firstBreak, hi = t.firstBreak + t.lines;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (b[mid] < at) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int size(Node t) {
+        return t == null ? 0 : t.size;
+    }
+
+    private static int lines(Node t) {
+        return t == null ? 0 : t.subLines;
+    }
+
+    /** a piece: chars [start, start+length) of a buffer, containing the breaks [firstBreak, firstBreak+lines) of it */
+    private static final class Node {
+        final int buffer, priority;
+        int start, length, firstBreak, lines;
+        Node left, right;
+        /** sums of the subtree */
+        int size, subLines;
+
+        Node(int buffer, int start, int length, int firstBreak, int lines, int priority) {
+            this.buffer = buffer;
+            this.start = start;
+            this.length = length;
+            this.firstBreak = firstBreak;
+            this.lines = lines;
+            this.priority = priority;
+            update();
+        }
+
+        void update() {
+            size = size(left) + length + size(right);
+            subLines = lines(left) + lines + lines(right);
+        }
+    }
+}
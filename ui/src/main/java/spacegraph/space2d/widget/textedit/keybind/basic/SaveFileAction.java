@@ -24,14 +24,8 @@ public class SaveFileAction implements Action {
       try (OutputStreamWriter writer =
           new OutputStreamWriter(new FileOutputStream(fileChooser.getSelectedFile()),
               Charsets.UTF_8)) {
-          editor.buffer().lines.forEach(l -> {
-              try {
-                  writer.append(l.toLineString());
-                  writer.append("\n");
-              } catch (Exception e) {
-                  throw new RuntimeException("ファイルの書込みに失敗しました。");
-              }
-        });
+          writer.append(editor.buffer().text());
+          writer.append("\n");
       } catch (IOException e) {
         JOptionPane.showMessageDialog(null, e.getMessage());
       }
@@ -21,7 +21,10 @@ public class CharView extends BufferChar {
 
 
     public void set(BufferChar c) {
-        char C = c.c;
+        set(c.c);
+    }
+
+    public void set(char C) {
         synchronized(this) {
             if (this.c != C) {
                 if (tt != null) {
@@ -2,15 +2,14 @@ package spacegraph.space2d.widget.textedit.view;
 
 import com.jogamp.opengl.GL2;
 import jcog.TODO;
-import spacegraph.space2d.widget.textedit.buffer.BufferChar;
-import spacegraph.space2d.widget.textedit.buffer.BufferLine;
+import spacegraph.space2d.widget.textedit.buffer.Buffer;
 import spacegraph.space2d.widget.textedit.hilite.TextStyle;
 
-import java.util.List;
-
 public class LineView extends TextEditRenderable  {
 
     public CharView[] chars;
+    /** the shown chars, copied from the buffer */
+    private char[] line;
     //public final FastCoWList<CharView> chars;
 
 
@@ -108,30 +107,25 @@ public class LineView extends TextEditRenderable  {
         //return width;
     }
 
-    public void update(BufferLine l, int x1, int x2) {
+    /** shows the columns x1 up to x2 of a row of the buffer */
+    public void update(Buffer b, int row, int x1, int x2) {
 
-        List<BufferChar> ll = l.chars;
-        int s = ll.size();
-        x1 = Math.min(s, x1);
-        x2 = Math.min(s, x2);
+        char[] line = this.line;
+        if (line == null || line.length < x2 - x1)
+            this.line = line = new char[x2 - x1];
+        int n = b.line(row, x1, x2, line);
 
-        for (int c = x1; c < x2; c++) {
-            int i = c - x1;
+        for (int i = 0; i < n; i++) {
             CharView v = this.chars[i];
             if (v == null) chars[i] = v = new CharView();
-            v.set(ll.get(c));
+            v.set(line[i]);
         }
-        for (int j = x2; j < chars.length; j++) {
+        for (int j = n; j < chars.length; j++) {
             if (chars[j]!=null) {
                 chars[j].delete();
                 chars[j] = null;
             }
         }
-
-//        width = x2;
-
-//        if (chars.length > i+1)
-//            Arrays.fill(chars, i+1, chars.length, null);
     }
 
     public void realloc(int l) {
@@ -19,11 +19,33 @@ public abstract class Entity {
 
     public abstract int textureColor(v3d position);
 
+    /** moves the entity.  through {@link Scene#move} for one in a scene, whose index follows it */
+    public void position(v3d position) {
+        this.position = position;
+    }
+
+    /**
+     * writes the axis-aligned bounds, min x, y, z then max x, y, z, at the offset.  unbounded by
+     * default, which a {@link Scene} tests against every ray.
+     */
+    public void bounds(double[] b, int o) {
+        b[o] = b[o + 1] = b[o + 2] = Double.NEGATIVE_INFINITY;
+        b[o + 3] = b[o + 4] = b[o + 5] = Double.POSITIVE_INFINITY;
+    }
+
+    static void bounds(double[] b, int o, v3d center, double halfSize) {
+        b[o] = center.x - halfSize;
+        b[o + 1] = center.y - halfSize;
+        b[o + 2] = center.z - halfSize;
+        b[o + 3] = center.x + halfSize;
+        b[o + 4] = center.y + halfSize;
+        b[o + 5] = center.z + halfSize;
+    }
+
     public void texture(String texture) {
 //        try {
-        if (texture == null) texture = "";
         try {
-            this.texture = texture!=null ? ImageIO.read(new File(texture)) : null;
+            this.texture = texture != null && !texture.isEmpty() ? ImageIO.read(new File(texture)) : null;
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -36,16 +58,24 @@ public abstract class Entity {
     public static class Cube extends Entity {
         double sideLength;
 
-        private final Ray3[] faces;
+        private Ray3[] faces;
 
         public Cube(v3d position, double sideLength, Surface surface, String texture) {
             texture(texture);
             this.position = position;
             this.sideLength = sideLength;
             this.surface = surface;
+            faces = faces(position, sideLength / 2);
+        }
 
-            double hs = sideLength / 2;
-            faces = new Ray3[]{
+        @Override
+        public void position(v3d position) {
+            super.position(position);
+            faces = faces(position, sideLength / 2);
+        }
+
+        private static Ray3[] faces(v3d position, double hs) {
+            return new Ray3[]{
                 new Ray3(
                     position.add(new v3d(-hs, 0, 0)),
                     new v3d(-1, 0, 0)
@@ -99,6 +129,11 @@ public abstract class Entity {
             );
         }
 
+        @Override
+        public void bounds(double[] b, int o) {
+            bounds(b, o, position, sideLength / 2);
+        }
+
         @Override
         public Ray3 collide(v3d rayPosition, v3d rayDirection) {
             Ray3 closestNormal = null;
@@ -166,6 +201,11 @@ public abstract class Entity {
             );
         }
 
+        @Override
+        public void bounds(double[] b, int o) {
+            bounds(b, o, position, radius);
+        }
+
         @Override
         public Ray3 collide(v3d rayPosition, v3d rayDirection) {
             v3d closestPoint = rayDirection.scale(
@@ -0,0 +1,255 @@
+package spacegraph.space3d.raytrace;
+
+import jcog.math.v3d;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy over the {@link Entity#bounds} of a scene's entities, built top-down
+ * by median splits on the longest axis of the centroids.  Rays visit the nearer child first and
+ * skip boxes entered beyond the closest hit so far, and ties in distance go to the entity listed
+ * first, so {@link #castRay} finds what testing every entity in order would.  Unbounded entities
+ * are tested for every ray.
+ */
+final class EntityBvh {
+
+    private static final int LEAF_SIZE = 2;
+    /** relative padding of the boxes, against hits computed just outside them */
+    private static final double PAD = 1.0e-9;
+
+    private final Entity[] entities;
+
+    /** min x, y, z, max x, y, z of each node */
+    private final double[] box;
+    /** right child of an internal node, the left being the next; -1 - first entity of a leaf */
+    private final int[] right;
+    /** entities of a leaf, after its first */
+    private final int[] count;
+    private int nodes;
+
+    /** entity indices, grouped by leaf */
+    private final int[] order;
+    private final int[] unbounded;
+
+    private final double[] bounds;
+
+    /** {@link Scene#version} of the entities when built */
+    final long version;
+
+    /** each thread's closest hit and node stack, reused for its rays */
+    private static final ThreadLocal<Hit> hits = ThreadLocal.withInitial(Hit::new);
+
+    EntityBvh(List<Entity> entities, long version) {
+        this.version = version;
+        int n = entities.size();
+        this.entities = entities.toArray(new Entity[n]);
+
+        bounds = new double[n * 6];
+        int[] bounded = new int[n], unbounded = new int[n];
+        int b = 0, u = 0;
+        for (int i = 0; i < n; i++) {
+            this.entities[i].bounds(bounds, i * 6);
+            if (finite(bounds, i * 6))
+                bounded[b++] = i;
+            else
+                unbounded[u++] = i;
+        }
+        order = Arrays.copyOf(bounded, b);
+        this.unbounded = Arrays.copyOf(unbounded, u);
+
+        int maxNodes = Math.max(1, 2 * b);
+        box = new double[maxNodes * 6];
+        right = new int[maxNodes];
+        count = new int[maxNodes];
+        if (b > 0)
+            build(0, b);
+    }
+
+    int size() {
+        return entities.length;
+    }
+
+    private static boolean finite(double[] b, int o) {
+        for (int i = 0; i < 6; i++)
+            if (!Double.isFinite(b[o + i]))
+                return false;
+        return true;
+    }
+
+    private int build(int start, int end) {
+        int node = nodes++;
+        int o = node * 6;
+        Arrays.fill(box, o, o + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(box, o + 3, o + 6, Double.NEGATIVE_INFINITY);
+        double[] cMin = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] cMax = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = start; i < end; i++) {
+            int e = order[i] * 6;
+            for (int a = 0; a < 3; a++) {
+                double lo = bounds[e + a], hi = bounds[e + 3 + a];
+                double pad = PAD * (1 + Math.abs(lo) + Math.abs(hi));
+                box[o + a] = Math.min(box[o + a], lo - pad);
+                box[o + 3 + a] = Math.max(box[o + 3 + a], hi + pad);
+                double c = lo + hi;
+                cMin[a] = Math.min(cMin[a], c);
+                cMax[a] = Math.max(cMax[a], c);
+            }
+        }
+
+        if (end - start <= LEAF_SIZE) {
+            right[node] = -1 - start;
+            count[node] = end - start;
+            return node;
+        }
+
+        int axis = 0;
+        for (int a = 1; a < 3; a++)
+            if (cMax[a] - cMin[a] > cMax[axis] - cMin[axis])
+                axis = a;
+        int mid = (start + end) >>> 1;
+        select(start, end, mid, axis);
+
+        build(start, mid);
+        right[node] = build(mid, end);
+        return node;
+    }
+
+    /** partially sorts the range by doubled centroid on the axis, so the k-th is in place */
+    private void select(int start, int end, int k, int axis) {
+        int lo = start, hi = end - 1;
+        while (lo < hi) {
+            double pivot = centroid(order[(lo + hi) >>> 1], axis);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centroid(order[i], axis) < pivot) i++;
+                while (centroid(order[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i++] = order[j];
+                    order[j--] = t;
+                }
+            }
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                break;
+        }
+    }
+
+    private double centroid(int entity, int axis) {
+        return bounds[entity * 6 + axis] + bounds[entity * 6 + 3 + axis];
+    }
+
+    /** the closest collision of the ray, or null */
+    Scene.Collision castRay(v3d rayPosition, v3d rayDirection) {
+        Hit hit = hits.get();
+        hit.clear();
+        for (int e : unbounded)
+            hit.test(entities[e], e, rayPosition, rayDirection);
+
+        if (nodes > 0) {
+            double ox = rayPosition.x, oy = rayPosition.y, oz = rayPosition.z;
+            double dx = rayDirection.x, dy = rayDirection.y, dz = rayDirection.z;
+            double dirLenSq = dx * dx + dy * dy + dz * dz;
+            double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+
+            int[] stack = hit.stack;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                double t = enter(node, ox, oy, oz, dx, dy, dz, ix, iy, iz);
+                if (t != t || t * t * dirLenSq > hit.distanceSquared)
+                    continue;
+
+                int r = right[node];
+                if (r < 0) {
+                    for (int i = -1 - r, end = i + count[node]; i < end; i++) {
+                        int e = order[i];
+                        hit.test(entities[e], e, rayPosition, rayDirection);
+                    }
+                } else {
+                    int l = node + 1;
+                    if (top + 2 > stack.length)
+                        hit.stack = stack = Arrays.copyOf(stack, stack.length * 2);
+                    // push the farther child first
+                    double tl = enter(l, ox, oy, oz, dx, dy, dz, ix, iy, iz);
+                    double tr = enter(r, ox, oy, oz, dx, dy, dz, ix, iy, iz);
+                    if (tl <= tr) {
+                        stack[top++] = r;
+                        stack[top++] = l;
+                    } else {
+                        stack[top++] = l;
+                        stack[top++] = r;
+                    }
+                }
+            }
+        }
+
+        Scene.Collision c = hit.entity != null ? new Scene.Collision(hit.entity, hit.normal) : null;
+        hit.clear();
+        return c;
+    }
+
+    /** ray parameter where the ray enters the node's box, 0 if it starts inside, or NaN if it misses */
+    private double enter(int node, double ox, double oy, double oz, double dx, double dy, double dz, double ix, double iy, double iz) {
+        int o = node * 6;
+        double near = 0, far = Double.POSITIVE_INFINITY;
+
+        if (dx == 0) {
+            if (ox < box[o] || ox > box[o + 3]) return Double.NaN;
+        } else {
+            double t1 = (box[o] - ox) * ix, t2 = (box[o + 3] - ox) * ix;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (oy < box[o + 1] || oy > box[o + 4]) return Double.NaN;
+        } else {
+            double t1 = (box[o + 1] - oy) * iy, t2 = (box[o + 4] - oy) * iy;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        if (dz == 0) {
+            if (oz < box[o + 2] || oz > box[o + 5]) return Double.NaN;
+        } else {
+            double t1 = (box[o + 2] - oz) * iz, t2 = (box[o + 5] - oz) * iz;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+
+        return near <= far ? near : Double.NaN;
+    }
+
+    /** closest collision so far, ties going to the lower entity index as in a linear scan */
+    private static final class Hit {
+        Entity entity;
+        Ray3 normal;
+        int index;
+        double distanceSquared;
+        int[] stack = new int[64];
+
+        void clear() {
+            entity = null;
+            normal = null;
+            index = Integer.MAX_VALUE;
+            distanceSquared = Double.POSITIVE_INFINITY;
+        }
+
+        void test(Entity e, int i, v3d rayPosition, v3d rayDirection) {
+            Ray3 n = e.collide(rayPosition, rayDirection);
+            if (n == null)
+                return;
+            double d = n.position.distanceSquared(rayPosition);
+            if (d < distanceSquared || (d == distanceSquared && i < index)) {
+                entity = e;
+                normal = n;
+                index = i;
+                distanceSquared = d;
+            }
+        }
+    }
+}
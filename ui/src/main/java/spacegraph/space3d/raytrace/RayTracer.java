@@ -12,6 +12,8 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static jcog.Util.unitizeSafe;
 
@@ -37,6 +39,8 @@ public final class RayTracer extends JPanel {
 
     private final Scene scene;
     private final Input input;
+    private final ForkJoinPool exe;
+    private final Lst<Renderer> tiles = new Lst<>();
     private BufferedImage img;
     private int[] pixelCache;
 
@@ -49,14 +53,28 @@ public final class RayTracer extends JPanel {
 
 
     public RayTracer(Scene scene) {
-        this(scene, new Input());
+        this(scene, ForkJoinPool.commonPool());
     }
 
-    private RayTracer(Scene scene, Input input) {
+    /** renders the tiles of each frame in parallel on the pool */
+    public RayTracer(Scene scene, ForkJoinPool exe) {
+        this(scene, new Input(), exe);
+    }
+
+    private RayTracer(Scene scene, Input input, ForkJoinPool exe) {
         setIgnoreRepaint(true);
 
         this.scene = scene;
         this.input = input;
+        this.exe = exe;
+
+        int sw = 16, sh = 16;
+        float dw = 1.0f /sw, dh = 1.0f /sh;
+        for (int i = 0; i < sw; i++) {
+            for (int j= 0;j < sh; j++) {
+                tiles.add(new Renderer(i * dw, j * dh, (i+1)*dw, (j+1)*dh));
+            }
+        }
     }
 
     public static void main(String[] args) {
@@ -140,29 +158,69 @@ public final class RayTracer extends JPanel {
 
         frame.addKeyListener(input);
 
+        long sceneTimeNS = Math.round((1.0/fps)* 1.0E9);
 
-        Lst<Renderer> r = new Lst();
-        int sw = 16, sh = 16;
-        float dw = 1.0f /sw, dh = 1.0f /sh;
-        for (int i = 0; i < sw; i++) {
-            for (int j= 0;j < sh; j++) {
-                r.add(new Renderer(i * dw, j * dh, (i+1)*dw, (j+1)*dh));
-            }
+        while (true) {
+            frame(sceneTimeNS);
+            repaint();
         }
+    }
+
+    /**
+     * renders headless into an image of the given size, refining it over the given time, or
+     * further refining the last one if the size is the same.
+     */
+    public BufferedImage render(int width, int height, long timeNS) {
+        input.newSize = new Dimension(width, height);
 
         long sceneTimeNS = Math.round((1.0/fps)* 1.0E9);
-        long subSceneTimeNS = sceneTimeNS / r.size();
+        long start = System.nanoTime();
+        do {
+            frame(Math.min(sceneTimeNS, timeNS));
+        } while (System.nanoTime() - start < timeNS);
+        return img;
+    }
 
-        while (true) {
+    /** rays cast so far */
+    public long rays() {
+        long n = 0;
+        for (Renderer r : tiles)
+            n += r.rays;
+        return n;
+    }
 
-            updateCamera();
+    /**
+     * renders all tiles once, each for its share of the frame time, on the pool.  tiles own
+     * their pixels, so they need no synchronization; idle workers steal the remaining tiles.
+     */
+    private void frame(long sceneTimeNS) {
+        if (updateCamera()) {
+            for (Renderer r : tiles)
+                r.coarse = 1;
+        }
 
+        long tileTimeNS = sceneTimeNS * exe.getParallelism() / tiles.size();
+        exe.invoke(new RenderTiles(0, tiles.size(), tileTimeNS));
+    }
 
-            //r.parallelStream().forEach(x ->
-            r.forEach(x ->
-                x.render(subSceneTimeNS)
-            );
-            repaint();
+    private final class RenderTiles extends RecursiveAction {
+        private final int from, to;
+        private final long tileTimeNS;
+
+        RenderTiles(int from, int to, long tileTimeNS) {
+            this.from = from;
+            this.to = to;
+            this.tileTimeNS = tileTimeNS;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                tiles.get(from).render(tileTimeNS);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RenderTiles(from, mid, tileTimeNS), new RenderTiles(mid, to, tileTimeNS));
+            }
         }
     }
 
@@ -174,16 +232,18 @@ public final class RayTracer extends JPanel {
         }
     }
 
-    /** returns true if camera changed */
+    /** returns true if camera or size changed */
     private boolean updateCamera() {
+        boolean resized = false;
         if (!input.newSize.equals(displaySize)) {
             displaySize = input.newSize;
             resize();
+            resized = true;
         }
 
         //grainMin = 1f / (Math.max(W, H) * superSampling.floatValue());
 
-        return scene.camera.update(input, CAMERA_EPSILON);
+        return scene.camera.update(input, CAMERA_EPSILON) | resized;
     }
 
 
@@ -195,6 +255,17 @@ public final class RayTracer extends JPanel {
 
 
         final Ewma e;
+
+        /**
+         * error floor, raised to 1 when the view changes and halved every frame, so that the
+         * tile refines progressively from grainMax down
+         */
+        float coarse = 1;
+
+        long rays;
+
+        /** end column of the tile's pixels, which its grains may round past */
+        private int px2;
         //FloatAveragedWindow e = new FloatAveragedWindow(window, 0.5f, 0.5f).mode(FloatAveragedWindow.Mode.Mean);
         //FloatNormalized ee = new FloatNormalized(()->eee, 0, 0.000001f) {
 //        static private final float MIN_ERROR = 1f / (3*256);
@@ -250,8 +321,18 @@ public final class RayTracer extends JPanel {
 
             int iterPixels = (int)Math.ceil(RayTracer.this.iterPixels);
 
+            // pixel bounds of the tile, shared exactly with its neighbours
+            int px1 = Math.round(x1 * W), px2 = Math.round(x2 * W);
+            int py1 = Math.round(y1 * H), py2 = Math.round(y2 * H);
+            if (px2 - px1 < 1 || py2 - py1 < 2)
+                return;
+            this.px2 = px2;
+
+            float coarse = this.coarse;
+            this.coarse = coarse / 2;
+
             do {
-                float ePrev = e.meanFloat();
+                float ePrev = Math.max(e.meanFloat(), coarse);
                 ePrev = ePrev*ePrev;
 
                 float grainScale = Util.lerp(unitizeSafe(ePrev/2),
@@ -262,7 +343,7 @@ public final class RayTracer extends JPanel {
                         alphaMax);
 
                 double eNext = renderStochastic(
-                        x1 * W, y1 * H, x2 * W, y2 * H,
+                        px1, py1, px2, py2,
                         alpha,
                         grainScale, iterPixels);
 
@@ -281,7 +362,6 @@ public final class RayTracer extends JPanel {
 //            float W = Math.max(1,(x2-x1) - pw), H = Math.max(1, (y2-y1) - ph);
 
 
-            int SW = RayTracer.this.W, SH = RayTracer.this.H;
             float sW = x2-x1, sH = y2-y1;
             double eAvgSum = 0;
             int renderedPixels = 0;
@@ -296,14 +376,18 @@ public final class RayTracer extends JPanel {
 //            int xy = random.nextInt() & ~(1 << 31);
 //            int x = (xy & Short.MAX_VALUE) % W;
 //            int y = (xy >> 16) % H;
-                float x = x1 + random.nextFloat() * sW;
-                float y = y1 + random.nextFloat() * sH;
-
-                float sx1 = Util.clampSafe(x, 0, SW - 1);
-                float sx2 = Util.clampSafe(x + pw, 0, SW - 1);
+                // grains may start before the tile, so that its first rows and columns are
+                // covered as often as the rest once clipped to it
+                float x = x1 - pw + random.nextFloat() * (sW + pw);
+                float y = y1 - ph + random.nextFloat() * (sH + ph);
+
+                // within the tile: render() rounds the width, so a grain may reach half a pixel
+                // past x2 to cover the last column, and it writes the rows through y2 - 1
+                float sx1 = Util.clampSafe(x, x1, x2);
+                float sx2 = Util.clampSafe(x + pw, x1, x2 + 0.5f);
                 if (sx1<sx2) {
-                    float sy1 = Util.clampSafe(y, 0, SH - 1);
-                    float sy2 = Util.clampSafe(y + ph, 0, SH - 1);
+                    float sy1 = Util.clampSafe(y, y1, y2 - 1);
+                    float sy2 = Util.clampSafe(y + ph, y1, y2 - 1);
                     if (sy1 < sy2) {
 
                         double e = renderRecurse(alpha,
@@ -349,6 +433,7 @@ public final class RayTracer extends JPanel {
             }
 
             int color = color(mx, my);
+            rays++;
 
 
             int ww = Math.max(1, Math.round(fx2 - fx1));
@@ -363,7 +448,7 @@ public final class RayTracer extends JPanel {
 
             for (int y = y1; y <= y2; y++) {
                 int start = y * W + x1;
-                int end = start + ww;
+                int end = y * W + Math.min(x1 + ww, px2);
                 for (int i = start; i < end; i++) {
                     int current = pixelCache[i];
                     int d = colorDelta(current, color);
@@ -7,6 +7,7 @@ import java.io.StringReader;
 import java.util.Collection;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Scene {
 
@@ -23,6 +24,12 @@ public class Scene {
     public final List<Entity> entities = new Lst<>();
     public Camera camera;
 
+    /** scenes of at least this many entities cast rays through an {@link EntityBvh} of them */
+    public int indexThreshold = 8;
+    private volatile EntityBvh index;
+    /** counts changes to the entities, by which the index is rebuilt */
+    private final AtomicLong version = new AtomicLong();
+
     public Scene() {
 
     }
@@ -105,12 +112,48 @@ public class Scene {
     }
 
 
+    public void add(Entity e) {
+        entities.add(e);
+        invalidate();
+    }
+
+    public boolean remove(Entity e) {
+        boolean removed = entities.remove(e);
+        if (removed)
+            invalidate();
+        return removed;
+    }
+
+    public void move(Entity e, v3d position) {
+        e.position(position);
+        invalidate();
+    }
+
+    /**
+     * counts a change to the entities, so that the index is rebuilt for the next ray.  called by
+     * {@link #add}, {@link #remove} and {@link #move}; call after changing entities otherwise, as
+     * by resizing them.  only a change in their number is noticed without.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private EntityBvh index() {
+        EntityBvh i = index;
+        long v = version.get();
+        if (i == null || i.version != v || i.size() != entities.size())
+            index = i = new EntityBvh(entities, v);
+        return i;
+    }
+
     private Collision castRay(v3d rayPosition, v3d rayDirection) {
+        if (entities.size() >= indexThreshold)
+            return index().castRay(rayPosition, rayDirection);
+
         double closestCollisionDistanceSquared = Double.POSITIVE_INFINITY;
         Entity closestEntity = null;
         Ray3 closestNormal = null;
 
-        //TODO use spatial index
         for (Entity entity : entities) {
             Ray3 normal = entity.collide(rayPosition, rayDirection);
             if (normal != null) {
@@ -119,6 +119,33 @@ public class Tex {
         return true;
     }
 
+    /**
+     * uploads a region of the image last {@link #set}, already committed to the texture, after it was changed
+     * there alone
+     * @return false if there is no texture of the image yet, so the whole of it must be set
+     */
+    public boolean update(GL2 gl, int x, int y, int width, int height) {
+        TextureData data = this.data;
+        Texture texture = this.texture;
+        if (data == null || texture == null || updated.get())
+            return false;
+        if (width <= 0 || height <= 0)
+            return true;
+
+        texture.bind(gl);
+        gl.glPixelStorei(GL2.GL_UNPACK_ROW_LENGTH, data.getWidth());
+        gl.glPixelStorei(GL2.GL_UNPACK_SKIP_PIXELS, x);
+        gl.glPixelStorei(GL2.GL_UNPACK_SKIP_ROWS, y);
+        gl.glTexSubImage2D(texture.getTarget(), 0, x, y, width, height,
+                data.getPixelFormat(), data.getPixelType(), data.getBuffer().rewind());
+        gl.glPixelStorei(GL2.GL_UNPACK_ROW_LENGTH, 0);
+        gl.glPixelStorei(GL2.GL_UNPACK_SKIP_PIXELS, 0);
+        gl.glPixelStorei(GL2.GL_UNPACK_SKIP_ROWS, 0);
+        if (mipmap)
+            gl.glGenerateMipmap(texture.getTarget());
+        return true;
+    }
+
 //    public void set(int[] iimage, int width, int height) {
 //        if (!ready())
 //            return;
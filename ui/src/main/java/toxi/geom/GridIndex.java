@@ -0,0 +1,218 @@
+package toxi.geom;
+
+import jcog.tree.rtree.rect.RectF;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * uniform grid of square cells, hashed by their coordinates so that it is unbounded.  an item is indexed in the
+ * cell containing it, and a radius query visits only the cells overlapping the circle, or scans every item when
+ * those would outnumber them.
+ *
+ * items are kept dense in arrays and linked into the list of their cell by position in them, so that moving an
+ * item to another cell, and querying, allocate nothing.  items are identified by equals and hashCode, which must
+ * not change as they move, as with particles.  not thread-safe.
+ */
+public class GridIndex<V extends Vec2D> implements SpatialIndex<V> {
+
+    /** cells along the longer side of the bounds, when fit to them, or 0 if the cell size is fixed */
+    private final int resolution;
+    private float cell, cellInv;
+
+    private final ObjectIntHashMap<V> slots = new ObjectIntHashMap<>();
+    /** first item of each non-empty cell */
+    private final LongIntHashMap heads = new LongIntHashMap();
+
+    private V[] items;
+    private long[] cellOf;
+    /** neighbors within the list of the cell, or -1 */
+    private int[] next, prev;
+    private int size;
+
+    public GridIndex(float cellSize) {
+        this(cellSize, 0);
+    }
+
+    /** cells fit to the bounds: the longer side divided into resolution cells */
+    public GridIndex(RectF bounds, int resolution) {
+        this(cellSize(bounds, resolution), resolution);
+    }
+
+    private GridIndex(float cellSize, int resolution) {
+        if (!(cellSize > 0))
+            throw new IllegalArgumentException("cellSize <= 0");
+        this.resolution = resolution;
+        this.cell = cellSize;
+        this.cellInv = 1 / cellSize;
+        items = (V[]) new Vec2D[16];
+        cellOf = new long[16];
+        next = new int[16];
+        prev = new int[16];
+    }
+
+    private static float cellSize(RectF bounds, int resolution) {
+        float s = Math.max(bounds.w, bounds.h) / resolution;
+        return s > 0 ? s : 1;
+    }
+
+    public final float cellSize() {
+        return cell;
+    }
+
+    /** changes the size of the cells, moving every item into its new cell */
+    public void cellSize(float s) {
+        if (!(s > 0))
+            throw new IllegalArgumentException("cellSize <= 0");
+        if (s == cell)
+            return;
+        cell = s;
+        cellInv = 1 / s;
+        heads.clear();
+        for (int i = 0; i < size; i++)
+            link(i, key(items[i]));
+    }
+
+    @Override
+    public void bounds(RectF bounds) {
+        if (resolution > 0)
+            cellSize(cellSize(bounds, resolution));
+    }
+
+    @Override
+    public void clear() {
+        slots.clear();
+        heads.clear();
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public boolean index(V p) {
+        if (slots.containsKey(p))
+            return false;
+        int i = size;
+        if (i == items.length) {
+            int c = i * 2;
+            items = Arrays.copyOf(items, c);
+            cellOf = Arrays.copyOf(cellOf, c);
+            next = Arrays.copyOf(next, c);
+            prev = Arrays.copyOf(prev, c);
+        }
+        items[i] = p;
+        slots.put(p, i);
+        link(i, key(p));
+        size = i + 1;
+        return true;
+    }
+
+    @Override
+    public boolean isIndexed(V p) {
+        return slots.containsKey(p);
+    }
+
+    @Override
+    public void itemsWithinRadius(Vec2D p, float radius, Consumer<V> results) {
+        float px = p.x, py = p.y, rr = radius * radius;
+        V[] items = this.items;
+        float span = 2 * radius * cellInv + 2; //cells along each side, at most
+        if (!(span * span <= size)) {
+            for (int i = 0, n = size; i < n; i++) {
+                V v = items[i];
+                if (v.distanceToSquared(p) < rr)
+                    results.accept(v);
+            }
+            return;
+        }
+        int[] next = this.next;
+        long x0 = cell(px - radius), x1 = cell(px + radius);
+        long y0 = cell(py - radius), y1 = cell(py + radius);
+        for (long x = x0; x <= x1; x++) {
+            for (long y = y0; y <= y1; y++) {
+                for (int i = heads.getIfAbsent(key(x, y), -1); i >= 0; i = next[i]) {
+                    V v = items[i];
+                    if (v.distanceToSquared(p) < rr)
+                        results.accept(v);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean reindex(V p, Consumer<V> update) {
+        int i = slots.getIfAbsent(p, -1);
+        update.accept(p);
+        if (i < 0)
+            return index(p);
+        long k = key(p);
+        if (k != cellOf[i]) {
+            unlink(i);
+            link(i, k);
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean unindex(V p) {
+        int i = slots.removeKeyIfAbsent(p, -1);
+        if (i < 0)
+            return false;
+        unlink(i);
+        int last = --size;
+        if (i != last)
+            move(last, i);
+        items[last] = null;
+        return true;
+    }
+
+    /** moves the item at slot from into the empty slot to */
+    private void move(int from, int to) {
+        V v = items[from];
+        items[to] = v;
+        long k = cellOf[from];
+        cellOf[to] = k;
+        int p = prev[from], n = next[from];
+        prev[to] = p;
+        next[to] = n;
+        if (p >= 0) next[p] = to;
+        else heads.put(k, to);
+        if (n >= 0) prev[n] = to;
+        slots.put(v, to);
+    }
+
+    private void link(int i, long k) {
+        int h = heads.getIfAbsent(k, -1);
+        next[i] = h;
+        prev[i] = -1;
+        if (h >= 0) prev[h] = i;
+        heads.put(k, i);
+        cellOf[i] = k;
+    }
+
+    private void unlink(int i) {
+        int p = prev[i], n = next[i];
+        if (p >= 0) next[p] = n;
+        else if (n >= 0) heads.put(cellOf[i], n);
+        else heads.remove(cellOf[i]);
+        if (n >= 0) prev[n] = p;
+    }
+
+    private long cell(float c) {
+        return (long) Math.floor(c * cellInv);
+    }
+
+    private long key(Vec2D p) {
+        return key(cell(p.x), cell(p.y));
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) | (y & 0xffffffffL);
+    }
+}
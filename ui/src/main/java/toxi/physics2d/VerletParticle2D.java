@@ -83,6 +83,11 @@ public class VerletParticle2D extends Vec2D {
     static final AtomicInteger serial = new AtomicInteger(0);
     public final int id = serial.getAndIncrement();
 
+    /** position in the {@link VerletParticles2D} holding this, or -1 */
+    transient int slot = -1;
+    /** while coloring springs: the colors of those already colored at this, as bits */
+    transient long springColors;
+
     /**
      * Creates particle at position xyz
      *
@@ -211,6 +216,11 @@ public class VerletParticle2D extends Vec2D {
         return this;
     }
 
+    public VerletParticle2D addForce(float fx, float fy) {
+        force.addSelf(fx, fy);
+        return this;
+    }
+
 //    public VerletParticle2D addVelocity(Vec2D v) {
 //        prev.subSelf(v);
 //        return this;
@@ -228,7 +238,8 @@ public class VerletParticle2D extends Vec2D {
         //Pos(next) = Pos(now) + (Pos(now) - Pos(prev)) + Accel * dt * dt
         //F = ma, a = F/m
 
-        next.addSelf(this.sub(prev).scaleSelf(1 - drag).addSelf(force, 1/mass));
+        float keep = 1 - drag, massInv = 1 / mass;
+        next.addSelf((x - prev.x) * keep + force.x * massInv, (y - prev.y) * keep + force.y * massInv);
 
         clearForce();
     }
@@ -0,0 +1,140 @@
+package toxi.physics2d;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * the particles of a simulation, dense in an array, each knowing its position in it: removal moves the last into
+ * the gap, in constant time, and removing those deleted compacts it in place rather than copying.
+ *
+ * changed while holding this; read without, as when rendering, a reader may skip or repeat a particle moved by a
+ * concurrent removal.
+ */
+public final class VerletParticles2D implements Iterable<VerletParticle2D> {
+
+    private volatile VerletParticle2D[] items = new VerletParticle2D[16];
+    private volatile int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public VerletParticle2D get(int i) {
+        return items[i];
+    }
+
+    /** the array, of which the first size() are the particles; only stable while holding this */
+    VerletParticle2D[] array() {
+        return items;
+    }
+
+    public boolean contains(VerletParticle2D p) {
+        int i = p.slot;
+        VerletParticle2D[] a = items;
+        return i >= 0 && i < a.length && a[i] == p;
+    }
+
+    public synchronized boolean add(VerletParticle2D p) {
+        if (contains(p))
+            return false;
+        VerletParticle2D[] a = items;
+        int n = size;
+        if (n == a.length)
+            items = a = Arrays.copyOf(a, n * 2);
+        a[n] = p;
+        p.slot = n;
+        size = n + 1;
+        return true;
+    }
+
+    public synchronized boolean remove(VerletParticle2D p) {
+        if (!contains(p) || p.slot >= size)
+            return false;
+        removeAt(p.slot);
+        return true;
+    }
+
+    private void removeAt(int i) {
+        VerletParticle2D[] a = items;
+        int last = size - 1;
+        a[i].slot = -1;
+        if (i != last) {
+            VerletParticle2D moved = a[last];
+            a[i] = moved;
+            moved.slot = i;
+        }
+        size = last;
+        a[last] = null;
+    }
+
+    /**
+     * removes those matching, testing each once
+     * @return number removed
+     */
+    public synchronized int removeIf(Predicate<VerletParticle2D> remove) {
+        VerletParticle2D[] a = items;
+        int removed = 0;
+        for (int i = 0; i < size; ) {
+            if (remove.test(a[i])) {
+                removeAt(i); //the last moves here, to test next
+                removed++;
+            } else
+                i++;
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        VerletParticle2D[] a = items;
+        for (int i = 0, n = size; i < n; i++)
+            a[i].slot = -1;
+        Arrays.fill(a, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public void forEach(Consumer<? super VerletParticle2D> each) {
+        int n = size;
+        VerletParticle2D[] a = items;
+        for (int i = 0; i < n && i < a.length; i++) {
+            VerletParticle2D p = a[i];
+            if (p != null)
+                each.accept(p);
+        }
+    }
+
+    @Override
+    public Iterator<VerletParticle2D> iterator() {
+        return new Iterator<>() {
+            final VerletParticle2D[] a = items;
+            final int n = Math.min(size, a.length);
+            int i = skip(0);
+
+            private int skip(int i) {
+                while (i < n && a[i] == null) i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return i < n;
+            }
+
+            @Override
+            public VerletParticle2D next() {
+                if (i >= n)
+                    throw new NoSuchElementException();
+                VerletParticle2D p = a[i];
+                i = skip(i + 1);
+                return p;
+            }
+        };
+    }
+}
@@ -29,6 +29,7 @@ package toxi.physics2d;
 
 import jcog.WTF;
 import jcog.data.list.FastCoWList;
+import jcog.data.list.Lst;
 import jcog.data.map.ConcurrentFastIteratingHashMap;
 import jcog.tree.rtree.rect.RectF;
 import org.jetbrains.annotations.Nullable;
@@ -39,16 +40,29 @@ import toxi.physics2d.behavior.ParticleBehavior2D;
 import toxi.physics2d.constraint.ParticleConstraint2D;
 import toxi.physics2d.spring.VerletSpring2D;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Consumer;
 
 /**
  * 3D particle physics engine using Verlet integration based on:
  * http://en.wikipedia.org/wiki/Verlet_integration
  * http://www.teknikus.dk/tj/gdc2001.htm
+ *
+ * particles are integrated, and springs relaxed, in parallel on a pool: the springs are colored so that no two
+ * of a color share a particle, and each color is relaxed at once.  particles' own constraints are thereby
+ * applied concurrently with others'; global constraints, behaviors and indexing are applied serially.
  */
 public class VerletPhysics2D {
 
+    /** particles, or springs of a color, per task; fewer are updated without forking */
+    private static final int GRAIN = 1024;
+
+    /** colors of springs; those that would need more are relaxed serially, after */
+    private static final int COLORS = 64;
+
 
     /** maximum distance to consider moved */
     float epsilon = VerletSpring2D.EPS;
@@ -82,10 +96,19 @@ public class VerletPhysics2D {
 
 
 
-    /**
-     * TODO use FastIteratingConcurrentHashMap indexed by particle ID
-     */
-    public final FastCoWList<VerletParticle2D> particles = new FastCoWList<>(VerletParticle2D[]::new);
+    public final VerletParticles2D particles = new VerletParticles2D();
+
+    /** springs of the particles, ordered by color, and the end of each color among them */
+    private VerletSpring2D[] springs = new VerletSpring2D[0];
+    private int[] colorEnd = new int[COLORS + 1];
+    /** whether springs or particles were added or removed since coloring */
+    private volatile boolean springsChanged;
+
+    /** per particle, while indexing, whether it moved */
+    private boolean[] moved = new boolean[0];
+
+    private final ForkJoinPool exe;
+    private final Range relax = this::relax, post = this::post, commit = this::commit, settle = this::settle;
 
     //public final FastCoWList<VerletSpring2D> springs = new FastCoWList<>(VerletSpring2D[]::new);
     //TODO public final ConcurrentFastIteratingHashMap<Long,VerletSpring2D> springs = new ConcurrentFastIteratingHashMap<>(new VerletSpring2D[]::new);
@@ -116,8 +139,13 @@ public class VerletPhysics2D {
      * @param drag          drag value 0...1
      */
     public VerletPhysics2D(int numIterations) {
+        this(numIterations, ForkJoinPool.commonPool());
+    }
+
+    public VerletPhysics2D(int numIterations, ForkJoinPool exe) {
 
         this.maxIterations = numIterations;
+        this.exe = exe;
 
 //        if (gravity != null)      addBehavior(new GravityBehavior2D(gravity));
     }
@@ -141,10 +169,13 @@ public class VerletPhysics2D {
 
         p.constrainAll(bounds);
 
-        if (!index.index(p))
-            throw new WTF("could not index: " + p);
+        synchronized (particles) {
+            if (!index.index(p))
+                throw new WTF("could not index: " + p);
 
-        particles.add(p);
+            particles.add(p);
+        }
+        springsChanged = true;
         return this;
     }
 
@@ -157,6 +188,7 @@ public class VerletPhysics2D {
     public VerletPhysics2D addSpring(VerletSpring2D s) {
         s.a.out.add(s);
         s.b.in.add(s);
+        springsChanged = true;
         return this;
     }
 
@@ -165,6 +197,7 @@ public class VerletPhysics2D {
         behaviors.clear();
         constraints.clear();
         particles.clear();
+        springsChanged = true;
         return this;
     }
 
@@ -194,9 +227,14 @@ public class VerletPhysics2D {
      * @return true, if removed successfully
      */
     public boolean removeParticle(VerletParticle2D p) {
-        index.unindex(p);
-        //TODO remove associated springs
-        return particles.remove(p);
+        synchronized (particles) {
+            index.unindex(p);
+            //TODO remove associated springs
+            if (!particles.remove(p))
+                return false;
+        }
+        springsChanged = true;
+        return true;
     }
 
     /**
@@ -209,6 +247,7 @@ public class VerletPhysics2D {
         if (s.a.out.remove(s)) {
             boolean y = s.b.in.remove(s);
             assert(y);
+            springsChanged = true;
             return true;
         }
         return false;
@@ -287,46 +326,90 @@ public class VerletPhysics2D {
         for (ParticleBehavior2D b : behaviors)
             b.configure(subDT);
 
-        for (int i = ii - 1; i >= 0; i--) {
-            preUpdate(subDT);
-            spring(subDT);
-            postUpdate();
-            index(false /*true*/ /* TODO: if bounds changed */);
+        synchronized (particles) {
+            for (int i = ii - 1; i >= 0; i--) {
+                preUpdate(subDT);
+                spring(subDT);
+                postUpdate();
+                index(false /*true*/ /* TODO: if bounds changed */);
+            }
         }
         return this;
     }
 
     private void index(boolean force) {
+        int n = particles.size();
         if (index != null) {
-            for (VerletParticle2D p : particles) {
-                assert (p != null);
-                if (force || p.changed(epsilon)) {
-                    index.reindex(p, VerletParticle2D::commit);
-                } else {
-                    p.commitInactive();
-                }
+            boolean[] moved = this.moved;
+            if (moved.length < n)
+                this.moved = moved = new boolean[Math.max(n, moved.length * 2)];
+            if (force)
+                Arrays.fill(moved, 0, n, true);
+            else
+                forEach(0, n, settle);
+
+            VerletParticle2D[] pp = particles.array();
+            for (int i = 0; i < n; i++) {
+                if (moved[i])
+                    index.reindex(pp[i], VerletParticle2D::commit);
             }
         } else {
-            for (VerletParticle2D p : particles)
-                p.commit();
+            forEach(0, n, commit);
+        }
+    }
+
+    /** notes which particles moved, to be reindexed, and undoes the motion of the rest */
+    private void settle(int from, int to) {
+        VerletParticle2D[] pp = particles.array();
+        boolean[] moved = this.moved;
+        float epsilon = this.epsilon;
+        for (int i = from; i < to; i++) {
+            VerletParticle2D p = pp[i];
+            if (!(moved[i] = p.changed(epsilon)))
+                p.commitInactive();
         }
     }
 
+    private void commit(int from, int to) {
+        VerletParticle2D[] pp = particles.array();
+        for (int i = from; i < to; i++)
+            pp[i].commit();
+    }
+
     /**
      * Updates all particle positions
      */
     protected void preUpdate(float subDT) {
 
-        //local behaviors
-        particles.removeIf((t)-> !t.preUpdate(VerletPhysics2D.this, subDT));
+        //local behaviors; the deleted removed in place
+        if (particles.removeIf(t -> {
+            if (t.preUpdate(VerletPhysics2D.this, subDT))
+                return false;
+            if (index != null)
+                index.unindex(t);
+            return true;
+        }) > 0)
+            springsChanged = true;
 
         //global behaviors
         behaviors.forEachWith(ParticleBehavior2D::applyGlobal, this);
     }
 
     protected void postUpdate() {
+        int n = particles.size();
+        if (constraints.isEmpty())
+            forEach(0, n, post);
+        else
+            post(0, n); //global constraints may not be thread-safe
+    }
+
+    private void post(int from, int to) {
+        VerletParticle2D[] pp = particles.array();
         boolean hasGlobalConstraints = !constraints.isEmpty();
-        for (VerletParticle2D p : particles) {
+        float drag = this.drag;
+        RectF bounds = this.bounds;
+        for (int i = from; i < to; i++) {
+            VerletParticle2D p = pp[i];
             p.postUpdate(drag);
 
             if (hasGlobalConstraints) {
@@ -342,12 +425,119 @@ public class VerletPhysics2D {
     }
 
     /**
-     * Updates all spring connections based on new particle positions
+     * Updates all spring connections based on new particle positions, a color at a time
      *
      * @param subDT
      */
     protected void spring(float subDT) {
-        particles.forEach(p -> p.out.removeIf(s -> !s.update(false)));
+        if (springsChanged)
+            color();
+
+        int[] end = colorEnd;
+        for (int c = 0, from = 0; c < COLORS; from = end[c++])
+            forEach(from, end[c], relax);
+        relax(end[COLORS - 1], end[COLORS]);
+    }
+
+    private void relax(int from, int to) {
+        VerletSpring2D[] s = springs;
+        for (int i = from; i < to; i++) {
+            if (!s[i].update(false))
+                springsChanged = true; //removed when next colored
+        }
+    }
+
+    /**
+     * gathers the springs of the particles, removing those of deleted particles, and colors them greedily: each
+     * takes the least color not yet taken by another spring at either of its particles
+     */
+    private void color() {
+        springsChanged = false;
+
+        VerletParticle2D[] pp = particles.array();
+        int n = particles.size(), count = 0;
+        for (int i = 0; i < n; i++)
+            count += pp[i].out.size();
+
+        VerletSpring2D[] all = new VerletSpring2D[count];
+        Lst<VerletSpring2D> dead = null;
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            for (VerletSpring2D s : pp[i].out) {
+                if (s.a.isDeleted() || s.b.isDeleted()) {
+                    if (dead == null) dead = new Lst<>();
+                    dead.add(s);
+                } else if (m < count) {
+                    all[m++] = s;
+                    s.a.springColors = s.b.springColors = 0;
+                }
+            }
+        }
+        if (dead != null) {
+            for (VerletSpring2D s : dead) {
+                s.a.out.remove(s);
+                s.b.in.remove(s);
+            }
+        }
+
+        int[] color = new int[m], end = new int[COLORS + 1];
+        for (int k = 0; k < m; k++) {
+            VerletSpring2D s = all[k];
+            VerletParticle2D a = s.a, b = s.b;
+            int c = Long.numberOfTrailingZeros(~(a.springColors | b.springColors)); //COLORS if none left
+            if (c < COLORS) {
+                long bit = 1L << c;
+                a.springColors |= bit;
+                b.springColors |= bit;
+            }
+            color[k] = c;
+            end[c]++;
+        }
+        for (int c = 0, at = 0; c <= COLORS; c++) {
+            int size = end[c];
+            end[c] = at;
+            at += size;
+        }
+        VerletSpring2D[] sorted = new VerletSpring2D[m];
+        for (int k = 0; k < m; k++)
+            sorted[end[color[k]]++] = all[k];
+
+        this.springs = sorted;
+        this.colorEnd = end;
+    }
+
+    /** runs each over [from, to), in tasks of the pool when there are enough to be worth forking */
+    private void forEach(int from, int to, Range each) {
+        if (to - from <= GRAIN || exe.getParallelism() < 2) {
+            if (from < to)
+                each.run(from, to);
+        } else
+            exe.invoke(new Split(each, from, to));
+    }
+
+    @FunctionalInterface private interface Range {
+        void run(int from, int to);
+    }
+
+    private static final class Split extends RecursiveAction {
+        private final Range each;
+        private final int from, to;
+
+        Split(Range each, int from, int to) {
+            this.each = each;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN)
+                each.run(from, to);
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Split(each, from, mid), new Split(each, mid, to));
+            }
+        }
     }
 
     public void forEachSpring(Consumer<VerletSpring2D> each) {
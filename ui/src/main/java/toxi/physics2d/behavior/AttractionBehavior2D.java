@@ -30,6 +30,7 @@ package toxi.physics2d.behavior;
 import jcog.Util;
 import toxi.geom.SpatialIndex;
 import toxi.geom.Vec2D;
+import toxi.math.MathUtils;
 import toxi.physics2d.VerletParticle2D;
 
 import java.util.Random;
@@ -62,30 +63,40 @@ public class AttractionBehavior2D<V extends Vec2D> implements ParticleBehavior2D
     public void accept(VerletParticle2D p) {
         if (p == attractor)
             return;
-        Vec2D delta = attractor.sub(p);
-        float distSq = delta.magSquared();
+        float dx = attractor.x - p.x, dy = attractor.y - p.y;
+        float distSq = dx * dx + dy * dy;
         if (distSq < Util.sqr(radius))
-            move(p, delta, distSq);
+            move(p, dx, dy, distSq);
     }
 
 
-    private void move(VerletParticle2D p, Vec2D delta, float distSq) {
-        Vec2D f;
+    /** adds the force along (dx, dy), computed in place so that queries of an index allocate nothing */
+    private void move(VerletParticle2D p, float dx, float dy, float distSq) {
+        float fx, fy;
         boolean repel = strength < 0;
         if (!repel && distSq <= radius) {
             //random direction
             float theta = (float) ((rng.nextFloat()) * Math.PI * 2);
-            float rx = (float) Math.cos(theta);
-            float ry = (float) Math.sin(theta);
-            f = new Vec2D(rx, ry);
+            fx = (float) Math.cos(theta);
+            fy = (float) Math.sin(theta);
         } else {
-            f = delta.normalizeTo(
+            float len =
                     //1.0f - distSq / (radius * radius)
-                    (float) (1.0 / (1+(distSq - Math.max(0,(repel ? radius : 0)))/(radius*radius)))*p.mass
-                    )
-                    .jitter(rng, jitter);
+                    (float) (1.0 / (1+(distSq - Math.max(0,(repel ? radius : 0)))/(radius*radius)))*p.mass;
+            float mag = (float) Math.sqrt(distSq);
+            if (mag > 0) {
+                fx = dx * (len / mag);
+                fy = dy * (len / mag);
+            } else {
+                fx = fy = 0;
+            }
+            if (jitter > 0) {
+                fx += MathUtils.normalizedRandom(rng) * jitter;
+                fy += MathUtils.normalizedRandom(rng) * jitter;
+            }
         }
-        p.addForce(f.scaleSelf(strength*timeStep));
+        float s = strength * timeStep;
+        p.addForce(fx * s, fy * s);
     }
 
     @Override
@@ -59,10 +59,7 @@ import java.util.function.Consumer;
         if (p != null && supportsSpatialIndex()) {
             applyWithIndex(p.index);
         } else {
-            ParticleBehavior2D c = this;
-            for (VerletParticle2D particle : p.particles) {
-                c.accept(particle);
-            }
+            p.particles.forEach(this);
         }
     }
 
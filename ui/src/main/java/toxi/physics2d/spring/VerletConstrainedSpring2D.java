@@ -27,7 +27,6 @@
 
 package toxi.physics2d.spring;
 
-import toxi.geom.Vec2D;
 import toxi.physics2d.VerletParticle2D;
 
 /**
@@ -68,22 +67,30 @@ public class VerletConstrainedSpring2D extends VerletSpring2D {
     }
 
     protected void updateSpring(boolean applyConstraints, float am, float bm) {
-        Vec2D delta = b.sub(a);
+        float dx = b.x - a.x, dy = b.y - a.y;
         // add minute offset to avoid div-by-zero errors
-        float dist = delta.magnitude() + EPS;
+        float dist = (float) Math.sqrt(dx * dx + dy * dy) + EPS;
         float aMassInv = 1 / am;
         float bMassInv = 1 / bm;
         float normDistStrength = (dist - restLength)
                 / (dist * (aMassInv + bMassInv)) * strength;
         if (!a.isLocked && !isALocked) {
-            a.next.addSelf(delta.scale(normDistStrength * aMassInv).limit(limit));
+            float s = limit(normDistStrength * aMassInv, dist - EPS);
+            a.next.addSelf(dx * s, dy * s);
             if (applyConstraints)
                 a.applyConstraints();
         }
         if (!b.isLocked && !isBLocked) {
-            b.next.subSelf(delta.scale(normDistStrength * bMassInv).limit(limit));
+            float s = limit(normDistStrength * bMassInv, dist - EPS);
+            b.next.subSelf(dx * s, dy * s);
             if (applyConstraints)
                 b.applyConstraints();
         }
     }
+
+    /** the scale of delta, of length len, limited to a displacement of at most limit */
+    private float limit(float scale, float len) {
+        float d = Math.abs(scale) * len;
+        return d > limit ? scale * (limit / d) : scale;
+    }
 }
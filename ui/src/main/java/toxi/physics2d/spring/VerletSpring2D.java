@@ -27,7 +27,6 @@
 
 package toxi.physics2d.spring;
 
-import toxi.geom.Vec2D;
 import toxi.physics2d.VerletParticle2D;
 
 /**
@@ -154,22 +153,24 @@ public class VerletSpring2D {
     }
 
     protected void updateSpring(boolean applyConstraints, float am, float bm) {
-        Vec2D delta = b.sub(a);
+        float dx = b.x - a.x, dy = b.y - a.y;
         // add minute offset to avoid div-by-zero errors
-        float dist = delta.magnitude() + EPS;
+        float dist = (float) Math.sqrt(dx * dx + dy * dy) + EPS;
         float aInvMass = 1/ am;
 
         float bInvMass = 1/ bm;
         float normDistStrength = (dist - restLength)
                 / (dist * (aInvMass + bInvMass)) * strength;
         if (!a.isLocked && !isALocked) {
-            a.next.addSelf(delta.scale(normDistStrength * aInvMass));
+            float s = normDistStrength * aInvMass;
+            a.next.addSelf(dx * s, dy * s);
             if (applyConstraints) {
                 a.applyConstraints();
             }
         }
         if (!b.isLocked && !isBLocked) {
-            b.next.addSelf(delta.scale(-normDistStrength * bInvMass));
+            float s = -normDistStrength * bInvMass;
+            b.next.addSelf(dx * s, dy * s);
             if (applyConstraints) {
                 b.applyConstraints();
             }
@@ -0,0 +1,78 @@
+package net.beadsproject.beads.core;
+
+import net.beadsproject.beads.data.Sample;
+import net.beadsproject.beads.file.WavFileReaderWriter;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * offline rendering of the {@link UGenScheduleBench} patch by {@link NonrealtimeIO}: seconds of audio rendered per
+ * second, into a {@link Sample} and streamed to a 32 bit float wav file.  the file read back is expected to match
+ * the sample, as is the same duration rendered in two halves, the second continuing from where the first was
+ * stopped.
+ */
+public class NonrealtimeIOBench {
+
+    static final double SECONDS = 20;
+    static final int BUFFER = 512;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("nrt");
+        String wav = dir.resolve("render.wav").toString();
+        try {
+            System.out.println("target\tcompiled\tx realtime");
+            for (boolean compiled : new boolean[]{false, true}) {
+                long start = System.nanoTime();
+                Sample s = context(compiled).render(SECONDS * 1000);
+                System.out.printf("sample\t%s\t%.2f%n", compiled, SECONDS / ((System.nanoTime() - start) / 1.0e9));
+
+                start = System.nanoTime();
+                long frames = context(compiled).render(SECONDS * 1000, wav, 32);
+                System.out.printf("wav\t%s\t%.2f\t%.1f MB%n", compiled, SECONDS / ((System.nanoTime() - start) / 1.0e9),
+                        new File(wav).length() / 1.0e6);
+
+                float[][] read = new WavFileReaderWriter().readAudioFile(wav);
+                float[][] rendered = new float[s.getNumChannels()][(int) s.getNumFrames()];
+                s.getFrames(0, rendered);
+                int mismatches = 0;
+                for (int c = 0; c < rendered.length; c++)
+                    for (int i = 0; i < frames; i++)
+                        if (read[c][i] != rendered[c][i])
+                            mismatches++;
+                System.out.println("frames\t" + frames + "\t" + s.getNumFrames() + "\tmismatches\t" + mismatches);
+
+                NonrealtimeIO halves = context(compiled);
+                long half = s.getNumFrames() / 2 / BUFFER * BUFFER;
+                float[][] resumed = new float[rendered.length][(int) (2 * half)];
+                int[] at = {0};
+                NonrealtimeIO.Sink into = (chunk, length) -> {
+                    for (int c = 0; c < resumed.length; c++)
+                        System.arraycopy(chunk[c], 0, resumed[c], at[0], length);
+                    at[0] += length;
+                };
+                halves.render(half, into);
+                halves.context.stop(); //as by a stop trigger
+                halves.render(half, into);
+                mismatches = 0;
+                for (int c = 0; c < rendered.length; c++)
+                    for (int i = 0; i < 2 * half; i++)
+                        if (resumed[c][i] != rendered[c][i])
+                            mismatches++;
+                System.out.println("halves\ttime step\t" + halves.context.getTimeStep() + "\t" + 2 * half / BUFFER + "\tmismatches\t" + mismatches);
+            }
+        } finally {
+            Files.deleteIfExists(Path.of(wav));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    static NonrealtimeIO context(boolean compiled) {
+        NonrealtimeIO io = new NonrealtimeIO();
+        AudioContext ac = new AudioContext(io, BUFFER, new IOAudioFormat(44100, 16, 0, 1));
+        UGenScheduleBench.patch(ac);
+        ac.setCompiled(compiled);
+        return io;
+    }
+}
@@ -0,0 +1,76 @@
+package net.beadsproject.beads.core;
+
+import net.beadsproject.beads.data.WaveFactory;
+import net.beadsproject.beads.ugens.Gain;
+import net.beadsproject.beads.ugens.WavePlayer;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * time per buffer of a patch of 1000 UGens (oscillators each through its own gain into {@link AudioContext#out},
+ * half of the gains sharing one LFO), updated recursively, through the compiled {@link UGenSchedule}, and through
+ * it with the common pool as workers.  an xrun is a buffer that took longer than it plays for.  the output
+ * checksums are expected to match.
+ */
+public class UGenScheduleBench {
+
+    static final int VOICES = 500;
+    static final int BUFFER = 512;
+    static final int WARMUP = 2_000, BUFFERS = 10_000;
+
+    public static void main(String[] args) {
+        System.out.println("mode\tugens\tlevels\tmean us\tp99 us\tmax us\txruns\tchecksum");
+        for (int round = 0; round < 2; round++) {
+            run("recursive", false, null);
+            run("compiled", true, null);
+            run("parallel", true, ForkJoinPool.commonPool());
+        }
+    }
+
+    static void run(String mode, boolean compiled, ForkJoinPool workers) {
+        IOAudioFormat format = new IOAudioFormat(44100, 16, 0, 1);
+        AudioContext ac = new AudioContext(new UGenOutput(), BUFFER, format);
+        patch(ac);
+        ac.setCompiled(compiled);
+        ac.setWorkers(workers);
+        UGenSchedule s = ac.schedule(true);
+
+        for (int i = 0; i < WARMUP; i++)
+            ac.update();
+
+        long[] ns = new long[BUFFERS];
+        double checksum = 0;
+        for (int i = 0; i < BUFFERS; i++) {
+            long start = System.nanoTime();
+            ac.update();
+            ns[i] = System.nanoTime() - start;
+            float[] out = ac.out.getOutBuffer(0);
+            for (int j = 0; j < BUFFER; j++)
+                checksum += out[j];
+        }
+
+        long budget = Math.round(1.0e9 * BUFFER / format.sampleRate);
+        int xruns = 0;
+        double sum = 0;
+        for (long t : ns) {
+            sum += t;
+            if (t > budget)
+                xruns++;
+        }
+        Arrays.sort(ns);
+        System.out.printf("%s\t%d\t%d\t%.1f\t%.1f\t%.1f\t%d\t%.6f%n", mode, s.size(), s.levels(),
+                sum / BUFFERS / 1.0e3, ns[(int) (BUFFERS * 0.99)] / 1.0e3, ns[BUFFERS - 1] / 1.0e3, xruns, checksum);
+    }
+
+    static void patch(AudioContext ac) {
+        WavePlayer lfo = new WavePlayer(ac, 0.5f, WaveFactory.SINE);
+        for (int v = 0; v < VOICES; v++) {
+            WavePlayer osc = new WavePlayer(ac, 110 + v * 3.7f, WaveFactory.SINE);
+            Gain g = v % 2 == 0 ? new Gain(ac, 1, lfo) : new Gain(ac, 1, 0.5f);
+            g.in(osc);
+            ac.out.in(g);
+        }
+        ac.out.setGain(1.0f / VOICES);
+    }
+}
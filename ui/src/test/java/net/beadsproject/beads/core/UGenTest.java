@@ -0,0 +1,63 @@
+package net.beadsproject.beads.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UGenTest {
+
+    /**
+     * two UGens updating each other from their gen, each entered from its own thread at once: neither waits
+     * for the other forever, and each updates once per time step
+     */
+    @Test
+    public void feedbackAcrossThreads() throws Exception {
+        AudioContext ac = new AudioContext(new UGenOutput(), 64, new IOAudioFormat(44100, 16, 0, 1));
+        CyclicBarrier claimed = new CyclicBarrier(2);
+        Feedback p = new Feedback(ac, claimed), q = new Feedback(ac, claimed);
+        p.other = q;
+        q.other = p;
+
+        ExecutorService exe = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true); //left spinning if deadlocked
+            return t;
+        });
+        try {
+            for (int step = 1; step <= 20; step++) {
+                Future<?> a = exe.submit(() -> { p.update(); }), b = exe.submit(() -> { q.update(); });
+                a.get(10, TimeUnit.SECONDS);
+                b.get(10, TimeUnit.SECONDS);
+                assertEquals(step, p.gens);
+                assertEquals(step, q.gens);
+                ac.update(); //next time step
+            }
+        } finally {
+            exe.shutdownNow();
+        }
+    }
+
+    static class Feedback extends UGen {
+        final CyclicBarrier claimed;
+        UGen other;
+        int gens;
+
+        Feedback(AudioContext ac, CyclicBarrier claimed) {
+            super(ac, 1);
+            this.claimed = claimed;
+        }
+
+        @Override
+        protected void gen() {
+            gens++;
+            try {
+                claimed.await(10, TimeUnit.SECONDS); //both claimed, before either reaches the other
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                throw new RuntimeException(e);
+            }
+            other.update();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package spacegraph.audio;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * a signal viewed by many spectrograms: time and garbage per second of audio when each view runs its own
+ * {@link STFT}, and when all subscribe to the one {@link STFT#shared} transform.  the peak bin of the test
+ * tone is expected to read its amplitude.
+ */
+public class STFTBench {
+
+    static final int RATE = 44100, BLOCK = 512;
+    static final int SIZE = 2048, HOP = 512;
+    static final int VIEWS = 32;
+    static final int SECONDS = 20;
+
+    static final float TONE_HZ = RATE * 100f / SIZE, TONE_AMP = 0.5f; // centered on bin 100
+
+    public static void main(String[] args) {
+        System.out.println("mode\tviews\tms per s\tKB per s\tframes\tpeak bin\tpeak");
+        for (int round = 0; round < 2; round++) {
+            run(false);
+            run(true);
+        }
+    }
+
+    static void run(boolean shared) {
+        Object source = new Object();
+        float[] block = new float[BLOCK];
+        STFT[] feeds = new STFT[1];
+        long[] frames = {0};
+        float[] peak = new float[2];
+
+        STFT.Listener[] views = new STFT.Listener[VIEWS];
+        for (int v = 0; v < VIEWS; v++) {
+            boolean first = v == 0;
+            views[v] = m -> {
+                if (first) {
+                    frames[0]++;
+                    float[] x = m[0];
+                    int b = 0;
+                    for (int i = 1; i < x.length; i++)
+                        if (x[i] > x[b]) b = i;
+                    peak[0] = b;
+                    peak[1] = x[b];
+                }
+            };
+        }
+
+        STFT[] own = new STFT[VIEWS];
+        STFT.Subscription[] subs = new STFT.Subscription[VIEWS];
+        for (int v = 0; v < VIEWS; v++) {
+            if (shared) {
+                subs[v] = STFT.shared(source, 1, SIZE, HOP, STFT.Window.HANN, s -> {
+                    feeds[0] = s;
+                    return () -> feeds[0] = null;
+                }, views[v]);
+            } else {
+                own[v] = new STFT(1, SIZE, HOP, STFT.Window.HANN);
+                own[v].on(views[v]);
+            }
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytes0 = threads.getCurrentThreadAllocatedBytes(), start = System.nanoTime();
+        long samples = (long) SECONDS * RATE;
+        for (long at = 0; at < samples; at += BLOCK) {
+            for (int i = 0; i < BLOCK; i++)
+                block[i] = TONE_AMP * (float) Math.sin(2 * Math.PI * TONE_HZ * (at + i) / RATE);
+            if (shared)
+                feeds[0].write(block, 0, BLOCK);
+            else
+                for (STFT s : own)
+                    s.write(block, 0, BLOCK); // each view fed the signal
+        }
+        double ms = (System.nanoTime() - start) / 1.0e6;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytes0;
+
+        for (STFT.Subscription s : subs)
+            if (s != null)
+                s.close();
+
+        System.out.printf("%s\t%d\t%.1f\t%.1f\t%d\t%d\t%.3f%n", shared ? "shared" : "separate", VIEWS,
+                ms / SECONDS, bytes / 1024.0 / SECONDS, frames[0], (int) peak[0], peak[1]);
+        if (feeds[0] != null)
+            throw new IllegalStateException("feed not disconnected");
+    }
+}
@@ -0,0 +1,95 @@
+package spacegraph.audio;
+
+import java.util.Arrays;
+
+/**
+ * time per buffer of {@link SoundMixer#read} with many wavetable voices circling the listener, so that
+ * which of them are audible changes every buffer, compared with the time the buffer plays for.
+ */
+public class SoundMixerBench {
+
+    static final int POLYPHONY = 32;
+    static final int RATE = 44100, BUFFER = RATE / 20;
+    static final int WARMUP = 200, BUFFERS = 1_000;
+
+    public static void main(String[] args) {
+        System.out.println("voices\taudible\tmean us\tp99 us\tmax us\t% of buffer");
+        for (int round = 0; round < 2; round++)
+            for (int voices : new int[]{64, 256, 1024, 4096})
+                run(voices);
+    }
+
+    static void run(int voices) {
+        SoundMixer m = new SoundMixer(POLYPHONY);
+        m.setSoundListener(SoundSource.center);
+        float[] t = {0};
+        for (int v = 0; v < voices; v++) {
+            float phase = v * 2.399f, radius = 1 + v % 7, speed = 0.5f + (v % 13) * 0.1f;
+            SoundSource orbit = new SoundSource() {
+                @Override
+                public float getX(float alpha) {
+                    return radius * (float) Math.cos(phase + speed * t[0]);
+                }
+
+                @Override
+                public float getY(float alpha) {
+                    return radius * (float) Math.sin(phase + speed * t[0]);
+                }
+            };
+            m.add(new Wavetable(110 + v * 1.3f), orbit, 1, 1 + v % 3);
+        }
+
+        float[] left = new float[BUFFER], right = new float[BUFFER];
+        long[] ns = new long[BUFFERS];
+        for (int i = -WARMUP; i < BUFFERS; i++) {
+            t[0] += (float) BUFFER / RATE;
+            m.update(0);
+            Arrays.fill(left, 0);
+            Arrays.fill(right, 0);
+            m.read(left, right, RATE);
+            if (i >= 0)
+                ns[i] = m.mixNanos();
+        }
+
+        double sum = 0;
+        for (long x : ns)
+            sum += x;
+        Arrays.sort(ns);
+        double mean = sum / BUFFERS;
+        System.out.printf("%d\t%d\t%.1f\t%.1f\t%.1f\t%.2f%n", voices, m.audible(), mean / 1.0e3,
+                ns[(int) (BUFFERS * 0.99)] / 1.0e3, ns[BUFFERS - 1] / 1.0e3, 100 * mean / (1.0e9 * BUFFER / RATE));
+    }
+
+    /** sine oscillator reading a table, cheap enough that the mixing dominates */
+    static final class Wavetable implements SoundProducer {
+        static final float[] SINE = new float[4096];
+
+        static {
+            for (int i = 0; i < SINE.length; i++)
+                SINE[i] = (float) Math.sin(2 * Math.PI * i / SINE.length);
+        }
+
+        private final float freq;
+        private float phase;
+
+        Wavetable(float freq) {
+            this.freq = freq;
+        }
+
+        @Override
+        public boolean read(float[] buf, int readRate) {
+            float dp = freq * SINE.length / readRate, p = phase;
+            for (int i = 0; i < buf.length; i++) {
+                buf[i] = SINE[(int) p & (SINE.length - 1)];
+                p += dp;
+            }
+            phase = p % SINE.length;
+            return true;
+        }
+
+        @Override
+        public void skip(int samplesToSkip, int readRate) {
+            phase = (phase + freq * SINE.length / readRate * samplesToSkip) % SINE.length;
+        }
+    }
+}
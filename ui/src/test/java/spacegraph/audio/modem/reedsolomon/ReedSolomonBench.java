@@ -0,0 +1,185 @@
+package spacegraph.audio.modem.reedsolomon;
+
+import spacegraph.audio.modem.chirp.transceive.reedsolomon.GenericGF;
+import spacegraph.audio.modem.chirp.transceive.reedsolomon.ReedSolomonDecoder;
+import spacegraph.audio.modem.chirp.transceive.reedsolomon.ReedSolomonEncoder;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * MB/s of codeword bytes through the batch {@link ReedSolomon} codec, the chirp modem's
+ * {@link ReedSolomonEncoder} / {@link ReedSolomonDecoder}, and {@link RS} with {@link Berlekamp}: encoding,
+ * decoding clean codewords, and decoding codewords with as many errors as the parity corrects.  every
+ * codeword is expected to decode back to what was encoded.
+ */
+public class ReedSolomonBench {
+
+    static final int LENGTH = 255, CODEWORDS = 4096;
+    static final long TIME_NS = 1_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("parity\tcodec\tencode MB/s\tclean MB/s\terrors MB/s\tfailed");
+        for (int round = 0; round < 2; round++) {
+            for (int parity : new int[]{Settings.kParityBytes, 16}) {
+                run(parity, "table", new Table(parity));
+                run(parity, "zxing", new ZXing(parity));
+                if (parity == Settings.kParityBytes)
+                    run(parity, "rscode", new RSCode());
+            }
+        }
+    }
+
+    interface Codec {
+        void encode(byte[] blocks);
+
+        /** @return number of codewords not corrected */
+        int decode(byte[] blocks);
+    }
+
+    static void run(int parity, String name, Codec c) throws Exception {
+        Random rng = new Random(1);
+        byte[] data = new byte[LENGTH * CODEWORDS];
+        rng.nextBytes(data);
+        c.encode(data);
+        byte[] clean = data.clone();
+
+        byte[] noisy = clean.clone();
+        for (int k = 0; k < CODEWORDS; k++)
+            for (int e = 0; e < parity / 2; e++)
+                noisy[k * LENGTH + rng.nextInt(LENGTH)] ^= (byte) (1 + rng.nextInt(255));
+
+        byte[] work = new byte[data.length];
+        double encode = rate(() -> c.encode(work), () -> System.arraycopy(data, 0, work, 0, data.length));
+        double decodeClean = rate(() -> c.decode(work), () -> System.arraycopy(clean, 0, work, 0, data.length));
+        double decodeErrors = rate(() -> c.decode(work), () -> System.arraycopy(noisy, 0, work, 0, data.length));
+
+        System.arraycopy(noisy, 0, work, 0, data.length);
+        int failed = c.decode(work);
+        int wrong = 0;
+        for (int k = 0; k < CODEWORDS; k++)
+            if (!Arrays.equals(work, k * LENGTH, (k + 1) * LENGTH, clean, k * LENGTH, (k + 1) * LENGTH))
+                wrong++;
+
+        System.out.printf("%d\t%s\t%.1f\t%.1f\t%.1f\t%d/%d%n", parity, name, encode, decodeClean, decodeErrors, wrong, failed);
+    }
+
+    interface Op {
+        void run() throws Exception;
+    }
+
+    /** MB/s of op, each run preceded by (untimed) reset */
+    static double rate(Op op, Op reset) throws Exception {
+        long bytes = 0, ns = 0;
+        for (int warm = 0; warm < 3; warm++) {
+            reset.run();
+            op.run();
+        }
+        while (ns < TIME_NS) {
+            reset.run();
+            long start = System.nanoTime();
+            op.run();
+            ns += System.nanoTime() - start;
+            bytes += (long) LENGTH * CODEWORDS;
+        }
+        return bytes / 1.0e6 / (ns / 1.0e9);
+    }
+
+    static final class Table implements Codec {
+        final ReedSolomon rs;
+
+        Table(int parity) {
+            rs = ReedSolomon.rscode(parity);
+        }
+
+        @Override
+        public void encode(byte[] blocks) {
+            rs.encode(blocks, 0, LENGTH, CODEWORDS);
+        }
+
+        @Override
+        public int decode(byte[] blocks) {
+            return rs.decode(blocks, 0, LENGTH, CODEWORDS, null);
+        }
+    }
+
+    static final class ZXing implements Codec {
+        final int parity;
+        final ReedSolomonEncoder enc;
+        final ReedSolomonDecoder dec;
+        final int[] codeword = new int[LENGTH];
+
+        ZXing(int parity) {
+            this.parity = parity;
+            GenericGF f = new GenericGF(0x11D, 256, 1);
+            enc = new ReedSolomonEncoder(f);
+            dec = new ReedSolomonDecoder(f);
+        }
+
+        @Override
+        public void encode(byte[] blocks) {
+            for (int k = 0; k < CODEWORDS; k++) {
+                load(blocks, k);
+                enc.encode(codeword, parity);
+                store(blocks, k);
+            }
+        }
+
+        @Override
+        public int decode(byte[] blocks) {
+            int failed = 0;
+            for (int k = 0; k < CODEWORDS; k++) {
+                load(blocks, k);
+                try {
+                    dec.decode(codeword, parity);
+                    store(blocks, k);
+                } catch (ReedSolomonDecoder.ReedSolomonException e) {
+                    failed++;
+                }
+            }
+            return failed;
+        }
+
+        private void load(byte[] blocks, int k) {
+            for (int i = 0; i < LENGTH; i++)
+                codeword[i] = blocks[k * LENGTH + i] & 0xFF;
+        }
+
+        private void store(byte[] blocks, int k) {
+            for (int i = 0; i < LENGTH; i++)
+                blocks[k * LENGTH + i] = (byte) codeword[i];
+        }
+    }
+
+    /** RSCODE, its parity fixed by {@link Settings#kParityBytes} */
+    static final class RSCode implements Codec {
+        final RS rs = new RS();
+        final byte[] msg = new byte[LENGTH], codeword = new byte[256];
+
+        @Override
+        public void encode(byte[] blocks) {
+            int data = LENGTH - Settings.kParityBytes;
+            for (int k = 0; k < CODEWORDS; k++) {
+                System.arraycopy(blocks, k * LENGTH, msg, 0, data);
+                rs.encode(msg, data, codeword);
+                System.arraycopy(codeword, 0, blocks, k * LENGTH, LENGTH);
+            }
+        }
+
+        @Override
+        public int decode(byte[] blocks) {
+            int failed = 0;
+            for (int k = 0; k < CODEWORDS; k++) {
+                System.arraycopy(blocks, k * LENGTH, codeword, 0, LENGTH);
+                rs.decode(codeword, LENGTH);
+                if (rs.check_syndrome() != 0) {
+                    if (Berlekamp.correct_errors_erasures(rs, codeword, LENGTH, 0, null) == 0)
+                        failed++;
+                    else
+                        System.arraycopy(codeword, 0, blocks, k * LENGTH, LENGTH);
+                }
+            }
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package spacegraph.audio.modem.reedsolomon;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReedSolomonTest {
+
+    static final int TRIALS = 500;
+
+    /** any number of errors up to half the parity, at random positions, is corrected */
+    @Test
+    void errorsUpToLimit() {
+        Random rng = new Random(1);
+        for (int parity : new int[]{2, 4, 8, 16, 32}) {
+            ReedSolomon rs = ReedSolomon.rscode(parity);
+            for (int t = 0; t < TRIALS; t++) {
+                byte[] sent = codeword(rs, rng), got = sent.clone();
+                int errors = rng.nextInt(parity / 2 + 1);
+                corrupt(got, positions(rng, sent.length, errors), rng);
+                assertEquals(errors, rs.decode(got, 0, got.length), "parity " + parity);
+                assertArrayEquals(sent, got);
+            }
+        }
+    }
+
+    /** erasures and errors, each erasure taking one parity symbol and each error two, are corrected */
+    @Test
+    void erasuresAndErrors() {
+        Random rng = new Random(2);
+        for (int parity : new int[]{2, 4, 8, 16, 32}) {
+            ReedSolomon rs = ReedSolomon.rscode(parity);
+            for (int t = 0; t < TRIALS; t++) {
+                byte[] sent = codeword(rs, rng), got = sent.clone();
+                int erasures = rng.nextInt(parity + 1);
+                int errors = rng.nextInt((parity - erasures) / 2 + 1);
+                int[] at = positions(rng, sent.length, erasures + errors);
+                //erased symbols may happen to be right
+                for (int i = 0; i < erasures; i++)
+                    got[at[i]] = (byte) rng.nextInt(256);
+                corrupt(got, Arrays.copyOfRange(at, erasures, at.length), rng);
+
+                int n = rs.decode(got, 0, got.length, at, erasures);
+                assertTrue(n >= errors && n <= erasures + errors, "parity " + parity + ": " + n);
+                assertArrayEquals(sent, got);
+            }
+        }
+    }
+
+    /**
+     * one error too many is mostly found uncorrectable, leaving the codeword as it was; else it is miscorrected
+     * into another codeword, never into a non-codeword
+     */
+    @Test
+    void beyondLimit() {
+        Random rng = new Random(3);
+        for (int parity : new int[]{4, 8, 16, 32}) {
+            ReedSolomon rs = ReedSolomon.rscode(parity);
+            int detected = 0;
+            for (int t = 0; t < TRIALS; t++) {
+                byte[] sent = codeword(rs, rng), got = sent.clone();
+                corrupt(got, positions(rng, sent.length, parity / 2 + 1), rng);
+                byte[] corrupted = got.clone();
+                int n = rs.decode(got, 0, got.length);
+                if (n < 0) {
+                    assertArrayEquals(corrupted, got);
+                    detected++;
+                } else {
+                    assertFalse(Arrays.equals(sent, got));
+                    assertEquals(0, rs.decode(got.clone(), 0, got.length));
+                }
+            }
+            //miscorrection is likelier the fewer errors the code corrects
+            assertTrue(detected >= TRIALS * (parity > 4 ? 9 : 5) / 10, "parity " + parity + ": detected " + detected);
+        }
+
+        //more erasures than parity
+        ReedSolomon rs = ReedSolomon.rscode(4);
+        byte[] got = codeword(rs, rng);
+        got[0] ^= 1;
+        assertEquals(-1, rs.decode(got, 0, got.length, new int[]{0, 1, 2, 3, 4}, 5));
+    }
+
+    /** the batch decodes as each codeword alone, counting those it could not correct */
+    @Test
+    void batch() {
+        Random rng = new Random(4);
+        ReedSolomon rs = ReedSolomon.rscode(8);
+        int length = 64, count = 200;
+        byte[] sent = new byte[length * count];
+        rng.nextBytes(sent);
+        rs.encode(sent, 0, length, count);
+        byte[] got = sent.clone();
+        int[] errors = new int[count];
+        for (int c = 0; c < count; c++) {
+            byte[] w = Arrays.copyOfRange(sent, c * length, (c + 1) * length);
+            assertEquals(0, rs.decode(w, 0, length));
+            errors[c] = rng.nextInt(5);
+            int[] at = positions(rng, length, errors[c]);
+            for (int i = 0; i < at.length; i++)
+                at[i] += c * length;
+            corrupt(got, at, rng);
+        }
+        int[] corrected = new int[count];
+        assertEquals(0, rs.decode(got, 0, length, count, corrected));
+        assertArrayEquals(errors, corrected);
+        assertArrayEquals(sent, got);
+    }
+
+    /** symbols held in ints, over GF(16) as well as GF(256), where they agree with the bytes */
+    @Test
+    void ints() {
+        Random rng = new Random(5);
+        ReedSolomon gf16 = new ReedSolomon(0x13, 16, 0, 6);
+        for (int t = 0; t < TRIALS; t++) {
+            int length = 7 + rng.nextInt(9);
+            int[] sent = new int[length];
+            for (int i = 0; i < length - 6; i++)
+                sent[i] = rng.nextInt(16);
+            gf16.encode(sent, 0, length);
+            assertEquals(0, gf16.decode(sent.clone(), 0, length));
+
+            int[] got = sent.clone();
+            int erasures = rng.nextInt(7), errors = rng.nextInt((6 - erasures) / 2 + 1);
+            int[] at = positions(rng, length, erasures + errors);
+            for (int i = 0; i < at.length; i++)
+                got[at[i]] ^= i < erasures ? rng.nextInt(16) : 1 + rng.nextInt(15);
+            int n = gf16.decode(got, 0, length, at, erasures);
+            assertTrue(n >= errors, "" + n);
+            assertArrayEquals(sent, got);
+
+            got = sent.clone();
+            for (int i : positions(rng, length, 4))
+                got[i] ^= 1 + rng.nextInt(15);
+            int[] corrupted = got.clone();
+            if (gf16.decode(got, 0, length) < 0)
+                assertArrayEquals(corrupted, got);
+        }
+
+        ReedSolomon rs = ReedSolomon.rscode(10);
+        for (int t = 0; t < TRIALS; t++) {
+            byte[] bytes = codeword(rs, rng);
+            int[] ints = new int[bytes.length];
+            for (int i = 0; i < ints.length; i++)
+                ints[i] = bytes[i] & 0xFF;
+            int[] encoded = ints.clone();
+            rs.encode(encoded, 0, encoded.length);
+            assertArrayEquals(ints, encoded);
+
+            int[] at = positions(rng, bytes.length, rng.nextInt(6));
+            corrupt(bytes, at, rng);
+            for (int i : at)
+                ints[i] = bytes[i] & 0xFF;
+            assertEquals(rs.decode(bytes, 0, bytes.length), rs.decode(ints, 0, ints.length));
+            for (int i = 0; i < ints.length; i++)
+                assertEquals(bytes[i] & 0xFF, ints[i]);
+        }
+    }
+
+    /** a random codeword of random length */
+    private static byte[] codeword(ReedSolomon rs, Random rng) {
+        int length = rs.parity + 1 + rng.nextInt(rs.maxLength() - rs.parity);
+        byte[] w = new byte[length];
+        rng.nextBytes(w);
+        rs.encode(w, 0, length);
+        return w;
+    }
+
+    /** n distinct positions of [0, length) */
+    private static int[] positions(Random rng, int length, int n) {
+        int[] all = new int[length];
+        for (int i = 0; i < length; i++)
+            all[i] = i;
+        for (int i = 0; i < n; i++) {
+            int j = i + rng.nextInt(length - i);
+            int t = all[i]; all[i] = all[j]; all[j] = t;
+        }
+        return Arrays.copyOf(all, n);
+    }
+
+    /** changes each symbol at the positions */
+    private static void corrupt(byte[] w, int[] at, Random rng) {
+        for (int i : at)
+            w[i] ^= (byte) (1 + rng.nextInt(255));
+    }
+}
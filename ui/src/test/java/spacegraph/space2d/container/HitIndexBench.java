@@ -0,0 +1,69 @@
+package spacegraph.space2d.container;
+
+import jcog.tree.rtree.rect.RectF;
+import spacegraph.space2d.Surface;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * latency of finding the surface under a moving pointer among n children of a container, each offered it in turn
+ * or found in the hit index; the children still, or some moved between each pointer move, as by a graph layout.
+ * time and allocation of the calling thread per move.
+ */
+public class HitIndexBench {
+
+    static final int MOVES = 20_000;
+
+    public static void main(String[] args) {
+        System.out.println("children\tindex\tmoving\tus/move\tbytes/move");
+        for (int round = 0; round < 2; round++) {
+            for (int n : new int[]{100, 1_000, 10_000, 100_000}) {
+                for (boolean moving : new boolean[]{false, true}) {
+                    run(n, false, moving);
+                    run(n, true, moving);
+                }
+            }
+        }
+    }
+
+    static void run(int n, boolean index, boolean moving) {
+        Random rng = new Random(1);
+        float side = (float) Math.sqrt(n) * 20; //about one child per pointer position
+        HitIndexTest.Free c = new HitIndexTest.Free();
+        c.pos(RectF.X0Y0WH(0, 0, side, side));
+        Surface[] s = new Surface[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = new HitIndexTest.Box();
+            s[i].pos(RectF.X0Y0WH(rng.nextFloat() * side, rng.nextFloat() * side, 10 + rng.nextFloat() * 20, 10 + rng.nextFloat() * 20));
+        }
+        c.add(s);
+        c.hitIndex(index);
+        c.start(() -> null);
+        c.showing(true);
+        HitIndexTest.Point f = new HitIndexTest.Point();
+
+        int moves = index ? MOVES : Math.max(10, MOVES * 100 / n);
+        float[] xy = new float[moves * 2];
+        for (int i = 0; i < xy.length; i++)
+            xy[i] = rng.nextFloat() * side;
+
+        com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        int found = 0;
+        long bytes0 = t.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < moves; i++) {
+            if (moving)
+                s[i % n].move(1, 0);
+            f.posGlobal.set(xy[i * 2], xy[i * 2 + 1]);
+            if (c.finger(f) != null)
+                found++;
+        }
+        long ns = System.nanoTime() - start;
+        long bytes = t.getThreadAllocatedBytes(thread) - bytes0;
+
+        System.out.printf("%d\t%s\t%s\t%.2f\t%d\t(%d found)%n", n, index, moving,
+                ns / 1.0e3 / moves, bytes / moves, found);
+    }
+}
@@ -0,0 +1,186 @@
+package spacegraph.space2d.container;
+
+import jcog.tree.rtree.rect.RectF;
+import org.junit.jupiter.api.Test;
+import spacegraph.SpaceGraph;
+import spacegraph.input.finger.Finger;
+import spacegraph.space2d.ReSurface;
+import spacegraph.space2d.Surface;
+import spacegraph.space2d.container.collection.MutableListContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HitIndexTest {
+
+    /** random moves, additions and removals, each followed by fingers found as by offering each child in turn */
+    @Test
+    public void matchesScan() {
+        Random rng = new Random(1);
+        Free c = new Free();
+        c.hitIndex(true);
+        List<Box> all = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+            all.add(c.box(rng));
+        c.start(() -> null);
+        c.showing(true);
+        Point f = new Point();
+
+        for (int step = 0; step < 500; step++) {
+            switch (rng.nextInt(6)) {
+                case 0 -> all.add(c.box(rng));
+                case 1 -> {
+                    Box b = all.remove(rng.nextInt(all.size()));
+                    assertTrue(c.remove(b));
+                }
+                case 2 -> { //as a layout
+                    for (Box b : all)
+                        b.move(rng.nextFloat() * 10 - 5, rng.nextFloat() * 10 - 5);
+                }
+                default -> {
+                    for (int i = 0; i < 20; i++)
+                        all.get(rng.nextInt(all.size())).move(rng.nextFloat() * 40 - 20, rng.nextFloat() * 40 - 20);
+                }
+            }
+            for (int q = 0; q < 20; q++) {
+                f.posGlobal.set(rng.nextFloat() * 1000, rng.nextFloat() * 1000);
+                assertSame(scan(c, f), c.finger(f));
+            }
+        }
+    }
+
+    /** overlapping children: the topmost, last added, first */
+    @Test
+    public void topmostFirst() {
+        Free c = new Free();
+        Box a = new Box(), b = new Box();
+        c.add(a, b);
+        c.hitIndex(true);
+        c.start(() -> null);
+        c.showing(true);
+        a.pos(RectF.X0Y0WH(0, 0, 10, 10));
+        b.pos(RectF.X0Y0WH(5, 5, 10, 10));
+        Point f = new Point();
+        f.posGlobal.set(7, 7);
+        assertSame(b, c.finger(f));
+        f.posGlobal.set(2, 2);
+        assertSame(a, c.finger(f));
+        f.posGlobal.set(20, 20);
+        assertNull(c.finger(f));
+        b.pos(RectF.X0Y0WH(15, 15, 10, 10)); //refit
+        assertSame(b, c.finger(f));
+    }
+
+    /** children reordered, without any added or removed: the one now topmost first */
+    @Test
+    public void reordered() {
+        Free c = new Free();
+        Box a = new Box(), b = new Box();
+        c.add(a, b);
+        c.hitIndex(true);
+        c.start(() -> null);
+        c.showing(true);
+        a.pos(RectF.X0Y0WH(0, 0, 10, 10));
+        b.pos(RectF.X0Y0WH(5, 5, 10, 10));
+        Point f = new Point();
+        f.posGlobal.set(7, 7);
+        assertSame(b, c.finger(f));
+        c.set(List.of(b, a));
+        assertSame(a, c.finger(f));
+    }
+
+    /** a child is offered the finger with the index unlocked, free to wait for another thread querying it */
+    @Test
+    public void offeredUnlocked() throws InterruptedException {
+        Free c = new Free();
+        Point f = new Point(), g = new Point();
+        Surface[] other = {null};
+        Box a = new Box() {
+            @Override
+            public Surface finger(Finger x) {
+                if (x == f) {
+                    Thread t = new Thread(() -> other[0] = c.finger(g));
+                    t.start();
+                    try {
+                        t.join(10_000);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return super.finger(x);
+            }
+        }, b = new Box();
+        c.add(a, b);
+        c.hitIndex(true);
+        c.start(() -> null);
+        c.showing(true);
+        a.pos(RectF.X0Y0WH(0, 0, 10, 10));
+        b.pos(RectF.X0Y0WH(20, 20, 10, 10));
+        f.posGlobal.set(5, 5);
+        g.posGlobal.set(25, 25);
+        assertSame(a, c.finger(f));
+        assertSame(b, other[0]);
+    }
+
+    /** the topmost child accepting the finger, offering it to each in turn */
+    private static Surface scan(ContainerSurface c, Finger f) {
+        Surface[] found = {null};
+        c.whileEachReverse(s -> (found[0] = s.finger(f)) == null);
+        return found[0];
+    }
+
+    /** a container which leaves its children where they are put */
+    static class Free extends MutableListContainer {
+        Free() {
+            pos(RectF.X0Y0WH(0, 0, 1000, 1000));
+        }
+
+        Box box(Random rng) {
+            Box b = new Box();
+            //some children reacting beyond their bounds
+            b.clipBounds = rng.nextInt(10) > 0;
+            add(b);
+            if (parent != null)
+                b.start(this);
+            b.pos(RectF.X0Y0WH(rng.nextFloat() * 1000, rng.nextFloat() * 1000, 1 + rng.nextFloat() * 60, 1 + rng.nextFloat() * 60));
+            return b;
+        }
+
+        @Override
+        protected void doLayout(float dtS) {
+            forEach(c -> {
+                if (c.parent == null)
+                    c.start(this);
+            });
+        }
+    }
+
+    static class Box extends Surface {
+        @Override
+        protected void render(ReSurface r) {
+        }
+
+        @Override
+        public Surface finger(Finger f) {
+            RectF b = bounds;
+            return f.intersects(clipBounds ? b : RectF.X0Y0WH(b.x - b.w / 2, b.y - b.h / 2, b.w * 2, b.h * 2)) ? this : null;
+        }
+    }
+
+    static class Point extends Finger {
+        Point() {
+            super(1);
+        }
+
+        @Override
+        protected void start(SpaceGraph x) {
+        }
+
+        @Override
+        protected void stop(SpaceGraph x) {
+        }
+    }
+}
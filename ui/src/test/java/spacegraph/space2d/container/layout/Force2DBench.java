@@ -0,0 +1,80 @@
+package spacegraph.space2d.container.layout;
+
+import jcog.random.XoRoShiRo128PlusRandom;
+import spacegraph.util.MutableRectFloat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** repulsion time per iteration vs. node count, all-pairs against Barnes-Hut at several theta */
+public class Force2DBench {
+
+    static final int[] N = {250, 500, 1000, 2000, 4000, 8000};
+    static final float[] THETA = {0, 0.5f, 1.0f};
+
+    public static void main(String[] args) {
+        System.out.print("nodes");
+        for (float t : THETA)
+            System.out.print(t == 0 ? "\tall-pairs ms" : "\ttheta=" + t + " ms\terr");
+        System.out.println();
+
+        for (int n : N) {
+            Force2D<Object> f = scene(n);
+            System.out.print(n);
+
+            double[] exact = null;
+            for (float t : THETA) {
+                f.repelTheta.set(t);
+                int reps = Math.max(3, 2_000_000 / (n * 10));
+                for (int i = 0; i < reps; i++)
+                    run(f);
+
+                long start = System.nanoTime();
+                for (int i = 0; i < reps; i++)
+                    run(f);
+                double ms = (System.nanoTime() - start) / 1.0e6 / reps;
+
+                if (t == 0) {
+                    exact = f.dxy.clone();
+                    System.out.printf("\t%.3f", ms);
+                } else
+                    System.out.printf("\t%.3f\t%.4f", ms, error(exact, f.dxy, n));
+            }
+            System.out.println();
+        }
+    }
+
+    static void run(Force2D<Object> f) {
+        Arrays.fill(f.dxy, 0);
+        f.repel(0.02f);
+    }
+
+    static Force2D<Object> scene(int n) {
+        Random rng = new XoRoShiRo128PlusRandom(1);
+        Force2D<Object> f = new Force2D<>();
+        float extent = 40 * (float) Math.sqrt(n);
+        MutableRectFloat<Object>[] nn = new MutableRectFloat[n];
+        for (int i = 0; i < n; i++) {
+            float s = 5 + rng.nextFloat() * 20;
+            nn[i] = new MutableRectFloat<>();
+            nn[i].setXYWH(rng.nextFloat() * extent, rng.nextFloat() * extent, s, s);
+        }
+        f.nn = nn;
+        f.n = n;
+        f.dxy = new double[n * 2];
+        f.maxRepelDist = extent;
+        f.equilibriumDistFactor = 0.01f;
+        return f;
+    }
+
+    /** relative L2 error of the approximated displacement */
+    static double error(double[] exact, double[] approx, int n) {
+        double e = 0, m = 0;
+        for (int i = 0; i < n * 2; i++) {
+            double d = exact[i] - approx[i];
+            e += d * d;
+            m += exact[i] * exact[i];
+        }
+        return Math.sqrt(e / m);
+    }
+}
@@ -0,0 +1,90 @@
+package spacegraph.space2d.widget.console;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * CPU per frame of a terminal-sized grid with some of its cells changed each frame: drawn with Java2D into the
+ * bitmap and uploaded whole, as {@link BitmapTextGrid} did, against copied from a {@link GlyphAtlas} with only
+ * the bands of changed rows uploaded.  upload is counted in bytes, as it needs GL.
+ */
+public class GlyphAtlasBench {
+
+    static final int COLS = 200, ROWS = 60, W = 20, H = 32;
+    static final int FRAMES = 300;
+    static final int[] PALETTE = {0xFFFFFFFF, 0xFF00FF00, 0xFFFF0000, 0xFF8080FF};
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Font font = new Font(Font.MONOSPACED, Font.PLAIN, H);
+        System.out.println("changed cells\tmode\tus per frame\tKB uploaded per frame");
+        for (int round = 0; round < 2; round++)
+            for (int changed : new int[]{1, 10, 100, COLS * ROWS}) {
+                run(font, changed, false);
+                run(font, changed, true);
+            }
+    }
+
+    static void run(Font font, int changed, boolean atlas) {
+        BufferedImage b = new BufferedImage(COLS * W, ROWS * H, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((java.awt.image.DataBufferInt) b.getRaster().getDataBuffer()).getData();
+        Graphics2D g = b.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(font);
+        char[] c = new char[1];
+        Random rng = new Random(1);
+        int[] from = new int[ROWS], to = new int[ROWS];
+
+        long ns = 0, uploaded = 0;
+        for (int f = -FRAMES / 4; f < FRAMES; f++) {
+            Arrays.fill(from, COLS);
+            Arrays.fill(to, 0);
+            long start = System.nanoTime();
+            for (int i = 0; i < changed; i++) {
+                int col, row;
+                if (changed == COLS * ROWS) {
+                    col = i % COLS;
+                    row = i / COLS;
+                } else { //a line of output being typed, and scattered status cells
+                    col = i % 2 == 0 ? (f + i) % COLS : rng.nextInt(COLS);
+                    row = i % 2 == 0 ? ROWS - 1 : rng.nextInt(ROWS);
+                }
+                char ch = (char) (33 + rng.nextInt(94));
+                int fg = PALETTE[rng.nextInt(PALETTE.length)];
+                if (atlas) {
+                    GlyphAtlas.the(font, W, H, true, false, fg, 0xFF000000).blit(ch, 0, pixels, COLS * W, col * W, row * H);
+                } else {
+                    g.setColor(Color.BLACK);
+                    g.fillRect(col * W, row * H, W, H);
+                    g.setColor(new Color(fg, true));
+                    c[0] = ch;
+                    g.drawChars(c, 0, 1, col * W, row * H + H + 1 - H / 4);
+                }
+                from[row] = Math.min(from[row], col);
+                to[row] = Math.max(to[row], col + 1);
+            }
+            if (f >= 0) {
+                ns += System.nanoTime() - start;
+                if (atlas) {
+                    //bands of consecutive changed rows, each as wide as its rows' changed columns
+                    for (int y = 0; y < ROWS; ) {
+                        if (from[y] >= to[y]) { y++; continue; }
+                        int x1 = COLS, x2 = 0, y2 = y;
+                        for (; y2 < ROWS && from[y2] < to[y2]; y2++) {
+                            x1 = Math.min(x1, from[y2]);
+                            x2 = Math.max(x2, to[y2]);
+                        }
+                        uploaded += (long) (x2 - x1) * W * (y2 - y) * H * 4;
+                        y = y2;
+                    }
+                } else
+                    uploaded += pixels.length * 4L;
+            }
+        }
+        g.dispose();
+        System.out.printf("%d\t%s\t%.1f\t%.1f%n", changed, atlas ? "atlas" : "java2d",
+                ns / 1.0e3 / FRAMES, uploaded / 1024.0 / FRAMES);
+    }
+}
@@ -0,0 +1,75 @@
+package spacegraph.space2d.widget.console;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlyphAtlasTest {
+
+    static {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 32);
+    static final int W = 20, H = 32, FG = 0xFFFFFFFF, BG = 0xFF000000;
+
+    @Test
+    public void shared() {
+        GlyphAtlas a = GlyphAtlas.the(FONT, W, H, true, false, FG, BG);
+        assertSame(a, GlyphAtlas.the(FONT, W, H, true, false, FG, BG));
+        assertNotSame(a, GlyphAtlas.the(FONT, W, H, true, false, FG, 0));
+        assertSame(a.glyph('x', 0), a.glyph('x', 0));
+        assertSame(a.glyph('あ', 0), a.glyph('あ', 0));
+    }
+
+    @Test
+    public void glyphs() {
+        GlyphAtlas a = GlyphAtlas.the(FONT, W, H, false, false, FG, BG);
+        int[] space = a.glyph(' ', 0), x = a.glyph('X', 0);
+        assertEquals(W * H, space.length);
+        assertEquals(0, count(space, FG));
+        assertEquals(W * H, count(space, BG));
+        assertTrue(count(x, FG) > 0);
+        assertTrue(count(a.glyph(' ', GlyphAtlas.UNDERLINE), FG) >= W);
+        assertTrue(count(a.glyph(' ', GlyphAtlas.CURSOR), BG) < W * H);
+    }
+
+    @Test
+    public void blit() {
+        GlyphAtlas a = GlyphAtlas.the(FONT, W, H, false, false, FG, BG);
+        int cols = 3, rows = 2, width = cols * W;
+        int[] bitmap = new int[width * rows * H];
+        a.blit('X', 0, bitmap, width, 2 * W, H);
+        int[] g = a.glyph('X', 0);
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++)
+                assertEquals(g[y * W + x], bitmap[(H + y) * width + 2 * W + x]);
+        assertEquals(W * H, bitmap.length - count(bitmap, 0));
+    }
+
+    /** beyond the most cached, the least recently looked up are dropped, and still draw for those holding them */
+    @Test
+    public void bounded() {
+        GlyphAtlas first = GlyphAtlas.the(FONT, W, H, false, true, FG, 1);
+        GlyphAtlas kept = GlyphAtlas.the(FONT, W, H, false, true, FG, 2);
+        for (int i = 0; i < 2 * GlyphAtlas.MAX_ATLASES; i++) {
+            GlyphAtlas.the(FONT, W, H, false, true, FG, 3 + i).glyph('x', 0);
+            assertSame(kept, GlyphAtlas.the(FONT, W, H, false, true, FG, 2));
+            assertTrue(GlyphAtlas.atlases() <= GlyphAtlas.MAX_ATLASES);
+        }
+        assertNotSame(first, GlyphAtlas.the(FONT, W, H, false, true, FG, 1));
+        int[] x = first.glyph('X', 0), y = first.glyph('\u3042', GlyphAtlas.UNDERLINE);
+        assertEquals(W * H, x.length);
+        assertTrue(count(x, FG) > 0);
+        assertTrue(count(y, FG) >= W);
+    }
+
+    static int count(int[] pixels, int argb) {
+        int n = 0;
+        for (int p : pixels)
+            if (p == argb) n++;
+        return n;
+    }
+}
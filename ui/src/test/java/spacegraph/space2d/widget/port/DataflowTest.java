@@ -0,0 +1,205 @@
+package spacegraph.space2d.widget.port;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataflowTest {
+
+    /** a stream outpacing its receiver delivers only its latest values, as many as fit the mailbox */
+    @Test
+    void coalescing() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Dataflow d = new Dataflow(tasks::add, 4);
+        List<Integer> got = new ArrayList<>();
+        Port<Integer> s = new Port<>(x -> { }), r = new Port<>(x -> got.add(x));
+        Wire w = new Wire(s, r);
+
+        for (int i = 0; i < 100; i++)
+            d.post(w, s, r, i);
+        assertTrue(d.full(r));
+        assertEquals(1, tasks.size(), "scheduled once");
+        run(tasks);
+
+        assertEquals(List.of(96, 97, 98, 99), got);
+        assertFalse(d.full(r));
+        boolean aOrB = w.a == s;
+        assertEquals(4, w.sent(aOrB));
+        assertEquals(96, w.coalesced(aOrB));
+        assertEquals(0, w.sent(!aOrB));
+    }
+
+    /**
+     * values from two wires into one port arrive in the order sent, whether or not some were coalesced, each wire's
+     * ending with its last value
+     */
+    @Test
+    void orderPerPort() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Dataflow d = new Dataflow(tasks::add, 4);
+        List<Integer> got = new ArrayList<>();
+        Port<Integer> s = new Port<>(x -> { }), t = new Port<>(x -> { }), r = new Port<>(x -> got.add(x));
+        Wire ws = new Wire(s, r), wt = new Wire(t, r);
+
+        //never full: all delivered, as sent
+        List<Integer> sent = new ArrayList<>();
+        for (int i = 1; i < 100; i++) {
+            int x = i % 3 == 0 ? -i : i; //negative along t
+            d.post(x < 0 ? wt : ws, x < 0 ? t : s, r, x);
+            sent.add(x);
+            if (i % 4 == 0)
+                run(tasks);
+        }
+        run(tasks);
+        assertEquals(sent, got);
+
+        //coalescing
+        got.clear();
+        for (int i = 1; i <= 100; i++) {
+            d.post(ws, s, r, i);
+            d.post(wt, t, r, -i);
+            if (i % 10 == 0)
+                run(tasks);
+        }
+        run(tasks);
+        int order = 0, lastS = 0, lastT = 0;
+        for (int x : got) {
+            int o = 2 * Math.abs(x) + (x < 0 ? 1 : 0); //i sent before -i
+            assertTrue(o > order, got::toString);
+            order = o;
+            if (x > 0) lastS = x;
+            else lastT = -x;
+        }
+        assertEquals(100, lastS);
+        assertEquals(100, lastT);
+        assertEquals(66 + 100, ws.sent(ws.a == s) + ws.coalesced(ws.a == s));
+        assertEquals(33 + 100, wt.sent(wt.a == t) + wt.coalesced(wt.a == t));
+    }
+
+    /**
+     * on a pool, senders on more threads than the mailbox holds: the handler never overlaps itself, and each wire's
+     * values stay in order and end with its last
+     */
+    @Test
+    void concurrentSenders() throws InterruptedException {
+        ForkJoinPool exe = new ForkJoinPool(4);
+        try {
+            Dataflow d = new Dataflow(exe, 2);
+            int senders = 4, values = 10000;
+            AtomicInteger running = new AtomicInteger();
+            AtomicIntegerArray last = new AtomicIntegerArray(senders);
+            AtomicBoolean overlapped = new AtomicBoolean(), reordered = new AtomicBoolean();
+            Port<int[]> r = new Port<>(x -> {
+                if (running.incrementAndGet() > 1)
+                    overlapped.set(true);
+                if (x[1] <= last.getAndSet(x[0], x[1]))
+                    reordered.set(true);
+                running.decrementAndGet();
+            });
+            Port[] s = new Port[senders];
+            Wire[] w = new Wire[senders];
+            Thread[] threads = new Thread[senders];
+            for (int k = 0; k < senders; k++) {
+                s[k] = new Port<>(x -> { });
+                w[k] = new Wire(s[k], r);
+                int kk = k;
+                threads[k] = new Thread(() -> {
+                    for (int i = 1; i <= values; i++)
+                        d.post(w[kk], s[kk], r, new int[]{kk, i});
+                });
+            }
+            for (Thread t : threads) t.start();
+            for (Thread t : threads) t.join();
+            exe.awaitQuiescence(10, TimeUnit.SECONDS);
+
+            assertFalse(overlapped.get(), "overlapped");
+            assertFalse(reordered.get(), "reordered");
+            for (int k = 0; k < senders; k++) {
+                assertEquals(values, last.get(k), "last value of " + k);
+                boolean aOrB = w[k].a == s[k];
+                assertEquals(values, w[k].sent(aOrB) + w[k].coalesced(aOrB));
+            }
+        } finally {
+            exe.shutdown();
+        }
+    }
+
+    /** a port stopped drops the values pending for it, and those sent after */
+    @Test
+    void stoppedDropsPending() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Dataflow d = new Dataflow(tasks::add, 4);
+        List<Integer> got = new ArrayList<>();
+        Port<Integer> s = new Port<>(x -> { }), r = new Port<>(x -> got.add(x));
+        r.start(() -> null);
+        Wire w = new Wire(s, r);
+        d.post(w, s, r, 1);
+        d.post(w, s, r, 2);
+        r.stop();
+        assertNull(r.mailbox);
+        d.post(w, s, r, 3);
+        run(tasks);
+        assertEquals(List.of(), got);
+        assertNull(r.mailbox);
+    }
+
+    /** whatever escapes a handler leaves the port draining the values after it */
+    @Test
+    void drainsAfterThrow() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Dataflow d = new Dataflow(tasks::add, 4);
+        List<Integer> got = new ArrayList<>();
+        Port<Integer> s = new Port<>(x -> { }), r = new Port<>(x -> {
+            if (x == 1)
+                throw new Error("escapes recv");
+            got.add(x);
+        });
+        Wire w = new Wire(s, r);
+        for (int i = 0; i < 3; i++)
+            d.post(w, s, r, i);
+        assertThrows(Error.class, () -> run(tasks));
+        run(tasks);
+        assertEquals(List.of(0, 2), got);
+
+        d.post(w, s, r, 3);
+        run(tasks);
+        assertEquals(List.of(0, 2, 3), got);
+    }
+
+    /** without a dataflow, a value is handled on the sending thread before send returns */
+    @Test
+    void synchronous() {
+        Thread[] on = new Thread[1];
+        List<Integer> got = new ArrayList<>();
+        Port<Integer> s = new Port<>(x -> { }), r = new Port<>(x -> {
+            on[0] = Thread.currentThread();
+            got.add(x);
+        });
+        Wire w = new Wire(s, r);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(w.send(s, r, i));
+            assertEquals(i, got.get(i));
+        }
+        assertSame(Thread.currentThread(), on[0]);
+        assertNull(r.mailbox);
+        assertEquals(10, w.sent(w.a == s));
+        assertEquals(0, w.coalesced(w.a == s));
+    }
+
+    /** runs the scheduled tasks, and those they schedule, until none are left */
+    private static void run(Queue<Runnable> tasks) {
+        Runnable t;
+        while ((t = tasks.poll()) != null)
+            t.run();
+    }
+}
@@ -0,0 +1,84 @@
+package spacegraph.space2d.widget.textedit.buffer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * a multi-megabyte log in a {@link Buffer}: time to load it, heap it retains, and latency of keystrokes typed,
+ * deleted and entered at random places in it, each followed by its width and a screen of rows copied out, as
+ * rendering does.
+ */
+public class BufferBench {
+
+    static final int SCREEN_ROWS = 50, SCREEN_COLS = 120;
+    static final int KEYSTROKES = 100_000;
+
+    public static void main(String[] args) {
+        System.out.println("MB\tlines\tload ms\theap MB\tbytes/char\tmean us\tp99 us\tmax us");
+        for (int round = 0; round < 2; round++)
+            for (int mb : new int[]{1, 10, 50})
+                run(mb);
+    }
+
+    static void run(int mb) {
+        String log = log(mb << 20);
+        long lines = log.chars().filter(c -> c == '\n').count() + 1;
+
+        long heap0 = heap();
+        long start = System.nanoTime();
+        Buffer b = new Buffer(log);
+        double loadMs = (System.nanoTime() - start) / 1.0e6;
+        long retained = heap() - heap0;
+
+        Random rng = new Random(1);
+        char[] row = new char[SCREEN_COLS];
+        long[] ns = new long[KEYSTROKES];
+        for (int k = 0; k < KEYSTROKES; k++) {
+            if (k % 20 == 0) { //jump somewhere else
+                b.cursor.set(rng.nextInt(b.height()), 0);
+                b.last();
+            }
+            long t = System.nanoTime();
+            switch (rng.nextInt(10)) {
+                case 0 -> b.backspace();
+                case 1 -> b.insertEnter(true);
+                default -> b.insert(String.valueOf((char) ('a' + rng.nextInt(26))));
+            }
+            b.width(); //for horizontal scrolling
+            int top = Math.max(0, b.cursor.row - SCREEN_ROWS / 2);
+            for (int r = top; r < top + SCREEN_ROWS; r++)
+                b.line(r, 0, SCREEN_COLS, row);
+            ns[k] = System.nanoTime() - t;
+        }
+
+        double sum = 0;
+        for (long x : ns)
+            sum += x;
+        Arrays.sort(ns);
+        System.out.printf("%d\t%d\t%.1f\t%.1f\t%.2f\t%.2f\t%.2f\t%.1f%n", mb, lines, loadMs, retained / 1.0e6,
+                (double) retained / log.length(), sum / KEYSTROKES / 1.0e3,
+                ns[(int) (KEYSTROKES * 0.99)] / 1.0e3, ns[KEYSTROKES - 1] / 1.0e3);
+        if (b.height() < lines)
+            throw new IllegalStateException();
+    }
+
+    static String log(int chars) {
+        Random rng = new Random(0);
+        StringBuilder s = new StringBuilder(chars + 200);
+        while (s.length() < chars) {
+            s.append(1_600_000_000_000L + s.length()).append(" INFO worker-").append(rng.nextInt(16))
+                    .append(" processed item ").append(rng.nextInt(1_000_000)).append(" in ").append(rng.nextInt(1000))
+                    .append("ms ").append("x".repeat(rng.nextInt(40))).append('\n');
+        }
+        return s.toString();
+    }
+
+    static long heap() {
+        MemoryMXBean m = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return m.getHeapMemoryUsage().getUsed();
+    }
+}
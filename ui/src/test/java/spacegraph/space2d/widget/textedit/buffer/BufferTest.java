@@ -12,8 +12,8 @@ public class BufferTest {
 
   @Test
   public void initialState() {
-    assertEquals(buf.lines.size(), (1));
-    assertEquals(buf.lines.get(0).length(), (0));
+    assertEquals(buf.height(), (1));
+    assertEquals(buf.length(0), (0));
       assertEquals(buf.cursor, (new CursorPosition(0, 0)));
     buf.forward();
       assertEquals(buf.cursor, (new CursorPosition(0, 0)));
@@ -117,4 +117,71 @@ public class BufferTest {
     assertEquals(buf.text(), (""));
   }
 
-}
\ No newline at end of file
+  @Test
+  public void widthAfterEnter() {
+    buf.insert("abcdefgh\n123");
+    assertEquals(8, buf.width());
+    buf.previous();
+    buf.head();
+    for (int i = 0; i < 4; i++)
+      buf.forward();
+    buf.insertEnter(true);
+    assertEquals("abcd\nefgh\n123", buf.text());
+    assertEquals(4, buf.width());
+  }
+
+  @Test
+  public void widthAfterSplit() {
+    Buffer b = new Buffer("abcdefgh\n123");
+    assertEquals(8, b.width());
+    b.bufferHead();
+    for (int i = 0; i < 4; i++)
+      b.forward();
+    b.insert("X\nY");
+    assertEquals("abcdX\nYefgh\n123", b.text());
+    assertEquals(5, b.width());
+
+    b.insert("zzzzz");
+    assertEquals(10, b.width());
+  }
+
+  @Test
+  public void widthAfterJoin() {
+    Buffer b = new Buffer("aaa\nbbb\nccccc");
+    assertEquals(5, b.width());
+    b.bufferHead();
+    b.next();
+    b.backspace();
+    assertEquals("aaabbb\nccccc", b.text());
+    assertEquals(6, b.width());
+  }
+
+  @Test
+  public void widthAfterCut() {
+    Buffer b = new Buffer("aaaa\nbb\nccccc\nddd");
+    assertEquals(5, b.width());
+    b.bufferHead();
+    for (int i = 0; i < 4; i++)
+      b.forward();
+    b.mark();
+    b.next();
+    b.next();
+    b.head();
+    b.forward(); //row 2, col 1
+    b.cut();
+    assertEquals("aaaacccc\nddd", b.text());
+    assertEquals(8, b.width());
+  }
+
+  @Test
+  public void widthAfterEnterBelowWidest() {
+    Buffer b = new Buffer("abcdefgh\n123");
+    assertEquals(8, b.width());
+    b.insertEnter(true);
+    assertEquals("abcdefgh\n123\n", b.text());
+    assertEquals(8, b.width());
+    b.insert("1234567890\nx");
+    assertEquals(10, b.width());
+  }
+
+}
@@ -0,0 +1,71 @@
+package spacegraph.space2d.widget.textedit.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PieceTableTest {
+
+  @Test
+  public void lines() {
+    PieceTable t = new PieceTable("abc\n\nde");
+    assertEquals(3, t.lines());
+    assertEquals(0, t.lineStart(0));
+    assertEquals(4, t.lineStart(1));
+    assertEquals(5, t.lineStart(2));
+    assertEquals(3, t.lineLength(0));
+    assertEquals(0, t.lineLength(1));
+    assertEquals(2, t.lineLength(2));
+    assertEquals(0, t.line(3));
+    assertEquals(1, t.line(4));
+    assertEquals(2, t.line(7));
+  }
+
+  @Test
+  public void typing() {
+    PieceTable t = new PieceTable("ab");
+    for (char c : "x\ny".toCharArray())
+      t.insert(t.length() - 1, String.valueOf(c));
+    assertEquals("ax\nyb", t.toString());
+    assertEquals(2, t.lines());
+    assertEquals(3, t.lineStart(1));
+  }
+
+  /** random edits, compared with the same edits of a StringBuilder */
+  @Test
+  public void random() {
+    Random rng = new Random(1);
+    StringBuilder expect = new StringBuilder("first\nsecond\n\nfourth");
+    PieceTable t = new PieceTable(expect);
+    for (int i = 0; i < 5000; i++) {
+      int n = expect.length();
+      if (n > 0 && rng.nextInt(3) == 0) {
+        int from = rng.nextInt(n), to = Math.min(n, from + rng.nextInt(8));
+        t.delete(from, to);
+        expect.delete(from, to);
+      } else {
+        int at = rng.nextInt(n + 1);
+        String s = rng.nextInt(4) == 0 ? "\n" : "ab\ncd".substring(rng.nextInt(5));
+        t.insert(at, s);
+        expect.insert(at, s);
+      }
+
+      if (i % 50 == 0) {
+        String e = expect.toString();
+        assertEquals(e, t.toString());
+        String[] lines = e.split("\n", -1);
+        assertEquals(lines.length, t.lines());
+        for (int l = 0, start = 0; l < lines.length; start += lines[l++].length() + 1) {
+          assertEquals(start, t.lineStart(l));
+          assertEquals(lines[l].length(), t.lineLength(l));
+          assertEquals(l, t.line(start));
+        }
+        for (int c = 0; c < e.length(); c += 7)
+          assertEquals(e.charAt(c), t.charAt(c));
+      }
+    }
+  }
+
+}
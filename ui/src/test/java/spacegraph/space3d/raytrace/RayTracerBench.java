@@ -0,0 +1,82 @@
+package spacegraph.space3d.raytrace;
+
+import jcog.math.v3d;
+import jcog.random.XoRoShiRo128PlusRandom;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * headless primary rays per second of {@link RayTracer} on a box of many spheres, on one thread
+ * and on the common pool, with the scene's entities tested linearly and through its
+ * {@link EntityBvh}.  the colors of random rays through both are expected to match, also after
+ * moving some of the spheres half way through.
+ */
+public class RayTracerBench {
+
+    static final int W = 320, H = 240;
+    static final int GRID = 8; // GRID^3 spheres
+    static final long TIME_NS = 2_000_000_000L;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        System.out.println("spheres\tthreads\tindex\trays/s");
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        for (int threads : parallelism > 1 ? new int[]{1, parallelism} : new int[]{1}) {
+            for (boolean indexed : new boolean[]{false, true}) {
+                Scene scene = scene();
+                if (!indexed)
+                    scene.indexThreshold = Integer.MAX_VALUE;
+
+                ForkJoinPool exe = threads == 1 ? new ForkJoinPool(1) : ForkJoinPool.commonPool();
+                RayTracer r = new RayTracer(scene, exe);
+                r.render(W, H, TIME_NS / 4); // warmup
+                long rays0 = r.rays(), start = System.nanoTime();
+                r.render(W, H, TIME_NS);
+                double s = (System.nanoTime() - start) / 1.0e9;
+
+                System.out.printf("%d\t%d\t%s\t%.3e%n", scene.entities.size(), threads, indexed, (r.rays() - rays0) / s);
+                if (exe != ForkJoinPool.commonPool())
+                    exe.shutdown();
+            }
+        }
+
+        System.out.println("mismatches\t" + mismatches(100_000));
+    }
+
+    static int mismatches(int rays) {
+        Scene linear = scene(), indexed = scene();
+        linear.indexThreshold = Integer.MAX_VALUE;
+        Random rng = new XoRoShiRo128PlusRandom(1);
+        int n = 0;
+        for (int i = 0; i < rays; i++) {
+            if (i == rays / 2) { //after the index is built
+                for (Scene s : new Scene[]{linear, indexed})
+                    for (int e = 1; e < s.entities.size(); e += 7) {
+                        Entity moved = s.entities.get(e);
+                        s.move(moved, moved.position.add(new v3d(0.7, -0.3, 0.5)));
+                    }
+            }
+            double x = rng.nextDouble(), y = rng.nextDouble();
+            if (linear.rayColor(linear.camera.ray(x, y, (double) W / H)) != indexed.rayColor(indexed.camera.ray(x, y, (double) W / H)))
+                n++;
+        }
+        return n;
+    }
+
+    static Scene scene() {
+        Scene scene = new Scene();
+        scene.camera = new Camera(new v3d(GRID * 1.5, GRID * 1.2, GRID * 1.1), new v3d(-1, -1, -1), 90, 0);
+        scene.add(new Entity.Cube(new v3d(0, 0, 0), GRID * 4, Entity.Surface.Diffuse, null));
+        for (int i = 0; i < GRID; i++)
+            for (int j = 0; j < GRID; j++)
+                for (int k = 0; k < GRID; k++)
+                    scene.add(new Entity.Sphere(
+                            new v3d((i - GRID / 2.0) * 1.5, (j - GRID / 2.0) * 1.5, (k - GRID / 2.0) * 1.5),
+                            0.5, (i + j + k) % 3 == 0 ? Entity.Surface.Specular : Entity.Surface.Diffuse, null));
+        scene.lights.add(new Scene.Light(new v3d(0, -2, GRID), 0xff8080));
+        scene.lights.add(new Scene.Light(new v3d(GRID, GRID, GRID), 0x80ff80));
+        return scene;
+    }
+}
@@ -0,0 +1,76 @@
+package toxi.geom;
+
+import org.junit.jupiter.api.Test;
+import toxi.physics2d.VerletParticle2D;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridIndexTest {
+
+    @Test
+    public void indexAndRemove() {
+        GridIndex<VerletParticle2D> g = new GridIndex<>(10);
+        VerletParticle2D a = new VerletParticle2D(1, 1), b = new VerletParticle2D(-25, 3);
+        assertTrue(g.index(a));
+        assertTrue(g.index(b));
+        assertFalse(g.index(a));
+        assertEquals(2, g.size());
+        assertEquals(Set.of(a), within(g, new Vec2D(0, 0), 5));
+        assertEquals(Set.of(a, b), within(g, new Vec2D(-10, 0), 20));
+
+        assertTrue(g.unindex(a));
+        assertFalse(g.unindex(a));
+        assertFalse(g.isIndexed(a));
+        assertTrue(g.isIndexed(b));
+        assertEquals(Set.of(b), within(g, new Vec2D(-10, 0), 20));
+    }
+
+    /** random moves, removals and queries, compared with testing every item */
+    @Test
+    public void random() {
+        Random rng = new Random(1);
+        GridIndex<VerletParticle2D> g = new GridIndex<>(4);
+        List<VerletParticle2D> all = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            VerletParticle2D p = new VerletParticle2D(rng.nextFloat() * 100 - 50, rng.nextFloat() * 100 - 50);
+            all.add(p);
+            g.index(p);
+        }
+        for (int step = 0; step < 2000; step++) {
+            VerletParticle2D p = all.get(rng.nextInt(all.size()));
+            switch (rng.nextInt(4)) {
+                case 0 -> {
+                    g.unindex(p);
+                    all.remove(p);
+                    VerletParticle2D q = new VerletParticle2D(rng.nextFloat() * 100 - 50, rng.nextFloat() * 100 - 50);
+                    g.index(q);
+                    all.add(q);
+                }
+                case 1 -> g.cellSize(1 + rng.nextFloat() * 10);
+                default -> {
+                    float dx = rng.nextFloat() * 10 - 5, dy = rng.nextFloat() * 10 - 5;
+                    g.reindex(p, v -> v.set(v.x + dx, v.y + dy));
+                }
+            }
+            Vec2D at = new Vec2D(rng.nextFloat() * 120 - 60, rng.nextFloat() * 120 - 60);
+            float r = rng.nextFloat() * (step % 10 == 0 ? 100 : 10);
+            Set<VerletParticle2D> expect = new HashSet<>();
+            for (VerletParticle2D v : all)
+                if (v.distanceToSquared(at) < r * r) expect.add(v);
+            assertEquals(expect, within(g, at, r));
+            assertEquals(all.size(), g.size());
+        }
+    }
+
+    private static Set<VerletParticle2D> within(GridIndex<VerletParticle2D> g, Vec2D p, float r) {
+        Set<VerletParticle2D> s = new HashSet<>();
+        g.itemsWithinRadius(p, r, v -> assertTrue(s.add(v)));
+        return s;
+    }
+}
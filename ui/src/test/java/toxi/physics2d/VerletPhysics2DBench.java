@@ -0,0 +1,66 @@
+package toxi.physics2d;
+
+import toxi.geom.GridIndex;
+import toxi.geom.QuadtreeIndex;
+import toxi.geom.SpatialIndex;
+import toxi.physics2d.behavior.AttractionBehavior2D;
+import toxi.physics2d.spring.VerletSpring2D;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * a soft layout of 100k particles: a mesh of springs, every 100th particle repelling those near it.  time and
+ * allocation of the calling thread per update, by index, serially and on the common pool.
+ */
+public class VerletPhysics2DBench {
+
+    static final int SIDE = 316, SPACING = 10, UPDATES = 20;
+
+    public static void main(String[] args) {
+        System.out.println("index\tthreads\tms/update\tbytes/update");
+        ForkJoinPool serial = new ForkJoinPool(1);
+        for (int round = 0; round < 2; round++) {
+            run("quadtree", serial);
+            run("grid", serial);
+            run("grid", ForkJoinPool.commonPool());
+        }
+        serial.shutdown();
+    }
+
+    static void run(String index, ForkJoinPool exe) {
+        VerletPhysics2D w = new VerletPhysics2D(2, exe);
+        float extent = SIDE * SPACING;
+        SpatialIndex<VerletParticle2D> i = index.equals("grid") ?
+                new GridIndex<>(SPACING * 4) :
+                new QuadtreeIndex<>(null, -extent, -extent, extent * 3, extent * 3);
+        w.setIndex(i);
+
+        VerletParticle2D[] p = new VerletParticle2D[SIDE * SIDE];
+        for (int y = 0; y < SIDE; y++)
+            for (int x = 0; x < SIDE; x++)
+                w.addParticle(p[y * SIDE + x] = new VerletParticle2D(x * SPACING, y * SPACING));
+        for (int y = 0; y < SIDE; y++) {
+            for (int x = 0; x < SIDE; x++) {
+                VerletParticle2D v = p[y * SIDE + x];
+                if (x + 1 < SIDE) w.addSpring(new VerletSpring2D(v, p[y * SIDE + x + 1], SPACING * 1.1f, 0.5f));
+                if (y + 1 < SIDE) w.addSpring(new VerletSpring2D(v, p[(y + 1) * SIDE + x], SPACING * 1.1f, 0.5f));
+            }
+        }
+        for (int k = 0; k < p.length; k += 100)
+            w.addBehavior(new AttractionBehavior2D<>(p[k], SPACING * 3, -1, 0, null));
+
+        w.update(0.05f); //colors the springs
+
+        com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes0 = t.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int u = 0; u < UPDATES; u++)
+            w.update(0.05f);
+        long ns = System.nanoTime() - start;
+        long bytes = t.getThreadAllocatedBytes(thread) - bytes0;
+
+        System.out.printf("%s\t%d\t%.1f\t%d%n", index, exe.getParallelism(), ns / 1.0e6 / UPDATES, bytes / UPDATES);
+    }
+}
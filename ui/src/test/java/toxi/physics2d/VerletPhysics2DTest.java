@@ -0,0 +1,77 @@
+package toxi.physics2d;
+
+import jcog.tree.rtree.rect.RectF;
+import org.junit.jupiter.api.Test;
+import toxi.geom.GridIndex;
+import toxi.physics2d.behavior.AttractionBehavior2D;
+import toxi.physics2d.spring.VerletSpring2D;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerletPhysics2DTest {
+
+    /** a mesh updated in parallel ends exactly where it does updated serially: no spring races another */
+    @Test
+    public void parallelMatchesSerial() {
+        ForkJoinPool serial = new ForkJoinPool(1), parallel = new ForkJoinPool(4);
+        try {
+            VerletPhysics2D a = mesh(80, serial), b = mesh(80, parallel);
+            float x0 = a.particles.get(1).x;
+            for (int i = 0; i < 20; i++) {
+                a.update(0.05f);
+                b.update(0.05f);
+            }
+            assertEquals(a.particles.size(), b.particles.size());
+            for (int i = 0; i < a.particles.size(); i++) {
+                VerletParticle2D p = a.particles.get(i), q = b.particles.get(i);
+                assertEquals(p.x, q.x);
+                assertEquals(p.y, q.y);
+            }
+            assertNotEquals(x0, a.particles.get(1).x);
+        } finally {
+            serial.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void deletedRemoved() {
+        VerletPhysics2D w = mesh(4, ForkJoinPool.commonPool());
+        VerletParticle2D p = w.particles.get(5);
+        int springs = springs(w);
+        p.delete();
+        w.update(0.05f);
+        assertEquals(15, w.particles.size());
+        assertFalse(w.particles.contains(p));
+        assertFalse(w.index.isIndexed(p));
+        assertEquals(springs - 4, springs(w)); //an inner particle, linked to 4
+    }
+
+    /** n x n particles, each linked to its right and lower neighbors, pushed apart by attractors */
+    static VerletPhysics2D mesh(int n, ForkJoinPool exe) {
+        VerletPhysics2D w = new VerletPhysics2D(2, exe);
+        w.setIndex(new GridIndex<>(20));
+        w.setBounds(RectF.X0Y0WH(-100, -100, n * 10 + 200, n * 10 + 200));
+        VerletParticle2D[] p = new VerletParticle2D[n * n];
+        for (int y = 0; y < n; y++)
+            for (int x = 0; x < n; x++)
+                w.addParticle(p[y * n + x] = new VerletParticle2D(x * 10, y * 10));
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                VerletParticle2D v = p[y * n + x];
+                if (x + 1 < n) w.addSpring(new VerletSpring2D(v, p[y * n + x + 1], 12, 0.5f));
+                if (y + 1 < n) w.addSpring(new VerletSpring2D(v, p[(y + 1) * n + x], 8, 0.5f));
+            }
+        }
+        w.addBehavior(new AttractionBehavior2D<>(p[0], n * 5, -1, 0, null));
+        return w;
+    }
+
+    private static int springs(VerletPhysics2D w) {
+        int[] n = {0};
+        w.forEachSpring(s -> n[0]++);
+        return n[0];
+    }
+}